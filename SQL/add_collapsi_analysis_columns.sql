@@ -0,0 +1,5 @@
+-- Collapsi post-game analysis columns, for databases created before they were added to
+-- create_collapsi_games_table.sql.  Games started before the migration keep NULLs and get no analysis email.
+ALTER TABLE collapsi_games
+    ADD COLUMN initial_board_state TEXT NULL AFTER board_state,
+    ADD COLUMN move_list TEXT NULL AFTER initial_board_state;
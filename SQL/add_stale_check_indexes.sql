@@ -0,0 +1,11 @@
+-- Covering indexes for the stale game checks (com.pbemgs.dko.StaleGamesDKO), for databases created before
+-- they were added to the CREATE TABLE scripts.  The checks filter IN_PROGRESS games on the two timestamps and
+-- read only the game id, the user to act and the phase, so the index answers them without touching the rows
+-- and their board TEXT columns.
+ALTER TABLE tac_games ADD INDEX idx_stale_check (game_state, last_move_timestamp, last_reminder_timestamp, user_id);
+ALTER TABLE ninetac_games ADD INDEX idx_stale_check (game_state, last_move_timestamp, last_reminder_timestamp, user_id_to_move);
+ALTER TABLE ataxx_games ADD INDEX idx_stale_check (game_state, last_move_timestamp, last_reminder_timestamp, user_id_to_move);
+ALTER TABLE loa_games ADD INDEX idx_stale_check (game_state, last_move_timestamp, last_reminder_timestamp, user_id_to_move);
+ALTER TABLE gomoku_games ADD INDEX idx_stale_check (game_state, last_move_timestamp, last_reminder_timestamp, user_id_to_move, swap2_state);
+ALTER TABLE triad_games ADD INDEX idx_stale_check (game_state, last_move_timestamp, last_reminder_timestamp, current_action_userid, game_phase);
+ALTER TABLE collapsi_games ADD INDEX idx_stale_check (game_state, last_move_timestamp, last_reminder_timestamp, current_action_userid);
@@ -0,0 +1,12 @@
+-- Optimistic concurrency version columns, for databases created before they were added to the CREATE TABLE
+-- scripts.  Every version-checked game update (StaleGameUpdateException) needs the column; existing rows start
+-- at 0.  Run this before deploying code that reads or bumps the version.
+ALTER TABLE tac_games ADD COLUMN version INT NOT NULL DEFAULT 0;
+ALTER TABLE ninetac_games ADD COLUMN version INT NOT NULL DEFAULT 0;
+ALTER TABLE ataxx_games ADD COLUMN version INT NOT NULL DEFAULT 0;
+ALTER TABLE surge_games ADD COLUMN version INT NOT NULL DEFAULT 0;
+ALTER TABLE loa_games ADD COLUMN version INT NOT NULL DEFAULT 0;
+ALTER TABLE gomoku_games ADD COLUMN version INT NOT NULL DEFAULT 0;
+ALTER TABLE triad_games ADD COLUMN version INT NOT NULL DEFAULT 0;
+ALTER TABLE ironclad_games ADD COLUMN version INT NOT NULL DEFAULT 0;
+ALTER TABLE collapsi_games ADD COLUMN version INT NOT NULL DEFAULT 0;
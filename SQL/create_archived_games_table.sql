@@ -0,0 +1,11 @@
+-- Index of completed games moved out of the *_games tables by ArchivedGamesDKO.archiveBatch (run from
+-- GameArchiveHandler).  The rows themselves live in compressed batch objects in the archive store (S3, or a local
+-- directory); object_key names the object holding the game, its players rows and its game_moves / game_snapshots.
+CREATE TABLE archived_games (
+    game_type VARCHAR(16) NOT NULL,  -- GameType name (TAC, NINETAC, ...)
+    game_id BIGINT NOT NULL,
+    object_key VARCHAR(255) NOT NULL,
+    archived_at DATETIME NOT NULL,
+
+    PRIMARY KEY (game_type, game_id)
+);
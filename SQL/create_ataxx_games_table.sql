@@ -14,5 +14,8 @@ CREATE TABLE ataxx_games (
     last_reminder_timestamp DATETIME NULL,
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
     board_option ENUM('BLANK', 'STANDARD', 'RANDOM') NOT NULL,
-    move_history TEXT          -- move history strings for reporting 4P moves
+    move_history TEXT,          -- move history strings for reporting 4P moves
+    version INT NOT NULL DEFAULT 0,  -- optimistic concurrency check, bumped on every game update
+
+    INDEX idx_stale_check (game_state, last_move_timestamp, last_reminder_timestamp, user_id_to_move)
 );
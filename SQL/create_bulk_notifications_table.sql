@@ -0,0 +1,18 @@
+-- Owner NOTIFICATION broadcasts, sent to every active user in BCC chunks by
+-- com.pbemgs.controller.BulkNotificationSender.  Recipients are walked in user_id order and last_user_id is the
+-- checkpoint, so a run that stops (Lambda timeout) resumes after the last chunk it sent.  lease_until keeps
+-- two runs from sending the same notification at once.
+CREATE TABLE bulk_notifications (
+    notification_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    owner_user_id BIGINT NOT NULL,            -- OWNER who sent the NOTIFICATION command
+    body TEXT NOT NULL,
+    state ENUM('SENDING', 'COMPLETE') NOT NULL DEFAULT 'SENDING',
+    last_user_id BIGINT NOT NULL DEFAULT 0,   -- highest user_id already handled
+    sent_count INT NOT NULL DEFAULT 0,        -- recipients sent to
+    failed_count INT NOT NULL DEFAULT 0,      -- recipients in chunks that failed to send
+    lease_until DATETIME NULL,                -- a run owns the notification until then
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    completed_at DATETIME NULL,
+
+    INDEX idx_state (state)
+);
@@ -4,8 +4,13 @@ CREATE TABLE collapsi_games (
     game_state ENUM('OPEN', 'IN_PROGRESS', 'COMPLETE') NOT NULL DEFAULT 'OPEN',
     current_action_userid BIGINT NULL, -- User whose action is due
     board_state TEXT NULL,  -- serialized board state
+    initial_board_state TEXT NULL,  -- serialized board state at game start (post-game analysis)
+    move_list TEXT NULL,  -- comma-separated seat:square moves in play order
     first_turn_user_id BIGINT NULL,   -- user id of player that went first
     last_move_timestamp DATETIME DEFAULT CURRENT_TIMESTAMP,
     last_reminder_timestamp DATETIME DEFAULT NULL,
-    created_at DATETIME DEFAULT CURRENT_TIMESTAMP
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    version INT NOT NULL DEFAULT 0,  -- optimistic concurrency check, bumped on every game update
+
+    INDEX idx_stale_check (game_state, last_move_timestamp, last_reminder_timestamp, current_action_userid)
 );
\ No newline at end of file
@@ -0,0 +1,25 @@
+-- Append-only move log plus periodic board snapshots (MoveLogDKO), written by Tac, Ninetac, LOA, GoMoku, Collapsi
+-- and Ataxx.  Ninetac reads an in-progress game's board from here rather than from board_state.
+-- seq is the game row's version after the move, so it orders a game's moves and matches the optimistic-concurrency
+-- check that let the move through.  A position is rebuilt from the nearest snapshot at or before it plus the moves
+-- after that.
+CREATE TABLE game_moves (
+    game_type VARCHAR(16) NOT NULL,   -- GameType name (TAC, NINETAC, ...)
+    game_id BIGINT NOT NULL,
+    seq INT NOT NULL,
+    user_id BIGINT NOT NULL,
+    move_text VARCHAR(64) NOT NULL,   -- the game's own compact move notation (see its MoveReplayer)
+    created_at DATETIME NOT NULL,
+
+    PRIMARY KEY (game_type, game_id, seq)
+);
+
+CREATE TABLE game_snapshots (
+    game_type VARCHAR(16) NOT NULL,
+    game_id BIGINT NOT NULL,
+    seq INT NOT NULL,                 -- board state after the move with this seq (or at game start)
+    board_state TEXT NOT NULL,
+    created_at DATETIME NOT NULL,
+
+    PRIMARY KEY (game_type, game_id, seq)
+);
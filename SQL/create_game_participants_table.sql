@@ -0,0 +1,43 @@
+-- One row per (game, user) across every game type, kept in step with the game tables by the game DKOs
+-- (create, join, state changes).  Per-user game lookups read idx_user_state instead of OR-ing across the
+-- user columns of each game table, which no index can serve.
+CREATE TABLE game_participants (
+    game_type VARCHAR(16) NOT NULL,  -- GameType name (TAC, NINETAC, ...)
+    game_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    seat INT NOT NULL,               -- join order / seat in the game
+    state ENUM('OPEN', 'IN_PROGRESS', 'COMPLETE') NOT NULL,  -- copy of the game's game_state
+
+    PRIMARY KEY (game_type, game_id, user_id),
+    INDEX idx_user_state (user_id, state, game_type, game_id)
+);
+
+-- Backfill from the existing game tables.
+INSERT INTO game_participants (game_type, game_id, user_id, seat, state)
+    SELECT 'TAC', game_id, user_id, 0, game_state FROM tac_games;
+INSERT INTO game_participants (game_type, game_id, user_id, seat, state)
+    SELECT 'NINETAC', game_id, x_user_id, 0, game_state FROM ninetac_games
+    UNION ALL SELECT 'NINETAC', game_id, o_user_id, 1, game_state FROM ninetac_games WHERE o_user_id IS NOT NULL;
+INSERT INTO game_participants (game_type, game_id, user_id, seat, state)
+    SELECT 'ATAXX', game_id, user0_id, 0, game_state FROM ataxx_games
+    UNION ALL SELECT 'ATAXX', game_id, user1_id, 1, game_state FROM ataxx_games WHERE user1_id IS NOT NULL
+    UNION ALL SELECT 'ATAXX', game_id, user2_id, 2, game_state FROM ataxx_games WHERE user2_id IS NOT NULL
+    UNION ALL SELECT 'ATAXX', game_id, user3_id, 3, game_state FROM ataxx_games WHERE user3_id IS NOT NULL;
+INSERT INTO game_participants (game_type, game_id, user_id, seat, state)
+    SELECT 'SURGE', g.game_id, p.user_id, p.seat_number, g.game_state
+    FROM surge_games g JOIN surge_players p ON p.game_id = g.game_id;
+INSERT INTO game_participants (game_type, game_id, user_id, seat, state)
+    SELECT 'LOA', game_id, x_user_id, 0, game_state FROM loa_games
+    UNION ALL SELECT 'LOA', game_id, o_user_id, 1, game_state FROM loa_games WHERE o_user_id IS NOT NULL;
+INSERT INTO game_participants (game_type, game_id, user_id, seat, state)
+    SELECT 'GOMOKU', game_id, x_user_id, 0, game_state FROM gomoku_games WHERE x_user_id IS NOT NULL
+    UNION ALL SELECT 'GOMOKU', game_id, o_user_id, 1, game_state FROM gomoku_games WHERE o_user_id IS NOT NULL;
+INSERT INTO game_participants (game_type, game_id, user_id, seat, state)
+    SELECT 'TRIAD', g.game_id, p.user_id, p.player_seat, g.game_state
+    FROM triad_games g JOIN triad_players p ON p.game_id = g.game_id;
+INSERT INTO game_participants (game_type, game_id, user_id, seat, state)
+    SELECT 'IRONCLAD', game_id, white_user_id, 0, game_state FROM ironclad_games
+    UNION ALL SELECT 'IRONCLAD', game_id, black_user_id, 1, game_state FROM ironclad_games WHERE black_user_id IS NOT NULL;
+INSERT INTO game_participants (game_type, game_id, user_id, seat, state)
+    SELECT 'COLLAPSI', g.game_id, p.user_id, p.player_seat, g.game_state
+    FROM collapsi_games g JOIN collapsi_players p ON p.game_id = g.game_id;
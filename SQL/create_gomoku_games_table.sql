@@ -9,5 +9,8 @@ CREATE TABLE gomoku_games (
     swap2_state ENUM('AWAITING_INITIAL_PLACEMENT', 'AWAITING_TSP_CHOICE', 'AWAITING_TFP_SWAP', 'GAMEPLAY'),
     last_move_timestamp DATETIME DEFAULT CURRENT_TIMESTAMP,
     last_reminder_timestamp DATETIME DEFAULT NULL,
-    created_at DATETIME DEFAULT CURRENT_TIMESTAMP
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    version INT NOT NULL DEFAULT 0,  -- optimistic concurrency check, bumped on every game update
+
+    INDEX idx_stale_check (game_state, last_move_timestamp, last_reminder_timestamp, user_id_to_move, swap2_state)
 );
\ No newline at end of file
@@ -12,5 +12,6 @@ CREATE TABLE ironclad_games (
     forced_move_option ENUM('ENEMY', 'SELF'),
     last_move_timestamp DATETIME DEFAULT CURRENT_TIMESTAMP,
     last_reminder_timestamp DATETIME DEFAULT NULL,
-    created_at DATETIME DEFAULT CURRENT_TIMESTAMP
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    version INT NOT NULL DEFAULT 0  -- optimistic concurrency check, bumped on every game update
 );
\ No newline at end of file
@@ -8,5 +8,8 @@ CREATE TABLE loa_games (
     last_move_timestamp DATETIME DEFAULT CURRENT_TIMESTAMP,
     last_reminder_timestamp DATETIME DEFAULT NULL,
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
-    starting_user_id BIGINT
+    starting_user_id BIGINT,
+    version INT NOT NULL DEFAULT 0,  -- optimistic concurrency check, bumped on every game update
+
+    INDEX idx_stale_check (game_state, last_move_timestamp, last_reminder_timestamp, user_id_to_move)
 );
\ No newline at end of file
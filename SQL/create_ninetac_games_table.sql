@@ -9,5 +9,8 @@ CREATE TABLE ninetac_games (
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP,  -- Record creation timestamp
     starting_user_id BIGINT,   -- ID of first player, for stat tracking
     board_option ENUM('DEFAULT_27') NOT NULL,
-    last_reminder_timestamp DATETIME DEFAUlT NULL
+    last_reminder_timestamp DATETIME DEFAUlT NULL,
+    version INT NOT NULL DEFAULT 0,  -- optimistic concurrency check, bumped on every game update
+
+    INDEX idx_stale_check (game_state, last_move_timestamp, last_reminder_timestamp, user_id_to_move)
 );
\ No newline at end of file
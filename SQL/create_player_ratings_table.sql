@@ -0,0 +1,13 @@
+-- Elo ratings computed from player_outcomes by RatingsDKO: one row per user per game, plus an 'ALL' row per user
+-- rated across every game.  Derived data - RatingsUpdateHandler can recompute the whole table from history.
+CREATE TABLE player_ratings (
+    user_id BIGINT NOT NULL,
+    game_name VARCHAR(16) NOT NULL,   -- game name, or 'ALL' for the overall rating
+    rating DOUBLE NOT NULL,
+    games_played INT NOT NULL,
+    last_outcome_id BIGINT NOT NULL,  -- newest player_outcomes id covered by the run that wrote this row
+
+    PRIMARY KEY (user_id, game_name),
+    INDEX idx_game_rating (game_name, rating),
+    INDEX idx_last_outcome (last_outcome_id)
+);
@@ -0,0 +1,14 @@
+-- Per-user, per-game summary of player_outcomes, for records and leaderboards.
+-- Maintained by PlayerOutcomesDKO.insertOutcome() in the same transaction as the outcome row;
+-- PlayerStatsRebuildHandler rebuilds it from player_outcomes (backfill / repair).
+CREATE TABLE player_stats (
+    user_id BIGINT NOT NULL,
+    game_name VARCHAR(16) NOT NULL,
+    wins INT NOT NULL DEFAULT 0,
+    losses INT NOT NULL DEFAULT 0,
+    draws INT NOT NULL DEFAULT 0,
+    points DECIMAL(10,1) AS (wins + draws * 0.5) STORED,  -- win = 1.0, draw = 0.5, loss = 0.0
+
+    PRIMARY KEY (user_id, game_name),
+    INDEX idx_game_points (game_name, points)
+);
@@ -12,5 +12,6 @@ CREATE TABLE surge_games (
     pressure_state TEXT NOT NULL, -- Serialized pressure data
     momentum_state TEXT NOT NULL, -- Serialized momentum data
     last_time_step TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
-    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    version INT NOT NULL DEFAULT 0  -- optimistic concurrency check, bumped on every game update
 );
\ No newline at end of file
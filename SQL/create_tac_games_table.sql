@@ -4,5 +4,8 @@ CREATE TABLE tac_games (
     board_state VARCHAR(9) NOT NULL,
     game_state ENUM('IN_PROGRESS', 'COMPLETE') NOT NULL,
     last_move_timestamp DATETIME DEFAULT CURRENT_TIMESTAMP,  -- Timestamp of last move
-    last_reminder_timestamp DATETIME DEFAULT NULL
+    last_reminder_timestamp DATETIME DEFAULT NULL,
+    version INT NOT NULL DEFAULT 0,  -- optimistic concurrency check, bumped on every game update
+
+    INDEX idx_stale_check (game_state, last_move_timestamp, last_reminder_timestamp, user_id)
 );
@@ -14,5 +14,8 @@ CREATE TABLE triad_games (
     first_turn_user_id BIGINT NULL,   -- first/third game first player
     last_move_timestamp DATETIME DEFAULT CURRENT_TIMESTAMP,
     last_reminder_timestamp DATETIME DEFAULT NULL,
-    created_at DATETIME DEFAULT CURRENT_TIMESTAMP
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    version INT NOT NULL DEFAULT 0,  -- optimistic concurrency check, bumped on every game update
+
+    INDEX idx_stale_check (game_state, last_move_timestamp, last_reminder_timestamp, current_action_userid, game_phase)
 );
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.pbemgs.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * The format of an archived batch: a zip with one "<table>.json" entry per table, each holding the batch's rows
+ * of that table in jOOQ's JSON format (Result.formatJSON(), read back with DSLContext.fetchFromJSON()).
+ * Board state text compresses well, so a batch of games is a small fraction of its size in the hot tables.
+ */
+public final class GameArchiveObject {
+    private static final String SUFFIX = ".json";
+
+    private GameArchiveObject() {
+    }
+
+    /**
+     * Zips the table name -> JSON entries.
+     */
+    public static byte[] write(Map<String, String> tables) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, String> table : tables.entrySet()) {
+                zip.putNextEntry(new ZipEntry(table.getKey() + SUFFIX));
+                zip.write(table.getValue().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write archive object", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * The table name -> JSON entries of an object made by write().
+     */
+    public static Map<String, String> read(byte[] data) {
+        Map<String, String> tables = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(data))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                String name = entry.getName();
+                if (name.endsWith(SUFFIX)) {
+                    tables.put(name.substring(0, name.length() - SUFFIX.length()),
+                            new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archive object", e);
+        }
+        return tables;
+    }
+}
@@ -0,0 +1,32 @@
+package com.pbemgs.archive;
+
+import java.nio.file.Path;
+
+/**
+ * Object storage for archived game batches: S3 in production, a local directory for tests and local runs.
+ */
+public interface GameArchiveStore {
+
+    void put(String key, byte[] data);
+
+    /**
+     * The object's contents, or null if there is no such object.
+     */
+    byte[] get(String key);
+
+    /**
+     * The store configured by the environment - PBEMGS_ARCHIVE_BUCKET (S3) or PBEMGS_ARCHIVE_DIR (local files) -
+     * or null if archiving isn't configured.
+     */
+    static GameArchiveStore fromEnvironment() {
+        String bucket = System.getenv("PBEMGS_ARCHIVE_BUCKET");
+        if (bucket != null && !bucket.isBlank()) {
+            return new S3GameArchiveStore(bucket);
+        }
+        String dir = System.getenv("PBEMGS_ARCHIVE_DIR");
+        if (dir != null && !dir.isBlank()) {
+            return new LocalFileGameArchiveStore(Path.of(dir));
+        }
+        return null;
+    }
+}
@@ -0,0 +1,53 @@
+package com.pbemgs.archive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Archive store in a local directory, one file per key (key path segments become subdirectories).
+ * The stand-in for S3 in tests and local runs.
+ */
+public class LocalFileGameArchiveStore implements GameArchiveStore {
+    private final Path root;
+
+    public LocalFileGameArchiveStore(Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public void put(String key, byte[] data) {
+        Path file = resolve(key);
+        try {
+            Files.createDirectories(file.getParent());
+            // Write then rename, so a reader never sees a partial object.
+            Path temp = Files.createTempFile(file.getParent(), ".put", null);
+            Files.write(temp, data);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write archive object " + key, e);
+        }
+    }
+
+    @Override
+    public byte[] get(String key) {
+        try {
+            return Files.readAllBytes(resolve(key));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archive object " + key, e);
+        }
+    }
+
+    private Path resolve(String key) {
+        Path file = root.resolve(key).normalize();
+        if (!file.startsWith(root.normalize())) {
+            throw new IllegalArgumentException("Archive key escapes the store directory: " + key);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,41 @@
+package com.pbemgs.archive;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+/**
+ * Archive store backed by an S3 bucket.
+ */
+public class S3GameArchiveStore implements GameArchiveStore {
+    private final String bucket;
+    private S3Client s3Client;
+
+    public S3GameArchiveStore(String bucket) {
+        this.bucket = bucket;
+    }
+
+    @Override
+    public void put(String key, byte[] data) {
+        client().putObject(PutObjectRequest.builder().bucket(bucket).key(key).build(), RequestBody.fromBytes(data));
+    }
+
+    @Override
+    public byte[] get(String key) {
+        try {
+            return client().getObjectAsBytes(GetObjectRequest.builder().bucket(bucket).key(key).build()).asByteArray();
+        } catch (NoSuchKeyException e) {
+            return null;
+        }
+    }
+
+    // Created on first use and kept for the life of the container.
+    private synchronized S3Client client() {
+        if (s3Client == null) {
+            s3Client = S3Client.create();
+        }
+        return s3Client;
+    }
+}
@@ -0,0 +1,45 @@
+package com.pbemgs.controller;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.pbemgs.dko.DSLContextFactory;
+import com.pbemgs.model.RequestTrace;
+import org.jooq.DSLContext;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * The controller class that handles AWS "cron job" events for resuming bulk notifications - owner broadcasts
+ * that ran out of time in the request that started them.
+ */
+public class BulkNotificationHandler implements RequestHandler<Map<String, Object>, String> {
+    // Left unspent so the last checkpoint and the summary logs finish before the Lambda timeout.
+    private static final Duration TIMEOUT_MARGIN = Duration.ofSeconds(15);
+
+    @Override
+    public String handleRequest(Map<String, Object> event, Context context) {
+        LambdaLogger logger = context.getLogger();
+        logger.log("Received scheduled event for BulkNotificationHandler: " + event.toString());
+
+        RequestTrace trace = RequestTrace.begin("BulkNotification", context.getAwsRequestId());
+        DSLContext dslContext = DSLContextFactory.getProductionInstance();
+        DSLContextFactory.getQueryStats().beginRequest(logger);
+        try {
+            Duration budget = Duration.ofMillis(context.getRemainingTimeInMillis()).minus(TIMEOUT_MARGIN);
+            int completed = 0;
+            if (!budget.isNegative()) {
+                completed = new BulkNotificationSender(dslContext, new SESEmailSender(logger), logger)
+                        .resumeUnfinished(budget);
+            }
+
+            logger.log("Completed bulk notification resume - " + completed + " completed - time used: " +
+                    trace.getElapsedMillis() + "ms");
+            return "Bulk notification resume executed successfully.";
+        } finally {
+            DSLContextFactory.getQueryStats().logSummary(logger, "BulkNotification");
+            trace.end(logger);
+        }
+    }
+}
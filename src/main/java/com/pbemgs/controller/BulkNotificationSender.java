@@ -0,0 +1,219 @@
+package com.pbemgs.controller;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.dko.BulkNotificationDKO;
+import com.pbemgs.dko.UsersDKO;
+import com.pbemgs.model.NotificationRecipient;
+import org.jooq.DSLContext;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Sends an owner NOTIFICATION to every active user.
+ * <p>
+ * Users are read a page at a time in user_id order and sent in BCC chunks of at most recipientsPerMessage.  SES
+ * rejects messages over its per-message recipient limit, which counts the To address along with the BCC list,
+ * so a chunk holds at most one less than that limit.  Sends are paced to recipientsPerSecond, which SES counts
+ * per recipient, not per message.  After each chunk the last user id is checkpointed in bulk_notifications.  A
+ * run stops before any wait - pacing or a retry pause - that would carry it past its time budget, and
+ * BulkNotificationHandler resumes it on its next schedule from the checkpoint.  At most the chunk in flight when
+ * a Lambda is killed is sent twice.
+ * <p>
+ * Settings come from PBEMGS_NOTIFY_RECIPIENTS_PER_MESSAGE (BCC recipients, default and maximum 49) and
+ * PBEMGS_NOTIFY_RATE (recipients per second, default 10).
+ */
+public class BulkNotificationSender {
+    // The To address takes one of the SES per-message recipients.
+    public static final int MAX_RECIPIENTS_PER_MESSAGE = SESEmailSender.MAX_RECIPIENTS_PER_MESSAGE - 1;
+    public static final int DEFAULT_RECIPIENTS_PER_MESSAGE = MAX_RECIPIENTS_PER_MESSAGE;
+    public static final double DEFAULT_RECIPIENTS_PER_SECOND = 10;
+    static final int PAGE_SIZE = 500;
+    // The lease outlasts the run's budget by this much, so a stuck run is eventually taken over.
+    private static final Duration LEASE_MARGIN = Duration.ofMinutes(2);
+    private static final long RETRY_DELAY_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    public record Settings(int recipientsPerMessage, double recipientsPerSecond) {
+        public Settings {
+            recipientsPerMessage = Math.min(Math.max(1, recipientsPerMessage), MAX_RECIPIENTS_PER_MESSAGE);
+        }
+
+        public static Settings fromEnvironment() {
+            return new Settings(
+                    (int) parse(System.getenv("PBEMGS_NOTIFY_RECIPIENTS_PER_MESSAGE"),
+                            DEFAULT_RECIPIENTS_PER_MESSAGE),
+                    parse(System.getenv("PBEMGS_NOTIFY_RATE"), DEFAULT_RECIPIENTS_PER_SECOND));
+        }
+
+        private static double parse(String value, double defaultValue) {
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                double parsed = Double.parseDouble(value.trim());
+                return parsed > 0 ? parsed : defaultValue;
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+    }
+
+    /**
+     * Waits between chunks; replaced in tests, along with the nano clock.
+     */
+    interface Sleeper {
+        void sleepNanos(long nanos) throws InterruptedException;
+    }
+
+    private enum ChunkResult {
+        SENT, FAILED, OUT_OF_TIME
+    }
+
+    private final BulkNotificationDKO notificationDKO;
+    private final UsersDKO usersDKO;
+    private final SESEmailSender emailSender;
+    private final LambdaLogger logger;
+    private final Settings settings;
+    private final LongSupplier nanoClock;
+    private final Sleeper sleeper;
+    private long nextSendNanos;
+
+    public BulkNotificationSender(DSLContext dslContext, SESEmailSender emailSender, LambdaLogger logger) {
+        this(new BulkNotificationDKO(dslContext), new UsersDKO(dslContext), emailSender, logger,
+                Settings.fromEnvironment(), System::nanoTime, TimeUnit.NANOSECONDS::sleep);
+    }
+
+    BulkNotificationSender(BulkNotificationDKO notificationDKO, UsersDKO usersDKO, SESEmailSender emailSender,
+                           LambdaLogger logger, Settings settings, LongSupplier nanoClock, Sleeper sleeper) {
+        this.notificationDKO = notificationDKO;
+        this.usersDKO = usersDKO;
+        this.emailSender = emailSender;
+        this.logger = logger;
+        this.settings = settings;
+        this.nanoClock = nanoClock;
+        this.sleeper = sleeper;
+        nextSendNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Records a new notification and sends as much of it as fits in the budget.  Returns its id.
+     */
+    public long start(long ownerUserId, String body, Duration budget) {
+        long notificationId = notificationDKO.createNotification(ownerUserId, body);
+        logger.log("Created bulk notification " + notificationId);
+        send(notificationId, budget);
+        return notificationId;
+    }
+
+    /**
+     * Continues every unfinished notification within the budget.  Returns how many completed.
+     */
+    public int resumeUnfinished(Duration budget) {
+        long deadline = nanoClock.getAsLong() + budget.toNanos();
+        int completed = 0;
+        for (long notificationId : notificationDKO.getUnfinishedNotificationIds()) {
+            long remaining = deadline - nanoClock.getAsLong();
+            if (remaining <= 0) {
+                break;
+            }
+            if (send(notificationId, Duration.ofNanos(remaining))) {
+                ++completed;
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * Sends the notification from its checkpoint until every active user is handled (returns true) or the budget
+     * is spent (returns false, to be resumed).  Also returns false if another run holds the notification.
+     */
+    public boolean send(long notificationId, Duration budget) {
+        long deadline = nanoClock.getAsLong() + budget.toNanos();
+        LocalDateTime now = LocalDateTime.now();
+        BulkNotificationDKO.Progress progress = notificationDKO.claim(notificationId, now,
+                now.plus(budget).plus(LEASE_MARGIN));
+        if (progress == null) {
+            logger.log("Bulk notification " + notificationId + " is complete or being sent by another run");
+            return false;
+        }
+
+        SESEmailSender.PreparedBody body = SESEmailSender.prepareBody(progress.body());
+        long lastUserId = progress.lastUserId();
+        int sentCount = progress.sentCount();
+        int failedCount = progress.failedCount();
+        boolean complete = false;
+        try {
+            List<NotificationRecipient> page;
+            while (!(page = usersDKO.fetchActiveRecipientsAfter(lastUserId, PAGE_SIZE)).isEmpty()) {
+                for (int start = 0; start < page.size(); start += settings.recipientsPerMessage()) {
+                    List<NotificationRecipient> chunk = page.subList(start,
+                            Math.min(page.size(), start + settings.recipientsPerMessage()));
+                    ChunkResult result = sendChunk(chunk, body, deadline);
+                    if (result == ChunkResult.OUT_OF_TIME) {
+                        logger.log("Bulk notification " + notificationId + " out of time after user id " +
+                                lastUserId + " - " + sentCount + " sent, will resume");
+                        return false;
+                    }
+                    if (result == ChunkResult.SENT) {
+                        sentCount += chunk.size();
+                    } else {
+                        failedCount += chunk.size();
+                        logger.log("Bulk notification " + notificationId + " failed for user ids " +
+                                chunk.get(0).userId() + " - " + chunk.get(chunk.size() - 1).userId());
+                    }
+                    lastUserId = chunk.get(chunk.size() - 1).userId();
+                    notificationDKO.checkpoint(notificationId, lastUserId, sentCount, failedCount);
+                }
+            }
+            notificationDKO.complete(notificationId);
+            complete = true;
+            logger.log("Bulk notification " + notificationId + " complete - " + sentCount + " sent, " +
+                    failedCount + " failed");
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.log("Bulk notification " + notificationId + " interrupted after user id " + lastUserId);
+            return false;
+        } finally {
+            if (!complete) {
+                notificationDKO.release(notificationId);
+            }
+        }
+    }
+
+    // One paced send, retried once after a pause (e.g. an SES throttling response).  OUT_OF_TIME leaves the chunk
+    // unsent (or unretried) for the next run.
+    private ChunkResult sendChunk(List<NotificationRecipient> chunk, SESEmailSender.PreparedBody body, long deadline)
+            throws InterruptedException {
+        List<String> addresses = chunk.stream().map(NotificationRecipient::emailAddr).toList();
+        if (!pace(chunk.size(), 0, deadline)) {
+            return ChunkResult.OUT_OF_TIME;
+        }
+        if (emailSender.sendNotificationEmail(addresses, body)) {
+            return ChunkResult.SENT;
+        }
+        if (!pace(chunk.size(), RETRY_DELAY_NANOS, deadline)) {
+            return ChunkResult.OUT_OF_TIME;
+        }
+        return emailSender.sendNotificationEmail(addresses, body) ? ChunkResult.SENT : ChunkResult.FAILED;
+    }
+
+    // Spaces the sends so recipients go out no faster than recipientsPerSecond, waiting at least minWaitNanos.
+    // Returns false, without waiting, if the send would not start before the deadline.
+    private boolean pace(int recipients, long minWaitNanos, long deadline) throws InterruptedException {
+        long now = nanoClock.getAsLong();
+        long wait = Math.max(nextSendNanos - now, minWaitNanos);
+        if (now + wait - deadline >= 0) {
+            return false;
+        }
+        if (wait > 0) {
+            sleeper.sleepNanos(wait);
+        }
+        nextSendNanos = now + Math.max(wait, 0) +
+                (long) (recipients * TimeUnit.SECONDS.toNanos(1) / settings.recipientsPerSecond());
+        return true;
+    }
+}
@@ -1,6 +1,7 @@
 package com.pbemgs.controller;
 
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.dko.ActiveGamesDKO;
 import com.pbemgs.dko.UsersDKO;
 import com.pbemgs.game.GameFactory;
 import com.pbemgs.game.GameInterface;
@@ -8,46 +9,59 @@ import com.pbemgs.game.tac.Tac;
 import com.pbemgs.generated.enums.UsersStatus;
 import com.pbemgs.generated.enums.UsersUserType;
 import com.pbemgs.generated.tables.records.UsersRecord;
+import com.pbemgs.model.ActiveGameSummary;
 import com.pbemgs.model.GameType;
 import com.pbemgs.model.S3Email;
 import org.jooq.DSLContext;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class CommandHandler {
+    private static final Duration NOTIFICATION_INLINE_BUDGET = Duration.ofSeconds(20);
 
     private final LambdaLogger logger;
     private final DSLContext dslContext;
     private final UsersDKO usersDKO;
+    private final Function<LambdaLogger, SESEmailSender> emailSenders;
 
 
     public CommandHandler(DSLContext dslContext, LambdaLogger logger) {
+        this(dslContext, logger, SESEmailSender::new);
+    }
+
+    public CommandHandler(DSLContext dslContext, LambdaLogger logger,
+                          Function<LambdaLogger, SESEmailSender> emailSenders) {
         this.logger = logger;
         this.dslContext = dslContext;
+        this.emailSenders = emailSenders;
         usersDKO = new UsersDKO(dslContext);
     }
 
     public void handleCommand(UsersRecord user, MainEmailProcessor.SubjectLineCommand command, S3Email email) {
         // TODO: ACTIVATE, DEACTIVATE, LIST_NEW_USERS
         logger.log("handle command for user: " + user.getEmailAddr() + ", command: " + command.command().name());
-        SESEmailSender emailSender = new SESEmailSender(logger);
+        SESEmailSender emailSender = emailSenders.apply(logger);
         String from = user.getEmailAddr();
         switch (command.command()) {
             case INTRO:
-                emailSender.sendEmail(from, "PBEMGS - Intro/FAQ", TextResponseProvider.getIntroText());
+                emailSender.sendEmail(from, "PBEMGS - Intro/FAQ", StaticResponseCache.get(StaticResponseCache.Kind.INTRO));
                 break;
             case HELP_BASE:
-                emailSender.sendEmail(from, "PBEMGS - Help", TextResponseProvider.getMainHelpTextRegistered());
+                emailSender.sendEmail(from, "PBEMGS - Help", StaticResponseCache.get(StaticResponseCache.Kind.HELP_REGISTERED));
                 break;
             case TEST_DISPLAY:
                 processTestDisplay(from, emailSender);
                 break;
             case GAME_LIST:
-                emailSender.sendEmail(from, "PBEMGS - Game List and Preview", TextResponseProvider.getGamePreview());
+                emailSender.sendEmail(from, "PBEMGS - Game List and Preview", StaticResponseCache.get(StaticResponseCache.Kind.GAME_PREVIEW));
                 break;
             case FEEDBACK:
                 processFeedbackRequest(user, email, emailSender);
@@ -77,7 +91,7 @@ public class CommandHandler {
                 processNotification(user, email, emailSender);
                 break;
             case TEST_SYMBOL:
-                emailSender.sendEmail(from, "PBEMGS - Unicode symbol alignment test", TextResponseProvider.getMonoSymbolTestText());
+                emailSender.sendEmail(from, "PBEMGS - Unicode symbol alignment test", StaticResponseCache.get(StaticResponseCache.Kind.TEST_SYMBOL));
                 break;
             default:
                 emailSender.sendEmail(user.getEmailAddr(), "PBEMGS - registered user command not available yet", TextResponseProvider.unimplementedCommandBody(command.command().toString()));
@@ -89,19 +103,19 @@ public class CommandHandler {
     public void handleCommandUnregistered(String from, MainEmailProcessor.SubjectLineCommand command, S3Email email) {
         logger.log("handle command for unregistered user: " + from + ", command: " + command.command().name());
 
-        SESEmailSender emailSender = new SESEmailSender(logger);
+        SESEmailSender emailSender = emailSenders.apply(logger);
         switch (command.command()) {
             case INTRO:
-                emailSender.sendEmail(from, "PBEMGS - Intro/FAQ", TextResponseProvider.getIntroText());
+                emailSender.sendEmail(from, "PBEMGS - Intro/FAQ", StaticResponseCache.get(StaticResponseCache.Kind.INTRO));
                 break;
             case HELP_BASE:
-                emailSender.sendEmail(from, "PBEMGS - Help", TextResponseProvider.getMainHelpTextUnregistered());
+                emailSender.sendEmail(from, "PBEMGS - Help", StaticResponseCache.get(StaticResponseCache.Kind.HELP_UNREGISTERED));
                 break;
             case TEST_DISPLAY:
                 processTestDisplay(from, emailSender);
                 break;
             case GAME_LIST:
-                emailSender.sendEmail(from, "PBEMGS - Game List and Preview", TextResponseProvider.getGamePreview());
+                emailSender.sendEmail(from, "PBEMGS - Game List and Preview", StaticResponseCache.get(StaticResponseCache.Kind.GAME_PREVIEW));
                 break;
             case CREATE_ACCOUNT:
                 processCreateAccount(from, command, emailSender);
@@ -125,7 +139,7 @@ public class CommandHandler {
         logger.log("Processing TEST_DISPLAY command for email: " + from);
         try {
             emailSender.sendEmail(from, "PBEMGS - TEST_DISPLAY",
-                    TextResponseProvider.getTestDisplayHtmlTextBody());
+                    StaticResponseCache.get(StaticResponseCache.Kind.TEST_DISPLAY));
         } catch (Exception e) {
             logger.log("-- Exception in processTestDisplay: " + getStackTrace(e));
             emailSender.sendEmail(from, "PBEMGS - TEST_DISPLAY Exception",
@@ -180,7 +194,7 @@ public class CommandHandler {
         try {
             GameInterface game = GameFactory.createGame(command.game(), dslContext, logger);
             emailSender.sendEmail(from, "PBEMGS - Rules for " + command.game().name(),
-                    game.getRulesTextBody());
+                    StaticResponseCache.getRules(command.game(), game::getRulesTextBody));
         } catch (Exception e) {
             logger.log("-- Exception in processGameRulesRequest: " + getStackTrace(e));
             emailSender.sendEmail(from, "PBEMGS - RULES Exception",
@@ -283,11 +297,18 @@ public class CommandHandler {
     private void processMyGamesRequest(UsersRecord user, MainEmailProcessor.SubjectLineCommand command, SESEmailSender emailSender) {
         logger.log("processMyGamesRequest() for user id " + user.getUserId() + " - email: " + user.getEmailAddr());
         try {
-            List<GameInterface> games = GameFactory.createAllGames(dslContext, logger);
+            // One query for every game type; each game renders its own rows.
+            Map<GameType, List<ActiveGameSummary>> gamesByType = new ActiveGamesDKO(dslContext)
+                    .getActiveGamesForUser(user.getUserId()).stream()
+                    .collect(Collectors.groupingBy(ActiveGameSummary::gameType));
             StringBuilder sb = new StringBuilder();
             sb.append("Game list for ").append(user.getHandle()).append("\n\n");
-            for (GameInterface game : games) {
-                sb.append(game.getMyGamesTextBody(user.getUserId())).append("\n\n");
+            for (GameType gameType : GameType.values()) {
+                if (gameType == GameType.NONE) {
+                    continue;
+                }
+                GameInterface game = GameFactory.createGame(gameType, dslContext, logger);
+                sb.append(game.getMyGamesTextBody(user.getUserId(), gamesByType.getOrDefault(gameType, List.of()))).append("\n\n");
             }
             emailSender.sendEmail(user.getEmailAddr(), "PBEMGS - MY_GAMES", sb.toString());
         } catch (Exception e) {
@@ -323,10 +344,9 @@ public class CommandHandler {
             throw new IllegalArgumentException("Global Notification method called for non-owner userId " + user.getUserId());
         }
         try {
-            List<UsersRecord> allUsers = usersDKO.fetchAllActiveUsers();
-            List<String> toAddrs = allUsers.stream().map(UsersRecord::getEmailAddr).toList();
-
-            emailSender.sendNotificationEmail(toAddrs, email.getEmailBodyText(logger));
+            // Sends what fits in this request; BulkNotificationHandler resumes the rest from the checkpoint.
+            new BulkNotificationSender(dslContext, emailSender, logger)
+                    .start(user.getUserId(), email.getEmailBodyText(logger), NOTIFICATION_INLINE_BUDGET);
         } catch (Exception e) {
             logger.log("-- Exception in processNotification: " + getStackTrace(e));
             emailSender.sendEmail(user.getEmailAddr(), "PBEMGS - notification failed!",
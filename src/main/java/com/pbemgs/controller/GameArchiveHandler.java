@@ -0,0 +1,58 @@
+package com.pbemgs.controller;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.pbemgs.dko.ArchivedGamesDKO;
+import com.pbemgs.dko.DSLContextFactory;
+import com.pbemgs.model.GameType;
+import org.jooq.DSLContext;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * The controller class that handles AWS "cron job" events for archiving completed games (see ArchivedGamesDKO).
+ * Moves COMPLETE games with no activity for "olderThanDays" days (default 90) to the archive store, in batches.
+ */
+public class GameArchiveHandler implements RequestHandler<Map<String, Object>, String> {
+    private static final int DEFAULT_OLDER_THAN_DAYS = 90;
+    private static final int BATCH_SIZE = 200;
+
+    @Override
+    public String handleRequest(Map<String, Object> event, Context context) {
+        LambdaLogger logger = context.getLogger();
+        logger.log("Received scheduled event for GameArchiveHandler: " + event.toString());
+
+        LocalDateTime startTime = LocalDateTime.now();
+        DSLContext dslContext = DSLContextFactory.getProductionInstance();
+        DSLContextFactory.getQueryStats().beginRequest(logger);
+        try {
+            ArchivedGamesDKO archivedGamesDKO = new ArchivedGamesDKO(dslContext);
+
+            int olderThanDays = event.get("olderThanDays") instanceof Number days ? days.intValue() : DEFAULT_OLDER_THAN_DAYS;
+            LocalDateTime cutoff = startTime.minusDays(olderThanDays);
+            for (GameType gameType : GameType.values()) {
+                if (gameType == GameType.NONE) {
+                    continue;
+                }
+                int archived = 0;
+                int batch;
+                do {
+                    batch = archivedGamesDKO.archiveBatch(gameType, cutoff, BATCH_SIZE);
+                    archived += batch;
+                } while (batch == BATCH_SIZE);
+                if (archived > 0) {
+                    logger.log("Archived " + archived + " " + gameType.getGameName() + " games.");
+                }
+            }
+
+            logger.log("Game archive complete - time used: " +
+                    Duration.between(startTime, LocalDateTime.now()).toMillis() + "ms");
+            return "Game archive executed successfully.";
+        } finally {
+            DSLContextFactory.getQueryStats().logSummary(logger, "GameArchive");
+        }
+    }
+}
@@ -6,11 +6,13 @@ import com.pbemgs.generated.enums.UsersUserType;
 import com.pbemgs.generated.tables.records.UsersRecord;
 import com.pbemgs.model.Command;
 import com.pbemgs.model.GameType;
+import com.pbemgs.model.RequestTrace;
 import com.pbemgs.model.S3Email;
 import org.jooq.DSLContext;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Initial email processor for handling an email sent to the PBEMGS.
@@ -21,28 +23,49 @@ public class MainEmailProcessor {
 
     private final DSLContext dslContext;
     private final UsersDKO usersDKO;
+    private final Function<LambdaLogger, SESEmailSender> emailSenders;
 
     public record SubjectLineCommand(boolean parseSuccess, String message, Command command, GameType game,
                                      Long gameId) {
     }
 
     public MainEmailProcessor(DSLContext dslContext) {
+        this(dslContext, SESEmailSender::new);
+    }
+
+    public MainEmailProcessor(DSLContext dslContext, Function<LambdaLogger, SESEmailSender> emailSenders) {
         this.dslContext = dslContext;
+        this.emailSenders = emailSenders;
         usersDKO = new UsersDKO(dslContext);
     }
 
     public void process(S3Email email, LambdaLogger logger) {
-        UsersRecord usersRecord = usersDKO.fetchUserForEmail(email.getFrom());
-        SubjectLineCommand command = parseSubject(email.getSubject());
+        UsersRecord usersRecord;
+        try (RequestTrace.Span span = RequestTrace.span(RequestTrace.USER_LOOKUP)) {
+            usersRecord = usersDKO.fetchUserForEmail(email.getFrom());
+        }
+        SubjectLineCommand command;
+        try (RequestTrace.Span span = RequestTrace.span(RequestTrace.SUBJECT_PARSE)) {
+            command = parseSubject(email.getSubject());
+        }
         logger.log("Subject Line parse results: " + command.toString());
+        if (command.command() != null) {
+            RequestTrace.property("Command", command.command().name());
+        }
+        if (command.game() != null) {
+            RequestTrace.property("Game", command.game().name());
+        }
         if (command.parseSuccess()) {
             boolean validCommand = validateCommand(usersRecord, command);
             if (validCommand) {
-                CommandHandler handler = new CommandHandler(dslContext, logger);
-                if (usersRecord == null) {
-                    handler.handleCommandUnregistered(email.getFrom(), command, email);
-                } else {
-                    handler.handleCommand(usersRecord, command, email);
+                CommandHandler handler = new CommandHandler(dslContext, logger, emailSenders);
+                // Self time of the ENGINE span is the command and game logic; DB, render and SMTP are spans of their own.
+                try (RequestTrace.Span span = RequestTrace.span(RequestTrace.ENGINE)) {
+                    if (usersRecord == null) {
+                        handler.handleCommandUnregistered(email.getFrom(), command, email);
+                    } else {
+                        handler.handleCommand(usersRecord, command, email);
+                    }
                 }
             } else {  // end if (valid command)
                 logger.log("Sending Invalid Command email to " + email.getFrom());
@@ -167,12 +190,12 @@ public class MainEmailProcessor {
     }
 
     private void sendInvalidCommandEmail(String sender, Command command, LambdaLogger logger) {
-        SESEmailSender emailSender = new SESEmailSender(logger);
+        SESEmailSender emailSender = emailSenders.apply(logger);
         emailSender.sendEmail(sender, "PBEMGS - ERROR - Invalid Command received", TextResponseProvider.invalidCommandBody(command.toString()));
     }
 
     private void sendFailedSubjectParseEmail(String sender, String subjectLine, SubjectLineCommand command, LambdaLogger logger) {
-        SESEmailSender emailSender = new SESEmailSender(logger);
+        SESEmailSender emailSender = emailSenders.apply(logger);
         emailSender.sendEmail(sender, "PBEMGS - ERROR - Unable to parse subject line", TextResponseProvider.subjectParseError(subjectLine, command.message()));
     }
 
@@ -0,0 +1,38 @@
+package com.pbemgs.controller;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.pbemgs.dko.DSLContextFactory;
+import com.pbemgs.dko.PlayerStatsDKO;
+import org.jooq.DSLContext;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * The controller class that rebuilds the player_stats summary table from the full player_outcomes history.
+ * Invoked manually (or on an occasional schedule) to backfill the table after it is created, or to repair it.
+ */
+public class PlayerStatsRebuildHandler implements RequestHandler<Map<String, Object>, String> {
+
+    @Override
+    public String handleRequest(Map<String, Object> event, Context context) {
+        LambdaLogger logger = context.getLogger();
+        logger.log("Received event for PlayerStatsRebuildHandler: " + event.toString());
+
+        LocalDateTime startTime = LocalDateTime.now();
+        DSLContext dslContext = DSLContextFactory.getProductionInstance();
+        DSLContextFactory.getQueryStats().beginRequest(logger);
+        try {
+            int rows = new PlayerStatsDKO(dslContext).rebuildFromOutcomes();
+
+            logger.log("Rebuilt player_stats - " + rows + " rows - time used: " +
+                    Duration.between(startTime, LocalDateTime.now()).toMillis() + "ms");
+            return "Player stats rebuild executed successfully.";
+        } finally {
+            DSLContextFactory.getQueryStats().logSummary(logger, "PlayerStatsRebuild");
+        }
+    }
+}
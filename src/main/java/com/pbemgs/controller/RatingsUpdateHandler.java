@@ -0,0 +1,41 @@
+package com.pbemgs.controller;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.pbemgs.dko.DSLContextFactory;
+import com.pbemgs.dko.RatingsDKO;
+import org.jooq.DSLContext;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * The controller class that handles AWS "cron job" events for updating player ratings from new game outcomes.
+ * An event with "recompute": true replays the whole outcome history instead (backfill, or after a rating change).
+ */
+public class RatingsUpdateHandler implements RequestHandler<Map<String, Object>, String> {
+
+    @Override
+    public String handleRequest(Map<String, Object> event, Context context) {
+        LambdaLogger logger = context.getLogger();
+        logger.log("Received scheduled event for RatingsUpdateHandler: " + event.toString());
+
+        LocalDateTime startTime = LocalDateTime.now();
+        DSLContext dslContext = DSLContextFactory.getProductionInstance();
+        DSLContextFactory.getQueryStats().beginRequest(logger);
+        try {
+            RatingsDKO ratingsDKO = new RatingsDKO(dslContext);
+
+            boolean recompute = Boolean.TRUE.equals(event.get("recompute"));
+            int games = recompute ? ratingsDKO.recomputeAllRatings() : ratingsDKO.updateRatings();
+
+            logger.log((recompute ? "Recomputed" : "Updated") + " ratings - " + games + " games rated - time used: " +
+                    Duration.between(startTime, LocalDateTime.now()).toMillis() + "ms");
+            return "Ratings update executed successfully.";
+        } finally {
+            DSLContextFactory.getQueryStats().logSummary(logger, "RatingsUpdate");
+        }
+    }
+}
@@ -4,6 +4,8 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.pbemgs.dko.DSLContextFactory;
+import com.pbemgs.model.LeveledLogger;
+import com.pbemgs.model.RequestTrace;
 import com.pbemgs.model.S3Email;
 import org.jooq.DSLContext;
 import software.amazon.awssdk.http.HttpExecuteRequest;
@@ -25,6 +27,8 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Email Handler: AWS Lambda Entry Point for handling a new email in the system.
@@ -36,11 +40,31 @@ public class SESEmailHandler implements RequestHandler<Map<String, Object>, Stri
     static final boolean DEBUG_EMAIL_SENDING = false;
     static final boolean DEBUG_CONNECTIONS = false;
 
+    private final Supplier<DSLContext> dslContexts;
+    private final Function<LambdaLogger, SESEmailSender> emailSenders;
+    private final Function<String, String> bodySource;
+
+    // Lambda entry point: the production database, SMTP, and email bodies from S3.
+    public SESEmailHandler() {
+        this(DSLContextFactory::getProductionInstance, SESEmailSender::new, null);
+    }
+
+    /**
+     * A handler on other dependencies, for local runs: bodySource looks email bodies up by message ID instead of
+     * reading S3 (null reads S3).
+     */
+    public SESEmailHandler(Supplier<DSLContext> dslContexts, Function<LambdaLogger, SESEmailSender> emailSenders,
+                           Function<String, String> bodySource) {
+        this.dslContexts = dslContexts;
+        this.emailSenders = emailSenders;
+        this.bodySource = bodySource;
+    }
+
     @Override
     public String handleRequest(Map<String, Object> event, Context context) {
 
         LambdaLogger logger = context.getLogger();
-        logger.log("Start of handleRequest() - event: " + event.toString());
+        LeveledLogger.of(logger, "handler").debug(() -> "Start of handleRequest() - event: " + event);
 
         if (DEBUG_EMAIL_SENDING) {
             logger.log("DEBUG TEST OF HTTP CONNECTIONS:");
@@ -64,26 +88,39 @@ public class SESEmailHandler implements RequestHandler<Map<String, Object>, Stri
         }
 
         logger.log("Lambda Endpoint handleRequest - number of records: " + records.size());
-        DSLContext dslContext = DSLContextFactory.getProductionInstance();
-
-        for (Map<String, Object> record : records) {
+        RequestTrace trace = RequestTrace.begin("SESEmail", context.getAwsRequestId());
+        DSLContext dslContext = dslContexts.get();
+        DSLContextFactory.getQueryStats().beginRequest(logger);
+        try {
             try {
-                S3Email email = S3Email.fromJson(record, logger);
-                if (email.getFrom().equalsIgnoreCase("pbemgs@angryturtlestudios.com") ||
-                        email.getFrom().equalsIgnoreCase("pbemgs@mail.angryturtlestudios.com")) {
-                    logger.log("Ignoring mail from self! - subject line is: " + email.getSubject());
-                    continue;
+                StaticResponseCache.prewarm(dslContext, logger);
+            } catch (Exception e) {
+                // Entries also fill lazily - a bad one should only fail the command that needs it.
+                logger.log("StaticResponseCache prewarm failed: " + e.getMessage());
+            }
+
+            for (Map<String, Object> record : records) {
+                try {
+                    S3Email email = S3Email.fromJson(record, logger, bodySource);
+                    if (email.getFrom().equalsIgnoreCase("pbemgs@angryturtlestudios.com") ||
+                            email.getFrom().equalsIgnoreCase("pbemgs@mail.angryturtlestudios.com")) {
+                        logger.log("Ignoring mail from self! - subject line is: " + email.getSubject());
+                        continue;
+                    }
+                    MainEmailProcessor commandParser = new MainEmailProcessor(dslContext, emailSenders);
+                    commandParser.process(email, logger);
+                    ++successRecords;
+                } catch (IllegalArgumentException e) {
+                    logger.log("Caught exception: " + e.getMessage());
+                    ++failRecords;
                 }
-                MainEmailProcessor commandParser = new MainEmailProcessor(dslContext);
-                commandParser.process(email, logger);
-                ++successRecords;
-            } catch (IllegalArgumentException e) {
-                logger.log("Caught exception: " + e.getMessage());
-                ++failRecords;
             }
-        }
 
-        return "Complete.  Successes: " + successRecords + ", Failures: " + failRecords;
+            return "Complete.  Successes: " + successRecords + ", Failures: " + failRecords;
+        } finally {
+            DSLContextFactory.getQueryStats().logSummary(logger, "SESEmail");
+            trace.end(logger);
+        }
     }
 
     // Test methods for debugging AWS Setup
@@ -1,6 +1,7 @@
 package com.pbemgs.controller;
 
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.model.RequestTrace;
 import jakarta.mail.Authenticator;
 import jakarta.mail.Message;
 import jakarta.mail.MessagingException;
@@ -14,9 +15,32 @@ import jakarta.mail.internet.MimeMessage;
 import jakarta.mail.internet.MimeMultipart;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Properties;
 
 public class SESEmailSender {
+    // SES counts To, CC and BCC together against this.
+    public static final int MAX_RECIPIENTS_PER_MESSAGE = 50;
+    private static final String SMTP_HOST = "email-smtp.us-west-1.amazonaws.com"; // Update to your SES region
+    private static final int SMTP_PORT = 587; // Use 587 for TLS or 465 for SSL
+    private static final String HTML_PREFIX = "<html><head><meta charset=\"UTF-8\"></head>" +
+            "<body style=\"font-family: Menlo, 'Courier New', Courier, Consolas, 'Lucida Console', 'DejaVu Sans Mono', monospace;\"><pre>";
+    private static final String HTML_SUFFIX = "</pre></body></html>";
+
+    /**
+     * One outgoing email, for sendEmails().
+     */
+    public record Email(String toAddress, String subject, String plainTextBody) {
+    }
+
+    /**
+     * A body with its MIME parts already built, for text that never changes (see StaticResponseCache).
+     * bodyParts is null if building them failed; they are then built at send time.
+     */
+    public record PreparedBody(String plainTextBody, MimeMultipart bodyParts) {
+    }
+
+    private static Session session;
 
     private LambdaLogger logger;
 
@@ -25,121 +49,153 @@ public class SESEmailSender {
     }
 
     public void sendEmail(String toAddress, String subject, String plainTextBody) {
-        logger.log("Attempting to send email to: " + toAddress);
-        String smtpHost = "email-smtp.us-west-1.amazonaws.com"; // Update to your SES region
-        int smtpPort = 587; // Use 587 for TLS or 465 for SSL
-        String smtpUsername = System.getenv("SMTP_USERNAME");
-        String smtpPassword = System.getenv("SMTP_PASSWORD");
-
-        // Set SMTP properties
-        Properties props = new Properties();
-        props.put("mail.smtp.auth", "true");
-        props.put("mail.smtp.starttls.enable", "true");
-        props.put("mail.smtp.host", smtpHost);
-        props.put("mail.smtp.port", smtpPort);
-
-        // Create a session with authentication
-        Session session = Session.getInstance(props, new Authenticator() {
-            @Override
-            protected PasswordAuthentication getPasswordAuthentication() {
-                return new PasswordAuthentication(smtpUsername, smtpPassword);
-            }
-        });
+        sendEmails(List.of(new Email(toAddress, subject, plainTextBody)));
+    }
 
-        try {
-            // Create the email message
-            Message message = new MimeMessage(session);
-            message.setFrom(new InternetAddress("pbemgs@mail.angryturtlestudios.com"));
-            message.setReplyTo(new InternetAddress[]{new InternetAddress("pbemgs@angryturtlestudios.com")});
-            message.setRecipient(Message.RecipientType.TO, new InternetAddress(toAddress));
-            message.setSubject(subject);
+    /**
+     * Sends a batch of emails over one SMTP connection, e.g. a game state update to every player.  The MIME
+     * body parts (plain and HTML) are built once and reused while consecutive emails have the same body, so
+     * callers should render shared text once and send identical bodies together.  A failure on one email is
+     * logged and the rest are still sent.
+     */
+    public void sendEmails(List<Email> emails) {
+        send(emails, null);
+    }
 
-            // create html and plain body parts from the same text
-            MimeBodyPart plainTextPart = new MimeBodyPart();
-            plainTextPart.setText(plainTextBody, "utf-8");
+    public void sendEmail(String toAddress, String subject, PreparedBody body) {
+        send(List.of(new Email(toAddress, subject, body.plainTextBody())), body);
+    }
 
-            MimeBodyPart htmlPart = new MimeBodyPart();
+    public static PreparedBody prepareBody(String plainTextBody) {
+        try {
+            return new PreparedBody(plainTextBody, createBodyParts(plainTextBody));
+        } catch (MessagingException e) {
+            return new PreparedBody(plainTextBody, null);
+        }
+    }
 
-            String htmlContent = "<html><head><meta charset=\"UTF-8\"></head>" +
-                    "<body style=\"font-family: Menlo, 'Courier New', Courier, Consolas, 'Lucida Console', 'DejaVu Sans Mono', monospace;\"><pre>" +
-                    plainTextBody + "</pre></body></html>";
-            htmlPart.setContent(htmlContent, "text/html; charset=UTF-8");
+    private void send(List<Email> emails, PreparedBody prepared) {
+        if (emails.isEmpty()) {
+            return;
+        }
+        try (RequestTrace.Span span = RequestTrace.span(RequestTrace.SMTP_SEND)) {
+            Transport transport = getSession().getTransport("smtp");
+            transport.connect(SMTP_HOST, SMTP_PORT, System.getenv("SMTP_USERNAME"), System.getenv("SMTP_PASSWORD"));
+            try {
+                String partsBody = prepared == null ? null : prepared.plainTextBody();
+                MimeMultipart parts = prepared == null ? null : prepared.bodyParts();
+                for (Email email : emails) {
+                    logger.log("Attempting to send email to: " + email.toAddress());
+                    try {
+                        if (parts == null || !email.plainTextBody().equals(partsBody)) {
+                            parts = createBodyParts(email.plainTextBody());
+                            partsBody = email.plainTextBody();
+                        }
+
+                        // Create the email message
+                        Message message = new MimeMessage(getSession());
+                        message.setFrom(new InternetAddress("pbemgs@mail.angryturtlestudios.com"));
+                        message.setReplyTo(new InternetAddress[]{new InternetAddress("pbemgs@angryturtlestudios.com")});
+                        message.setRecipient(Message.RecipientType.TO, new InternetAddress(email.toAddress()));
+                        message.setSubject(email.subject());
+                        message.setContent(parts);
+                        message.saveChanges();
+
+                        // Send the email
+                        transport.sendMessage(message, message.getAllRecipients());
+                        logger.log("Email sent successfully to " + email.toAddress());
+                    } catch (MessagingException e) {
+                        logger.log("Failed to send email: " + e.getMessage());
+                    }
+                }
+            } finally {
+                transport.close();
+            }
+        } catch (MessagingException e) {
+            logger.log("Failed to send email: " + e.getMessage());
+        }
+    }
 
-            MimeMultipart multipart = new MimeMultipart("alternative");
-            multipart.addBodyPart(plainTextPart);
-            multipart.addBodyPart(htmlPart);
+    // create html and plain body parts from the same text
+    private static MimeMultipart createBodyParts(String plainTextBody) throws MessagingException {
+        MimeBodyPart plainTextPart = new MimeBodyPart();
+        plainTextPart.setText(plainTextBody, "utf-8");
 
-            message.setContent(multipart);
+        MimeBodyPart htmlPart = new MimeBodyPart();
+        String htmlContent = new StringBuilder(HTML_PREFIX.length() + plainTextBody.length() + HTML_SUFFIX.length())
+                .append(HTML_PREFIX).append(plainTextBody).append(HTML_SUFFIX).toString();
+        htmlPart.setContent(htmlContent, "text/html; charset=UTF-8");
 
-            // Send the email
-            Transport.send(message);
-            logger.log("Email sent successfully to " + toAddress);
+        MimeMultipart multipart = new MimeMultipart("alternative");
+        multipart.addBodyPart(plainTextPart);
+        multipart.addBodyPart(htmlPart);
+        return multipart;
+    }
 
-        } catch (MessagingException e) {
-            logger.log("Failed to send email: " + e.getMessage());
+    // The session only holds the SMTP settings, so a warm Lambda reuses it across invocations.
+    private static synchronized Session getSession() {
+        if (session == null) {
+            String smtpUsername = System.getenv("SMTP_USERNAME");
+            String smtpPassword = System.getenv("SMTP_PASSWORD");
+
+            // Set SMTP properties
+            Properties props = new Properties();
+            props.put("mail.smtp.auth", "true");
+            props.put("mail.smtp.starttls.enable", "true");
+            props.put("mail.smtp.host", SMTP_HOST);
+            props.put("mail.smtp.port", SMTP_PORT);
+
+            // Create a session with authentication
+            session = Session.getInstance(props, new Authenticator() {
+                @Override
+                protected PasswordAuthentication getPasswordAuthentication() {
+                    return new PasswordAuthentication(smtpUsername, smtpPassword);
+                }
+            });
         }
+        return session;
     }
 
-    public void sendNotificationEmail(List<String> toAddresses, String plainTextBody) {
-        logger.log("Attempting to send bulk BCC notification email to: " + toAddresses.size() + " addresses.");
-        String smtpHost = "email-smtp.us-west-1.amazonaws.com";
-        int smtpPort = 587; // Use 587 for TLS or 465 for SSL
-        String smtpUsername = System.getenv("SMTP_USERNAME");
-        String smtpPassword = System.getenv("SMTP_PASSWORD");
-
-        // Set SMTP properties
-        Properties props = new Properties();
-        props.put("mail.smtp.auth", "true");
-        props.put("mail.smtp.starttls.enable", "true");
-        props.put("mail.smtp.host", smtpHost);
-        props.put("mail.smtp.port", smtpPort);
-
-        // Create a session with authentication
-        Session session = Session.getInstance(props, new Authenticator() {
-            @Override
-            protected PasswordAuthentication getPasswordAuthentication() {
-                return new PasswordAuthentication(smtpUsername, smtpPassword);
+    /**
+     * Sends one notification to toAddresses as BCC recipients, over its own SMTP connection.  The message is also
+     * addressed To the PBEMGS mailbox, so callers keep each list one under MAX_RECIPIENTS_PER_MESSAGE (see
+     * BulkNotificationSender).  Invalid addresses are logged and skipped.  Returns false if the send failed.
+     */
+    public boolean sendNotificationEmail(List<String> toAddresses, PreparedBody body) {
+        logger.log("Attempting to send BCC notification email to: " + toAddresses.size() + " addresses.");
+        try (RequestTrace.Span span = RequestTrace.span(RequestTrace.SMTP_SEND)) {
+            InternetAddress[] bcc = toAddresses.stream()
+                    .map(this::safeAddress)
+                    .filter(Objects::nonNull)
+                    .toArray(InternetAddress[]::new);
+            if (bcc.length == 0) {
+                return true;
             }
-        });
 
-        try {
-            // Create the email message
-            Message message = new MimeMessage(session);
+            Message message = new MimeMessage(getSession());
             message.setFrom(new InternetAddress("pbemgs@mail.angryturtlestudios.com"));
             message.setReplyTo(new InternetAddress[]{new InternetAddress("pbemgs@angryturtlestudios.com")});
             message.setRecipient(Message.RecipientType.TO, new InternetAddress("pbemgs@angryturtlestudios.com"));
-            message.setRecipients(Message.RecipientType.BCC,
-                    toAddresses.stream().map(SESEmailSender::safeAddress).toArray(InternetAddress[]::new)
-            );
+            message.setRecipients(Message.RecipientType.BCC, bcc);
             message.setSubject("PBEMGS-NOTIFICATION");
-
-            // create html and plain body parts from the same text
-            MimeBodyPart plainTextPart = new MimeBodyPart();
-            plainTextPart.setText(plainTextBody, "utf-8");
-
-            MimeBodyPart htmlPart = new MimeBodyPart();
-            String htmlContent = "<html><body style=\"font-family: monospace;\"><pre>" + plainTextBody + "</pre></body></html>";
-            htmlPart.setContent(htmlContent, "text/html");
-
-            MimeMultipart multipart = new MimeMultipart("alternative");
-            multipart.addBodyPart(plainTextPart);
-            multipart.addBodyPart(htmlPart);
-
-            message.setContent(multipart);
+            message.setContent(body.bodyParts() != null ? body.bodyParts() : createBodyParts(body.plainTextBody()));
 
             // Send the email
             Transport.send(message);
             logger.log("Notification email sent successfully!");
+            return true;
         } catch (MessagingException e) {
             logger.log("Failed to send system notification email: " + e.getMessage());
+            return false;
         }
     }
 
-    private static InternetAddress safeAddress(String email) {
+    private InternetAddress safeAddress(String email) {
         try {
             return new InternetAddress(email);
         } catch (AddressException e) {
-            throw new RuntimeException("Invalid email address: " + email, e);
+            logger.log("Skipping invalid notification address: " + email);
+            return null;
         }
     }
 
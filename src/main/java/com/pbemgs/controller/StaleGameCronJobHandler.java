@@ -6,48 +6,170 @@ import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.pbemgs.dko.DSLContextFactory;
 import com.pbemgs.dko.UsersDKO;
 import com.pbemgs.game.GameFactory;
-import com.pbemgs.game.GameInterface;
 import com.pbemgs.generated.tables.records.UsersRecord;
+import com.pbemgs.model.GameType;
+import com.pbemgs.model.RequestTrace;
 import org.jooq.DSLContext;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * The controller class that handles AWS "cron job" events for checking for stale games.
+ * <p>
+ * Each game type is scanned on its own worker thread with its own DB connection (the shared production
+ * DSLContext is a single connection).  The per-type reminder maps are merged on the handler thread in game type
+ * order, so each user's combined reminder reads the same regardless of which scan finished first.  Reminders
+ * then go on a mail queue drained by the same workers, a batch per SMTP connection.
  */
 public class StaleGameCronJobHandler implements RequestHandler<Map<String, Object>, String> {
+    private static final int DEFAULT_THREADS = 4;
+    private static final int SEND_BATCH_SIZE = 25;
+
+    record ScanResult(GameType gameType, Map<Long, String> staleMsgs, long nanos, String error) {
+    }
 
     @Override
     public String handleRequest(Map<String, Object> event, Context context) {
         LambdaLogger logger = context.getLogger();
         logger.log("Received scheduled event for StaleGameCronJobHandler: " + event.toString());
 
-        LocalDateTime startTime = LocalDateTime.now();
+        RequestTrace trace = RequestTrace.begin("StaleGameCronJob", context.getAwsRequestId());
         DSLContext dslContext = DSLContextFactory.getProductionInstance();
-        SESEmailSender emailSender = new SESEmailSender(logger);
-        UsersDKO userDKO = new UsersDKO(dslContext);
-
-        Map<Long, String> staleMsgsByUserId = new HashMap<>();
-        List<GameInterface> games = GameFactory.createAllGames(dslContext, logger);
-        for (GameInterface game : games) {
-            Map<Long, String> thisGameStaleMsgs = game.processStaleGameCheck(emailSender);
-            for (Map.Entry<Long, String> entry : thisGameStaleMsgs.entrySet()) {
+        DSLContextFactory.getQueryStats().beginRequest(logger);
+        try {
+            SESEmailSender emailSender = new SESEmailSender(logger);
+            UsersDKO userDKO = new UsersDKO(dslContext);
+
+            int threads = getThreadCount();
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<ScanResult>> scans = new ArrayList<>();
+                for (GameType gameType : GameType.values()) {
+                    if (gameType != GameType.NONE) {
+                        scans.add(executor.submit(() -> scanGameType(gameType, emailSender, logger)));
+                    }
+                }
+
+                List<ScanResult> results = new ArrayList<>();
+                Map<String, Long> timingsMs = new LinkedHashMap<>();
+                for (Future<ScanResult> scan : scans) {
+                    ScanResult result = scan.get();
+                    results.add(result);
+                    timingsMs.put(result.gameType().getGameName(), result.nanos() / 1_000_000);
+                    trace.addTiming("Stale" + result.gameType().getGameName(), result.nanos());
+                    if (result.error() != null) {
+                        logger.log("Stale game check failed for " + result.gameType().getGameName() + ": " + result.error());
+                    }
+                }
+                logger.log("STALE_CHECK_TIMINGS " + timingsMs);
+                Map<Long, String> staleMsgsByUserId = mergeStaleMessages(results);
+
+                ConcurrentLinkedQueue<SESEmailSender.Email> mailQueue = new ConcurrentLinkedQueue<>();
+                Map<Long, UsersRecord> userById = userDKO.fetchUsersByIds(staleMsgsByUserId.keySet());
+                for (Map.Entry<Long, String> entry : staleMsgsByUserId.entrySet()) {
+                    UsersRecord user = userById.get(entry.getKey());
+                    if (user == null) {
+                        logger.log("Skipping stale game reminder for missing user ID " + entry.getKey());
+                        continue;
+                    }
+                    mailQueue.add(new SESEmailSender.Email(user.getEmailAddr(), "PBEMGS - Stale Game Reminder",
+                            TextResponseProvider.getStaleGameEmailBody(entry.getValue())));
+                    logger.log("Queued stale game reminder to: " + user.getHandle() + " (ID: " + entry.getKey() + ") for " + entry.getValue());
+                }
+                drainMailQueue(mailQueue, emailSender, executor, threads);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.log("Stale game check interrupted");
+            } catch (ExecutionException e) {
+                logger.log("Stale game reminder dispatch failed: " + e.getCause().getMessage());
+            } finally {
+                executor.shutdownNow();
+            }
+
+            logger.log("Completed Stale Game checks - time used: " + trace.getElapsedMillis() + "ms");
+            return "Stale Game periodic update executed successfully.";
+        } finally {
+            DSLContextFactory.getQueryStats().logSummary(logger, "StaleGameCronJob");
+            trace.end(logger);
+        }
+    }
+
+    // Runs one game type's stale check on a connection of its own.  Failures are reported in the result so one
+    // game type can't keep the others' reminders from going out.
+    private ScanResult scanGameType(GameType gameType, SESEmailSender emailSender, LambdaLogger logger) {
+        long start = System.nanoTime();
+        try (Connection connection = DSLContextFactory.openProductionConnection()) {
+            DSLContext dslContext = DSLContextFactory.usingConnection(connection);
+            Map<Long, String> staleMsgs = GameFactory.createGame(gameType, dslContext, logger)
+                    .processStaleGameCheck(emailSender);
+            return new ScanResult(gameType, staleMsgs, System.nanoTime() - start, null);
+        } catch (Exception e) {
+            return new ScanResult(gameType, Map.of(), System.nanoTime() - start, e.toString());
+        }
+    }
+
+    /**
+     * Combines the per-type reminders into one message per user, in game type order whatever order the results
+     * are in.  Failed scans are skipped.
+     */
+    static Map<Long, String> mergeStaleMessages(List<ScanResult> results) {
+        List<ScanResult> ordered = new ArrayList<>(results);
+        ordered.sort(Comparator.comparing(ScanResult::gameType));
+        Map<Long, String> staleMsgsByUserId = new LinkedHashMap<>();
+        for (ScanResult result : ordered) {
+            if (result.error() != null) {
+                continue;
+            }
+            for (Map.Entry<Long, String> entry : result.staleMsgs().entrySet()) {
                 staleMsgsByUserId.merge(entry.getKey(), entry.getValue(), (a, b) -> a + "\n" + b);
             }
         }
+        return staleMsgsByUserId;
+    }
 
-        Map<Long, UsersRecord> userById = userDKO.fetchUsersByIds(staleMsgsByUserId.keySet());
-        for (Long userId : staleMsgsByUserId.keySet()) {
-            emailSender.sendEmail(userById.get(userId).getEmailAddr(), "PBEMGS - Stale Game Reminder",
-                    TextResponseProvider.getStaleGameEmailBody(staleMsgsByUserId.get(userId)));
-            logger.log("Sent stale game reminder to: " + userById.get(userId).getHandle() + " (ID: " + userId + ") for " + staleMsgsByUserId.get(userId));
+    private void drainMailQueue(ConcurrentLinkedQueue<SESEmailSender.Email> mailQueue, SESEmailSender emailSender,
+                                ExecutorService executor, int threads) throws InterruptedException, ExecutionException {
+        List<Future<?>> senders = new ArrayList<>();
+        for (int i = 0; i < Math.min(threads, mailQueue.size()); ++i) {
+            senders.add(executor.submit(() -> {
+                List<SESEmailSender.Email> batch = new ArrayList<>(SEND_BATCH_SIZE);
+                SESEmailSender.Email email;
+                while ((email = mailQueue.poll()) != null) {
+                    batch.add(email);
+                    if (batch.size() == SEND_BATCH_SIZE) {
+                        emailSender.sendEmails(batch);
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    emailSender.sendEmails(batch);
+                }
+            }));
         }
+        for (Future<?> sender : senders) {
+            sender.get();
+        }
+    }
 
-        logger.log("Completed Stale Game checks - time used: " + Duration.between(startTime, LocalDateTime.now()).toMillis() + "ms");
-        return "Stale Game periodic update executed successfully.";
+    private static int getThreadCount() {
+        String threads = System.getenv("PBEMGS_STALE_CHECK_THREADS");
+        if (threads == null) {
+            return DEFAULT_THREADS;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(threads.trim()));
+        } catch (NumberFormatException e) {
+            return DEFAULT_THREADS;
+        }
     }
 }
@@ -0,0 +1,94 @@
+package com.pbemgs.controller;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.game.GameFactory;
+import com.pbemgs.game.GameInterface;
+import com.pbemgs.model.GameType;
+import org.jooq.DSLContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the response bodies that never change (intro, help, game preview, display tests and each game's
+ * rules), keyed by (game, kind) with game NONE for the general responses.  Each entry holds the text with its
+ * plain and HTML MIME parts already built, so answering e.g. "rules surge" is just a send - no sample boards
+ * are deserialized or rendered.
+ * <p>
+ * Entries are built on first use and never replaced.  prewarm() fills the whole cache; SESEmailHandler calls
+ * it on the first request a container handles.  The prepared MIME parts are shared by every send of that
+ * response, which is safe as Lambda hands a container one event at a time.
+ */
+public class StaticResponseCache {
+
+    public enum Kind {
+        INTRO,
+        HELP_REGISTERED,
+        HELP_UNREGISTERED,
+        GAME_PREVIEW,
+        TEST_DISPLAY,
+        TEST_SYMBOL,
+        RULES
+    }
+
+    private record Key(GameType game, Kind kind) {
+    }
+
+    private static final Map<Key, SESEmailSender.PreparedBody> cache = new ConcurrentHashMap<>();
+    private static volatile boolean prewarmed = false;
+
+    /**
+     * A general (non game-specific) response.
+     */
+    public static SESEmailSender.PreparedBody get(Kind kind) {
+        if (kind == Kind.RULES) {
+            throw new IllegalArgumentException("StaticResponseCache::get - rules responses need a game");
+        }
+        return cache.computeIfAbsent(new Key(GameType.NONE, kind), key -> SESEmailSender.prepareBody(generalText(kind)));
+    }
+
+    /**
+     * The rules for a game; rulesText is only called the first time.
+     */
+    public static SESEmailSender.PreparedBody getRules(GameType game, Supplier<String> rulesText) {
+        return cache.computeIfAbsent(new Key(game, Kind.RULES), key -> SESEmailSender.prepareBody(rulesText.get()));
+    }
+
+    /**
+     * Builds every entry, if not already done.  The games are only used for their rules text.  Only attempted
+     * once per container: if an entry throws, the rest are left to fill lazily.
+     */
+    public static void prewarm(DSLContext dslContext, LambdaLogger logger) {
+        if (prewarmed) {
+            return;
+        }
+        prewarmed = true;
+        long start = System.nanoTime();
+        for (Kind kind : Kind.values()) {
+            if (kind != Kind.RULES) {
+                get(kind);
+            }
+        }
+        for (GameType gameType : GameType.values()) {
+            if (gameType != GameType.NONE) {
+                GameInterface game = GameFactory.createGame(gameType, dslContext, logger);
+                getRules(gameType, game::getRulesTextBody);
+            }
+        }
+        logger.log("StaticResponseCache prewarmed " + cache.size() + " responses in " +
+                (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private static String generalText(Kind kind) {
+        return switch (kind) {
+            case INTRO -> TextResponseProvider.getIntroText();
+            case HELP_REGISTERED -> TextResponseProvider.getMainHelpTextRegistered();
+            case HELP_UNREGISTERED -> TextResponseProvider.getMainHelpTextUnregistered();
+            case GAME_PREVIEW -> TextResponseProvider.getGamePreview();
+            case TEST_DISPLAY -> TextResponseProvider.getTestDisplayHtmlTextBody();
+            case TEST_SYMBOL -> TextResponseProvider.getMonoSymbolTestText();
+            case RULES -> throw new IllegalArgumentException("StaticResponseCache::generalText - rules need a game");
+        };
+    }
+}
@@ -5,10 +5,9 @@ import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.pbemgs.dko.DSLContextFactory;
 import com.pbemgs.game.surge.Surge;
+import com.pbemgs.model.RequestTrace;
 import org.jooq.DSLContext;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
 import java.util.Map;
 
 /**
@@ -19,16 +18,23 @@ public class SurgeCronJobHandler implements RequestHandler<Map<String, Object>,
     @Override
     public String handleRequest(Map<String, Object> event, Context context) {
         LambdaLogger logger = context.getLogger();
+        RequestTrace trace = RequestTrace.begin("SurgeCronJob", context.getAwsRequestId());
         DSLContext dslContext = DSLContextFactory.getProductionInstance();
-        SESEmailSender emailSender = new SESEmailSender(logger);
+        DSLContextFactory.getQueryStats().beginRequest(logger);
+        try {
+            SESEmailSender emailSender = new SESEmailSender(logger);
 
-        logger.log("Received scheduled event for SurgeCronJobHandler: " + event.toString());
-        LocalDateTime startTime = LocalDateTime.now();
+            logger.log("Received scheduled event for SurgeCronJobHandler: " + event.toString());
+            Surge surgeGame = new Surge(dslContext, logger);
+            try (RequestTrace.Span span = RequestTrace.span(RequestTrace.ENGINE)) {
+                surgeGame.processPeriodicUpdate(emailSender);
+            }
 
-        Surge surgeGame = new Surge(dslContext, logger);
-        surgeGame.processPeriodicUpdate(emailSender);
-
-        logger.log("Completed Surge updates - time used: " + Duration.between(startTime, LocalDateTime.now()).toMillis() + "ms");
-        return "Surge periodic update executed successfully.";
+            logger.log("Completed Surge updates - time used: " + trace.getElapsedMillis() + "ms");
+            return "Surge periodic update executed successfully.";
+        } finally {
+            DSLContextFactory.getQueryStats().logSummary(logger, "SurgeCronJob");
+            trace.end(logger);
+        }
     }
 }
@@ -197,26 +197,26 @@ public class TextResponseProvider {
                 "Status requests must also be for a game you are involved in!";
     }
 
-    static String alignmentTest =
+    static final String alignmentTest =
             "+-----+-----+-----+\n" +
                     "|     |     |     |\n" +
                     "+-----+-----+-----+\n" +
                     "|     |     |     |\n" +
                     "+-----+-----+-----+\n";
 
-    static String colorTest =
+    static final String colorTest =
             "<span style='color:red;'>RED X</span> " +
                     "<span style='color:blue;'>BLUE O</span> " +
                     "<span style='color:green;'>GREEN #</span> " +
                     "<span style='color:purple;'>PURPLE @</span> " +
                     "<span style='color:orange;'>ORANGE =</span> " + "\n";
 
-    static String charTest =
+    static final String charTest =
             "Notation 1: " + '\u2605' + " " + '\u25CF' + " " + '\u2B1B' + "\n" +
                     "Notation 2: " + String.valueOf(Character.toChars(0x2605)) + " " +
                     String.valueOf(Character.toChars(0x25CF)) + " " + String.valueOf(Character.toChars(0x2B1B)) + "\n";
 
-    static String unicodeAlignmentTest =
+    static final String unicodeAlignmentTest =
             "+-----+-----+-----+\n" +
                     "|  " + '\u25A0' + "  |  " + '\u25A1' + "  |  " + '\u25CF' + "  |\n" +
                     "+-----+-----+-----+\n" +
@@ -0,0 +1,167 @@
+package com.pbemgs.dko;
+
+import com.pbemgs.generated.enums.AtaxxGamesGameState;
+import com.pbemgs.generated.enums.CollapsiGamesGameState;
+import com.pbemgs.generated.enums.GomokuGamesGameState;
+import com.pbemgs.generated.enums.IroncladGamesGameState;
+import com.pbemgs.generated.enums.LoaGamesGameState;
+import com.pbemgs.generated.enums.NinetacGamesGameState;
+import com.pbemgs.generated.enums.SurgeGamesGameState;
+import com.pbemgs.generated.enums.TacGamesGameState;
+import com.pbemgs.generated.enums.TriadGamesGameState;
+import com.pbemgs.model.ActiveGameSummary;
+import com.pbemgs.model.GameType;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Select;
+import org.jooq.SelectSelectStep;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.pbemgs.generated.tables.AtaxxGames.ATAXX_GAMES;
+import static com.pbemgs.generated.tables.CollapsiGames.COLLAPSI_GAMES;
+import static com.pbemgs.generated.tables.CollapsiPlayers.COLLAPSI_PLAYERS;
+import static com.pbemgs.generated.tables.GomokuGames.GOMOKU_GAMES;
+import static com.pbemgs.generated.tables.IroncladGames.IRONCLAD_GAMES;
+import static com.pbemgs.generated.tables.LoaGames.LOA_GAMES;
+import static com.pbemgs.generated.tables.NinetacGames.NINETAC_GAMES;
+import static com.pbemgs.generated.tables.SurgeGames.SURGE_GAMES;
+import static com.pbemgs.generated.tables.SurgePlayers.SURGE_PLAYERS;
+import static com.pbemgs.generated.tables.TacGames.TAC_GAMES;
+import static com.pbemgs.generated.tables.TriadGames.TRIAD_GAMES;
+import static com.pbemgs.generated.tables.TriadPlayers.TRIAD_PLAYERS;
+
+/**
+ * Cross-game read of a user's active games, for "my_games".
+ * One UNION ALL over every game table (joined to the players table where the game has one), so the whole
+ * list is a single DB round trip rather than one query per game type plus per-game player lookups.
+ * Each branch finds the user's games through game_participants (idx_user_state) rather than the game table's
+ * user columns.
+ */
+public class ActiveGamesDKO {
+
+    private static final Field<String> GAME_TYPE = DSL.field(DSL.name("game_type"), String.class);
+    private static final Field<Long> GAME_ID = DSL.field(DSL.name("game_id"), Long.class);
+    private static final Field<Boolean> IS_OPEN = DSL.field(DSL.name("is_open"), Boolean.class);
+    private static final Field<Long> USER_ID_TO_MOVE = DSL.field(DSL.name("user_id_to_move"), Long.class);
+    private static final Field<String> PHASE = DSL.field(DSL.name("phase"), String.class);
+    private static final Field<Boolean> NEEDS_INPUT = DSL.field(DSL.name("needs_input"), Boolean.class);
+    private static final Field<Integer> TICKS_PER_DAY = DSL.field(DSL.name("ticks_per_day"), Integer.class);
+    private static final Field<String> GAME_TIMEZONE = DSL.field(DSL.name("game_timezone"), String.class);
+    private static final Field<LocalDateTime> LAST_TIME_STEP = DSL.field(DSL.name("last_time_step"), LocalDateTime.class);
+
+    private final DSLContext dslContext;
+
+    public ActiveGamesDKO(DSLContext jooqContext) {
+        dslContext = jooqContext;
+    }
+
+    /**
+     * All active games for the user, every game type, in one query.
+     */
+    public List<ActiveGameSummary> getActiveGamesForUser(long userId) {
+        Select<Record> tac = summary(GameType.TAC, TAC_GAMES.GAME_ID, DSL.falseCondition(), TAC_GAMES.USER_ID)
+                .from(TAC_GAMES)
+                .where(TAC_GAMES.GAME_STATE.eq(TacGamesGameState.IN_PROGRESS))
+                .and(GameParticipantsDKO.isActiveParticipant(GameType.TAC, TAC_GAMES.GAME_ID, userId));
+
+        Select<Record> ninetac = summary(GameType.NINETAC, NINETAC_GAMES.GAME_ID,
+                NINETAC_GAMES.GAME_STATE.eq(NinetacGamesGameState.OPEN), NINETAC_GAMES.USER_ID_TO_MOVE)
+                .from(NINETAC_GAMES)
+                .where(NINETAC_GAMES.GAME_STATE.in(NinetacGamesGameState.OPEN, NinetacGamesGameState.IN_PROGRESS)
+                        .and(GameParticipantsDKO.isActiveParticipant(GameType.NINETAC, NINETAC_GAMES.GAME_ID, userId)));
+
+        Select<Record> ataxx = summary(GameType.ATAXX, ATAXX_GAMES.GAME_ID,
+                ATAXX_GAMES.GAME_STATE.eq(AtaxxGamesGameState.OPEN), ATAXX_GAMES.USER_ID_TO_MOVE)
+                .from(ATAXX_GAMES)
+                .where(ATAXX_GAMES.GAME_STATE.in(AtaxxGamesGameState.OPEN, AtaxxGamesGameState.IN_PROGRESS)
+                        .and(GameParticipantsDKO.isActiveParticipant(GameType.ATAXX, ATAXX_GAMES.GAME_ID, userId)));
+
+        Select<Record> surge = dslContext.select(List.of(
+                        DSL.inline(GameType.SURGE.name()).as(GAME_TYPE),
+                        SURGE_GAMES.GAME_ID.as(GAME_ID),
+                        DSL.field(SURGE_GAMES.GAME_STATE.eq(SurgeGamesGameState.OPEN)).as(IS_OPEN),
+                        DSL.castNull(SQLDataType.BIGINT).as(USER_ID_TO_MOVE),
+                        DSL.castNull(SQLDataType.VARCHAR).as(PHASE),
+                        DSL.field(SURGE_PLAYERS.CURRENT_COMMAND.isNull().or(SURGE_PLAYERS.CURRENT_COMMAND.eq(""))).as(NEEDS_INPUT),
+                        SURGE_GAMES.TICKS_PER_DAY.as(TICKS_PER_DAY),
+                        SURGE_GAMES.GAME_TIMEZONE.cast(SQLDataType.VARCHAR).as(GAME_TIMEZONE),
+                        SURGE_GAMES.LAST_TIME_STEP.as(LAST_TIME_STEP)))
+                .from(SURGE_GAMES)
+                .join(SURGE_PLAYERS).on(SURGE_GAMES.GAME_ID.eq(SURGE_PLAYERS.GAME_ID).and(SURGE_PLAYERS.USER_ID.eq(userId)))
+                .where(SURGE_GAMES.GAME_STATE.in(SurgeGamesGameState.OPEN, SurgeGamesGameState.IN_PROGRESS))
+                .and(GameParticipantsDKO.isActiveParticipant(GameType.SURGE, SURGE_GAMES.GAME_ID, userId));
+
+        Select<Record> loa = summary(GameType.LOA, LOA_GAMES.GAME_ID,
+                LOA_GAMES.GAME_STATE.eq(LoaGamesGameState.OPEN), LOA_GAMES.USER_ID_TO_MOVE)
+                .from(LOA_GAMES)
+                .where(LOA_GAMES.GAME_STATE.in(LoaGamesGameState.OPEN, LoaGamesGameState.IN_PROGRESS)
+                        .and(GameParticipantsDKO.isActiveParticipant(GameType.LOA, LOA_GAMES.GAME_ID, userId)));
+
+        Select<Record> gomoku = summary(GameType.GOMOKU, GOMOKU_GAMES.GAME_ID,
+                GOMOKU_GAMES.GAME_STATE.eq(GomokuGamesGameState.OPEN), GOMOKU_GAMES.USER_ID_TO_MOVE)
+                .from(GOMOKU_GAMES)
+                .where(GOMOKU_GAMES.GAME_STATE.in(GomokuGamesGameState.OPEN, GomokuGamesGameState.IN_PROGRESS)
+                        .and(GameParticipantsDKO.isActiveParticipant(GameType.GOMOKU, GOMOKU_GAMES.GAME_ID, userId)));
+
+        Select<Record> triad = dslContext.select(List.of(
+                        DSL.inline(GameType.TRIAD.name()).as(GAME_TYPE),
+                        TRIAD_GAMES.GAME_ID.as(GAME_ID),
+                        DSL.field(TRIAD_GAMES.GAME_STATE.eq(TriadGamesGameState.OPEN)).as(IS_OPEN),
+                        TRIAD_GAMES.CURRENT_ACTION_USERID.as(USER_ID_TO_MOVE),
+                        TRIAD_GAMES.GAME_PHASE.cast(SQLDataType.VARCHAR).as(PHASE),
+                        DSL.field(TRIAD_PLAYERS.CARDS_IN_HAND.isNull().or(TRIAD_PLAYERS.CARDS_IN_HAND.eq(""))).as(NEEDS_INPUT),
+                        DSL.castNull(SQLDataType.INTEGER).as(TICKS_PER_DAY),
+                        DSL.castNull(SQLDataType.VARCHAR).as(GAME_TIMEZONE),
+                        DSL.castNull(SQLDataType.LOCALDATETIME).as(LAST_TIME_STEP)))
+                .from(TRIAD_GAMES)
+                .join(TRIAD_PLAYERS).on(TRIAD_GAMES.GAME_ID.eq(TRIAD_PLAYERS.GAME_ID).and(TRIAD_PLAYERS.USER_ID.eq(userId)))
+                .where(TRIAD_GAMES.GAME_STATE.in(TriadGamesGameState.OPEN, TriadGamesGameState.IN_PROGRESS))
+                .and(GameParticipantsDKO.isActiveParticipant(GameType.TRIAD, TRIAD_GAMES.GAME_ID, userId));
+
+        Select<Record> ironclad = summary(GameType.IRONCLAD, IRONCLAD_GAMES.GAME_ID,
+                IRONCLAD_GAMES.GAME_STATE.eq(IroncladGamesGameState.OPEN), IRONCLAD_GAMES.USER_ID_TO_MOVE)
+                .from(IRONCLAD_GAMES)
+                .where(IRONCLAD_GAMES.GAME_STATE.in(IroncladGamesGameState.OPEN, IroncladGamesGameState.IN_PROGRESS)
+                        .and(GameParticipantsDKO.isActiveParticipant(GameType.IRONCLAD, IRONCLAD_GAMES.GAME_ID, userId)));
+
+        Select<Record> collapsi = summary(GameType.COLLAPSI, COLLAPSI_GAMES.GAME_ID,
+                COLLAPSI_GAMES.GAME_STATE.eq(CollapsiGamesGameState.OPEN), COLLAPSI_GAMES.CURRENT_ACTION_USERID)
+                .from(COLLAPSI_GAMES)
+                .join(COLLAPSI_PLAYERS).on(COLLAPSI_GAMES.GAME_ID.eq(COLLAPSI_PLAYERS.GAME_ID).and(COLLAPSI_PLAYERS.USER_ID.eq(userId)))
+                .where(COLLAPSI_GAMES.GAME_STATE.in(CollapsiGamesGameState.OPEN, CollapsiGamesGameState.IN_PROGRESS))
+                .and(GameParticipantsDKO.isActiveParticipant(GameType.COLLAPSI, COLLAPSI_GAMES.GAME_ID, userId));
+
+        return tac.unionAll(ninetac)
+                .unionAll(ataxx)
+                .unionAll(surge)
+                .unionAll(loa)
+                .unionAll(gomoku)
+                .unionAll(triad)
+                .unionAll(ironclad)
+                .unionAll(collapsi)
+                .fetch(r -> new ActiveGameSummary(GameType.valueOf(r.get(GAME_TYPE)), r.get(GAME_ID),
+                        Boolean.TRUE.equals(r.get(IS_OPEN)), r.get(USER_ID_TO_MOVE), r.get(PHASE),
+                        Boolean.TRUE.equals(r.get(NEEDS_INPUT)), r.get(TICKS_PER_DAY), r.get(GAME_TIMEZONE),
+                        r.get(LAST_TIME_STEP)));
+    }
+
+    // Select list for the two-player turn-based games, which only need state and the user to move.
+    private SelectSelectStep<Record> summary(GameType gameType, Field<Long> gameId, Condition isOpen, Field<Long> userIdToMove) {
+        return dslContext.select(List.of(
+                DSL.inline(gameType.name()).as(GAME_TYPE),
+                gameId.as(GAME_ID),
+                DSL.field(isOpen).as(IS_OPEN),
+                userIdToMove.as(USER_ID_TO_MOVE),
+                DSL.castNull(SQLDataType.VARCHAR).as(PHASE),
+                DSL.inline(false).as(NEEDS_INPUT),
+                DSL.castNull(SQLDataType.INTEGER).as(TICKS_PER_DAY),
+                DSL.castNull(SQLDataType.VARCHAR).as(GAME_TIMEZONE),
+                DSL.castNull(SQLDataType.LOCALDATETIME).as(LAST_TIME_STEP)));
+    }
+}
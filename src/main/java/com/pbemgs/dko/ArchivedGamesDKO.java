@@ -0,0 +1,256 @@
+package com.pbemgs.dko;
+
+import com.pbemgs.archive.GameArchiveObject;
+import com.pbemgs.archive.GameArchiveStore;
+import com.pbemgs.model.GameType;
+import org.jooq.BatchBindStep;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.pbemgs.generated.tables.ArchivedGames.ARCHIVED_GAMES;
+import static com.pbemgs.generated.tables.AtaxxGames.ATAXX_GAMES;
+import static com.pbemgs.generated.tables.CollapsiGames.COLLAPSI_GAMES;
+import static com.pbemgs.generated.tables.CollapsiPlayers.COLLAPSI_PLAYERS;
+import static com.pbemgs.generated.tables.GameMoves.GAME_MOVES;
+import static com.pbemgs.generated.tables.GameSnapshots.GAME_SNAPSHOTS;
+import static com.pbemgs.generated.tables.GomokuGames.GOMOKU_GAMES;
+import static com.pbemgs.generated.tables.IroncladGames.IRONCLAD_GAMES;
+import static com.pbemgs.generated.tables.LoaGames.LOA_GAMES;
+import static com.pbemgs.generated.tables.NinetacGames.NINETAC_GAMES;
+import static com.pbemgs.generated.tables.SurgeGames.SURGE_GAMES;
+import static com.pbemgs.generated.tables.SurgePlayers.SURGE_PLAYERS;
+import static com.pbemgs.generated.tables.TacGames.TAC_GAMES;
+import static com.pbemgs.generated.tables.TriadGames.TRIAD_GAMES;
+import static com.pbemgs.generated.tables.TriadPlayers.TRIAD_PLAYERS;
+
+/**
+ * Cold storage for completed games.
+ * <p>
+ * archiveBatch() moves COMPLETE games whose last activity is older than a cutoff out of the hot *_games table
+ * (and its players table, where the game has one) into one compressed object per batch in the archive store,
+ * recording each game in archived_games.  The games' game_moves and game_snapshots rows (MoveLogDKO) go into the
+ * same object and leave the hot tables in the same transaction; nothing replays a finished game, so they are kept
+ * only as history.  The game DKOs' getGameById() / getPlayersForGame() fall back to fetchArchivedGame() /
+ * fetchArchivedRows() when the hot table has no rows, so status requests for old games keep working.  Outcomes,
+ * stats and Triad victors are left in place - they are small and feed the leaderboards.
+ * <p>
+ * Ids above the highest archived id of the type (typos, bad MOVE commands, games that never existed) skip the
+ * archived_games lookup.  That maximum is cached per container for MAX_ARCHIVED_ID_TTL; the archive cron runs in
+ * its own container, so a game archived since the last refresh can read as missing for up to that long.
+ */
+public class ArchivedGamesDKO {
+
+    private record ArchivedTable(Table<?> gameTable, Field<Long> gameId, Field<?> gameState,
+                                 Field<LocalDateTime> lastActivity, Table<?> playersTable, Field<Long> playersGameId) {
+    }
+
+    private static final Map<GameType, ArchivedTable> ARCHIVED_TABLES = Map.of(
+            GameType.TAC, new ArchivedTable(TAC_GAMES, TAC_GAMES.GAME_ID, TAC_GAMES.GAME_STATE,
+                    TAC_GAMES.LAST_MOVE_TIMESTAMP, null, null),
+            GameType.NINETAC, new ArchivedTable(NINETAC_GAMES, NINETAC_GAMES.GAME_ID, NINETAC_GAMES.GAME_STATE,
+                    NINETAC_GAMES.LAST_MOVE_TIMESTAMP, null, null),
+            GameType.ATAXX, new ArchivedTable(ATAXX_GAMES, ATAXX_GAMES.GAME_ID, ATAXX_GAMES.GAME_STATE,
+                    ATAXX_GAMES.LAST_MOVE_TIMESTAMP, null, null),
+            GameType.SURGE, new ArchivedTable(SURGE_GAMES, SURGE_GAMES.GAME_ID, SURGE_GAMES.GAME_STATE,
+                    SURGE_GAMES.LAST_TIME_STEP, SURGE_PLAYERS, SURGE_PLAYERS.GAME_ID),
+            GameType.LOA, new ArchivedTable(LOA_GAMES, LOA_GAMES.GAME_ID, LOA_GAMES.GAME_STATE,
+                    LOA_GAMES.LAST_MOVE_TIMESTAMP, null, null),
+            GameType.GOMOKU, new ArchivedTable(GOMOKU_GAMES, GOMOKU_GAMES.GAME_ID, GOMOKU_GAMES.GAME_STATE,
+                    GOMOKU_GAMES.LAST_MOVE_TIMESTAMP, null, null),
+            GameType.TRIAD, new ArchivedTable(TRIAD_GAMES, TRIAD_GAMES.GAME_ID, TRIAD_GAMES.GAME_STATE,
+                    TRIAD_GAMES.LAST_MOVE_TIMESTAMP, TRIAD_PLAYERS, TRIAD_PLAYERS.GAME_ID),
+            GameType.IRONCLAD, new ArchivedTable(IRONCLAD_GAMES, IRONCLAD_GAMES.GAME_ID, IRONCLAD_GAMES.GAME_STATE,
+                    IRONCLAD_GAMES.LAST_MOVE_TIMESTAMP, null, null),
+            GameType.COLLAPSI, new ArchivedTable(COLLAPSI_GAMES, COLLAPSI_GAMES.GAME_ID, COLLAPSI_GAMES.GAME_STATE,
+                    COLLAPSI_GAMES.LAST_MOVE_TIMESTAMP, COLLAPSI_PLAYERS, COLLAPSI_PLAYERS.GAME_ID));
+
+    // A status request reads the game and then its players from the same object, so keep the last few
+    // decoded objects.  Archived objects never change once written.
+    private static final int CACHED_OBJECTS = 8;
+    private static final Map<String, Map<String, String>> recentObjects = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Map<String, String>> eldest) {
+                    return size() > CACHED_OBJECTS;
+                }
+            });
+
+    private static final Duration MAX_ARCHIVED_ID_TTL = Duration.ofMinutes(10);
+
+    private record MaxArchivedId(long gameId, long loadedAtNanos) {
+    }
+
+    private static final Map<GameType, MaxArchivedId> maxArchivedIds = new ConcurrentHashMap<>();
+
+    private static GameArchiveStore productionStore;
+
+    private final DSLContext dslContext;
+    private final GameArchiveStore store;
+
+    public ArchivedGamesDKO(DSLContext dslContext) {
+        this(dslContext, getProductionStore());
+    }
+
+    public ArchivedGamesDKO(DSLContext dslContext, GameArchiveStore store) {
+        this.dslContext = dslContext;
+        this.store = store;
+    }
+
+    /**
+     * Archives up to batchSize of the oldest COMPLETE games of the type last active before the cutoff, in one
+     * transaction and one archive object.  Returns the number archived - fewer than batchSize means none are left.
+     */
+    public int archiveBatch(GameType gameType, LocalDateTime cutoff, int batchSize) {
+        if (store == null) {
+            throw new IllegalStateException("No archive store configured (PBEMGS_ARCHIVE_BUCKET / PBEMGS_ARCHIVE_DIR).");
+        }
+        ArchivedTable archived = ARCHIVED_TABLES.get(gameType);
+        int archivedCount = dslContext.transactionResult(configuration -> {
+            DSLContext trx = DSL.using(configuration);
+            Result<? extends Record> games = trx.selectFrom(archived.gameTable())
+                    .where(archived.gameState().coerce(SQLDataType.VARCHAR).eq("COMPLETE"))
+                    .and(archived.lastActivity().lt(cutoff))
+                    .orderBy(archived.gameId())
+                    .limit(batchSize)
+                    .forUpdate()
+                    .fetch();
+            if (games.isEmpty()) {
+                return 0;
+            }
+            List<Long> gameIds = games.getValues(archived.gameId());
+
+            Map<String, String> tables = new LinkedHashMap<>();
+            tables.put(archived.gameTable().getName(), games.formatJSON());
+            if (archived.playersTable() != null) {
+                tables.put(archived.playersTable().getName(), trx.selectFrom(archived.playersTable())
+                        .where(archived.playersGameId().in(gameIds))
+                        .fetch()
+                        .formatJSON());
+            }
+            tables.put(GAME_MOVES.getName(), trx.selectFrom(GAME_MOVES)
+                    .where(GAME_MOVES.GAME_TYPE.eq(gameType.name()))
+                    .and(GAME_MOVES.GAME_ID.in(gameIds))
+                    .fetch()
+                    .formatJSON());
+            tables.put(GAME_SNAPSHOTS.getName(), trx.selectFrom(GAME_SNAPSHOTS)
+                    .where(GAME_SNAPSHOTS.GAME_TYPE.eq(gameType.name()))
+                    .and(GAME_SNAPSHOTS.GAME_ID.in(gameIds))
+                    .fetch()
+                    .formatJSON());
+            String key = "games/" + gameType.name().toLowerCase() + "/" + gameIds.get(0) + "-" +
+                    gameIds.get(gameIds.size() - 1) + ".zip";
+            // Written before the deletes commit: if the transaction fails the object is just an orphan, and a
+            // retry of the same games writes the same key.
+            store.put(key, GameArchiveObject.write(tables));
+
+            LocalDateTime now = LocalDateTime.now();
+            BatchBindStep index = trx.batch(trx.insertInto(ARCHIVED_GAMES,
+                            ARCHIVED_GAMES.GAME_TYPE, ARCHIVED_GAMES.GAME_ID, ARCHIVED_GAMES.OBJECT_KEY, ARCHIVED_GAMES.ARCHIVED_AT)
+                    .values((String) null, null, null, null));
+            gameIds.forEach(gameId -> index.bind(gameType.name(), gameId, key, now));
+            index.execute();
+
+            if (archived.playersTable() != null) {
+                trx.deleteFrom(archived.playersTable()).where(archived.playersGameId().in(gameIds)).execute();
+            }
+            trx.deleteFrom(GAME_MOVES)
+                    .where(GAME_MOVES.GAME_TYPE.eq(gameType.name()))
+                    .and(GAME_MOVES.GAME_ID.in(gameIds))
+                    .execute();
+            trx.deleteFrom(GAME_SNAPSHOTS)
+                    .where(GAME_SNAPSHOTS.GAME_TYPE.eq(gameType.name()))
+                    .and(GAME_SNAPSHOTS.GAME_ID.in(gameIds))
+                    .execute();
+            trx.deleteFrom(archived.gameTable()).where(archived.gameId().in(gameIds)).execute();
+            return gameIds.size();
+        });
+        maxArchivedIds.remove(gameType);
+        return archivedCount;
+    }
+
+    /**
+     * The archived game row, or null if the game isn't archived.
+     */
+    public <R extends Record> R fetchArchivedGame(GameType gameType, Table<R> gameTable, long gameId) {
+        List<R> rows = fetchArchivedRows(gameType, gameTable, ARCHIVED_TABLES.get(gameType).gameId().getName(), gameId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * The archived rows of the game's players table, empty if the game isn't archived.
+     */
+    public <R extends Record> List<R> fetchArchivedPlayers(GameType gameType, Table<R> playersTable, long gameId) {
+        return fetchArchivedRows(gameType, playersTable, ARCHIVED_TABLES.get(gameType).playersGameId().getName(), gameId);
+    }
+
+    private <R extends Record> List<R> fetchArchivedRows(GameType gameType, Table<R> table, String gameIdColumn,
+                                                        long gameId) {
+        if (store == null || !mayBeArchived(gameType, gameId)) {
+            return List.of();
+        }
+        String key = dslContext.select(ARCHIVED_GAMES.OBJECT_KEY)
+                .from(ARCHIVED_GAMES)
+                .where(ARCHIVED_GAMES.GAME_TYPE.eq(gameType.name()))
+                .and(ARCHIVED_GAMES.GAME_ID.eq(gameId))
+                .fetchOne(ARCHIVED_GAMES.OBJECT_KEY);
+        if (key == null) {
+            return List.of();
+        }
+        String json = loadObject(key).get(table.getName());
+        if (json == null) {
+            return List.of();
+        }
+        Field<Long> gameIdField = table.field(gameIdColumn, Long.class);
+        return dslContext.fetchFromJSON(json).into(table).stream()
+                .filter(row -> row.get(gameIdField) == gameId)
+                .toList();
+    }
+
+    // False if the id is above the (cached) highest archived id of the type.
+    private boolean mayBeArchived(GameType gameType, long gameId) {
+        long now = System.nanoTime();
+        MaxArchivedId max = maxArchivedIds.get(gameType);
+        if (max == null || now - max.loadedAtNanos() > MAX_ARCHIVED_ID_TTL.toNanos()) {
+            Long maxId = dslContext.select(DSL.max(ARCHIVED_GAMES.GAME_ID))
+                    .from(ARCHIVED_GAMES)
+                    .where(ARCHIVED_GAMES.GAME_TYPE.eq(gameType.name()))
+                    .fetchOne(0, Long.class);
+            max = new MaxArchivedId(maxId == null ? 0 : maxId, now);
+            maxArchivedIds.put(gameType, max);
+        }
+        return gameId <= max.gameId();
+    }
+
+    private Map<String, String> loadObject(String key) {
+        Map<String, String> tables = recentObjects.get(key);
+        if (tables == null) {
+            byte[] data = store.get(key);
+            if (data == null) {
+                throw new IllegalStateException("Archive object missing: " + key);
+            }
+            tables = GameArchiveObject.read(data);
+            recentObjects.put(key, tables);
+        }
+        return tables;
+    }
+
+    private static synchronized GameArchiveStore getProductionStore() {
+        if (productionStore == null) {
+            productionStore = GameArchiveStore.fromEnvironment();
+        }
+        return productionStore;
+    }
+}
@@ -3,6 +3,7 @@ package com.pbemgs.dko;
 import com.pbemgs.generated.enums.AtaxxGamesBoardOption;
 import com.pbemgs.generated.enums.AtaxxGamesGameState;
 import com.pbemgs.generated.tables.records.AtaxxGamesRecord;
+import com.pbemgs.model.GameType;
 import org.jooq.DSLContext;
 
 import java.time.LocalDateTime;
@@ -20,9 +21,10 @@ public class AtaxxGameDKO {
 
     // Get game by game ID
     public AtaxxGamesRecord getGameById(Long gameId) {
-        return dslContext.selectFrom(ATAXX_GAMES)
+        AtaxxGamesRecord game = dslContext.selectFrom(ATAXX_GAMES)
                 .where(ATAXX_GAMES.GAME_ID.eq(gameId))
                 .fetchOne();
+        return game != null ? game : new ArchivedGamesDKO(dslContext).fetchArchivedGame(GameType.ATAXX, ATAXX_GAMES, gameId);
     }
 
     // Get all games in the OPEN state
@@ -36,10 +38,7 @@ public class AtaxxGameDKO {
     public List<AtaxxGamesRecord> getActiveGamesForUser(Long userId) {
         return dslContext.selectFrom(ATAXX_GAMES)
                 .where(ATAXX_GAMES.GAME_STATE.in(AtaxxGamesGameState.OPEN, AtaxxGamesGameState.IN_PROGRESS)
-                        .and(ATAXX_GAMES.USER0_ID.eq(userId)
-                                .or(ATAXX_GAMES.USER1_ID.eq(userId))
-                                .or(ATAXX_GAMES.USER2_ID.eq(userId))
-                                .or(ATAXX_GAMES.USER3_ID.eq(userId))))
+                        .and(GameParticipantsDKO.isActiveParticipant(GameType.ATAXX, ATAXX_GAMES.GAME_ID, userId)))
                 .fetchInto(AtaxxGamesRecord.class);
     }
 
@@ -54,59 +53,83 @@ public class AtaxxGameDKO {
         record.setBoardState(boardState);
         record.setBoardOption(boardOption);
         record.store();
+        new GameParticipantsDKO(dslContext).addParticipant(GameType.ATAXX, record.getGameId(), player0Id, 0);
         return record.getGameId();
     }
 
     // Add a new player to a 4P game (handles player1 and player2 only)
-    public void addPlayerToGame(Long gameId, Long newPlayerId) {
+    public void addPlayerToGame(Long gameId, Long newPlayerId, Integer expectedVersion) {
         AtaxxGamesRecord game = getGameById(gameId);
         if (game == null) {
             throw new IllegalArgumentException("Cannot add player: Game not found.");
         }
+        int rowsUpdated;
+        int seat;
         if (game.getUser1Id() == null) {
-            dslContext.update(ATAXX_GAMES)
+            seat = 1;
+            rowsUpdated = dslContext.update(ATAXX_GAMES)
                     .set(ATAXX_GAMES.USER1_ID, newPlayerId)
+                    .set(ATAXX_GAMES.VERSION, ATAXX_GAMES.VERSION.plus(1))
                     .where(ATAXX_GAMES.GAME_ID.eq(gameId))
+                    .and(ATAXX_GAMES.VERSION.eq(expectedVersion))
                     .execute();
         } else if (game.getUser2Id() == null) {
-            dslContext.update(ATAXX_GAMES)
+            seat = 2;
+            rowsUpdated = dslContext.update(ATAXX_GAMES)
                     .set(ATAXX_GAMES.USER2_ID, newPlayerId)
+                    .set(ATAXX_GAMES.VERSION, ATAXX_GAMES.VERSION.plus(1))
                     .where(ATAXX_GAMES.GAME_ID.eq(gameId))
+                    .and(ATAXX_GAMES.VERSION.eq(expectedVersion))
                     .execute();
         } else {
             throw new IllegalStateException("Cannot add player - player 3 will complete the game.");
         }
+
+        if (rowsUpdated == 0) {
+            throw new StaleGameUpdateException("ataxx_games", gameId, expectedVersion);
+        }
+        new GameParticipantsDKO(dslContext).addParticipant(GameType.ATAXX, gameId, newPlayerId, seat);
     }
 
     // Finalize a 2P game when player2 joins (single DB execute)
-    public void completeGameCreation2P(Long gameId, Long player1Id, Long firstPlayerId) {
+    public void completeGameCreation2P(Long gameId, Long player1Id, Long firstPlayerId, Integer expectedVersion) {
         int rowsUpdated = dslContext.update(ATAXX_GAMES)
                 .set(ATAXX_GAMES.USER1_ID, player1Id)
                 .set(ATAXX_GAMES.GAME_STATE, AtaxxGamesGameState.IN_PROGRESS)
                 .set(ATAXX_GAMES.USER_ID_TO_MOVE, firstPlayerId)
                 .set(ATAXX_GAMES.LAST_MOVE_TIMESTAMP, LocalDateTime.now())
+                .set(ATAXX_GAMES.VERSION, ATAXX_GAMES.VERSION.plus(1))
                 .where(ATAXX_GAMES.GAME_ID.eq(gameId))
+                .and(ATAXX_GAMES.VERSION.eq(expectedVersion))
                 .execute();
 
         if (rowsUpdated == 0) {
-            throw new IllegalArgumentException("Cannot complete game creation - game not found.");
+            throw new StaleGameUpdateException("ataxx_games", gameId, expectedVersion);
         }
+        GameParticipantsDKO participants = new GameParticipantsDKO(dslContext);
+        participants.addParticipant(GameType.ATAXX, gameId, player1Id, 1);
+        participants.syncGameState(GameType.ATAXX, gameId);
     }
 
     // Finalize a 4P game when player4 joins
-    public void completeGameCreation4P(Long gameId, Long player3Id, Long firstPlayerId) {
+    public void completeGameCreation4P(Long gameId, Long player3Id, Long firstPlayerId, Integer expectedVersion) {
 
         int rowsUpdated = dslContext.update(ATAXX_GAMES)
                 .set(ATAXX_GAMES.USER3_ID, player3Id)
                 .set(ATAXX_GAMES.GAME_STATE, AtaxxGamesGameState.IN_PROGRESS)
                 .set(ATAXX_GAMES.USER_ID_TO_MOVE, firstPlayerId)
                 .set(ATAXX_GAMES.LAST_MOVE_TIMESTAMP, LocalDateTime.now())
+                .set(ATAXX_GAMES.VERSION, ATAXX_GAMES.VERSION.plus(1))
                 .where(ATAXX_GAMES.GAME_ID.eq(gameId))
+                .and(ATAXX_GAMES.VERSION.eq(expectedVersion))
                 .execute();
 
         if (rowsUpdated == 0) {
-            throw new IllegalArgumentException("Cannot complete game creation - game not found.");
+            throw new StaleGameUpdateException("ataxx_games", gameId, expectedVersion);
         }
+        GameParticipantsDKO participants = new GameParticipantsDKO(dslContext);
+        participants.addParticipant(GameType.ATAXX, gameId, player3Id, 3);
+        participants.syncGameState(GameType.ATAXX, gameId);
     }
 
     // Update game state
@@ -120,18 +143,19 @@ public class AtaxxGameDKO {
                 .set(ATAXX_GAMES.BOARD_STATE, gameRecord.getBoardState())
                 .set(ATAXX_GAMES.USER_ID_TO_MOVE, gameRecord.getUserIdToMove())
                 .set(ATAXX_GAMES.LAST_MOVE_TIMESTAMP, gameRecord.getLastMoveTimestamp())
+                .set(ATAXX_GAMES.VERSION, ATAXX_GAMES.VERSION.plus(1))
                 .where(ATAXX_GAMES.GAME_ID.eq(gameRecord.getGameId()))
+                .and(ATAXX_GAMES.VERSION.eq(gameRecord.getVersion()))
                 .execute();
 
         if (rowsUpdated == 0) {
-            throw new IllegalArgumentException("Cannot update game - game doesn't exist!");
+            throw new StaleGameUpdateException("ataxx_games", gameRecord.getGameId(), gameRecord.getVersion());
+        }
+        gameRecord.setVersion(gameRecord.getVersion() + 1);
+        if (gameRecord.changed(ATAXX_GAMES.GAME_STATE)) {
+            new GameParticipantsDKO(dslContext).syncGameState(GameType.ATAXX, gameRecord.getGameId());
+            gameRecord.changed(ATAXX_GAMES.GAME_STATE, false);
         }
-    }
-
-    public List<AtaxxGamesRecord> getActiveGames() {
-        return dslContext.selectFrom(ATAXX_GAMES)
-                .where(ATAXX_GAMES.GAME_STATE.eq(AtaxxGamesGameState.IN_PROGRESS))
-                .fetchInto(AtaxxGamesRecord.class);
     }
 
     public void updateReminderTimestamps(Set<Long> userIds, LocalDateTime updateTo) {
@@ -0,0 +1,94 @@
+package com.pbemgs.dko;
+
+import com.pbemgs.generated.enums.BulkNotificationsState;
+import com.pbemgs.generated.tables.records.BulkNotificationsRecord;
+import org.jooq.DSLContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.pbemgs.generated.tables.BulkNotifications.BULK_NOTIFICATIONS;
+
+/**
+ * Database interface class for the BULK_NOTIFICATIONS table - the owner broadcasts and their send checkpoints.
+ */
+public class BulkNotificationDKO {
+
+    /**
+     * Where a notification's send stands: every active user with an id up to lastUserId has been handled.
+     */
+    public record Progress(long notificationId, String body, long lastUserId, int sentCount, int failedCount) {
+    }
+
+    private final DSLContext dslContext;
+
+    public BulkNotificationDKO(DSLContext dslContext) {
+        this.dslContext = dslContext;
+    }
+
+    public long createNotification(long ownerUserId, String body) {
+        BulkNotificationsRecord record = dslContext.newRecord(BULK_NOTIFICATIONS);
+        record.setOwnerUserId(ownerUserId);
+        record.setBody(body);
+        record.setState(BulkNotificationsState.SENDING);
+        record.store();
+        return record.getNotificationId();
+    }
+
+    public List<Long> getUnfinishedNotificationIds() {
+        return dslContext.select(BULK_NOTIFICATIONS.NOTIFICATION_ID)
+                .from(BULK_NOTIFICATIONS)
+                .where(BULK_NOTIFICATIONS.STATE.eq(BulkNotificationsState.SENDING))
+                .orderBy(BULK_NOTIFICATIONS.NOTIFICATION_ID)
+                .fetch(BULK_NOTIFICATIONS.NOTIFICATION_ID);
+    }
+
+    /**
+     * Takes the send lease on an unfinished notification until leaseUntil.  Returns its progress, or null if it is
+     * complete or another run holds an unexpired lease.
+     */
+    public Progress claim(long notificationId, LocalDateTime now, LocalDateTime leaseUntil) {
+        int rowsUpdated = dslContext.update(BULK_NOTIFICATIONS)
+                .set(BULK_NOTIFICATIONS.LEASE_UNTIL, leaseUntil)
+                .where(BULK_NOTIFICATIONS.NOTIFICATION_ID.eq(notificationId))
+                .and(BULK_NOTIFICATIONS.STATE.eq(BulkNotificationsState.SENDING))
+                .and(BULK_NOTIFICATIONS.LEASE_UNTIL.isNull().or(BULK_NOTIFICATIONS.LEASE_UNTIL.lt(now)))
+                .execute();
+        if (rowsUpdated == 0) {
+            return null;
+        }
+        BulkNotificationsRecord record = dslContext.selectFrom(BULK_NOTIFICATIONS)
+                .where(BULK_NOTIFICATIONS.NOTIFICATION_ID.eq(notificationId))
+                .fetchOne();
+        return new Progress(notificationId, record.getBody(), record.getLastUserId(), record.getSentCount(),
+                record.getFailedCount());
+    }
+
+    public void checkpoint(long notificationId, long lastUserId, int sentCount, int failedCount) {
+        dslContext.update(BULK_NOTIFICATIONS)
+                .set(BULK_NOTIFICATIONS.LAST_USER_ID, lastUserId)
+                .set(BULK_NOTIFICATIONS.SENT_COUNT, sentCount)
+                .set(BULK_NOTIFICATIONS.FAILED_COUNT, failedCount)
+                .where(BULK_NOTIFICATIONS.NOTIFICATION_ID.eq(notificationId))
+                .execute();
+    }
+
+    public void complete(long notificationId) {
+        dslContext.update(BULK_NOTIFICATIONS)
+                .set(BULK_NOTIFICATIONS.STATE, BulkNotificationsState.COMPLETE)
+                .set(BULK_NOTIFICATIONS.COMPLETED_AT, LocalDateTime.now())
+                .setNull(BULK_NOTIFICATIONS.LEASE_UNTIL)
+                .where(BULK_NOTIFICATIONS.NOTIFICATION_ID.eq(notificationId))
+                .execute();
+    }
+
+    /**
+     * Gives up the send lease, so the next resume can pick the notification up straight away.
+     */
+    public void release(long notificationId) {
+        dslContext.update(BULK_NOTIFICATIONS)
+                .setNull(BULK_NOTIFICATIONS.LEASE_UNTIL)
+                .where(BULK_NOTIFICATIONS.NOTIFICATION_ID.eq(notificationId))
+                .execute();
+    }
+}
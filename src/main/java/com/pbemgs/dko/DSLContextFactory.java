@@ -2,6 +2,9 @@ package com.pbemgs.dko;
 
 import org.jooq.DSLContext;
 import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.impl.DefaultExecuteListenerProvider;
+import org.jooq.tools.jdbc.JDBCUtils;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
@@ -10,6 +13,10 @@ import java.sql.SQLException;
 public class DSLContextFactory {
     private static DSLContext productionDslContext;
     private static DSLContext testDslContext;
+    private static final String productionUrl = System.getenv("PBEMGS_RDS_DB_URL");
+    private static final String productionUser = System.getenv("PBEMGS_RDS_DB_USER");
+    private static final String productionPw = System.getenv("PBEMGS_RDS_DB_PASSWORD");
+    private static final QueryStatsListener queryStats = QueryStatsListener.fromEnvironment();
 
     // Returns the production DSLContext
     public static DSLContext getProductionInstance() {
@@ -19,6 +26,11 @@ public class DSLContextFactory {
         return productionDslContext;
     }
 
+    // Per-statement timing for the production DSLContext - handlers call beginRequest()/logSummary() on it
+    public static QueryStatsListener getQueryStats() {
+        return queryStats;
+    }
+
     // Returns the test DSLContext (intended for unit tests)
     public static DSLContext getTestInstance() {
         if (testDslContext == null) {
@@ -27,19 +39,27 @@ public class DSLContextFactory {
         return testDslContext;
     }
 
-    private static DSLContext createProductionDslContext() {
-        String dbURL = System.getenv("PBEMGS_RDS_DB_URL");
-        String dbUser = System.getenv("PBEMGS_RDS_DB_USER");
-        String dbPw = System.getenv("PBEMGS_RDS_DB_PASSWORD");
+    // Opens a separate connection to the production database, for work running in parallel with the shared
+    // instance (its single connection can't be used from two threads).  The caller closes it.
+    public static Connection openProductionConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(productionUrl, productionUser, productionPw);
+        if (connection == null) {
+            throw new SQLException("Failed to connect to the production database");
+        }
+        return connection;
+    }
+
+    // A DSLContext over the given connection, with the same per-statement timing as the production instance.
+    public static DSLContext usingConnection(Connection connection) {
+        return DSL.using(new DefaultConfiguration()
+                .set(connection)
+                .set(JDBCUtils.dialect(connection))
+                .set(new DefaultExecuteListenerProvider(queryStats)));
+    }
 
+    private static DSLContext createProductionDslContext() {
         try {
-            Connection connection = DriverManager.getConnection(
-                    dbURL, dbUser, dbPw
-            );
-            if (connection == null) {
-                throw new RuntimeException("Failed to connect for DSL Context");
-            }
-            return DSL.using(connection);
+            return usingConnection(openProductionConnection());
         } catch (SQLException e) {
             throw new RuntimeException("Failed to initialize DSLContext", e);
         }
@@ -0,0 +1,102 @@
+package com.pbemgs.dko;
+
+import com.pbemgs.generated.enums.GameParticipantsState;
+import com.pbemgs.model.GameType;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+
+import java.util.Map;
+
+import static com.pbemgs.generated.tables.AtaxxGames.ATAXX_GAMES;
+import static com.pbemgs.generated.tables.CollapsiGames.COLLAPSI_GAMES;
+import static com.pbemgs.generated.tables.GameParticipants.GAME_PARTICIPANTS;
+import static com.pbemgs.generated.tables.GomokuGames.GOMOKU_GAMES;
+import static com.pbemgs.generated.tables.IroncladGames.IRONCLAD_GAMES;
+import static com.pbemgs.generated.tables.LoaGames.LOA_GAMES;
+import static com.pbemgs.generated.tables.NinetacGames.NINETAC_GAMES;
+import static com.pbemgs.generated.tables.SurgeGames.SURGE_GAMES;
+import static com.pbemgs.generated.tables.TacGames.TAC_GAMES;
+import static com.pbemgs.generated.tables.TriadGames.TRIAD_GAMES;
+
+/**
+ * Maintains game_participants, the (game, user) index across all game types, and builds the per-user
+ * conditions that read it.
+ * <p>
+ * The participant state is a copy of the game's game_state.  It is always copied from the game row itself
+ * (in the same transaction when the caller has one), so the order of the game update and the participant write
+ * doesn't matter.  Game DKOs call addParticipant() when a user creates or joins a game, and syncGameState()
+ * whenever they change the game state.
+ */
+public class GameParticipantsDKO {
+
+    private record GameTable(Table<?> table, Field<Long> gameId, Field<?> gameState) {
+    }
+
+    private static final Map<GameType, GameTable> GAME_TABLES = Map.of(
+            GameType.TAC, new GameTable(TAC_GAMES, TAC_GAMES.GAME_ID, TAC_GAMES.GAME_STATE),
+            GameType.NINETAC, new GameTable(NINETAC_GAMES, NINETAC_GAMES.GAME_ID, NINETAC_GAMES.GAME_STATE),
+            GameType.ATAXX, new GameTable(ATAXX_GAMES, ATAXX_GAMES.GAME_ID, ATAXX_GAMES.GAME_STATE),
+            GameType.SURGE, new GameTable(SURGE_GAMES, SURGE_GAMES.GAME_ID, SURGE_GAMES.GAME_STATE),
+            GameType.LOA, new GameTable(LOA_GAMES, LOA_GAMES.GAME_ID, LOA_GAMES.GAME_STATE),
+            GameType.GOMOKU, new GameTable(GOMOKU_GAMES, GOMOKU_GAMES.GAME_ID, GOMOKU_GAMES.GAME_STATE),
+            GameType.TRIAD, new GameTable(TRIAD_GAMES, TRIAD_GAMES.GAME_ID, TRIAD_GAMES.GAME_STATE),
+            GameType.IRONCLAD, new GameTable(IRONCLAD_GAMES, IRONCLAD_GAMES.GAME_ID, IRONCLAD_GAMES.GAME_STATE),
+            GameType.COLLAPSI, new GameTable(COLLAPSI_GAMES, COLLAPSI_GAMES.GAME_ID, COLLAPSI_GAMES.GAME_STATE));
+
+    private final DSLContext dslContext;
+
+    public GameParticipantsDKO(DSLContext dslContext) {
+        this.dslContext = dslContext;
+    }
+
+    /**
+     * Adds (or re-seats) a user in a game, with the game's current state.
+     */
+    public void addParticipant(GameType gameType, long gameId, long userId, int seat) {
+        GameTable game = GAME_TABLES.get(gameType);
+        dslContext.insertInto(GAME_PARTICIPANTS,
+                        GAME_PARTICIPANTS.GAME_TYPE, GAME_PARTICIPANTS.GAME_ID, GAME_PARTICIPANTS.USER_ID,
+                        GAME_PARTICIPANTS.SEAT, GAME_PARTICIPANTS.STATE)
+                .select(DSL.select(DSL.val(gameType.name()), game.gameId(), DSL.val(userId), DSL.val(seat),
+                                stateOf(game))
+                        .from(game.table())
+                        .where(game.gameId().eq(gameId)))
+                .onDuplicateKeyUpdate()
+                .set(GAME_PARTICIPANTS.SEAT, seat)
+                .execute();
+    }
+
+    /**
+     * Copies the game's current state to all of its participant rows.
+     */
+    public void syncGameState(GameType gameType, long gameId) {
+        GameTable game = GAME_TABLES.get(gameType);
+        dslContext.update(GAME_PARTICIPANTS)
+                .set(GAME_PARTICIPANTS.STATE, DSL.field(DSL.select(stateOf(game))
+                        .from(game.table())
+                        .where(game.gameId().eq(gameId))))
+                .where(GAME_PARTICIPANTS.GAME_TYPE.eq(gameType.name()))
+                .and(GAME_PARTICIPANTS.GAME_ID.eq(gameId))
+                .execute();
+    }
+
+    /**
+     * Condition that gameId is an OPEN or IN_PROGRESS game of the given type that the user is in.
+     * Renders as an IN subquery on idx_user_state, for use in the game tables' per-user lookups.
+     */
+    public static Condition isActiveParticipant(GameType gameType, Field<Long> gameId, long userId) {
+        return gameId.in(DSL.select(GAME_PARTICIPANTS.GAME_ID)
+                .from(GAME_PARTICIPANTS)
+                .where(GAME_PARTICIPANTS.USER_ID.eq(userId))
+                .and(GAME_PARTICIPANTS.STATE.in(GameParticipantsState.OPEN, GameParticipantsState.IN_PROGRESS))
+                .and(GAME_PARTICIPANTS.GAME_TYPE.eq(gameType.name())));
+    }
+
+    // The game table's state enum, typed as the participant state (the ENUM literals are the same).
+    private static Field<GameParticipantsState> stateOf(GameTable game) {
+        return game.gameState().coerce(GAME_PARTICIPANTS.STATE.getDataType());
+    }
+}
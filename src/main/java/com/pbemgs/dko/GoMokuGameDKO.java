@@ -3,6 +3,7 @@ package com.pbemgs.dko;
 import com.pbemgs.generated.enums.GomokuGamesGameState;
 import com.pbemgs.generated.enums.GomokuGamesSwap2State;
 import com.pbemgs.generated.tables.records.GomokuGamesRecord;
+import com.pbemgs.model.GameType;
 import org.jooq.DSLContext;
 
 import java.time.LocalDateTime;
@@ -21,9 +22,10 @@ public class GoMokuGameDKO {
 
     // Get game by game ID
     public GomokuGamesRecord getGameById(Long gameId) {
-        return dslContext.selectFrom(GOMOKU_GAMES)
+        GomokuGamesRecord game = dslContext.selectFrom(GOMOKU_GAMES)
                 .where(GOMOKU_GAMES.GAME_ID.eq(gameId))
                 .fetchOne();
+        return game != null ? game : new ArchivedGamesDKO(dslContext).fetchArchivedGame(GameType.GOMOKU, GOMOKU_GAMES, gameId);
     }
 
     // Get all games in the OPEN state
@@ -37,7 +39,7 @@ public class GoMokuGameDKO {
     public List<GomokuGamesRecord> getActiveGamesForUser(Long UserId) {
         return dslContext.selectFrom(GOMOKU_GAMES)
                 .where(GOMOKU_GAMES.GAME_STATE.in(GomokuGamesGameState.OPEN, GomokuGamesGameState.IN_PROGRESS)
-                        .and(GOMOKU_GAMES.X_USER_ID.eq(UserId).or(GOMOKU_GAMES.O_USER_ID.eq(UserId))))
+                        .and(GameParticipantsDKO.isActiveParticipant(GameType.GOMOKU, GOMOKU_GAMES.GAME_ID, UserId)))
                 .fetchInto(GomokuGamesRecord.class);
     }
 
@@ -52,19 +54,31 @@ public class GoMokuGameDKO {
 
         record.setLastReminderTimestamp(null);
         record.store();
+        new GameParticipantsDKO(dslContext).addParticipant(GameType.GOMOKU, record.getGameId(), xUserId, 0);
         return record.getGameId();
     }
 
     // Complete game creation by setting both User IDs (could swap from creator), and the swap2 state
-    public void completeGameCreation(Long gameId, Long xUserId, Long oUserId) {
-        dslContext.update(GOMOKU_GAMES)
+    public void completeGameCreation(Long gameId, Long xUserId, Long oUserId, Integer expectedVersion) {
+        int rowsUpdated = dslContext.update(GOMOKU_GAMES)
                 .set(GOMOKU_GAMES.GAME_STATE, GomokuGamesGameState.IN_PROGRESS)
                 .set(GOMOKU_GAMES.X_USER_ID, xUserId)
                 .set(GOMOKU_GAMES.O_USER_ID, oUserId)
                 .set(GOMOKU_GAMES.USER_ID_TO_MOVE, xUserId)
                 .set(GOMOKU_GAMES.SWAP2_STATE, GomokuGamesSwap2State.AWAITING_INITIAL_PLACEMENT)
+                .set(GOMOKU_GAMES.VERSION, GOMOKU_GAMES.VERSION.plus(1))
                 .where(GOMOKU_GAMES.GAME_ID.eq(gameId))
+                .and(GOMOKU_GAMES.VERSION.eq(expectedVersion))
                 .execute();
+
+        if (rowsUpdated == 0) {
+            throw new StaleGameUpdateException("gomoku_games", gameId, expectedVersion);
+        }
+        // The creator may have been swapped to O, so (re)seat both players.
+        GameParticipantsDKO participants = new GameParticipantsDKO(dslContext);
+        participants.addParticipant(GameType.GOMOKU, gameId, xUserId, 0);
+        participants.addParticipant(GameType.GOMOKU, gameId, oUserId, 1);
+        participants.syncGameState(GameType.GOMOKU, gameId);
     }
 
     // Update state in an existing game
@@ -81,11 +95,18 @@ public class GoMokuGameDKO {
                 .set(GOMOKU_GAMES.USER_ID_TO_MOVE, gameRecord.getUserIdToMove())
                 .set(GOMOKU_GAMES.LAST_MOVE_TIMESTAMP, gameRecord.getLastMoveTimestamp())
                 .set(GOMOKU_GAMES.LAST_REMINDER_TIMESTAMP, gameRecord.getLastMoveTimestamp())
+                .set(GOMOKU_GAMES.VERSION, GOMOKU_GAMES.VERSION.plus(1))
                 .where(GOMOKU_GAMES.GAME_ID.eq(gameRecord.getGameId()))
+                .and(GOMOKU_GAMES.VERSION.eq(gameRecord.getVersion()))
                 .execute();
 
         if (rowsUpdated == 0) {
-            throw new IllegalArgumentException("Cannot update game - game doesn't exist!");
+            throw new StaleGameUpdateException("gomoku_games", gameRecord.getGameId(), gameRecord.getVersion());
+        }
+        gameRecord.setVersion(gameRecord.getVersion() + 1);
+        if (gameRecord.changed(GOMOKU_GAMES.GAME_STATE)) {
+            new GameParticipantsDKO(dslContext).syncGameState(GameType.GOMOKU, gameRecord.getGameId());
+            gameRecord.changed(GOMOKU_GAMES.GAME_STATE, false);
         }
     }
 
@@ -95,10 +116,4 @@ public class GoMokuGameDKO {
                 .where(GOMOKU_GAMES.USER_ID_TO_MOVE.in(userIds))
                 .execute();
     }
-
-    public List<GomokuGamesRecord> getActiveGames() {
-        return dslContext.selectFrom(GOMOKU_GAMES)
-                .where(GOMOKU_GAMES.GAME_STATE.eq(GomokuGamesGameState.IN_PROGRESS))
-                .fetchInto(GomokuGamesRecord.class);
-    }
 }
@@ -2,6 +2,7 @@ package com.pbemgs.dko;
 
 import com.pbemgs.generated.enums.LoaGamesGameState;
 import com.pbemgs.generated.tables.records.LoaGamesRecord;
+import com.pbemgs.model.GameType;
 import org.jooq.DSLContext;
 
 import java.time.LocalDateTime;
@@ -20,9 +21,10 @@ public class LoaGameDKO {
 
     // Get game by game ID
     public LoaGamesRecord getGameById(Long gameId) {
-        return dslContext.selectFrom(LOA_GAMES)
+        LoaGamesRecord game = dslContext.selectFrom(LOA_GAMES)
                 .where(LOA_GAMES.GAME_ID.eq(gameId))
                 .fetchOne();
+        return game != null ? game : new ArchivedGamesDKO(dslContext).fetchArchivedGame(GameType.LOA, LOA_GAMES, gameId);
     }
 
     // Get all games in the OPEN state
@@ -36,7 +38,7 @@ public class LoaGameDKO {
     public List<LoaGamesRecord> getActiveGamesForUser(Long userId) {
         return dslContext.selectFrom(LOA_GAMES)
                 .where(LOA_GAMES.GAME_STATE.in(LoaGamesGameState.OPEN, LoaGamesGameState.IN_PROGRESS)
-                        .and(LOA_GAMES.X_USER_ID.eq(userId).or(LOA_GAMES.O_USER_ID.eq(userId))))
+                        .and(GameParticipantsDKO.isActiveParticipant(GameType.LOA, LOA_GAMES.GAME_ID, userId)))
                 .fetchInto(LoaGamesRecord.class);
     }
 
@@ -49,19 +51,29 @@ public class LoaGameDKO {
         record.setLastMoveTimestamp(LocalDateTime.now());
         record.setLastReminderTimestamp(null);
         record.store();
+        new GameParticipantsDKO(dslContext).addParticipant(GameType.LOA, record.getGameId(), xUserId, 0);
         return record.getGameId();
 
     }
 
     // Complete game creation by setting the O player
-    public void completeGameCreation(Long gameId, Long oUserId, Long firstUserId) {
-        dslContext.update(LOA_GAMES)
+    public void completeGameCreation(Long gameId, Long oUserId, Long firstUserId, Integer expectedVersion) {
+        int rowsUpdated = dslContext.update(LOA_GAMES)
                 .set(LOA_GAMES.GAME_STATE, LoaGamesGameState.IN_PROGRESS)
                 .set(LOA_GAMES.O_USER_ID, oUserId)
                 .set(LOA_GAMES.USER_ID_TO_MOVE, firstUserId)
                 .set(LOA_GAMES.STARTING_USER_ID, firstUserId)
+                .set(LOA_GAMES.VERSION, LOA_GAMES.VERSION.plus(1))
                 .where(LOA_GAMES.GAME_ID.eq(gameId))
+                .and(LOA_GAMES.VERSION.eq(expectedVersion))
                 .execute();
+
+        if (rowsUpdated == 0) {
+            throw new StaleGameUpdateException("loa_games", gameId, expectedVersion);
+        }
+        GameParticipantsDKO participants = new GameParticipantsDKO(dslContext);
+        participants.addParticipant(GameType.LOA, gameId, oUserId, 1);
+        participants.syncGameState(GameType.LOA, gameId);
     }
 
     // Update state in an existing game
@@ -77,11 +89,18 @@ public class LoaGameDKO {
                 .set(LOA_GAMES.USER_ID_TO_MOVE, gameRecord.getUserIdToMove())
                 .set(LOA_GAMES.LAST_MOVE_TIMESTAMP, gameRecord.getLastMoveTimestamp())
                 .set(LOA_GAMES.LAST_REMINDER_TIMESTAMP, gameRecord.getLastMoveTimestamp())
+                .set(LOA_GAMES.VERSION, LOA_GAMES.VERSION.plus(1))
                 .where(LOA_GAMES.GAME_ID.eq(gameRecord.getGameId()))
+                .and(LOA_GAMES.VERSION.eq(gameRecord.getVersion()))
                 .execute();
 
         if (rowsUpdated == 0) {
-            throw new IllegalArgumentException("Cannot update game - game doesn't exist!");
+            throw new StaleGameUpdateException("loa_games", gameRecord.getGameId(), gameRecord.getVersion());
+        }
+        gameRecord.setVersion(gameRecord.getVersion() + 1);
+        if (gameRecord.changed(LOA_GAMES.GAME_STATE)) {
+            new GameParticipantsDKO(dslContext).syncGameState(GameType.LOA, gameRecord.getGameId());
+            gameRecord.changed(LOA_GAMES.GAME_STATE, false);
         }
     }
 
@@ -91,10 +110,4 @@ public class LoaGameDKO {
                 .where(LOA_GAMES.USER_ID_TO_MOVE.in(userIds))
                 .execute();
     }
-
-    public List<LoaGamesRecord> getActiveGames() {
-        return dslContext.selectFrom(LOA_GAMES)
-                .where(LOA_GAMES.GAME_STATE.eq(LoaGamesGameState.IN_PROGRESS))
-                .fetchInto(LoaGamesRecord.class);
-    }
 }
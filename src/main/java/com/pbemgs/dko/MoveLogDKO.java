@@ -0,0 +1,114 @@
+package com.pbemgs.dko;
+
+import com.pbemgs.game.MoveReplayer;
+import com.pbemgs.generated.tables.records.GameMovesRecord;
+import com.pbemgs.generated.tables.records.GameSnapshotsRecord;
+import com.pbemgs.model.GameType;
+import org.jooq.DSLContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.pbemgs.generated.tables.GameMoves.GAME_MOVES;
+import static com.pbemgs.generated.tables.GameSnapshots.GAME_SNAPSHOTS;
+
+/**
+ * Append-only move history for games, in game_moves, with board snapshots in game_snapshots.
+ * <p>
+ * Engines log each move in the same transaction as the game update that made it, with seq = the game's version
+ * after that update, and snapshot the board in the transaction that starts the game.  appendMove() also snapshots
+ * every SNAPSHOT_INTERVAL seqs, so replay() rebuilds any position from the nearest snapshot plus at most that many
+ * moves.  A completed game's rows move to the archive store with the game (ArchivedGamesDKO).
+ * <p>
+ * Tac, Ninetac, LOA, GoMoku, Collapsi and Ataxx are logged.  GoMoku logs regular play only, snapshotting the
+ * board as the Swap2 opening ends; Tac logs the player's move and the system's reply as one entry.  Surge (orders
+ * resolved by ticks), TriadCubed (drafting and hands) and Ironclad (robot and stone phases) are not - a turn there
+ * changes several record fields, not just a board.
+ * <p>
+ * For Ninetac the log is the write path: a move is this append plus a small turn update, board_state isn't
+ * rewritten, and an in-progress game's board is replay()ed from the log.  The final board is stored when the game
+ * ends, and a game started before the log is snapshotted from board_state on its next move.  The other games
+ * still rewrite board_state on every move and keep the log as history.
+ */
+public class MoveLogDKO {
+    public static final int SNAPSHOT_INTERVAL = 20;
+
+    private final DSLContext dslContext;
+
+    public MoveLogDKO(DSLContext dslContext) {
+        this.dslContext = dslContext;
+    }
+
+    /**
+     * Logs a move.  boardAfter is the serialized board after the move, stored only on snapshot seqs.
+     */
+    public void appendMove(GameType gameType, long gameId, int seq, long userId, String moveText, String boardAfter) {
+        LocalDateTime now = LocalDateTime.now();
+        dslContext.insertInto(GAME_MOVES)
+                .set(GAME_MOVES.GAME_TYPE, gameType.name())
+                .set(GAME_MOVES.GAME_ID, gameId)
+                .set(GAME_MOVES.SEQ, seq)
+                .set(GAME_MOVES.USER_ID, userId)
+                .set(GAME_MOVES.MOVE_TEXT, moveText)
+                .set(GAME_MOVES.CREATED_AT, now)
+                .execute();
+        if (seq % SNAPSHOT_INTERVAL == 0) {
+            recordSnapshot(gameType, gameId, seq, boardAfter);
+        }
+    }
+
+    /**
+     * Stores the board as of seq (e.g. the starting position).  A repeated snapshot of the same seq is ignored.
+     */
+    public void recordSnapshot(GameType gameType, long gameId, int seq, String boardState) {
+        dslContext.insertInto(GAME_SNAPSHOTS)
+                .set(GAME_SNAPSHOTS.GAME_TYPE, gameType.name())
+                .set(GAME_SNAPSHOTS.GAME_ID, gameId)
+                .set(GAME_SNAPSHOTS.SEQ, seq)
+                .set(GAME_SNAPSHOTS.BOARD_STATE, boardState)
+                .set(GAME_SNAPSHOTS.CREATED_AT, LocalDateTime.now())
+                .onDuplicateKeyIgnore()
+                .execute();
+    }
+
+    /**
+     * All logged moves for a game, in order.
+     */
+    public List<GameMovesRecord> getMoves(GameType gameType, long gameId) {
+        return dslContext.selectFrom(GAME_MOVES)
+                .where(GAME_MOVES.GAME_TYPE.eq(gameType.name()))
+                .and(GAME_MOVES.GAME_ID.eq(gameId))
+                .orderBy(GAME_MOVES.SEQ)
+                .fetchInto(GameMovesRecord.class);
+    }
+
+    /**
+     * The serialized board as of seq (after the move with that seq), or null if the game has no snapshot that early.
+     */
+    public String replay(GameType gameType, long gameId, int seq, MoveReplayer replayer) {
+        GameSnapshotsRecord snapshot = dslContext.selectFrom(GAME_SNAPSHOTS)
+                .where(GAME_SNAPSHOTS.GAME_TYPE.eq(gameType.name()))
+                .and(GAME_SNAPSHOTS.GAME_ID.eq(gameId))
+                .and(GAME_SNAPSHOTS.SEQ.le(seq))
+                .orderBy(GAME_SNAPSHOTS.SEQ.desc())
+                .limit(1)
+                .fetchOne();
+        if (snapshot == null) {
+            return null;
+        }
+
+        List<String> moves = dslContext.select(GAME_MOVES.MOVE_TEXT)
+                .from(GAME_MOVES)
+                .where(GAME_MOVES.GAME_TYPE.eq(gameType.name()))
+                .and(GAME_MOVES.GAME_ID.eq(gameId))
+                .and(GAME_MOVES.SEQ.gt(snapshot.getSeq()))
+                .and(GAME_MOVES.SEQ.le(seq))
+                .orderBy(GAME_MOVES.SEQ)
+                .fetch(GAME_MOVES.MOVE_TEXT);
+        String boardState = snapshot.getBoardState();
+        for (String move : moves) {
+            boardState = replayer.apply(boardState, move);
+        }
+        return boardState;
+    }
+}
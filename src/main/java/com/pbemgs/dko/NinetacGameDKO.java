@@ -3,6 +3,7 @@ package com.pbemgs.dko;
 import com.pbemgs.generated.enums.NinetacGamesBoardOption;
 import com.pbemgs.generated.enums.NinetacGamesGameState;
 import com.pbemgs.generated.tables.records.NinetacGamesRecord;
+import com.pbemgs.model.GameType;
 import org.jooq.DSLContext;
 
 import java.time.LocalDateTime;
@@ -21,9 +22,10 @@ public class NinetacGameDKO {
 
     // Get game by game ID
     public NinetacGamesRecord getGameById(Long gameId) {
-        return dslContext.selectFrom(NINETAC_GAMES)
+        NinetacGamesRecord game = dslContext.selectFrom(NINETAC_GAMES)
                 .where(NINETAC_GAMES.GAME_ID.eq(gameId))
                 .fetchOne();
+        return game != null ? game : new ArchivedGamesDKO(dslContext).fetchArchivedGame(GameType.NINETAC, NINETAC_GAMES, gameId);
     }
 
     // Get all games in the OPEN state
@@ -37,7 +39,7 @@ public class NinetacGameDKO {
     public List<NinetacGamesRecord> getActiveGamesForUser(Long userId) {
         return dslContext.selectFrom(NINETAC_GAMES)
                 .where(NINETAC_GAMES.GAME_STATE.in(NinetacGamesGameState.OPEN, NinetacGamesGameState.IN_PROGRESS)
-                        .and(NINETAC_GAMES.X_USER_ID.eq(userId).or(NINETAC_GAMES.O_USER_ID.eq(userId))))
+                        .and(GameParticipantsDKO.isActiveParticipant(GameType.NINETAC, NINETAC_GAMES.GAME_ID, userId)))
                 .fetchInto(NinetacGamesRecord.class);
     }
 
@@ -51,18 +53,28 @@ public class NinetacGameDKO {
         record.setBoardOption(boardOption);
         record.setLastReminderTimestamp(null);
         record.store();
+        new GameParticipantsDKO(dslContext).addParticipant(GameType.NINETAC, record.getGameId(), xUserId, 0);
         return record.getGameId();
     }
 
     // Complete game creation by setting the O player
-    public void completeGameCreation(Long gameId, Long oUserId, Long firstUserId) {
-        dslContext.update(NINETAC_GAMES)
+    public void completeGameCreation(Long gameId, Long oUserId, Long firstUserId, Integer expectedVersion) {
+        int rowsUpdated = dslContext.update(NINETAC_GAMES)
                 .set(NINETAC_GAMES.GAME_STATE, NinetacGamesGameState.IN_PROGRESS)
                 .set(NINETAC_GAMES.O_USER_ID, oUserId)
                 .set(NINETAC_GAMES.USER_ID_TO_MOVE, firstUserId)
                 .set(NINETAC_GAMES.STARTING_USER_ID, firstUserId)
+                .set(NINETAC_GAMES.VERSION, NINETAC_GAMES.VERSION.plus(1))
                 .where(NINETAC_GAMES.GAME_ID.eq(gameId))
+                .and(NINETAC_GAMES.VERSION.eq(expectedVersion))
                 .execute();
+
+        if (rowsUpdated == 0) {
+            throw new StaleGameUpdateException("ninetac_games", gameId, expectedVersion);
+        }
+        GameParticipantsDKO participants = new GameParticipantsDKO(dslContext);
+        participants.addParticipant(GameType.NINETAC, gameId, oUserId, 1);
+        participants.syncGameState(GameType.NINETAC, gameId);
     }
 
     // Update state in an existing game
@@ -78,12 +90,37 @@ public class NinetacGameDKO {
                 .set(NINETAC_GAMES.USER_ID_TO_MOVE, gameRecord.getUserIdToMove())
                 .set(NINETAC_GAMES.LAST_MOVE_TIMESTAMP, gameRecord.getLastMoveTimestamp())
                 .set(NINETAC_GAMES.LAST_REMINDER_TIMESTAMP, gameRecord.getLastMoveTimestamp())
+                .set(NINETAC_GAMES.VERSION, NINETAC_GAMES.VERSION.plus(1))
+                .where(NINETAC_GAMES.GAME_ID.eq(gameRecord.getGameId()))
+                .and(NINETAC_GAMES.VERSION.eq(gameRecord.getVersion()))
+                .execute();
+
+        if (rowsUpdated == 0) {
+            throw new StaleGameUpdateException("ninetac_games", gameRecord.getGameId(), gameRecord.getVersion());
+        }
+        gameRecord.setVersion(gameRecord.getVersion() + 1);
+        if (gameRecord.changed(NINETAC_GAMES.GAME_STATE)) {
+            new GameParticipantsDKO(dslContext).syncGameState(GameType.NINETAC, gameRecord.getGameId());
+            gameRecord.changed(NINETAC_GAMES.GAME_STATE, false);
+        }
+    }
+
+    // Update an in-progress game after a move without rewriting board_state - the move itself goes to the move log
+    // (MoveLogDKO), which is where an in-progress game's board is read from.  updateGame() stores the final board.
+    public void updateTurn(NinetacGamesRecord gameRecord) {
+        int rowsUpdated = dslContext.update(NINETAC_GAMES)
+                .set(NINETAC_GAMES.USER_ID_TO_MOVE, gameRecord.getUserIdToMove())
+                .set(NINETAC_GAMES.LAST_MOVE_TIMESTAMP, gameRecord.getLastMoveTimestamp())
+                .set(NINETAC_GAMES.LAST_REMINDER_TIMESTAMP, gameRecord.getLastMoveTimestamp())
+                .set(NINETAC_GAMES.VERSION, NINETAC_GAMES.VERSION.plus(1))
                 .where(NINETAC_GAMES.GAME_ID.eq(gameRecord.getGameId()))
+                .and(NINETAC_GAMES.VERSION.eq(gameRecord.getVersion()))
                 .execute();
 
         if (rowsUpdated == 0) {
-            throw new IllegalArgumentException("Cannot update game - game doesn't exist!");
+            throw new StaleGameUpdateException("ninetac_games", gameRecord.getGameId(), gameRecord.getVersion());
         }
+        gameRecord.setVersion(gameRecord.getVersion() + 1);
     }
 
     public void updateReminderTimestamps(Set<Long> userIds, LocalDateTime updateTo) {
@@ -92,10 +129,4 @@ public class NinetacGameDKO {
                 .where(NINETAC_GAMES.USER_ID_TO_MOVE.in(userIds))
                 .execute();
     }
-
-    public List<NinetacGamesRecord> getActiveGames() {
-        return dslContext.selectFrom(NINETAC_GAMES)
-                .where(NINETAC_GAMES.GAME_STATE.eq(NinetacGamesGameState.IN_PROGRESS))
-                .fetchInto(NinetacGamesRecord.class);
-    }
 }
@@ -1,14 +1,14 @@
 package com.pbemgs.dko;
 
 import com.pbemgs.generated.enums.PlayerOutcomesOutcome;
+import com.pbemgs.generated.tables.records.PlayerOutcomesRecord;
 import com.pbemgs.model.GameType;
 import com.pbemgs.model.PlayerLeaderboardEntry;
 import com.pbemgs.model.PlayerOutcome;
 import com.pbemgs.model.PlayerRecord;
 import org.jooq.DSLContext;
-import org.jooq.Field;
-import org.jooq.impl.DSL;
 
+import java.util.Collection;
 import java.util.List;
 
 import static com.pbemgs.generated.tables.PlayerOutcomes.PLAYER_OUTCOMES;
@@ -21,7 +21,8 @@ public class PlayerOutcomesDKO {
     }
 
     /**
-     * Inserts a new player outcome into the player_outcomes table.
+     * Inserts a new player outcome into the player_outcomes table, and adds it to the player_stats summary.
+     * Call with the DSLContext of the transaction that completes the game, so the two stay consistent.
      * The timestamp is set by the database (default CURRENT_TIMESTAMP).
      */
     public void insertOutcome(GameType gameType, long gameId, long userId, PlayerOutcomesOutcome outcome,
@@ -34,72 +35,70 @@ public class PlayerOutcomesDKO {
                 .set(PLAYER_OUTCOMES.PLACE, place)
                 .set(PLAYER_OUTCOMES.WENT_FIRST, wentFirst)
                 .execute();
+        new PlayerStatsDKO(dsl).recordOutcome(gameType.getGameName(), userId, outcome);
+    }
+
+    /**
+     * Builds (but does not insert) a player outcome record, for use with insertOutcomes().
+     */
+    public PlayerOutcomesRecord newOutcome(GameType gameType, long gameId, long userId, PlayerOutcomesOutcome outcome,
+                                           Integer place, Boolean wentFirst) {
+        PlayerOutcomesRecord record = dsl.newRecord(PLAYER_OUTCOMES);
+        record.setGameName(gameType.getGameName());
+        record.setGameId(gameId);
+        record.setUserId(userId);
+        record.setOutcome(outcome);
+        record.setPlace(place);
+        record.setWentFirst(wentFirst);
+        return record;
+    }
+
+    /**
+     * Inserts several player outcomes in one JDBC batch, and their player_stats updates in another.
+     * As with insertOutcome(), call inside the transaction that completes the games.
+     */
+    public void insertOutcomes(Collection<PlayerOutcomesRecord> outcomes) {
+        if (outcomes.isEmpty()) {
+            return;
+        }
+        dsl.batchInsert(outcomes).execute();
+        PlayerStatsDKO statsDKO = new PlayerStatsDKO(dsl);
+        dsl.batch(outcomes.stream()
+                        .map(o -> statsDKO.recordOutcomeQuery(o.getGameName(), o.getUserId(), o.getOutcome()))
+                        .toList())
+                .execute();
     }
 
     /**
      * Retrieves a player's overall record of wins, losses, and draws across all games.  Zeros across if none.
+     * Read from the player_stats summary.
      */
     public PlayerRecord getPlayerOverallRecord(long userId) {
-        PlayerRecord record = dsl.select(
-                        DSL.count(DSL.when(PLAYER_OUTCOMES.OUTCOME.eq(PlayerOutcomesOutcome.WIN), PLAYER_OUTCOMES.ID)).as("wins"),
-                        DSL.count(DSL.when(PLAYER_OUTCOMES.OUTCOME.eq(PlayerOutcomesOutcome.LOSS), PLAYER_OUTCOMES.ID)).as("losses"),
-                        DSL.count(DSL.when(PLAYER_OUTCOMES.OUTCOME.eq(PlayerOutcomesOutcome.DRAW), PLAYER_OUTCOMES.ID)).as("draws")
-                )
-                .from(PLAYER_OUTCOMES)
-                .where(PLAYER_OUTCOMES.USER_ID.eq(userId))
-                .fetchOneInto(PlayerRecord.class);
-        return record != null ? record : new PlayerRecord(0, 0, 0);
+        return new PlayerStatsDKO(dsl).getPlayerOverallRecord(userId);
     }
 
     /**
      * Retrieves a player's record of wins, losses, and draws for a specific game.
-     * Returns a PlayerRecord with zeros if the player has no outcomes for the game.
+     * Returns a PlayerRecord with zeros if the player has no outcomes for the game.  Read from player_stats.
      */
     public PlayerRecord getPlayerRecordByGame(long userId, GameType gameType) {
-        PlayerRecord record = dsl.select(
-                        DSL.count(DSL.when(PLAYER_OUTCOMES.OUTCOME.eq(PlayerOutcomesOutcome.WIN), PLAYER_OUTCOMES.ID)).as("wins"),
-                        DSL.count(DSL.when(PLAYER_OUTCOMES.OUTCOME.eq(PlayerOutcomesOutcome.LOSS), PLAYER_OUTCOMES.ID)).as("losses"),
-                        DSL.count(DSL.when(PLAYER_OUTCOMES.OUTCOME.eq(PlayerOutcomesOutcome.DRAW), PLAYER_OUTCOMES.ID)).as("draws")
-                )
-                .from(PLAYER_OUTCOMES)
-                .where(PLAYER_OUTCOMES.USER_ID.eq(userId)
-                        .and(PLAYER_OUTCOMES.GAME_NAME.eq(gameType.getGameName())))
-                .fetchOneInto(PlayerRecord.class);
-        return record != null ? record : new PlayerRecord(0, 0, 0);
+        return new PlayerStatsDKO(dsl).getPlayerRecordByGame(userId, gameType);
     }
 
-    // Points calculation: 1.0 for a win, 0.5 for a draw, 0.0 for a loss
-    private static final Field<Double> POINTS = DSL.sum(
-            DSL.when(PLAYER_OUTCOMES.OUTCOME.eq(PlayerOutcomesOutcome.WIN), 1.0)
-                    .when(PLAYER_OUTCOMES.OUTCOME.eq(PlayerOutcomesOutcome.DRAW), 0.5)
-                    .otherwise(0.0d)
-    ).cast(Double.class).as("points");
-
     /**
      * Retrieves the top players overall, ranked by total points.
-     * Points are calculated as: win = 1.0, draw = 0.5, loss = 0.0.
+     * Points are calculated as: win = 1.0, draw = 0.5, loss = 0.0.  Read from player_stats.
      */
     public List<PlayerLeaderboardEntry> getTopPlayersOverall(int limit) {
-        return dsl.select(PLAYER_OUTCOMES.USER_ID, POINTS)
-                .from(PLAYER_OUTCOMES)
-                .groupBy(PLAYER_OUTCOMES.USER_ID)
-                .orderBy(POINTS.desc())
-                .limit(limit)
-                .fetchInto(PlayerLeaderboardEntry.class);
+        return new PlayerStatsDKO(dsl).getTopPlayersOverall(limit);
     }
 
     /**
      * Retrieves the top players for a specific game, ranked by total points.
-     * Points are calculated as: win = 1.0, draw = 0.5, loss = 0.0.
+     * Points are calculated as: win = 1.0, draw = 0.5, loss = 0.0.  Read from player_stats.
      */
     public List<PlayerLeaderboardEntry> getTopPlayersByGame(GameType gameType, int limit) {
-        return dsl.select(PLAYER_OUTCOMES.USER_ID, POINTS)
-                .from(PLAYER_OUTCOMES)
-                .where(PLAYER_OUTCOMES.GAME_NAME.eq(gameType.getGameName()))
-                .groupBy(PLAYER_OUTCOMES.USER_ID)
-                .orderBy(POINTS.desc())
-                .limit(limit)
-                .fetchInto(PlayerLeaderboardEntry.class);
+        return new PlayerStatsDKO(dsl).getTopPlayersByGame(gameType, limit);
     }
 
     /**
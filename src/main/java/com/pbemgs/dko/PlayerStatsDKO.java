@@ -0,0 +1,133 @@
+package com.pbemgs.dko;
+
+import com.pbemgs.generated.enums.PlayerOutcomesOutcome;
+import com.pbemgs.generated.tables.records.PlayerStatsRecord;
+import com.pbemgs.model.GameType;
+import com.pbemgs.model.PlayerLeaderboardEntry;
+import com.pbemgs.model.PlayerRecord;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Query;
+import org.jooq.impl.DSL;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static com.pbemgs.generated.tables.PlayerOutcomes.PLAYER_OUTCOMES;
+import static com.pbemgs.generated.tables.PlayerStats.PLAYER_STATS;
+
+/**
+ * Access to the player_stats summary table: wins / losses / draws (and points) per user and game.
+ * Rows are kept up to date by PlayerOutcomesDKO as outcomes are inserted, so records and leaderboards are
+ * primary key / index reads rather than aggregates over player_outcomes.
+ */
+public class PlayerStatsDKO {
+    private final DSLContext dsl;
+
+    public PlayerStatsDKO(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    /**
+     * Adds one outcome to the user's stats row for the game, creating the row if needed.
+     */
+    public void recordOutcome(String gameName, long userId, PlayerOutcomesOutcome outcome) {
+        recordOutcomeQuery(gameName, userId, outcome).execute();
+    }
+
+    /**
+     * Builds the upsert that adds one outcome to a stats row, for batching.
+     */
+    public Query recordOutcomeQuery(String gameName, long userId, PlayerOutcomesOutcome outcome) {
+        int win = outcome == PlayerOutcomesOutcome.WIN ? 1 : 0;
+        int loss = outcome == PlayerOutcomesOutcome.LOSS ? 1 : 0;
+        int draw = outcome == PlayerOutcomesOutcome.DRAW ? 1 : 0;
+        return dsl.insertInto(PLAYER_STATS)
+                .set(PLAYER_STATS.USER_ID, userId)
+                .set(PLAYER_STATS.GAME_NAME, gameName)
+                .set(PLAYER_STATS.WINS, win)
+                .set(PLAYER_STATS.LOSSES, loss)
+                .set(PLAYER_STATS.DRAWS, draw)
+                .onDuplicateKeyUpdate()
+                .set(PLAYER_STATS.WINS, PLAYER_STATS.WINS.plus(win))
+                .set(PLAYER_STATS.LOSSES, PLAYER_STATS.LOSSES.plus(loss))
+                .set(PLAYER_STATS.DRAWS, PLAYER_STATS.DRAWS.plus(draw));
+    }
+
+    /**
+     * A player's record across all games.  Zeros across if none.
+     */
+    public PlayerRecord getPlayerOverallRecord(long userId) {
+        PlayerRecord record = dsl.select(total(PLAYER_STATS.WINS), total(PLAYER_STATS.LOSSES), total(PLAYER_STATS.DRAWS))
+                .from(PLAYER_STATS)
+                .where(PLAYER_STATS.USER_ID.eq(userId))
+                .fetchOneInto(PlayerRecord.class);
+        return record != null ? record : new PlayerRecord(0, 0, 0);
+    }
+
+    /**
+     * A player's record for a single game.  Zeros across if none.
+     */
+    public PlayerRecord getPlayerRecordByGame(long userId, GameType gameType) {
+        PlayerStatsRecord stats = dsl.selectFrom(PLAYER_STATS)
+                .where(PLAYER_STATS.USER_ID.eq(userId))
+                .and(PLAYER_STATS.GAME_NAME.eq(gameType.getGameName()))
+                .fetchOne();
+        return stats != null ? new PlayerRecord(stats.getWins(), stats.getLosses(), stats.getDraws()) :
+                new PlayerRecord(0, 0, 0);
+    }
+
+    /**
+     * Top players across all games by total points.  Sums at most one row per game for each user.
+     */
+    public List<PlayerLeaderboardEntry> getTopPlayersOverall(int limit) {
+        Field<Double> points = DSL.sum(PLAYER_STATS.POINTS).cast(Double.class).as("points");
+        return dsl.select(PLAYER_STATS.USER_ID, points)
+                .from(PLAYER_STATS)
+                .groupBy(PLAYER_STATS.USER_ID)
+                .orderBy(points.desc())
+                .limit(limit)
+                .fetchInto(PlayerLeaderboardEntry.class);
+    }
+
+    /**
+     * Top players for a single game by points - reads idx_game_points in order.
+     */
+    public List<PlayerLeaderboardEntry> getTopPlayersByGame(GameType gameType, int limit) {
+        return dsl.select(PLAYER_STATS.USER_ID, PLAYER_STATS.POINTS.cast(Double.class).as("points"))
+                .from(PLAYER_STATS)
+                .where(PLAYER_STATS.GAME_NAME.eq(gameType.getGameName()))
+                .orderBy(PLAYER_STATS.POINTS.desc())
+                .limit(limit)
+                .fetchInto(PlayerLeaderboardEntry.class);
+    }
+
+    /**
+     * Replaces the whole table with totals recomputed from player_outcomes, in one transaction.
+     * Returns the number of stats rows written.
+     */
+    public int rebuildFromOutcomes() {
+        return dsl.transactionResult(configuration -> {
+            DSLContext trx = DSL.using(configuration);
+            trx.deleteFrom(PLAYER_STATS).execute();
+            return trx.insertInto(PLAYER_STATS,
+                            PLAYER_STATS.USER_ID, PLAYER_STATS.GAME_NAME,
+                            PLAYER_STATS.WINS, PLAYER_STATS.LOSSES, PLAYER_STATS.DRAWS)
+                    .select(DSL.select(PLAYER_OUTCOMES.USER_ID, PLAYER_OUTCOMES.GAME_NAME,
+                                    countOutcome(PlayerOutcomesOutcome.WIN),
+                                    countOutcome(PlayerOutcomesOutcome.LOSS),
+                                    countOutcome(PlayerOutcomesOutcome.DRAW))
+                            .from(PLAYER_OUTCOMES)
+                            .groupBy(PLAYER_OUTCOMES.USER_ID, PLAYER_OUTCOMES.GAME_NAME))
+                    .execute();
+        });
+    }
+
+    private static Field<Integer> total(Field<Integer> field) {
+        return DSL.coalesce(DSL.sum(field), BigDecimal.ZERO).cast(Integer.class).as(field.getName());
+    }
+
+    private static Field<Integer> countOutcome(PlayerOutcomesOutcome outcome) {
+        return DSL.count(DSL.when(PLAYER_OUTCOMES.OUTCOME.eq(outcome), PLAYER_OUTCOMES.ID));
+    }
+}
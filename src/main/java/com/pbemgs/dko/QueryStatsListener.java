@@ -0,0 +1,193 @@
+package com.pbemgs.dko;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.model.RequestTrace;
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListener;
+import org.jooq.ExecuteType;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * jOOQ ExecuteListener that times every statement run through the DSLContext.
+ * Statements are attributed to the calling DKO method (the first frame on the stack in a .dko. package), and
+ * aggregated until the request ends: beginRequest() at the start of a Lambda handler, logSummary() at the end.
+ * Statements slower than the slow-query threshold are logged individually as they finish.  Each statement is
+ * also a DB_READ or DB_WRITE span of the thread's RequestTrace.
+ * <p>
+ * A single listener serves the shared production DSLContext and any per-thread contexts from
+ * DSLContextFactory.usingConnection(), so the aggregation is synchronized.
+ */
+public class QueryStatsListener implements ExecuteListener {
+    public static final long DEFAULT_SLOW_QUERY_MS = 250;
+    private static final int MAX_LOGGED_SQL_LENGTH = 300;
+    private static final String START_NANOS_KEY = "pbemgs.queryStartNanos";
+    private static final String SPAN_KEY = "pbemgs.querySpan";
+    private static final String UNKNOWN_CALLER = "(non-DKO)";
+
+    private final long slowQueryNanos;
+
+    private LambdaLogger logger;
+    private final Map<String, CallerStats> statsByCaller = new TreeMap<>();
+    private int statements;
+    private int slowStatements;
+    private long totalNanos;
+    private long totalRows;
+
+    private static class CallerStats {
+        int count;
+        long nanos;
+        long maxNanos;
+        long rows;
+    }
+
+    public QueryStatsListener(long slowQueryMillis) {
+        this.slowQueryNanos = slowQueryMillis * 1_000_000L;
+    }
+
+    /**
+     * Threshold from the PBEMGS_SLOW_QUERY_MS environment variable, or the default if unset or unparsable.
+     */
+    public static QueryStatsListener fromEnvironment() {
+        String threshold = System.getenv("PBEMGS_SLOW_QUERY_MS");
+        long millis = DEFAULT_SLOW_QUERY_MS;
+        if (threshold != null) {
+            try {
+                millis = Long.parseLong(threshold.trim());
+            } catch (NumberFormatException e) {
+                // keep the default
+            }
+        }
+        return new QueryStatsListener(millis);
+    }
+
+    /**
+     * Clears the stats and sets the logger for slow-query lines.  Call at the start of each handler invocation.
+     */
+    public synchronized void beginRequest(LambdaLogger requestLogger) {
+        logger = requestLogger;
+        statsByCaller.clear();
+        statements = 0;
+        slowStatements = 0;
+        totalNanos = 0;
+        totalRows = 0;
+    }
+
+    @Override
+    public void start(ExecuteContext ctx) {
+        ctx.data(SPAN_KEY, RequestTrace.span(ctx.type() == ExecuteType.READ ? RequestTrace.DB_READ : RequestTrace.DB_WRITE));
+        ctx.data(START_NANOS_KEY, System.nanoTime());
+    }
+
+    @Override
+    public void exception(ExecuteContext ctx) {
+        closeSpan(ctx);
+    }
+
+    @Override
+    public void end(ExecuteContext ctx) {
+        closeSpan(ctx);
+        Object start = ctx.data(START_NANOS_KEY);
+        if (!(start instanceof Long)) {
+            return;
+        }
+        long elapsed = System.nanoTime() - (Long) start;
+        long rows = ctx.result() != null ? ctx.result().size() : Math.max(ctx.rows(), 0);
+        String caller = findCaller();
+        record(caller, elapsed, rows);
+
+        if (elapsed >= slowQueryNanos) {
+            LambdaLogger log = logger;
+            if (log != null) {
+                log.log("SLOW_QUERY " + caller + " " + elapsed / 1_000_000 + "ms rows=" + rows + " sql=" +
+                        abbreviate(ctx.sql()));
+            }
+        }
+    }
+
+    /**
+     * Logs one QUERY_STATS line for the request so far: totals, then per-caller count / time / max / rows.
+     */
+    public synchronized void logSummary(LambdaLogger summaryLogger, String requestLabel) {
+        summaryLogger.log(getSummary(requestLabel));
+    }
+
+    public synchronized String getSummary(String requestLabel) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("QUERY_STATS {\"request\":\"").append(requestLabel).append("\"");
+        sb.append(",\"statements\":").append(statements);
+        sb.append(",\"totalMs\":").append(totalNanos / 1_000_000);
+        sb.append(",\"rows\":").append(totalRows);
+        sb.append(",\"slow\":").append(slowStatements);
+        sb.append(",\"slowThresholdMs\":").append(slowQueryNanos / 1_000_000);
+        sb.append(",\"callers\":{");
+        boolean first = true;
+        for (Map.Entry<String, CallerStats> entry : statsByCaller.entrySet()) {
+            CallerStats cs = entry.getValue();
+            if (!first) {
+                sb.append(",");
+            }
+            first = false;
+            sb.append("\"").append(entry.getKey()).append("\":{\"count\":").append(cs.count);
+            sb.append(",\"ms\":").append(cs.nanos / 1_000_000);
+            sb.append(",\"maxMs\":").append(cs.maxNanos / 1_000_000);
+            sb.append(",\"rows\":").append(cs.rows).append("}");
+        }
+        sb.append("}}");
+        return sb.toString();
+    }
+
+    public synchronized int getStatementCount() {
+        return statements;
+    }
+
+    public synchronized int getStatementCount(String caller) {
+        CallerStats cs = statsByCaller.get(caller);
+        return cs == null ? 0 : cs.count;
+    }
+
+    private synchronized void record(String caller, long elapsed, long rows) {
+        CallerStats cs = statsByCaller.computeIfAbsent(caller, k -> new CallerStats());
+        ++cs.count;
+        cs.nanos += elapsed;
+        cs.maxNanos = Math.max(cs.maxNanos, elapsed);
+        cs.rows += rows;
+        ++statements;
+        totalNanos += elapsed;
+        totalRows += rows;
+        if (elapsed >= slowQueryNanos) {
+            ++slowStatements;
+        }
+    }
+
+    private static void closeSpan(ExecuteContext ctx) {
+        Object span = ctx.data(SPAN_KEY);
+        if (span instanceof RequestTrace.Span) {
+            ((RequestTrace.Span) span).close();
+        }
+    }
+
+    // "SimpleClassName.method" of the nearest DKO frame - com.pbemgs.dko or a game's own dko package - skipping this
+    // class and the factory.
+    private static String findCaller() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(f -> isDkoClass(f.getClassName()) &&
+                        !f.getClassName().equals(QueryStatsListener.class.getName()) &&
+                        !f.getClassName().equals(DSLContextFactory.class.getName()))
+                .findFirst()
+                .map(f -> f.getClassName().substring(f.getClassName().lastIndexOf('.') + 1) + "." + f.getMethodName())
+                .orElse(UNKNOWN_CALLER));
+    }
+
+    static boolean isDkoClass(String className) {
+        return className.startsWith("com.pbemgs.") && className.contains(".dko.");
+    }
+
+    private static String abbreviate(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        return sql.length() <= MAX_LOGGED_SQL_LENGTH ? sql : sql.substring(0, MAX_LOGGED_SQL_LENGTH) + "...";
+    }
+}
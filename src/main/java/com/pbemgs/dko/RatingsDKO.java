@@ -0,0 +1,209 @@
+package com.pbemgs.dko;
+
+import com.pbemgs.generated.enums.PlayerOutcomesOutcome;
+import com.pbemgs.generated.tables.records.PlayerRatingsRecord;
+import com.pbemgs.model.PlayerRating;
+import com.pbemgs.rating.RatingRun;
+import org.jooq.BatchBindStep;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Table;
+import org.jooq.conf.ParamType;
+import org.jooq.impl.DSL;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.pbemgs.generated.tables.PlayerOutcomes.PLAYER_OUTCOMES;
+import static com.pbemgs.generated.tables.PlayerRatings.PLAYER_RATINGS;
+
+/**
+ * Elo ratings (see EloRatings / RatingRun) derived from player_outcomes and stored in player_ratings.
+ * <p>
+ * Games are rated once complete (at least two outcomes, at least one of them not a loss - multi-player games
+ * record eliminations as they happen and the win last), in the order they completed.  updateRatings() rates the
+ * games completed since the last run on top of the stored ratings; recomputeAllRatings() replays the full history.
+ * Both read the outcomes with a plain JDBC statement straight into RatingRun's arrays, so a recompute over
+ * hundreds of thousands of outcomes doesn't build a record per row.
+ */
+public class RatingsDKO {
+    // Games whose last outcome is newer than this are left for the next run, so a slow transaction that
+    // commits an older outcome id late isn't skipped past.
+    private static final Duration SETTLE_TIME = Duration.ofMinutes(1);
+    private static final int WRITE_BATCH_SIZE = 1000;
+
+    private final DSLContext dsl;
+
+    public RatingsDKO(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    /**
+     * Rates games completed since the last run, continuing from the stored ratings.  Returns the number of games rated.
+     */
+    public int updateRatings() {
+        return dsl.transactionResult(configuration -> {
+            RatingsDKO trxDKO = new RatingsDKO(DSL.using(configuration));
+            RatingRun run = trxDKO.fetchCompletedGames(trxDKO.getLastRatedOutcomeId());
+            if (run.getGameCount() == 0) {
+                return 0;
+            }
+            trxDKO.loadStoredRatings(run);
+            run.run();
+            trxDKO.storeRatings(run);
+            return run.getGameCount();
+        });
+    }
+
+    /**
+     * Replaces all ratings with a replay of the full outcome history.  Returns the number of games rated.
+     */
+    public int recomputeAllRatings() {
+        return dsl.transactionResult(configuration -> {
+            RatingsDKO trxDKO = new RatingsDKO(DSL.using(configuration));
+            RatingRun run = trxDKO.fetchCompletedGames(0L);
+            run.run();
+            trxDKO.dsl.deleteFrom(PLAYER_RATINGS).execute();
+            trxDKO.storeRatings(run);
+            return run.getGameCount();
+        });
+    }
+
+    /**
+     * Top rated players for a game name, or RatingRun.OVERALL.
+     */
+    public List<PlayerRating> getTopRated(String gameName, int limit) {
+        return dsl.selectFrom(PLAYER_RATINGS)
+                .where(PLAYER_RATINGS.GAME_NAME.eq(gameName))
+                .orderBy(PLAYER_RATINGS.RATING.desc())
+                .limit(limit)
+                .fetch(r -> new PlayerRating(r.getUserId(), r.getGameName(), r.getRating(), r.getGamesPlayed()));
+    }
+
+    /**
+     * The user's rating for a game name (or RatingRun.OVERALL), or null if unrated.
+     */
+    public PlayerRating getRating(long userId, String gameName) {
+        PlayerRatingsRecord r = dsl.selectFrom(PLAYER_RATINGS)
+                .where(PLAYER_RATINGS.USER_ID.eq(userId))
+                .and(PLAYER_RATINGS.GAME_NAME.eq(gameName))
+                .fetchOne();
+        return r == null ? null : new PlayerRating(r.getUserId(), r.getGameName(), r.getRating(), r.getGamesPlayed());
+    }
+
+    /**
+     * Percent of rated players for the game name that the user is rated above (0 - 100), or null if unrated.
+     * Both counts are range reads on idx_game_rating.
+     */
+    public Double getPercentile(long userId, String gameName) {
+        PlayerRating rating = getRating(userId, gameName);
+        if (rating == null) {
+            return null;
+        }
+        int total = dsl.fetchCount(PLAYER_RATINGS, PLAYER_RATINGS.GAME_NAME.eq(gameName));
+        int below = dsl.fetchCount(PLAYER_RATINGS, PLAYER_RATINGS.GAME_NAME.eq(gameName)
+                .and(PLAYER_RATINGS.RATING.lt(rating.rating())));
+        return total <= 1 ? 100.0 : 100.0 * below / (total - 1);
+    }
+
+    private long getLastRatedOutcomeId() {
+        Long last = dsl.select(DSL.max(PLAYER_RATINGS.LAST_OUTCOME_ID))
+                .from(PLAYER_RATINGS)
+                .fetchOne(0, Long.class);
+        return last == null ? 0L : last;
+    }
+
+    // Every row of every complete, settled game whose newest outcome is after afterOutcomeId, games in completion
+    // order.  Rank is the stored place for multi-player games, else 1 for a win or draw and 2 for a loss.
+    private RatingRun fetchCompletedGames(long afterOutcomeId) {
+        Field<Long> completedId = DSL.max(PLAYER_OUTCOMES.ID).as("completed_id");
+        Field<LocalDateTime> completedAt = DSL.max(PLAYER_OUTCOMES.TIMESTAMP).as("completed_at");
+        Table<?> games = dsl.select(PLAYER_OUTCOMES.GAME_NAME, PLAYER_OUTCOMES.GAME_ID, completedId, completedAt)
+                .from(PLAYER_OUTCOMES)
+                .groupBy(PLAYER_OUTCOMES.GAME_NAME, PLAYER_OUTCOMES.GAME_ID)
+                .having(DSL.count().ge(2))
+                .and(DSL.count(DSL.when(PLAYER_OUTCOMES.OUTCOME.ne(PlayerOutcomesOutcome.LOSS), PLAYER_OUTCOMES.ID)).gt(0))
+                .and(DSL.max(PLAYER_OUTCOMES.ID).gt(afterOutcomeId))
+                .and(DSL.max(PLAYER_OUTCOMES.TIMESTAMP).lt(LocalDateTime.now().minus(SETTLE_TIME)))
+                .asTable("g");
+
+        Field<Integer> rank = DSL.coalesce(PLAYER_OUTCOMES.PLACE,
+                DSL.when(PLAYER_OUTCOMES.OUTCOME.eq(PlayerOutcomesOutcome.LOSS), 2).otherwise(1));
+        String sql = dsl.select(PLAYER_OUTCOMES.GAME_NAME, PLAYER_OUTCOMES.GAME_ID, PLAYER_OUTCOMES.USER_ID, rank,
+                        games.field(completedId))
+                .from(PLAYER_OUTCOMES)
+                .join(games).on(PLAYER_OUTCOMES.GAME_NAME.eq(games.field(PLAYER_OUTCOMES.GAME_NAME))
+                        .and(PLAYER_OUTCOMES.GAME_ID.eq(games.field(PLAYER_OUTCOMES.GAME_ID))))
+                .orderBy(games.field(completedAt), games.field(completedId), PLAYER_OUTCOMES.ID)
+                .getSQL(ParamType.INLINED);
+
+        RatingRun run = new RatingRun();
+        dsl.connection(connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(sql)) {
+                while (rs.next()) {
+                    run.addOutcome(rs.getString(1), rs.getLong(2), rs.getLong(3), rs.getInt(4), rs.getLong(5));
+                }
+            }
+        });
+        return run;
+    }
+
+    private void loadStoredRatings(RatingRun run) {
+        long[] userIds = run.getUserIds();
+        for (int from = 0; from < userIds.length; from += WRITE_BATCH_SIZE) {
+            List<Long> chunk = Arrays.stream(userIds, from, Math.min(userIds.length, from + WRITE_BATCH_SIZE))
+                    .boxed().toList();
+            dsl.selectFrom(PLAYER_RATINGS)
+                    .where(PLAYER_RATINGS.USER_ID.in(chunk))
+                    .forEach(r -> run.setInitialRating(r.getUserId(), r.getGameName(), r.getRating(), r.getGamesPlayed()));
+        }
+    }
+
+    private void storeRatings(RatingRun run) {
+        RatingWriter writer = new RatingWriter(run.getLastOutcomeId());
+        run.forEachChanged(writer);
+        writer.flush();
+    }
+
+    // Upserts ratings in JDBC batches of WRITE_BATCH_SIZE.
+    private class RatingWriter implements RatingRun.RatingConsumer {
+        private final long lastOutcomeId;
+        private BatchBindStep batch;
+        private int pending;
+
+        RatingWriter(long lastOutcomeId) {
+            this.lastOutcomeId = lastOutcomeId;
+        }
+
+        @Override
+        public void accept(long userId, String gameName, double rating, int gamesPlayed) {
+            if (batch == null) {
+                batch = dsl.batch(dsl.insertInto(PLAYER_RATINGS,
+                                PLAYER_RATINGS.USER_ID, PLAYER_RATINGS.GAME_NAME, PLAYER_RATINGS.RATING,
+                                PLAYER_RATINGS.GAMES_PLAYED, PLAYER_RATINGS.LAST_OUTCOME_ID)
+                        .values((Long) null, null, null, null, null)
+                        .onDuplicateKeyUpdate()
+                        .set(PLAYER_RATINGS.RATING, DSL.field("VALUES({0})", Double.class, PLAYER_RATINGS.RATING))
+                        .set(PLAYER_RATINGS.GAMES_PLAYED, DSL.field("VALUES({0})", Integer.class, PLAYER_RATINGS.GAMES_PLAYED))
+                        .set(PLAYER_RATINGS.LAST_OUTCOME_ID, DSL.field("VALUES({0})", Long.class, PLAYER_RATINGS.LAST_OUTCOME_ID)));
+            }
+            batch.bind(userId, gameName, rating, gamesPlayed, lastOutcomeId);
+            if (++pending == WRITE_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (pending > 0) {
+                batch.execute();
+            }
+            batch = null;
+            pending = 0;
+        }
+    }
+}
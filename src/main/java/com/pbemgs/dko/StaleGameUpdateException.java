@@ -0,0 +1,12 @@
+package com.pbemgs.dko;
+
+/**
+ * Thrown by a game DKO when a conditional update matched no row: the game's version changed since it was read
+ * (another handler updated it first), or the game no longer exists.  The caller should re-read and try again.
+ */
+public class StaleGameUpdateException extends RuntimeException {
+    public StaleGameUpdateException(String table, Long gameId, Integer expectedVersion) {
+        super("Update of " + table + " game ID " + gameId + " at version " + expectedVersion +
+                " lost a race - game was modified concurrently or no longer exists.");
+    }
+}
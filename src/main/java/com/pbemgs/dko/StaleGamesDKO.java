@@ -0,0 +1,116 @@
+package com.pbemgs.dko;
+
+import com.pbemgs.generated.enums.AtaxxGamesGameState;
+import com.pbemgs.generated.enums.CollapsiGamesGameState;
+import com.pbemgs.generated.enums.GomokuGamesGameState;
+import com.pbemgs.generated.enums.LoaGamesGameState;
+import com.pbemgs.generated.enums.NinetacGamesGameState;
+import com.pbemgs.generated.enums.TacGamesGameState;
+import com.pbemgs.generated.enums.TriadGamesGameState;
+import com.pbemgs.model.GameType;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record5;
+import org.jooq.ResultQuery;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static com.pbemgs.generated.tables.AtaxxGames.ATAXX_GAMES;
+import static com.pbemgs.generated.tables.CollapsiGames.COLLAPSI_GAMES;
+import static com.pbemgs.generated.tables.GomokuGames.GOMOKU_GAMES;
+import static com.pbemgs.generated.tables.LoaGames.LOA_GAMES;
+import static com.pbemgs.generated.tables.NinetacGames.NINETAC_GAMES;
+import static com.pbemgs.generated.tables.TacGames.TAC_GAMES;
+import static com.pbemgs.generated.tables.TriadGames.TRIAD_GAMES;
+
+/**
+ * Finds the in-progress games that are due a reminder or a timeout auto-move, for the stale game checks.
+ * <p>
+ * The timestamp tests run in SQL and only the game id, the user to act and (where the game has one) the phase
+ * come back, all read from the table's idx_stale_check index - the board columns are never touched.  Games
+ * load the full record with getGameById() only for the few that actually time out.
+ */
+public class StaleGamesDKO {
+
+    /**
+     * A game due for stale processing: past the auto-move timeout, due a reminder, or both.  phase is the game's
+     * phase literal (Triad game_phase, GoMoku swap2_state), or null.
+     */
+    public record StaleGame(long gameId, Long userIdToAct, boolean timedOut, boolean reminderDue, String phase) {
+    }
+
+    private record GameTable(Table<?> table, Field<Long> gameId, Field<Long> userIdToAct, Condition inProgress,
+                             Field<LocalDateTime> lastMove, Field<LocalDateTime> lastReminder, Field<?> phase) {
+    }
+
+    private static final Map<GameType, GameTable> GAME_TABLES = Map.of(
+            GameType.TAC, new GameTable(TAC_GAMES, TAC_GAMES.GAME_ID, TAC_GAMES.USER_ID,
+                    TAC_GAMES.GAME_STATE.eq(TacGamesGameState.IN_PROGRESS),
+                    TAC_GAMES.LAST_MOVE_TIMESTAMP, TAC_GAMES.LAST_REMINDER_TIMESTAMP, null),
+            GameType.NINETAC, new GameTable(NINETAC_GAMES, NINETAC_GAMES.GAME_ID, NINETAC_GAMES.USER_ID_TO_MOVE,
+                    NINETAC_GAMES.GAME_STATE.eq(NinetacGamesGameState.IN_PROGRESS),
+                    NINETAC_GAMES.LAST_MOVE_TIMESTAMP, NINETAC_GAMES.LAST_REMINDER_TIMESTAMP, null),
+            GameType.ATAXX, new GameTable(ATAXX_GAMES, ATAXX_GAMES.GAME_ID, ATAXX_GAMES.USER_ID_TO_MOVE,
+                    ATAXX_GAMES.GAME_STATE.eq(AtaxxGamesGameState.IN_PROGRESS),
+                    ATAXX_GAMES.LAST_MOVE_TIMESTAMP, ATAXX_GAMES.LAST_REMINDER_TIMESTAMP, null),
+            GameType.LOA, new GameTable(LOA_GAMES, LOA_GAMES.GAME_ID, LOA_GAMES.USER_ID_TO_MOVE,
+                    LOA_GAMES.GAME_STATE.eq(LoaGamesGameState.IN_PROGRESS),
+                    LOA_GAMES.LAST_MOVE_TIMESTAMP, LOA_GAMES.LAST_REMINDER_TIMESTAMP, null),
+            GameType.GOMOKU, new GameTable(GOMOKU_GAMES, GOMOKU_GAMES.GAME_ID, GOMOKU_GAMES.USER_ID_TO_MOVE,
+                    GOMOKU_GAMES.GAME_STATE.eq(GomokuGamesGameState.IN_PROGRESS),
+                    GOMOKU_GAMES.LAST_MOVE_TIMESTAMP, GOMOKU_GAMES.LAST_REMINDER_TIMESTAMP, GOMOKU_GAMES.SWAP2_STATE),
+            GameType.TRIAD, new GameTable(TRIAD_GAMES, TRIAD_GAMES.GAME_ID, TRIAD_GAMES.CURRENT_ACTION_USERID,
+                    TRIAD_GAMES.GAME_STATE.eq(TriadGamesGameState.IN_PROGRESS),
+                    TRIAD_GAMES.LAST_MOVE_TIMESTAMP, TRIAD_GAMES.LAST_REMINDER_TIMESTAMP, TRIAD_GAMES.GAME_PHASE),
+            GameType.COLLAPSI, new GameTable(COLLAPSI_GAMES, COLLAPSI_GAMES.GAME_ID, COLLAPSI_GAMES.CURRENT_ACTION_USERID,
+                    COLLAPSI_GAMES.GAME_STATE.eq(CollapsiGamesGameState.IN_PROGRESS),
+                    COLLAPSI_GAMES.LAST_MOVE_TIMESTAMP, COLLAPSI_GAMES.LAST_REMINDER_TIMESTAMP, null));
+
+    private final DSLContext dslContext;
+
+    public StaleGamesDKO(DSLContext dslContext) {
+        this.dslContext = dslContext;
+    }
+
+    /**
+     * In-progress games of the given type whose last move is older than timeoutAfter, or whose last reminder
+     * (last move, if never reminded) is older than reminderAfter.  A null timeoutAfter means the game type never
+     * auto-moves, so every row is a reminder.
+     */
+    public List<StaleGame> getStaleGames(GameType gameType, LocalDateTime now, Duration reminderAfter,
+                                         Duration timeoutAfter) {
+        return staleGamesQuery(gameType, now, reminderAfter, timeoutAfter)
+                .fetch(r -> new StaleGame(r.value1(), r.value2(), Boolean.TRUE.equals(r.value3()),
+                        Boolean.TRUE.equals(r.value4()), r.value5()));
+    }
+
+    ResultQuery<Record5<Long, Long, Boolean, Boolean, String>> staleGamesQuery(GameType gameType, LocalDateTime now,
+                                                                                Duration reminderAfter,
+                                                                                Duration timeoutAfter) {
+        GameTable game = GAME_TABLES.get(gameType);
+        if (game == null) {
+            throw new IllegalArgumentException("StaleGamesDKO::getStaleGames got unsupported game type " + gameType.name());
+        }
+        Condition timedOut = timeoutAfter == null ? DSL.falseCondition()
+                : game.lastMove().lt(now.minus(timeoutAfter));
+        // Split per branch rather than COALESCE-ing the two timestamps, so each test is a plain comparison on an
+        // indexed column.
+        LocalDateTime reminderCutoff = now.minus(reminderAfter);
+        Condition reminderDue = game.lastReminder().lt(reminderCutoff)
+                .or(game.lastReminder().isNull().and(game.lastMove().lt(reminderCutoff)));
+        // The phase ENUM read as its literal.
+        Field<String> phase = game.phase() != null ? game.phase().coerce(String.class) : DSL.inline((String) null);
+
+        return dslContext.select(game.gameId(), game.userIdToAct(), DSL.field(timedOut), DSL.field(reminderDue), phase)
+                .from(game.table())
+                .where(game.inProgress())
+                .and(timedOut.or(reminderDue))
+                .orderBy(game.gameId());
+    }
+}
@@ -3,13 +3,14 @@ package com.pbemgs.dko;
 import com.pbemgs.generated.enums.SurgeGamesGameState;
 import com.pbemgs.generated.enums.SurgeGamesGameTimezone;
 import com.pbemgs.generated.tables.records.SurgeGamesRecord;
+import com.pbemgs.model.GameType;
 import org.jooq.DSLContext;
+import org.jooq.Query;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 import static com.pbemgs.generated.tables.SurgeGames.SURGE_GAMES;
-import static com.pbemgs.generated.tables.SurgePlayers.SURGE_PLAYERS;
 
 public class SurgeGamesDKO {
     private final DSLContext dslContext;
@@ -22,9 +23,10 @@ public class SurgeGamesDKO {
      * Fetch a game by game ID.
      */
     public SurgeGamesRecord getGameById(Long gameId) {
-        return dslContext.selectFrom(SURGE_GAMES)
+        SurgeGamesRecord game = dslContext.selectFrom(SURGE_GAMES)
                 .where(SURGE_GAMES.GAME_ID.eq(gameId))
                 .fetchOne();
+        return game != null ? game : new ArchivedGamesDKO(dslContext).fetchArchivedGame(GameType.SURGE, SURGE_GAMES, gameId);
     }
 
     /**
@@ -48,14 +50,11 @@ public class SurgeGamesDKO {
 
     /**
      * Fetch all active games for a given user.
-     * This requires a JOIN with surge_players to find which games a user is in.
      */
     public List<SurgeGamesRecord> getActiveGamesForUser(Long userId) {
-        return dslContext.select(SURGE_GAMES.fields())
-                .from(SURGE_GAMES)
-                .join(SURGE_PLAYERS).on(SURGE_GAMES.GAME_ID.eq(SURGE_PLAYERS.GAME_ID))
-                .where(SURGE_PLAYERS.USER_ID.eq(userId))
-                .and(SURGE_GAMES.GAME_STATE.in(SurgeGamesGameState.OPEN, SurgeGamesGameState.IN_PROGRESS))
+        return dslContext.selectFrom(SURGE_GAMES)
+                .where(SURGE_GAMES.GAME_STATE.in(SurgeGamesGameState.OPEN, SurgeGamesGameState.IN_PROGRESS))
+                .and(GameParticipantsDKO.isActiveParticipant(GameType.SURGE, SURGE_GAMES.GAME_ID, userId))
                 .fetchInto(SurgeGamesRecord.class);
     }
 
@@ -87,18 +86,60 @@ public class SurgeGamesDKO {
      * Update game state.
      */
     public void updateGame(SurgeGamesRecord gameRecord) {
+        int rowsUpdated = updateGameQuery(gameRecord).execute();
+
+        if (rowsUpdated == 0) {
+            throw new StaleGameUpdateException("surge_games", gameRecord.getGameId(), gameRecord.getVersion());
+        }
+        gameRecord.setVersion(gameRecord.getVersion() + 1);
+        if (gameRecord.changed(SURGE_GAMES.GAME_STATE)) {
+            new GameParticipantsDKO(dslContext).syncGameState(GameType.SURGE, gameRecord.getGameId());
+            gameRecord.changed(SURGE_GAMES.GAME_STATE, false);
+        }
+    }
+
+    /**
+     * Update the state of several games in one JDBC batch (one round trip).  Each update is version-checked as in
+     * updateGame(); if any game is stale a StaleGameUpdateException is thrown for the first one and no versions are
+     * bumped in memory, so run this inside a transaction and roll the whole batch back.
+     * The GAME_STATE changed flags are left set - the transaction can still roll back after this returns, and a
+     * retry has to sync game_participants again - so the caller clears them once the transaction commits.
+     */
+    public void updateGames(List<SurgeGamesRecord> gameRecords) {
+        if (gameRecords.isEmpty()) {
+            return;
+        }
+        int[] rowsUpdated = dslContext.batch(gameRecords.stream().map(this::updateGameQuery).toList()).execute();
+
+        for (int i = 0; i < rowsUpdated.length; ++i) {
+            if (rowsUpdated[i] == 0) {
+                SurgeGamesRecord stale = gameRecords.get(i);
+                throw new StaleGameUpdateException("surge_games", stale.getGameId(), stale.getVersion());
+            }
+        }
+        gameRecords.forEach(game -> game.setVersion(game.getVersion() + 1));
+        GameParticipantsDKO participants = new GameParticipantsDKO(dslContext);
+        for (SurgeGamesRecord game : gameRecords) {
+            if (game.changed(SURGE_GAMES.GAME_STATE)) {
+                participants.syncGameState(GameType.SURGE, game.getGameId());
+            }
+        }
+    }
+
+    private Query updateGameQuery(SurgeGamesRecord gameRecord) {
         if (gameRecord.getGameId() == null) {
             throw new IllegalArgumentException("Cannot update game: GameID is null.");
         }
 
-        dslContext.update(SURGE_GAMES)
+        return dslContext.update(SURGE_GAMES)
                 .set(SURGE_GAMES.GAME_STATE, gameRecord.getGameState())
                 .set(SURGE_GAMES.BOARD_STATE, gameRecord.getBoardState())
                 .set(SURGE_GAMES.PRESSURE_STATE, gameRecord.getPressureState())
                 .set(SURGE_GAMES.MOMENTUM_STATE, gameRecord.getMomentumState())
                 .set(SURGE_GAMES.LAST_TIME_STEP, gameRecord.getLastTimeStep())
+                .set(SURGE_GAMES.VERSION, SURGE_GAMES.VERSION.plus(1))
                 .where(SURGE_GAMES.GAME_ID.eq(gameRecord.getGameId()))
-                .execute();
+                .and(SURGE_GAMES.VERSION.eq(gameRecord.getVersion()));
     }
 
 }
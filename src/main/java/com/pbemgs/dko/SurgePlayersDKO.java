@@ -2,10 +2,17 @@ package com.pbemgs.dko;
 
 import com.pbemgs.generated.enums.SurgePlayersStatus;
 import com.pbemgs.generated.tables.records.SurgePlayersRecord;
+import com.pbemgs.model.GameType;
 import org.jooq.DSLContext;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static com.pbemgs.generated.tables.SurgePlayers.SURGE_PLAYERS;
 
@@ -20,10 +27,32 @@ public class SurgePlayersDKO {
      * Fetch all players in a given game, sorted by their player number
      */
     public List<SurgePlayersRecord> getPlayersForGame(Long gameId) {
-        return dslContext.selectFrom(SURGE_PLAYERS)
+        List<SurgePlayersRecord> players = dslContext.selectFrom(SURGE_PLAYERS)
                 .where(SURGE_PLAYERS.GAME_ID.eq(gameId))
                 .orderBy(SURGE_PLAYERS.SEAT_NUMBER)
                 .fetchInto(SurgePlayersRecord.class);
+        if (!players.isEmpty()) {
+            return players;
+        }
+        return new ArchivedGamesDKO(dslContext).fetchArchivedPlayers(GameType.SURGE, SURGE_PLAYERS, gameId).stream()
+                .sorted(Comparator.comparing(SurgePlayersRecord::getSeatNumber))
+                .toList();
+    }
+
+    /**
+     * Fetch the players of all the given games in a single query, grouped by game id and sorted by player number.
+     * Games with no players are absent from the map.
+     */
+    public Map<Long, List<SurgePlayersRecord>> getPlayersForGames(Collection<Long> gameIds) {
+        if (gameIds == null || gameIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return dslContext.selectFrom(SURGE_PLAYERS)
+                .where(SURGE_PLAYERS.GAME_ID.in(gameIds))
+                .orderBy(SURGE_PLAYERS.GAME_ID, SURGE_PLAYERS.SEAT_NUMBER)
+                .fetchInto(SurgePlayersRecord.class)
+                .stream()
+                .collect(Collectors.groupingBy(SurgePlayersRecord::getGameId, LinkedHashMap::new, Collectors.toList()));
     }
 
     /**
@@ -53,6 +82,7 @@ public class SurgePlayersDKO {
         record.setSeatNumber(playerNumber);
         record.setStatus(SurgePlayersStatus.ACTIVE);
         record.store();
+        new GameParticipantsDKO(dslContext).addParticipant(GameType.SURGE, gameId, userId, playerNumber);
     }
 
     /**
@@ -77,6 +107,36 @@ public class SurgePlayersDKO {
                 .execute();
     }
 
+    /**
+     * Clears all player commands for the given games in a single update.
+     */
+    public void clearAllCommandsForGames(Collection<Long> gameIds) {
+        if (gameIds.isEmpty()) {
+            return;
+        }
+        dslContext.update(SURGE_PLAYERS)
+                .set(SURGE_PLAYERS.CURRENT_COMMAND, (String) null)
+                .where(SURGE_PLAYERS.GAME_ID.in(gameIds))
+                .execute();
+    }
+
+    /**
+     * Mark several players (from any games) as eliminated in one JDBC batch.
+     * The records themselves are not modified.
+     */
+    public void eliminatePlayers(Collection<SurgePlayersRecord> players) {
+        if (players.isEmpty()) {
+            return;
+        }
+        dslContext.batch(players.stream()
+                        .map(p -> dslContext.update(SURGE_PLAYERS)
+                                .set(SURGE_PLAYERS.STATUS, SurgePlayersStatus.ELIMINATED)
+                                .where(SURGE_PLAYERS.USER_ID.eq(p.getUserId()))
+                                .and(SURGE_PLAYERS.GAME_ID.eq(p.getGameId())))
+                        .toList())
+                .execute();
+    }
+
     /**
      * Mark a player as eliminated.
      */
@@ -2,10 +2,10 @@ package com.pbemgs.dko;
 
 import com.pbemgs.generated.enums.TacGamesGameState;
 import com.pbemgs.generated.tables.records.TacGamesRecord;
+import com.pbemgs.model.GameType;
 import org.jooq.DSLContext;
 
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Set;
 
 import static com.pbemgs.generated.tables.TacGames.TAC_GAMES;
@@ -25,34 +25,43 @@ public class TacGamesDKO {
         record.setLastMoveTimestamp(LocalDateTime.now());
         record.setLastReminderTimestamp(null);
         record.store();
+        new GameParticipantsDKO(dslContext).addParticipant(GameType.TAC, record.getGameId(), userId, 0);
         return record.getGameId();
     }
 
     public TacGamesRecord getGameById(long gameId) {
-        return dslContext.selectFrom(TAC_GAMES)
+        TacGamesRecord game = dslContext.selectFrom(TAC_GAMES)
                 .where(TAC_GAMES.GAME_ID.eq(gameId))
                 .fetchOne();
+        return game != null ? game : new ArchivedGamesDKO(dslContext).fetchArchivedGame(GameType.TAC, TAC_GAMES, gameId);
     }
 
     public TacGamesRecord getActiveGameForUser(long userId) {
         return dslContext.selectFrom(TAC_GAMES)
-                .where(TAC_GAMES.USER_ID.eq(userId))
-                .and(TAC_GAMES.GAME_STATE.eq(TacGamesGameState.IN_PROGRESS))
+                .where(TAC_GAMES.GAME_STATE.eq(TacGamesGameState.IN_PROGRESS))
+                .and(GameParticipantsDKO.isActiveParticipant(GameType.TAC, TAC_GAMES.GAME_ID, userId))
                 .fetchOne();
     }
 
 
     public void updateGame(TacGamesRecord game) {
-        dslContext.update(TAC_GAMES)
+        int rowsUpdated = dslContext.update(TAC_GAMES)
                 .set(game)
+                .set(TAC_GAMES.VERSION, TAC_GAMES.VERSION.plus(1))
                 .where(TAC_GAMES.GAME_ID.eq(game.getGameId()))
+                .and(TAC_GAMES.VERSION.eq(game.getVersion()))
                 .execute();
-    }
 
-    public List<TacGamesRecord> getActiveGames() {
-        return dslContext.selectFrom(TAC_GAMES)
-                .where(TAC_GAMES.GAME_STATE.eq(TacGamesGameState.IN_PROGRESS))
-                .fetchInto(TacGamesRecord.class);
+        if (rowsUpdated == 0) {
+            throw new StaleGameUpdateException("tac_games", game.getGameId(), game.getVersion());
+        }
+        // Keep the version out of the record's changed set, so the next set(game) doesn't write it twice.
+        game.setVersion(game.getVersion() + 1);
+        game.changed(TAC_GAMES.VERSION, false);
+        if (game.changed(TAC_GAMES.GAME_STATE)) {
+            new GameParticipantsDKO(dslContext).syncGameState(GameType.TAC, game.getGameId());
+            game.changed(TAC_GAMES.GAME_STATE, false);
+        }
     }
 
     public void updateReminderTimestamps(Set<Long> userIds, LocalDateTime updateTo) {
@@ -3,12 +3,15 @@ package com.pbemgs.dko;
 import com.pbemgs.generated.enums.UsersStatus;
 import com.pbemgs.generated.enums.UsersUserType;
 import com.pbemgs.generated.tables.records.UsersRecord;
+import com.pbemgs.model.NotificationRecipient;
 import org.jooq.DSLContext;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static com.pbemgs.generated.Pbemgs.PBEMGS;
 
@@ -68,11 +71,32 @@ public class UsersDKO {
                 .fetchMap(PBEMGS.USERS.USER_ID);
     }
 
-    public List<UsersRecord> fetchAllActiveUsers() {
+    /**
+     * Fetches the users for the given ids in one query, returned in the order of the ids.
+     * Ids with no matching user (and null ids) come back as null entries.
+     */
+    public List<UsersRecord> fetchUsersInOrder(List<Long> userIds) {
+        Map<Long, UsersRecord> byId = fetchUsersByIds(userIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+        return userIds.stream()
+                .map(id -> id == null ? null : byId.get(id))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The next page of active users after afterUserId, in user_id order - a keyset cursor over the primary key, so
+     * a bulk send reads the user base a page at a time and can resume from the last user id it handled.
+     */
+    public List<NotificationRecipient> fetchActiveRecipientsAfter(long afterUserId, int limit) {
         return dslContext
-                .selectFrom(PBEMGS.USERS)
+                .select(PBEMGS.USERS.USER_ID, PBEMGS.USERS.EMAIL_ADDR)
+                .from(PBEMGS.USERS)
                 .where(PBEMGS.USERS.STATUS.eq(UsersStatus.ACTIVE))
-                .fetch();
+                .and(PBEMGS.USERS.USER_ID.gt(afterUserId))
+                .orderBy(PBEMGS.USERS.USER_ID)
+                .limit(limit)
+                .fetch(r -> new NotificationRecipient(r.value1(), r.value2()));
     }
 
     public Long createUser(UsersRecord newUser) {
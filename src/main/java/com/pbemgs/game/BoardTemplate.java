@@ -0,0 +1,90 @@
+package com.pbemgs.game;
+
+import com.pbemgs.model.RequestTrace;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A board's email text layout, compiled once per board size: the fixed frame (column headers, grid borders,
+ * row labels) is kept as literal fragments, with numbered slots between them for the cells that change.
+ * render() writes the fragments and asks the board for each slot in order, into a reused builder sized for
+ * the whole board, so a render is just appends.
+ * <p>
+ * Boards build their template with builder(), calling text() for the frame and slot() for each dynamic cell
+ * in output order; the slot numbers (0, 1, 2, ...) are whatever the board's SlotWriter expects.
+ */
+public class BoardTemplate {
+
+    @FunctionalInterface
+    public interface SlotWriter {
+        void write(StringBuilder sb, int slot);
+    }
+
+    private final String[] fragments;  // fragments[i] precedes slot i; the last one follows the last slot
+    private final ThreadLocal<StringBuilder> buffer;
+
+    private BoardTemplate(List<String> fragments, int slotWidth) {
+        this.fragments = fragments.toArray(new String[0]);
+        int capacity = (this.fragments.length - 1) * slotWidth;
+        for (String fragment : this.fragments) {
+            capacity += fragment.length();
+        }
+        int initialCapacity = capacity;
+        buffer = ThreadLocal.withInitial(() -> new StringBuilder(initialCapacity));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getSlotCount() {
+        return fragments.length - 1;
+    }
+
+    public String render(SlotWriter writer) {
+        try (RequestTrace.Span span = RequestTrace.span(RequestTrace.RENDER)) {
+            StringBuilder sb = buffer.get();
+            sb.setLength(0);
+            sb.append(fragments[0]);
+            for (int slot = 1; slot < fragments.length; ++slot) {
+                writer.write(sb, slot - 1);
+                sb.append(fragments[slot]);
+            }
+            return sb.toString();
+        }
+    }
+
+    public static class Builder {
+        private final List<String> fragments = new ArrayList<>();
+        private final StringBuilder current = new StringBuilder();
+
+        private Builder() {
+        }
+
+        public Builder text(String text) {
+            current.append(text);
+            return this;
+        }
+
+        public Builder text(char c) {
+            current.append(c);
+            return this;
+        }
+
+        public Builder slot() {
+            fragments.add(current.toString());
+            current.setLength(0);
+            return this;
+        }
+
+        /**
+         * slotWidth is the typical length of one slot's text, used to size the render buffer.
+         */
+        public BoardTemplate build(int slotWidth) {
+            List<String> all = new ArrayList<>(fragments);
+            all.add(current.toString());
+            return new BoardTemplate(all, slotWidth);
+        }
+    }
+}
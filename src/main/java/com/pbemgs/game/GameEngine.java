@@ -0,0 +1,79 @@
+package com.pbemgs.game;
+
+import com.pbemgs.model.GameType;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The pure rules of a game, with no DKO, user or email access: start a board, check and apply a move, list
+ * legal moves, pick the next seat, detect the end of the game, and convert the board to and from its stored
+ * form.  The GameInterface classes run their move pipeline (validate, apply, result) through their engine, and
+ * the same engine runs headless against in-memory stand-ins (com.pbemgs.sim in the test tree) for load tests
+ * and simulations.
+ * <p>
+ * Engines exist for Tac, Ninetac, LOA, GoMoku (regular play after the Swap2 opening), Collapsi and Ataxx - the
+ * games whose turn is one move by the seat to act.  Surge, TriadCubed and Ironclad keep their rules in their
+ * GameInterface classes: a turn there spans several record fields (Surge's simultaneous orders resolved by
+ * ticks, Triad's draft and hands, Ironclad's robot and stone phases), which this one-move-per-seat contract
+ * doesn't model.
+ * <p>
+ * Seats are numbered from 0 in the game's seat order (X before O, or Ataxx's join slots).  Moves are the game's
+ * own move type; parseMove() and formatMove() convert them to and from the email move syntax, e.g. "17" for
+ * Ninetac or "B1-D3" for LOA.  Which seat moves next is tracked by the caller, as the game records do with
+ * user_id_to_move, using getNextSeat().
+ *
+ * @param <B> the game's board class
+ * @param <M> the game's move type
+ */
+public interface GameEngine<B, M> {
+    int IN_PROGRESS = -2;
+    int DRAW = -1;
+
+    GameType getGameType();
+
+    int getNumPlayers();
+
+    B newBoard(Random rng);
+
+    B deserialize(String boardState);
+
+    String serialize(B board);
+
+    /**
+     * The move in the game's email move syntax, or null if the text isn't a move.
+     */
+    M parseMove(String moveText);
+
+    String formatMove(M move);
+
+    /**
+     * Returns an error message if the seat cannot make the move, or null if the move is legal.
+     */
+    String validateMove(B board, int seat, M move);
+
+    /**
+     * Applies a move - assumed validated already.
+     */
+    void applyMove(B board, int seat, M move);
+
+    List<M> getLegalMoves(B board, int seat);
+
+    default int getFirstSeat() {
+        return 0;
+    }
+
+    /**
+     * The seat to act after the given seat has moved, on a game still in progress.
+     */
+    default int getNextSeat(B board, int seat) {
+        return (seat + 1) % getNumPlayers();
+    }
+
+    /**
+     * The game's result with nextSeat to move: IN_PROGRESS, DRAW, or the winning seat.
+     */
+    int getResult(B board, int nextSeat);
+
+    String getBoardText(B board);
+}
@@ -2,9 +2,11 @@ package com.pbemgs.game;
 
 import com.pbemgs.controller.SESEmailSender;
 import com.pbemgs.generated.tables.records.UsersRecord;
+import com.pbemgs.model.ActiveGameSummary;
 import com.pbemgs.model.S3Email;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -24,7 +26,8 @@ public interface GameInterface {
 
     String getRulesTextBody();      // get the text response to a "rules" command
 
-    String getMyGamesTextBody(long userId);  // get the text response to a "my_games" command
+    // get the text response to a "my_games" command, from this game's entries of the user's ActiveGamesDKO rows
+    String getMyGamesTextBody(long userId, List<ActiveGameSummary> activeGames);
 
     default void processPeriodicUpdate(SESEmailSender emailSender) {
         // No-op for games that don't need it.
@@ -0,0 +1,32 @@
+package com.pbemgs.game;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.dko.StaleGameUpdateException;
+
+/**
+ * Bounded retry for engine operations that read a game, change it and write it back.
+ * Game DKO updates are conditional on the version that was read, and throw StaleGameUpdateException if another
+ * handler (a move email, the stale-game cron, the Surge cron) updated the game first.  The whole operation is
+ * re-run from the read, so validation happens again against the new state - e.g. a move that raced an auto-move
+ * is then rejected as "not your turn" rather than silently overwriting it.
+ * <p>
+ * The operation must not send email or make other external changes before its last game update.
+ */
+public class GameUpdateRetry {
+    public static final int MAX_ATTEMPTS = 3;
+
+    public static void run(LambdaLogger logger, String description, Runnable operation) {
+        for (int attempt = 1; ; ++attempt) {
+            try {
+                operation.run();
+                return;
+            } catch (StaleGameUpdateException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    logger.log(description + " - giving up after " + attempt + " attempts: " + e.getMessage());
+                    throw e;
+                }
+                logger.log(description + " - retrying (attempt " + (attempt + 1) + "): " + e.getMessage());
+            }
+        }
+    }
+}
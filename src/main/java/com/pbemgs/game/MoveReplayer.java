@@ -0,0 +1,13 @@
+package com.pbemgs.game;
+
+/**
+ * Replays a game's logged moves (see MoveLogDKO) on its serialized board.  Each game defines its own compact
+ * move text, written when the move is logged and read back here.
+ */
+public interface MoveReplayer {
+
+    /**
+     * Applies one logged move to the serialized board, returning the serialized result.
+     */
+    String apply(String boardState, String moveText);
+}
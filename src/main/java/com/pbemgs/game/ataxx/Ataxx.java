@@ -3,16 +3,21 @@ package com.pbemgs.game.ataxx;
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.pbemgs.controller.SESEmailSender;
 import com.pbemgs.dko.AtaxxGameDKO;
+import com.pbemgs.dko.MoveLogDKO;
 import com.pbemgs.dko.PlayerOutcomesDKO;
+import com.pbemgs.dko.StaleGamesDKO;
 import com.pbemgs.dko.UsersDKO;
+import com.pbemgs.game.GameEngine;
 import com.pbemgs.game.GameInterface;
 import com.pbemgs.game.GameMessageMailer;
 import com.pbemgs.game.GameTextUtilities;
+import com.pbemgs.game.GameUpdateRetry;
 import com.pbemgs.generated.enums.AtaxxGamesBoardOption;
 import com.pbemgs.generated.enums.AtaxxGamesGameState;
 import com.pbemgs.generated.enums.PlayerOutcomesOutcome;
 import com.pbemgs.generated.tables.records.AtaxxGamesRecord;
 import com.pbemgs.generated.tables.records.UsersRecord;
+import com.pbemgs.model.ActiveGameSummary;
 import com.pbemgs.model.GameType;
 import com.pbemgs.model.Location;
 import com.pbemgs.model.S3Email;
@@ -29,14 +34,15 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Random;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
- * Ataxx game controller - handles the commands from the system for this game.  The board functionality
- * is in AtaxxBoard, and the text strings are mostly in the text response provider.
+ * Ataxx game controller - handles the commands from the system for this game.  The rules are in AtaxxEngine
+ * (over AtaxxBoard), and the text strings are mostly in the text response provider.
  * Terminology notes:
  * - A "player slot" is the slot in the join order (0, 1) or (0-3) - this also gives their piece
  * representation.  Turn order is independent though.
@@ -50,15 +56,21 @@ public class Ataxx implements GameInterface {
 
     private final DSLContext dslContext;
     private final AtaxxGameDKO ataxxDKO;
+    private final StaleGamesDKO staleGamesDKO;
     private final UsersDKO usersDKO;
     private final LambdaLogger logger;
 
-    private record TextBodyParseResult(Location from, Location to, boolean success, String error) {
+    // A jump or clone from-to, or a to-only clone with a null from.
+    public record AtaxxMove(Location from, Location to) {
+    }
+
+    private record TextBodyParseResult(AtaxxMove move, boolean success, String error) {
     }
 
     public Ataxx(DSLContext dslContext, LambdaLogger logger) {
         this.dslContext = dslContext;
         ataxxDKO = new AtaxxGameDKO(dslContext);
+        staleGamesDKO = new StaleGamesDKO(dslContext);
         usersDKO = new UsersDKO(dslContext);
         this.logger = logger;
     }
@@ -93,9 +105,9 @@ public class Ataxx implements GameInterface {
             AtaxxGamesBoardOption boardType = AtaxxGamesBoardOption.valueOf(options.get("board").toUpperCase());
 
             // Create: Initial board, turn order
-            AtaxxBoard newBoard = new AtaxxBoard(boardSize, logger);
-            newBoard.createInitialBoard(players, boardType);
             String turnOrder = generateTurnOrderString(players);
+            AtaxxEngine engine = new AtaxxEngine(boardSize, boardType, parseTurnOrderString(turnOrder), logger);
+            AtaxxBoard newBoard = engine.newBoard(new Random());
             long gameId = ataxxDKO.createNewGame(user.getUserId(), players, turnOrder, boardSize, newBoard.serialize(), boardType);
             GameMessageMailer.createSuccess(emailSender, user.getEmailAddr(), GameType.ATAXX, gameId);
             return;
@@ -109,6 +121,10 @@ public class Ataxx implements GameInterface {
 
     @Override
     public void processJoinGame(UsersRecord user, long gameId, SESEmailSender emailSender) {
+        GameUpdateRetry.run(logger, "ATAXX join_game " + gameId, () -> attemptJoinGame(user, gameId, emailSender));
+    }
+
+    private void attemptJoinGame(UsersRecord user, long gameId, SESEmailSender emailSender) {
         List<AtaxxGamesRecord> userGames = ataxxDKO.getActiveGamesForUser(user.getUserId());
         if (userGames.size() >= PLAYER_GAME_LIMIT) {
             GameMessageMailer.gameLimitReached(emailSender, user.getEmailAddr(), "join_game", GameType.ATAXX);
@@ -135,11 +151,21 @@ public class Ataxx implements GameInterface {
             List<Integer> turnOrder = parseTurnOrderString(requestGame.getTurnOrder());
             int firstTurn = turnOrder.get(0);
             requestGame.setUserIdToMove(playerList.get(firstTurn).getUserId());
-            if (requestGame.getNumPlayers() == 2) {
-                ataxxDKO.completeGameCreation2P(gameId, user.getUserId(), playerList.get(firstTurn).getUserId());
-            } else {
-                ataxxDKO.completeGameCreation4P(gameId, user.getUserId(), playerList.get(firstTurn).getUserId());
-            }
+
+            // Start the game and snapshot the starting board in one transaction.
+            int readVersion = requestGame.getVersion();
+            dslContext.transaction(configuration -> {
+                DSLContext trx = DSL.using(configuration);
+                AtaxxGameDKO txAtaxxDKO = new AtaxxGameDKO(trx);
+                if (requestGame.getNumPlayers() == 2) {
+                    txAtaxxDKO.completeGameCreation2P(gameId, user.getUserId(), playerList.get(firstTurn).getUserId(),
+                            readVersion);
+                } else {
+                    txAtaxxDKO.completeGameCreation4P(gameId, user.getUserId(), playerList.get(firstTurn).getUserId(),
+                            readVersion);
+                }
+                new MoveLogDKO(trx).recordSnapshot(GameType.ATAXX, gameId, readVersion + 1, requestGame.getBoardState());
+            });
 
             // Send "game created" email with board to all players.
             AtaxxBoard board = new AtaxxBoard(requestGame.getBoardSize(), logger);
@@ -147,13 +173,17 @@ public class Ataxx implements GameInterface {
             sendGameStateEmail(requestGame, board, emailSender, "MOVE ATAXX " + gameId + " - GAME START!",
                     playerList.get(firstTurn).getHandle() + " has the first move.\n\n", playerList, turnOrder);
         } else {
-            ataxxDKO.addPlayerToGame(gameId, user.getUserId());
+            ataxxDKO.addPlayerToGame(gameId, user.getUserId(), requestGame.getVersion());
             GameMessageMailer.joinSuccess(emailSender, user.getEmailAddr(), GameType.ATAXX, gameId);
         }
     }
 
     @Override
     public void processMove(UsersRecord user, long gameId, S3Email email, SESEmailSender emailSender) {
+        GameUpdateRetry.run(logger, "ATAXX move " + gameId, () -> attemptMove(user, gameId, email, emailSender));
+    }
+
+    private void attemptMove(UsersRecord user, long gameId, S3Email email, SESEmailSender emailSender) {
         AtaxxGamesRecord game = ataxxDKO.getGameById(gameId);
 
         if (game == null || game.getGameState() != AtaxxGamesGameState.IN_PROGRESS) {
@@ -165,22 +195,21 @@ public class Ataxx implements GameInterface {
             return;
         }
 
-        TextBodyParseResult move = parseMoveFromEmail(email);
-        if (!move.success()) {
-            GameMessageMailer.moveFailedToParse(emailSender, user.getEmailAddr(), GameType.ATAXX, gameId, move.error());
+        TextBodyParseResult parseResult = parseMoveFromEmail(email);
+        if (!parseResult.success()) {
+            GameMessageMailer.moveFailedToParse(emailSender, user.getEmailAddr(), GameType.ATAXX, gameId, parseResult.error());
             return;
         }
 
-        AtaxxBoard gameBoard = new AtaxxBoard(game.getBoardSize(), logger);
-        gameBoard.deserialize(game.getBoardState());
+        AtaxxMove move = parseResult.move();
+        AtaxxEngine engine = getEngine(game);
+        AtaxxBoard gameBoard = engine.deserialize(game.getBoardState());
         int movingPlayerSlot = getUserPlayerSlot(user, game);
 
-        AtaxxBoard.MoveResult moveResult = move.from() == null ?
-                gameBoard.processMove(movingPlayerSlot, move.to()) : gameBoard.processMove(movingPlayerSlot, move.from(), move.to());
-
-        if (!moveResult.success()) {
+        String errorMessage = engine.validateMove(gameBoard, movingPlayerSlot, move);
+        if (errorMessage != null) {
             emailSender.sendEmail(user.getEmailAddr(), "PBEMGS - MOVE ATAXX failed",
-                    AtaxxTextResponseProvider.getIllegalMoveText(gameId, moveResult.errorMsg()));
+                    AtaxxTextResponseProvider.getIllegalMoveText(gameId, errorMessage));
             return;
         }
 
@@ -188,7 +217,7 @@ public class Ataxx implements GameInterface {
                 (move.from() == null ? move.to().toString() + " (clone)" :
                         move.from().toString() + " to " + move.to().toString());
 
-        processPostMove(emailSender, game, gameBoard, moveString, movingPlayerSlot);
+        processPostMove(emailSender, engine, game, gameBoard, move, moveString, movingPlayerSlot);
     }
 
     @Override
@@ -198,14 +227,13 @@ public class Ataxx implements GameInterface {
             return AtaxxTextResponseProvider.getNoOpenGamesText();
         }
         Set<Long> playerIds = openGames.stream()
-                .flatMap(game -> Stream.of(game.getUser0Id(), game.getUser1Id(), game.getUser2Id())) // Gather all player IDs
-                .filter(Objects::nonNull) // Remove nulls
+                .flatMap(game -> getPlayerIds(game).stream()) // Gather all player IDs
                 .collect(Collectors.toSet()); // Collect into a set (removes duplicates)
         Map<Long, UsersRecord> usersById = usersDKO.fetchUsersByIds(playerIds);
         StringBuilder sb = new StringBuilder();
         sb.append(AtaxxTextResponseProvider.getOpenGamesHeaderText(openGames.size()));
         for (AtaxxGamesRecord game : openGames) {
-            List<UsersRecord> thisGameUsers = getPlayerList(game);
+            List<UsersRecord> thisGameUsers = getPlayerIds(game).stream().map(usersById::get).toList();
             sb.append(AtaxxTextResponseProvider.getOpenGameDescription(game, thisGameUsers));
         }
         return sb.toString();
@@ -217,20 +245,19 @@ public class Ataxx implements GameInterface {
     }
 
     @Override
-    public String getMyGamesTextBody(long userId) {
+    public String getMyGamesTextBody(long userId, List<ActiveGameSummary> activeGames) {
         StringBuilder sb = new StringBuilder();
         sb.append("ATAXX:\n");
-        List<AtaxxGamesRecord> myGames = ataxxDKO.getActiveGamesForUser(userId);
-        if (myGames.isEmpty()) {
+        if (activeGames.isEmpty()) {
             sb.append(" - No active Ataxx games.");
         }
-        for (AtaxxGamesRecord game : myGames) {
-            sb.append("-- Game ID: ").append(game.getGameId());
-            if (game.getGameState() == AtaxxGamesGameState.OPEN) {
+        for (ActiveGameSummary game : activeGames) {
+            sb.append("-- Game ID: ").append(game.gameId());
+            if (game.open()) {
                 sb.append(" is waiting for opponent(s).\n");
             } else {
                 sb.append(" is in progress - ");
-                sb.append(game.getUserIdToMove() == userId ? "YOUR TURN!\n" : "opponent's turn.\n");
+                sb.append(Objects.equals(game.userIdToMove(), userId) ? "YOUR TURN!\n" : "opponent's turn.\n");
             }
         }
         return sb.toString();
@@ -264,48 +291,45 @@ public class Ataxx implements GameInterface {
     @Override
     public Map<Long, String> processStaleGameCheck(SESEmailSender emailSender) {
         Map<Long, String> staleStringByUserId = new HashMap<>();
-        List<AtaxxGamesRecord> activeGames = ataxxDKO.getActiveGames();
-        if (activeGames == null || activeGames.isEmpty()) {
+        LocalDateTime currTime = LocalDateTime.now();
+        List<StaleGamesDKO.StaleGame> staleGames = staleGamesDKO.getStaleGames(GameType.ATAXX, currTime,
+                REMINDER_DURATION, TIMEOUT_DURATION);
+        if (staleGames.isEmpty()) {
             return staleStringByUserId;
         }
 
-        LocalDateTime currTime = LocalDateTime.now();
-        for (AtaxxGamesRecord game : activeGames) {
-            LocalDateTime lastMoveTime = game.getLastMoveTimestamp();
-
-            if (Duration.between(lastMoveTime, currTime).compareTo(TIMEOUT_DURATION) > 0) {
+        for (StaleGamesDKO.StaleGame staleGame : staleGames) {
+            if (staleGame.timedOut()) {
                 try {
+                    AtaxxGamesRecord game = ataxxDKO.getGameById(staleGame.gameId());
                     UsersRecord user = usersDKO.fetchUserById(game.getUserIdToMove());
-                    AtaxxBoard gameBoard = new AtaxxBoard(game.getBoardSize(), logger);
+                    AtaxxEngine engine = getEngine(game);
+                    AtaxxBoard gameBoard = engine.deserialize(game.getBoardState());
 
                     // Get a random move from the board and process it.
                     int movingPlayerSlot = getUserPlayerSlot(user, game);
 
                     Pair<Location, Location> randomMove = gameBoard.generateRandomMove(movingPlayerSlot);
-                    AtaxxBoard.MoveResult moveResult = gameBoard.processMove(movingPlayerSlot, randomMove.left(), randomMove.right());
-
-                    if (!moveResult.success()) {
+                    AtaxxMove move = new AtaxxMove(randomMove.left(), randomMove.right());
+                    String errorMessage = engine.validateMove(gameBoard, movingPlayerSlot, move);
+                    if (errorMessage != null) {
                         logger.log("Bad random move generated for game ID " + game.getGameId() + " - " +
-                                randomMove.left() + " -> " + randomMove.right());
+                                randomMove.left() + " -> " + randomMove.right() + ": " + errorMessage);
                         continue;
                     }
 
                     String moveString = user.getHandle() + " moved: " +
                             randomMove.left().toString() + " to " + randomMove.right().toString();
 
-                    processPostMove(emailSender, game, gameBoard, moveString, movingPlayerSlot);
+                    processPostMove(emailSender, engine, game, gameBoard, move, moveString, movingPlayerSlot);
 
                     logger.log("Time-out random move made for ATAXX Game ID " + game.getGameId());
                 } catch (Exception e) {
                     logger.log("Exception while attempting to pass turn: " + e.getMessage());
                     // continue processing the rest...
                 }
-            } else {
-                LocalDateTime lastTime = game.getLastReminderTimestamp() == null ?
-                        game.getLastMoveTimestamp() : game.getLastReminderTimestamp();
-                if (Duration.between(lastTime, currTime).compareTo(REMINDER_DURATION) > 0) {
-                    staleStringByUserId.put(game.getUserIdToMove(), "ATAXX: Game ID " + game.getGameId());
-                }
+            } else if (staleGame.reminderDue()) {
+                staleStringByUserId.put(staleGame.userIdToAct(), "ATAXX: Game ID " + staleGame.gameId());
             }
         }
 
@@ -320,52 +344,66 @@ public class Ataxx implements GameInterface {
         return staleStringByUserId;
     }
 
-    private void processPostMove(SESEmailSender emailSender, AtaxxGamesRecord game, AtaxxBoard gameBoard, String moveString, int movingPlayerSlot) {
-        game.setBoardState(gameBoard.serialize());
+    // Applies a validated move, then either ends the game or passes the turn to the next slot with a legal move.
+    private void processPostMove(SESEmailSender emailSender, AtaxxEngine engine, AtaxxGamesRecord game, AtaxxBoard gameBoard,
+                                 AtaxxMove move, String moveString, int movingPlayerSlot) {
+        engine.applyMove(gameBoard, movingPlayerSlot, move);
+        game.setBoardState(engine.serialize(gameBoard));
         List<UsersRecord> playerList = getPlayerList(game);
         List<Integer> turnOrder = parseTurnOrderString(game.getTurnOrder());
 
-        // Check end of game (no more blank spots)
-        if (gameBoard.isBoardFull()) {
-            executeEndOfGame(emailSender, game, gameBoard, moveString, playerList, turnOrder);
+        long moverUserId = playerList.get(movingPlayerSlot).getUserId();
+        String moveText = AtaxxMoveReplayer.moveText(movingPlayerSlot, move);
+
+        // Check end of game (board full, or nobody can move)
+        int currPlayerSlot = engine.getNextSeat(gameBoard, movingPlayerSlot);
+        if (engine.getResult(gameBoard, currPlayerSlot) != GameEngine.IN_PROGRESS) {
+            executeEndOfGame(emailSender, game, gameBoard, moveString, moverUserId, moveText, playerList, turnOrder);
             return;
         }  // end if (end of game)
 
-        // Determine next player in turn order
-        int currPlayerIndex = turnOrder.indexOf(movingPlayerSlot);
-        List<Integer> skippedSlots = new ArrayList<>();  // slots skipped because no valid move
-        while (true) {
-            currPlayerIndex = (currPlayerIndex + 1) % turnOrder.size();
-            int currPlayerSlot = turnOrder.get(currPlayerIndex);
-            if (gameBoard.hasLegalMove(currPlayerSlot)) {
-                game.setUserIdToMove(playerList.get(currPlayerSlot).getUserId());
-                game.setLastMoveTimestamp(LocalDateTime.now());
-                ataxxDKO.updateGame(game);
-
-                sendGameStateEmail(game, gameBoard, emailSender, "MOVE ATAXX " + game.getGameId(),
-                        moveString + "\n\nIt is your move!\n\n", playerList, List.of(currPlayerSlot));
-
-                // don't send "move accepted" if it comes back to the moving player
-                if (movingPlayerSlot != currPlayerSlot) {
-                    sendGameStateEmail(game, gameBoard, emailSender, "MOVE ATAXX " + game.getGameId() + " Accepted",
-                            moveString + "\n\n", playerList, List.of(movingPlayerSlot));
-                }
+        // Slots passed over in turn order between the mover and the next player had no valid move
+        List<Integer> skippedSlots = new ArrayList<>();
+        for (int index = (turnOrder.indexOf(movingPlayerSlot) + 1) % turnOrder.size();
+             turnOrder.get(index) != currPlayerSlot; index = (index + 1) % turnOrder.size()) {
+            skippedSlots.add(turnOrder.get(index));
+        }
 
-                // Send email to skipped player(s)
-                if (!skippedSlots.isEmpty()) {
-                    sendGameStateEmail(game, gameBoard, emailSender, "ATAXX " + game.getGameId() + " - no legal moves",
-                            moveString + "\n\nYou have no legal moves and were skipped.\n\n",
-                            playerList, skippedSlots);
-                }
-                return;
-            } else {
-                skippedSlots.add(currPlayerSlot);
-            }
+        game.setUserIdToMove(playerList.get(currPlayerSlot).getUserId());
+        game.setLastMoveTimestamp(LocalDateTime.now());
+
+        // update game state in DB, and log the move
+        dslContext.transaction(configuration -> {
+            DSLContext trx = DSL.using(configuration);
+            new AtaxxGameDKO(trx).updateGame(game);
+            new MoveLogDKO(trx).appendMove(GameType.ATAXX, game.getGameId(), game.getVersion(), moverUserId,
+                    moveText, game.getBoardState());
+        });
+
+        // Board rendered once for all of the update emails, which go out together.
+        String boardText = engine.getBoardText(gameBoard);
+        List<SESEmailSender.Email> emails = new ArrayList<>();
+        addGameStateEmails(emails, game, gameBoard, boardText, "MOVE ATAXX " + game.getGameId(),
+                moveString + "\n\nIt is your move!\n\n", playerList, List.of(currPlayerSlot));
+
+        // don't send "move accepted" if it comes back to the moving player
+        if (movingPlayerSlot != currPlayerSlot) {
+            addGameStateEmails(emails, game, gameBoard, boardText, "MOVE ATAXX " + game.getGameId() + " Accepted",
+                    moveString + "\n\n", playerList, List.of(movingPlayerSlot));
+        }
+
+        // Send email to skipped player(s)
+        if (!skippedSlots.isEmpty()) {
+            addGameStateEmails(emails, game, gameBoard, boardText, "ATAXX " + game.getGameId() + " - no legal moves",
+                    moveString + "\n\nYou have no legal moves and were skipped.\n\n",
+                    playerList, skippedSlots);
         }
+        emailSender.sendEmails(emails);
     }
 
     private void executeEndOfGame(SESEmailSender emailSender, AtaxxGamesRecord game, AtaxxBoard gameBoard,
-                                  String moveHeader, List<UsersRecord> playerList, List<Integer> turnOrder) {
+                                  String moveHeader, long moverUserId, String moveText,
+                                  List<UsersRecord> playerList, List<Integer> turnOrder) {
         game.setGameState(AtaxxGamesGameState.COMPLETE);
 
         // Use a TreeMap to store scores -> list of player slots (sorted in descending order)
@@ -388,8 +426,10 @@ public class Ataxx implements GameInterface {
             AtaxxGameDKO txAtaxxDKO = new AtaxxGameDKO(txn);
             PlayerOutcomesDKO txOutcomesDKO = new PlayerOutcomesDKO(txn);
 
-            // Update the game state
+            // Update the game state, and log the final move
             txAtaxxDKO.updateGame(game);
+            new MoveLogDKO(txn).appendMove(GameType.ATAXX, game.getGameId(), game.getVersion(), moverUserId,
+                    moveText, game.getBoardState());
 
             // Insert outcomes for all players with place rankings
             int place = 1; // Start with 1st place
@@ -416,7 +456,8 @@ public class Ataxx implements GameInterface {
         String subjectEnd = isDraw ? "Game is a draw!" : "Winner: " + String.join(", ", highestScoreHandles);
         sendGameStateEmail(game, gameBoard, emailSender,
                 "PBEMGS - ATAXX Game # " + game.getGameId() + " is Complete. " + subjectEnd,
-                moveHeader + "\n\nBoard is full, game is over.\n\n",
+                moveHeader + (gameBoard.isBoardFull() ? "\n\nBoard is full, game is over.\n\n" :
+                        "\n\nNo player has a legal move, game is over.\n\n"),
                 playerList, turnOrder);
     }
 
@@ -424,23 +465,26 @@ public class Ataxx implements GameInterface {
      * Return a list of the player records, in slot order
      */
     private List<UsersRecord> getPlayerList(AtaxxGamesRecord game) {
-        List<UsersRecord> players = new ArrayList<>();
         try {
-            players.add(usersDKO.fetchUserById(game.getUser0Id()));
-            if (game.getUser1Id() != null) {
-                players.add(usersDKO.fetchUserById(game.getUser1Id()));
-            }
-            if (game.getUser2Id() != null) {
-                players.add(usersDKO.fetchUserById(game.getUser2Id()));
-            }
-            if (game.getUser3Id() != null) {
-                players.add(usersDKO.fetchUserById(game.getUser3Id()));
-            }
+            return new ArrayList<>(usersDKO.fetchUsersInOrder(getPlayerIds(game)));
         } catch (Exception e) {
             logger.log("Ataxx::getPlayerList() failed, likely due to a non-existent user record. " + e.getMessage());
             throw e;
         }
-        return players;
+    }
+
+    // Player user ids in slot order: user 0 always, then any filled slots.
+    private List<Long> getPlayerIds(AtaxxGamesRecord game) {
+        List<Long> ids = new ArrayList<>();
+        ids.add(game.getUser0Id());
+        Stream.of(game.getUser1Id(), game.getUser2Id(), game.getUser3Id())
+                .filter(Objects::nonNull)
+                .forEach(ids::add);
+        return ids;
+    }
+
+    private AtaxxEngine getEngine(AtaxxGamesRecord game) {
+        return new AtaxxEngine(game.getBoardSize(), game.getBoardOption(), parseTurnOrderString(game.getTurnOrder()), logger);
     }
 
     private int getUserPlayerSlot(UsersRecord user, AtaxxGamesRecord game) {
@@ -517,19 +561,19 @@ public class Ataxx implements GameInterface {
         try {
             String text = email.getEmailBodyText(logger);
             if (text.isEmpty()) {
-                return new TextBodyParseResult(null, null, false, "No move detected in email body.");
+                return new TextBodyParseResult(null, false, "No move detected in email body.");
             }
 
             // Split on spaces, commas, colons, or dashes
             String[] tokens = text.split("[\\s,:-]+");
 
             if (tokens.length == 0) {
-                return new TextBodyParseResult(null, null, false, "No valid move found.");
+                return new TextBodyParseResult(null, false, "No valid move found.");
             }
 
             Location from = Location.fromString(tokens[0]);
             if (from == null) {
-                return new TextBodyParseResult(null, null, false, "Expected a board location as first word of email text body, received " + tokens[0]);
+                return new TextBodyParseResult(null, false, "Expected a board location as first word of email text body, received " + tokens[0]);
             }
 
             if (tokens.length > 1) {
@@ -539,16 +583,16 @@ public class Ataxx implements GameInterface {
                     // or it was actually a single-token clone move followed by reply-to text (or similar)
                     // Treat it as a clone move, as if it was meant as a 2-square move the square will (likely)
                     // be self-occupied and fail there.
-                    return new TextBodyParseResult(null, from, true, null);
+                    return new TextBodyParseResult(new AtaxxMove(null, from), true, null);
                 }
-                return new TextBodyParseResult(from, to, true, null);
+                return new TextBodyParseResult(new AtaxxMove(from, to), true, null);
             }
 
             // only 1 token, return it as the to (clone move)
-            return new TextBodyParseResult(null, from, true, null);
+            return new TextBodyParseResult(new AtaxxMove(null, from), true, null);
         } catch (Exception e) {
             logger.log("Error parsing move from email: " + e.getMessage());
-            return new TextBodyParseResult(null, null, false, "Internal error while parsing move.");
+            return new TextBodyParseResult(null, false, "Internal error while parsing move.");
         }
     }
 
@@ -557,10 +601,17 @@ public class Ataxx implements GameInterface {
     private void sendGameStateEmail(AtaxxGamesRecord gameRecord, AtaxxBoard board, SESEmailSender emailSender,
                                     String subject, String bodyHeader,
                                     List<UsersRecord> playerList, List<Integer> playerSlotsEmailTo) {
+        List<SESEmailSender.Email> emails = new ArrayList<>();
+        addGameStateEmails(emails, gameRecord, board, board.getBoardTextBody(), subject, bodyHeader,
+                playerList, playerSlotsEmailTo);
+        emailSender.sendEmails(emails);
+    }
 
-        // get the text of the board itself, same for everyone
-        String boardText = board.getBoardTextBody();
-
+    // Adds one game state email per recipient slot.  boardText is the rendered board, the same for everyone;
+    // only the player info block (in turn order from the recipient) differs.
+    private void addGameStateEmails(List<SESEmailSender.Email> emails, AtaxxGamesRecord gameRecord, AtaxxBoard board,
+                                    String boardText, String subject, String bodyHeader,
+                                    List<UsersRecord> playerList, List<Integer> playerSlotsEmailTo) {
         // "Double turn-order list" to run through full set of turns from any start without rotation.
         List<Integer> turnOrder = parseTurnOrderString(gameRecord.getTurnOrder());
         List<Integer> fullTurnOrder = Stream.concat(turnOrder.stream(), turnOrder.stream()).toList();
@@ -591,8 +642,8 @@ public class Ataxx implements GameInterface {
             }
             infoBlock.append("\n");
 
-            emailSender.sendEmail(playerList.get(playerSlot).getEmailAddr(), subject,
-                    bodyHeader + infoBlock.toString() + boardText);
+            emails.add(new SESEmailSender.Email(playerList.get(playerSlot).getEmailAddr(), subject,
+                    bodyHeader + infoBlock + boardText));
         }
     }
 
@@ -1,6 +1,7 @@
 package com.pbemgs.game.ataxx;
 
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.game.BoardTemplate;
 import com.pbemgs.generated.enums.AtaxxGamesBoardOption;
 import com.pbemgs.model.Location;
 import software.amazon.awssdk.utils.Pair;
@@ -12,18 +13,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class AtaxxBoard {
-
-    public record MoveResult(boolean success, String errorMsg) {
-    }
-
     private static final char EMPTY = '.';
     private static final char OBSTACLE = '#';
     private static final Set<Character> VALID_SYMBOLS = Set.of('x', 'o', '+', '*', '#', '.');
     private static final Map<Integer, Character> PLAYER_SYMBOLS = Map.of(
             0, 'x', 1, 'o', 2, '+', 3, '*'
     );
+    private static final Map<Integer, BoardTemplate> TEMPLATES_BY_SIZE = new ConcurrentHashMap<>();
 
     private final int size;
     private char[][] board;
@@ -89,57 +88,56 @@ public class AtaxxBoard {
         return true;
     }
 
-    // Process a 2-coordinate move.  Returns true if the move is valid, false (and an error message) if not.
-    // Board state is updated (jump and capture) on valid move.
-    public MoveResult processMove(int playerSlot, Location from, Location to) {
+    // Validate a 2-coordinate move.  Returns an error message, or null if the move is valid.
+    public String validateMove(int playerSlot, Location from, Location to) {
         char symbol = getPlayerSymbol(playerSlot);
-        logger.log("-- processing move - symbol: " + symbol + ", from: " + from.toString() + ", to: " + to.toString());
         if (from.row() >= size || from.col() >= size) {
-            return new MoveResult(false, "Invalid move: From square is outside the board.");
+            return "Invalid move: From square is outside the board.";
         }
         if (to.row() >= size || to.col() >= size) {
-            return new MoveResult(false, "Invalid move: To square is outside the board.");
+            return "Invalid move: To square is outside the board.";
         }
         if (board[from.row()][from.col()] != symbol) {
-            return new MoveResult(false, "Invalid move: From square does not have player's piece.");
+            return "Invalid move: From square does not have player's piece.";
         }
         if (board[to.row()][to.col()] != EMPTY) {
-            return new MoveResult(false, "Invalid move: To square is occupied.");
+            return "Invalid move: To square is occupied.";
         }
         int range = getMaxDelta(from, to);
         if (range == 0) {
-            return new MoveResult(false, "Invalid move: From and To squares are the same.");
+            return "Invalid move: From and To squares are the same.";
         }
         if (range > 2) {
-            return new MoveResult(false, "Invalid move: To is further than 2 squares from the From.");
-        }
-
-        createPieceOnMove(symbol, to);
-        if (range == 2) {
-            board[from.row()][from.col()] = EMPTY;
+            return "Invalid move: To is further than 2 squares from the From.";
         }
-
-        logger.log("Move successful: Player: " + symbol + ": From " + from.toString() + " -> " + to.toString() + " - range: " + range);
-        return new MoveResult(true, null);
+        return null;
     }
 
     // Same thing for a to-only clone move
-    public MoveResult processMove(int playerSlot, Location to) {
+    public String validateMove(int playerSlot, Location to) {
         char symbol = getPlayerSymbol(playerSlot);
-        logger.log("-- processing to-only move - symbol: " + symbol + ", to: " + to.toString());
         if (to.row() >= size || to.col() >= size) {
-            return new MoveResult(false, "Invalid move: To square is outside the board.");
+            return "Invalid move: To square is outside the board.";
         }
         if (board[to.row()][to.col()] != EMPTY) {
-            return new MoveResult(false, "Invalid move: To square is occupied");
+            return "Invalid move: To square is occupied";
         }
         // Valid if a player's piece is found within 1 of the to-square
-        if (findInRange(symbol, to, 1)) {
-            createPieceOnMove(symbol, to);
-            logger.log("To-Only clone successful: Player: " + symbol + ": To: " + to.toString());
-            return new MoveResult(true, null);
+        if (!findInRange(symbol, to, 1)) {
+            return "Invalid move: No piece within one square of To-Only move.";
         }
-        return new MoveResult(false, "Invalid move: No piece within one square of To-Only move.");
+        return null;
+    }
+
+    // Execute a validated move - from is null for a to-only clone.  Board state is updated (jump and capture).
+    public void makeMove(int playerSlot, Location from, Location to) {
+        char symbol = getPlayerSymbol(playerSlot);
+        createPieceOnMove(symbol, to);
+        if (from != null && getMaxDelta(from, to) == 2) {
+            board[from.row()][from.col()] = EMPTY;
+        }
+        logger.log("Move successful: Player: " + symbol + ": " + (from == null ? "To-Only clone" : "From " + from) +
+                " -> " + to);
     }
 
     // place-and-capture
@@ -197,6 +195,29 @@ public class AtaxxBoard {
         return false;
     }
 
+    /**
+     * All legal moves for the player: each clone target once as a to-only move, then the jumps (exactly two
+     * squares from the From).
+     */
+    public List<Ataxx.AtaxxMove> getLegalMoves(int playerSlot) {
+        char playerSymbol = getPlayerSymbol(playerSlot);
+        List<Ataxx.AtaxxMove> moves = new ArrayList<>();
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                Location loc = new Location(row, col);
+                if (board[row][col] == EMPTY && findInRange(playerSymbol, loc, 1)) {
+                    moves.add(new Ataxx.AtaxxMove(null, loc));
+                }
+            }
+        }
+        for (Pair<Location, Location> jump : getValidMovesByRange(playerSlot, 2)) {
+            if (getMaxDelta(jump.left(), jump.right()) == 2) {
+                moves.add(new Ataxx.AtaxxMove(jump.left(), jump.right()));
+            }
+        }
+        return moves;
+    }
+
     /**
      * Get a random move for a timeout - this will pick a random clone move if one is available,
      * otherwise a random jump move.
@@ -240,20 +261,26 @@ public class AtaxxBoard {
     }
 
     public String getBoardTextBody() {
-        StringBuilder sb = new StringBuilder("   ");
+        BoardTemplate template = TEMPLATES_BY_SIZE.computeIfAbsent(size, AtaxxBoard::buildTemplate);
+        return template.render((sb, slot) -> sb.append(board[slot / size][slot % size]));
+    }
+
+    // Slots are the squares, row by row.
+    private static BoardTemplate buildTemplate(int size) {
+        BoardTemplate.Builder template = BoardTemplate.builder().text("   ");
         for (int i = 0; i < size; i++) {
-            sb.append((char) ('A' + i)).append(" ");
+            template.text((char) ('A' + i)).text(" ");
         }
-        sb.append("\n");
+        template.text("\n");
 
         for (int r = 0; r < size; r++) {
-            sb.append(String.format("%2d ", (r + 1)));
+            template.text(String.format("%2d ", (r + 1)));
             for (int c = 0; c < size; c++) {
-                sb.append(board[r][c]).append(" ");
+                template.slot().text(" ");
             }
-            sb.append("\n");
+            template.text("\n");
         }
-        return sb.toString();
+        return template.build(1);
     }
 
     public int getSize() {
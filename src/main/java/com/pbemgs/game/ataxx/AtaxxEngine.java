@@ -0,0 +1,143 @@
+package com.pbemgs.game.ataxx;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.game.GameEngine;
+import com.pbemgs.generated.enums.AtaxxGamesBoardOption;
+import com.pbemgs.model.GameType;
+import com.pbemgs.model.Location;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Ataxx rules for one game's configuration (board size, obstacle option and turn order).  Seats are the player
+ * slots in join order, which are also the piece symbols; play follows the turn order, skipping any seat with no
+ * legal move.  Moves are "from-to" for a jump or clone, e.g. "B2-D4", or a single square for a clone, e.g. "C3".
+ */
+public class AtaxxEngine implements GameEngine<AtaxxBoard, Ataxx.AtaxxMove> {
+    private final int size;
+    private final AtaxxGamesBoardOption boardOption;
+    private final List<Integer> turnOrder;
+    private final LambdaLogger logger;
+
+    public AtaxxEngine(int size, AtaxxGamesBoardOption boardOption, List<Integer> turnOrder, LambdaLogger logger) {
+        this.size = size;
+        this.boardOption = boardOption;
+        this.turnOrder = turnOrder;
+        this.logger = logger;
+    }
+
+    @Override
+    public GameType getGameType() {
+        return GameType.ATAXX;
+    }
+
+    @Override
+    public int getNumPlayers() {
+        return turnOrder.size();
+    }
+
+    @Override
+    public AtaxxBoard newBoard(Random rng) {
+        AtaxxBoard board = new AtaxxBoard(size, logger);
+        board.createInitialBoard(getNumPlayers(), boardOption);
+        return board;
+    }
+
+    @Override
+    public AtaxxBoard deserialize(String boardState) {
+        AtaxxBoard board = new AtaxxBoard(size, logger);
+        board.deserialize(boardState);
+        return board;
+    }
+
+    @Override
+    public String serialize(AtaxxBoard board) {
+        return board.serialize();
+    }
+
+    @Override
+    public Ataxx.AtaxxMove parseMove(String moveText) {
+        String[] squares = moveText.trim().split("[\\s,:-]+");
+        if (squares.length == 1) {
+            Location to = Location.fromString(squares[0]);
+            return to == null ? null : new Ataxx.AtaxxMove(null, to);
+        }
+        if (squares.length != 2) {
+            return null;
+        }
+        Location from = Location.fromString(squares[0]);
+        Location to = Location.fromString(squares[1]);
+        return from == null || to == null ? null : new Ataxx.AtaxxMove(from, to);
+    }
+
+    @Override
+    public String formatMove(Ataxx.AtaxxMove move) {
+        return move.from() == null ? move.to().toString() : move.from() + "-" + move.to();
+    }
+
+    @Override
+    public String validateMove(AtaxxBoard board, int seat, Ataxx.AtaxxMove move) {
+        return move.from() == null ? board.validateMove(seat, move.to()) :
+                board.validateMove(seat, move.from(), move.to());
+    }
+
+    @Override
+    public void applyMove(AtaxxBoard board, int seat, Ataxx.AtaxxMove move) {
+        board.makeMove(seat, move.from(), move.to());
+    }
+
+    @Override
+    public List<Ataxx.AtaxxMove> getLegalMoves(AtaxxBoard board, int seat) {
+        return board.getLegalMoves(seat);
+    }
+
+    @Override
+    public int getFirstSeat() {
+        return turnOrder.get(0);
+    }
+
+    /**
+     * The next seat in turn order with a legal move.  If no seat has one the game is over, and the seat after
+     * the mover is returned.
+     */
+    @Override
+    public int getNextSeat(AtaxxBoard board, int seat) {
+        int position = turnOrder.indexOf(seat);
+        for (int step = 1; step <= turnOrder.size(); ++step) {
+            int nextSeat = turnOrder.get((position + step) % turnOrder.size());
+            if (board.hasLegalMove(nextSeat)) {
+                return nextSeat;
+            }
+        }
+        return turnOrder.get((position + 1) % turnOrder.size());
+    }
+
+    /**
+     * The game ends when the board is full or no seat can move.  The most pieces wins; a shared top score is a
+     * DRAW here, and the game class ranks the places itself.
+     */
+    @Override
+    public int getResult(AtaxxBoard board, int nextSeat) {
+        if (!board.isBoardFull() && board.hasLegalMove(nextSeat)) {
+            return IN_PROGRESS;
+        }
+        int winner = DRAW;
+        int topCount = -1;
+        for (int seat = 0; seat < getNumPlayers(); ++seat) {
+            int count = board.getPieceCount(seat);
+            if (count > topCount) {
+                topCount = count;
+                winner = seat;
+            } else if (count == topCount) {
+                winner = DRAW;
+            }
+        }
+        return winner;
+    }
+
+    @Override
+    public String getBoardText(AtaxxBoard board) {
+        return board.getBoardTextBody();
+    }
+}
@@ -0,0 +1,33 @@
+package com.pbemgs.game.ataxx;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.game.MoveReplayer;
+import com.pbemgs.model.Location;
+
+/**
+ * Ataxx move log notation: player slot and move, e.g. "0:B2-D4" for a from-to move, or "1:C3" for a to-only
+ * clone.  The board size is the number of rows in the serialized board.
+ */
+public class AtaxxMoveReplayer implements MoveReplayer {
+    private final LambdaLogger logger;
+
+    public AtaxxMoveReplayer(LambdaLogger logger) {
+        this.logger = logger;
+    }
+
+    public static String moveText(int playerSlot, Ataxx.AtaxxMove move) {
+        return playerSlot + ":" + (move.from() == null ? move.to().toString() : move.from() + "-" + move.to());
+    }
+
+    @Override
+    public String apply(String boardState, String moveText) {
+        String[] parts = moveText.split(":");
+        String[] squares = parts[1].split("-");
+        Location from = squares.length == 2 ? Location.fromString(squares[0]) : null;
+        Location to = Location.fromString(squares[squares.length - 1]);
+        AtaxxBoard board = new AtaxxBoard(boardState.split("\\|").length, logger);
+        board.deserialize(boardState);
+        board.makeMove(Integer.parseInt(parts[0]), from, to);
+        return board.serialize();
+    }
+}
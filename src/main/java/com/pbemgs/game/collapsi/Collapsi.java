@@ -3,10 +3,15 @@ package com.pbemgs.game.collapsi;
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.pbemgs.controller.SESEmailSender;
 import com.pbemgs.controller.TextResponseProvider;
+import com.pbemgs.dko.MoveLogDKO;
 import com.pbemgs.dko.PlayerOutcomesDKO;
+import com.pbemgs.dko.StaleGameUpdateException;
+import com.pbemgs.dko.StaleGamesDKO;
 import com.pbemgs.dko.UsersDKO;
+import com.pbemgs.game.GameEngine;
 import com.pbemgs.game.GameInterface;
 import com.pbemgs.game.GameMessageMailer;
+import com.pbemgs.game.GameUpdateRetry;
 import com.pbemgs.game.collapsi.dko.CollapsiGamesDKO;
 import com.pbemgs.game.collapsi.dko.CollapsiPlayersDKO;
 import com.pbemgs.generated.enums.CollapsiGamesGameState;
@@ -14,6 +19,7 @@ import com.pbemgs.generated.enums.PlayerOutcomesOutcome;
 import com.pbemgs.generated.tables.records.CollapsiGamesRecord;
 import com.pbemgs.generated.tables.records.CollapsiPlayersRecord;
 import com.pbemgs.generated.tables.records.UsersRecord;
+import com.pbemgs.model.ActiveGameSummary;
 import com.pbemgs.model.GameType;
 import com.pbemgs.model.Location;
 import com.pbemgs.model.S3Email;
@@ -38,11 +44,16 @@ public class Collapsi implements GameInterface {
     private static final int MAX_OPEN_GAMES = 10;
     private static final Duration REMINDER_DURATION = Duration.ofHours(24);
     private static final Duration TIMEOUT_DURATION = Duration.ofHours(72);
+    // Post-game analysis emails are on unless COLLAPSI_POST_GAME_ANALYSIS is "false".
+    private static final boolean SEND_POST_GAME_ANALYSIS =
+            !"false".equalsIgnoreCase(System.getenv("COLLAPSI_POST_GAME_ANALYSIS"));
 
     private final DSLContext dslContext;
     private final CollapsiGamesDKO collapsiGamesDKO;
+    private final StaleGamesDKO staleGamesDKO;
     private final CollapsiPlayersDKO collapsiPlayersDKO;
     private final UsersDKO usersDKO;
+    private final CollapsiEngine engine = new CollapsiEngine();
     private final LambdaLogger logger;
 
     // players in game
@@ -55,6 +66,7 @@ public class Collapsi implements GameInterface {
     public Collapsi(DSLContext dslContext, LambdaLogger logger) {
         this.dslContext = dslContext;
         collapsiGamesDKO = new CollapsiGamesDKO(dslContext);
+        staleGamesDKO = new StaleGamesDKO(dslContext);
         collapsiPlayersDKO = new CollapsiPlayersDKO(dslContext);
         usersDKO = new UsersDKO(dslContext);
         this.logger = logger;
@@ -113,6 +125,10 @@ public class Collapsi implements GameInterface {
 
     @Override
     public void processJoinGame(UsersRecord user, long gameId, SESEmailSender emailSender) {
+        GameUpdateRetry.run(logger, "COLLAPSI join_game " + gameId, () -> attemptJoinGame(user, gameId, emailSender));
+    }
+
+    private void attemptJoinGame(UsersRecord user, long gameId, SESEmailSender emailSender) {
         List<CollapsiGamesRecord> userGames = collapsiGamesDKO.getActiveGamesForUser(user.getUserId());
         if (userGames.size() >= PLAYER_GAME_LIMIT) {
             GameMessageMailer.gameLimitReached(emailSender, user.getEmailAddr(), "join_game", GameType.COLLAPSI);
@@ -125,7 +141,7 @@ public class Collapsi implements GameInterface {
             GameMessageMailer.joinNonopenGame(emailSender, user.getEmailAddr(), GameType.COLLAPSI, gameId);
             return;
         }
-        populatePlayerMap(game);
+        populatePlayerMap(game.getGameId());
         if (playerList.get(0).getUserId() == user.getUserId()) {
             GameMessageMailer.joinAlreadyIn(emailSender, user.getEmailAddr(), GameType.COLLAPSI, gameId);
             return;
@@ -136,13 +152,13 @@ public class Collapsi implements GameInterface {
         Random rng = new Random();
         game.setFirstTurnUserId(rng.nextBoolean() ? createUser.getUserId() : user.getUserId());
 
-        CollapsiBoard gameBoard = new CollapsiBoard();
-        gameBoard.initializeNewBoard();
+        CollapsiBoard gameBoard = engine.newBoard(rng);
 
         // Set other initial fields
         game.setGameState(CollapsiGamesGameState.IN_PROGRESS);
         game.setCurrentActionUserid(game.getFirstTurnUserId());
         game.setBoardState(gameBoard.serialize());
+        game.setInitialBoardState(game.getBoardState());
         game.setLastMoveTimestamp(LocalDateTime.now());
         game.setLastReminderTimestamp(LocalDateTime.now());
 
@@ -153,7 +169,11 @@ public class Collapsi implements GameInterface {
                 DSLContext trx = DSL.using(configuration);
                 new CollapsiGamesDKO(trx).completeGame(finalGame, user.getUserId(), finalGame.getCurrentActionUserid());
                 new CollapsiPlayersDKO(trx).addPlayer(gameId, user.getUserId(), 1);
+                new MoveLogDKO(trx).recordSnapshot(GameType.COLLAPSI, gameId, finalGame.getVersion(),
+                        finalGame.getBoardState());
             });
+        } catch (StaleGameUpdateException e) {
+            throw e;  // retried from the top by GameUpdateRetry
         } catch (Exception e) {
             logger.log("Exception attempting to join game: " + e.getMessage());
             emailSender.sendEmail(user.getEmailAddr(), "PBEMGS - join_game collapsi failed",
@@ -163,7 +183,7 @@ public class Collapsi implements GameInterface {
 
         // reload game so players are both set.
         game = collapsiGamesDKO.getGameById(gameId);
-        populatePlayerMap(game);
+        populatePlayerMap(game.getGameId());
 
         sendBoardStateEmail(emailSender, "MOVE COLLAPSI " + gameId + " - GAME START!",
                 user.getHandle() + " has joined the action!\n\n",
@@ -172,6 +192,10 @@ public class Collapsi implements GameInterface {
 
     @Override
     public void processMove(UsersRecord user, long gameId, S3Email emailBody, SESEmailSender emailSender) {
+        GameUpdateRetry.run(logger, "COLLAPSI move " + gameId, () -> attemptMove(user, gameId, emailBody, emailSender));
+    }
+
+    private void attemptMove(UsersRecord user, long gameId, S3Email emailBody, SESEmailSender emailSender) {
         CollapsiGamesRecord game = collapsiGamesDKO.getGameById(gameId);
 
         // Validity checks: game must exist, be in IN_PROGRESS state, and user part of game
@@ -179,7 +203,7 @@ public class Collapsi implements GameInterface {
             GameMessageMailer.moveGameNotValid(emailSender, user.getEmailAddr(), GameType.COLLAPSI, gameId);
             return;
         }
-        populatePlayerMap(game);
+        populatePlayerMap(game.getGameId());
         if (!Objects.equals(user.getUserId(), usersList.get(0).getUserId()) &&
                 !Objects.equals(user.getUserId(), usersList.get(1).getUserId())) {
             GameMessageMailer.moveNotActiveText(emailSender, user.getEmailAddr(), GameType.COLLAPSI, gameId);
@@ -204,17 +228,14 @@ public class Collapsi implements GameInterface {
         logger.log("-- Collapsi Move: " + move.toString());
 
         // Load gameBoard, verify move is valid
-        CollapsiBoard gameBoard = new CollapsiBoard();
-        gameBoard.deserialize(game.getBoardState());
-        Map<Location, String> validMoveMap = gameBoard.getValidMoves(playerSeat);
-
-        if (!validMoveMap.containsKey(move)) {
+        CollapsiBoard gameBoard = engine.deserialize(game.getBoardState());
+        if (engine.validateMove(gameBoard, playerSeat, move) != null) {
             emailSender.sendEmail(user.getEmailAddr(), "PBEMGS - MOVE COLLAPSI failed",
                     CollapsiTextResponseProvider.getMoveFailedText(gameId, move));
             return;
         }
 
-        executeMove(user, playerSeat, game, gameBoard, move, validMoveMap.get(move), emailSender);
+        executeMove(user, playerSeat, game, gameBoard, move, gameBoard.getValidMoves(playerSeat).get(move), emailSender);
     }
 
     // Helper to fully execute a validated card placement move.
@@ -225,25 +246,31 @@ public class Collapsi implements GameInterface {
         boardHeader.append(user.getHandle()).append(" moves to ").append(loc.toString());
         boardHeader.append(" along the path ").append(pathString).append("!\n\n");
 
-        gameBoard.makeMove(playerSeat, loc);
-        game.setBoardState(gameBoard.serialize());
+        engine.applyMove(gameBoard, playerSeat, loc);
+        game.setBoardState(engine.serialize(gameBoard));
+        game.setMoveList(CollapsiGameAnalysis.appendMove(game.getMoveList(), playerSeat, loc));
 
         // Activate opposing player
-        int updatedActionSeat = 1 - playerSeat;
+        int updatedActionSeat = engine.getNextSeat(gameBoard, playerSeat);
         game.setCurrentActionUserid(usersList.get(updatedActionSeat).getUserId());
         game.setLastMoveTimestamp(LocalDateTime.now());
         game.setLastReminderTimestamp(null);
 
 
         // Check end of game condition
-        Map<Location, String> oppValidMoveMap = gameBoard.getValidMoves(updatedActionSeat);
-        if (oppValidMoveMap.isEmpty()) {
-            processGameOver(playerSeat, game, gameBoard, emailSender, boardHeader.toString());
+        int result = engine.getResult(gameBoard, updatedActionSeat);
+        if (result != GameEngine.IN_PROGRESS) {
+            processGameOver(result, game, gameBoard, loc, emailSender, boardHeader.toString());
             return;
         }
 
-        // update game state in DB
-        collapsiGamesDKO.updateGame(game);
+        // update game state in DB, and log the move
+        dslContext.transaction(configuration -> {
+            DSLContext trx = DSL.using(configuration);
+            new CollapsiGamesDKO(trx).updateGame(game);
+            new MoveLogDKO(trx).appendMove(GameType.COLLAPSI, game.getGameId(), game.getVersion(), user.getUserId(),
+                    CollapsiMoveReplayer.moveText(playerSeat, loc), game.getBoardState());
+        });
 
         // Send emails out
         sendBoardStateEmail(emailSender, "MOVE COLLAPSI " + game.getGameId(),
@@ -272,17 +299,16 @@ public class Collapsi implements GameInterface {
     }
 
     @Override
-    public String getMyGamesTextBody(long userId) {
+    public String getMyGamesTextBody(long userId, List<ActiveGameSummary> activeGames) {
         StringBuilder sb = new StringBuilder();
         sb.append("COLLAPSI:\n");
-        List<CollapsiGamesRecord> games = collapsiGamesDKO.getActiveGamesForUser(userId);
-        for (CollapsiGamesRecord game : games) {
-            sb.append("-- Game ID: ").append(game.getGameId());
-            if (game.getGameState() == CollapsiGamesGameState.OPEN) {
+        for (ActiveGameSummary game : activeGames) {
+            sb.append("-- Game ID: ").append(game.gameId());
+            if (game.open()) {
                 sb.append(" is waiting for an opponent.\n");
             } else {
                 sb.append(" is in progress - ");
-                sb.append(game.getCurrentActionUserid() == userId ? "YOUR TURN!\n" : "opponent's turn.\n");
+                sb.append(Objects.equals(game.userIdToMove(), userId) ? "YOUR TURN!\n" : "opponent's turn.\n");
             }
         }
         return sb.toString();
@@ -295,7 +321,7 @@ public class Collapsi implements GameInterface {
             GameMessageMailer.statusNotValidGame(emailSender, user.getEmailAddr(), GameType.COLLAPSI, gameId);
             return;
         }
-        populatePlayerMap(game);
+        populatePlayerMap(game.getGameId());
 
         if (user.getUserId() != usersList.get(0).getUserId() &&
                 user.getUserId() != usersList.get(1).getUserId()) {
@@ -315,49 +341,47 @@ public class Collapsi implements GameInterface {
         Map<Long, String> staleStringByUserId = new HashMap<>();
         Set<Long> gameIdsToUpdateReminderTime = new HashSet<>();
 
-        List<CollapsiGamesRecord> activeGames = collapsiGamesDKO.getActiveGames();
-        if (activeGames == null || activeGames.isEmpty()) {
+        LocalDateTime currTime = LocalDateTime.now();
+        List<StaleGamesDKO.StaleGame> staleGames = staleGamesDKO.getStaleGames(GameType.COLLAPSI, currTime,
+                REMINDER_DURATION, TIMEOUT_DURATION);
+        if (staleGames.isEmpty()) {
             return staleStringByUserId;
         }
 
-        LocalDateTime currTime = LocalDateTime.now();
-        for (CollapsiGamesRecord game : activeGames) {
-            LocalDateTime lastMoveTime = game.getLastMoveTimestamp();
-
-            // Timeout processing:
-            // - Hand selection, select hands randomly for each player who hasn't yet.
-            // - Gameplay: select random card to random open slot.
-            if (Duration.between(lastMoveTime, currTime).compareTo(TIMEOUT_DURATION) > 0) {
+        for (StaleGamesDKO.StaleGame staleGame : staleGames) {
+            // Timeout processing: the solver picks the move (fastest win, or slowest loss).
+            if (staleGame.timedOut()) {
+                CollapsiGamesRecord game = collapsiGamesDKO.getGameById(staleGame.gameId());
                 logger.log("Collapsi Game ID: " + game.getGameId() + " exceeded timeout...");
-                populatePlayerMap(game);
+                populatePlayerMap(game.getGameId());
 
                 CollapsiBoard gameBoard = new CollapsiBoard();
                 gameBoard.deserialize(game.getBoardState());
                 int seat = game.getCurrentActionUserid() == playerList.get(0).getUserId() ? 0 : 1;
 
-                // Select a random valid move to make
+                // Select the best move by exhaustive search
                 Map<Location, String> validMoveMap = gameBoard.getValidMoves(seat);
-
-                List<Location> validMoves = new ArrayList<>(validMoveMap.keySet());
-
-                Random random = new Random();
-                int randomIndex = random.nextInt(validMoves.size());
-                Location newLoc = validMoves.get(randomIndex);
-
-                logger.log("--- user " + usersList.get(seat).getHandle() + " - moving to: " + newLoc);
-                executeMove(usersList.get(seat), seat, game, gameBoard, newLoc, validMoveMap.get(newLoc), emailSender);
-            } else {
-                LocalDateTime lastTime = game.getLastReminderTimestamp() == null ?
-                        game.getLastMoveTimestamp() : game.getLastReminderTimestamp();
-
-                if (Duration.between(lastTime, currTime).compareTo(REMINDER_DURATION) > 0) {
-                    logger.log("Collapsi Game ID: " + game.getGameId() + " exceeded reminder time...");
-                    gameIdsToUpdateReminderTime.add(game.getGameId());
-                    populatePlayerMap(game);
-                    int seat = game.getCurrentActionUserid() == playerList.get(0).getUserId() ? 0 : 1;
-                    logger.log("--- sending reminder for seat: " + seat + ", user: " + usersList.get(seat).getHandle());
-                    staleStringByUserId.put(usersList.get(seat).getUserId(), "Collapsi: Game ID " + game.getGameId());
+                CollapsiSolver solver = new CollapsiSolver(gameBoard, CollapsiResultCache.getShared());
+                Location newLoc = solver.findBestMove(seat);
+                CollapsiSolver.SolveStats stats = solver.getStats();
+
+                logger.log("--- user " + usersList.get(seat).getHandle() + " - moving to: " + newLoc +
+                        " (solved in " + stats.elapsedMicros() / 1000 + "ms, " + stats.positionsSearched() +
+                        " positions searched, " + stats.cacheHits() + " table hits, table holds " +
+                        stats.tableEntries() + " positions / " + stats.tableBytes() / 1024 + "KB)");
+                try {
+                    executeMove(usersList.get(seat), seat, game, gameBoard, newLoc, validMoveMap.get(newLoc), emailSender);
+                } catch (StaleGameUpdateException e) {
+                    logger.log("--- skipped, game was updated concurrently: " + e.getMessage());
                 }
+            } else if (staleGame.reminderDue()) {
+                long gameId = staleGame.gameId();
+                logger.log("Collapsi Game ID: " + gameId + " exceeded reminder time...");
+                gameIdsToUpdateReminderTime.add(gameId);
+                populatePlayerMap(gameId);
+                int seat = playerList.get(0).getUserId().equals(staleGame.userIdToAct()) ? 0 : 1;
+                logger.log("--- sending reminder for seat: " + seat + ", user: " + usersList.get(seat).getHandle());
+                staleStringByUserId.put(usersList.get(seat).getUserId(), "Collapsi: Game ID " + gameId);
             }
         }  // end for (processing active games)
 
@@ -375,7 +399,7 @@ public class Collapsi implements GameInterface {
     /**
      * Process the end of the game.
      */
-    private void processGameOver(int winnerSeat, CollapsiGamesRecord game, CollapsiBoard gameBoard,
+    private void processGameOver(int winnerSeat, CollapsiGamesRecord game, CollapsiBoard gameBoard, Location lastMove,
                                  SESEmailSender emailSender, String boardHeader) {
 
         StringBuilder subject = new StringBuilder("PBEMGS - COLLAPSI Game ID ").append(game.getGameId());
@@ -395,11 +419,16 @@ public class Collapsi implements GameInterface {
                 CollapsiGamesDKO trxGamesDKO = new CollapsiGamesDKO(trx);
                 PlayerOutcomesDKO trxPlayerOutcomesDKO = new PlayerOutcomesDKO(trx);
                 trxGamesDKO.updateGame(game);
+                // the winner made the last move
+                new MoveLogDKO(trx).appendMove(GameType.COLLAPSI, game.getGameId(), game.getVersion(), winUserId,
+                        CollapsiMoveReplayer.moveText(winnerSeat, lastMove), game.getBoardState());
                 trxPlayerOutcomesDKO.insertOutcome(GameType.COLLAPSI, game.getGameId(), winUserId,
                         PlayerOutcomesOutcome.WIN, null, winUserId == game.getFirstTurnUserId());
                 trxPlayerOutcomesDKO.insertOutcome(GameType.COLLAPSI, game.getGameId(), loseUserId,
                         PlayerOutcomesOutcome.LOSS, null, loseUserId == game.getFirstTurnUserId());
             });
+        } catch (StaleGameUpdateException e) {
+            throw e;  // retried from the top by GameUpdateRetry
         } catch (Exception e) {
             logger.log("-- EXCEPTION writing updated end of game state for game ID " + game.getGameId() + ": " + e.getMessage());
             emailSender.sendEmail(usersList.get(winnerSeat).getEmailAddr(), "PBEMGS - MOVE COLLAPSI " + game.getGameId() + " Failed (internal error)",
@@ -409,6 +438,32 @@ public class Collapsi implements GameInterface {
 
         // Send email with end of match and ending board state.
         sendBoardStateEmail(emailSender, subject.toString(), endingBoardHeader + "\nFinal Board:\n\n", game, gameBoard, null);
+
+        if (SEND_POST_GAME_ANALYSIS && game.getInitialBoardState() != null) {
+            sendPostGameAnalysisEmail(game, emailSender);
+        }
+    }
+
+    /**
+     * Grade every move of the finished game against perfect play and mail the result to both players.
+     */
+    private void sendPostGameAnalysisEmail(CollapsiGamesRecord game, SESEmailSender emailSender) {
+        try {
+            LocalDateTime startTime = LocalDateTime.now();
+            List<CollapsiGameAnalysis.MoveGrade> grades = CollapsiGameAnalysis.analyze(game.getInitialBoardState(),
+                    game.getMoveList(), CollapsiResultCache.getShared());
+            logger.log("-- Collapsi post-game analysis for game ID " + game.getGameId() + " took " +
+                    Duration.between(startTime, LocalDateTime.now()).toMillis() + "ms");
+
+            String body = CollapsiTextResponseProvider.getPostGameAnalysisText(game.getGameId(), grades,
+                    usersList.get(0).getHandle(), usersList.get(1).getHandle());
+            for (UsersRecord user : usersList) {
+                emailSender.sendEmail(user.getEmailAddr(), "PBEMGS - COLLAPSI Game ID " + game.getGameId() + " analysis", body);
+            }
+        } catch (Exception e) {
+            // analysis is a bonus - never fail the game over processing for it
+            logger.log("-- Exception building Collapsi post-game analysis for game ID " + game.getGameId() + ": " + e.getMessage());
+        }
     }
 
     private String validateOptions(Map<String, String> options) {
@@ -442,12 +497,10 @@ public class Collapsi implements GameInterface {
         }
     }
 
-    private void populatePlayerMap(CollapsiGamesRecord game) {
+    private void populatePlayerMap(long gameId) {
         usersList.clear();
-        playerList = collapsiPlayersDKO.getPlayersForGame(game.getGameId());
-        for (CollapsiPlayersRecord p : playerList) {
-            usersList.add(usersDKO.fetchUserById(p.getUserId()));
-        }
+        playerList = collapsiPlayersDKO.getPlayersForGame(gameId);
+        usersList.addAll(usersDKO.fetchUsersInOrder(playerList.stream().map(CollapsiPlayersRecord::getUserId).toList()));
     }
 
     /**
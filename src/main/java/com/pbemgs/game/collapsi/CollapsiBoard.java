@@ -2,6 +2,7 @@ package com.pbemgs.game.collapsi;
 
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.pbemgs.VisibleForTesting;
+import com.pbemgs.game.BoardTemplate;
 import com.pbemgs.model.Location;
 import com.pbemgs.model.MonoSymbol;
 
@@ -10,7 +11,6 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import static com.pbemgs.game.collapsi.CollapsiDisplayDefs.BOT_BORDER;
 import static com.pbemgs.game.collapsi.CollapsiDisplayDefs.TOP_BORDER;
@@ -23,8 +23,10 @@ import static com.pbemgs.game.collapsi.CollapsiDisplayDefs.TOP_BORDER;
 public class CollapsiBoard {
 
     private static final int SIZE = 4;
+    public static final int SQUARE_COUNT = SIZE * SIZE;
     private static final char SYMBOL_0 = 'X';
     private static final char SYMBOL_1 = 'O';
+    private static final BoardTemplate TEMPLATE = buildTemplate();
 
     private int[][] grid;
     private Location token0;
@@ -113,56 +115,104 @@ public class CollapsiBoard {
      */
     public Map<Location, String> getValidMoves(int playerSeat) {
         Location token = (playerSeat == 0) ? token0 : token1;
-        int r = token.row();
-        int c = token.col();
-        int value = grid[r][c];
+        int start = toIndex(token);
+        int moveVal = getMoveDistance(playerSeat, grid[token.row()][token.col()]);
 
-        // Determine possible move distances
-        int moveVal = value;
-
-        if ((playerSeat == 0 && value == -1) || (playerSeat == 1 && value == -2)) {
-            moveVal = 1;
+        Map<Location, String> validMoveMap = new HashMap<>();
+        if (moveVal <= 0) {
+            return validMoveMap;
         }
 
-        Map<Location, String> validMoveMap = new HashMap<>();
-        List<Location> currentPath = new ArrayList<>();
-        // DFS for the path, staring at the token location
-        performPathDFS(token, moveVal, currentPath, validMoveMap);
+        // DFS for the path, staring at the token location.  Ending on either token is not allowed, so
+        // both token squares start out marked as already found.
+        int[] path = new int[moveVal + 1];
+        path[0] = start;
+        int blockedEnds = (1 << toIndex(token0)) | (1 << toIndex(token1));
+        performPathDFS(getOpenMask(), 1 << start, 1, moveVal, path, blockedEnds, validMoveMap);
 
         return validMoveMap;
     }
 
+    /**
+     * Bitmask of the squares reachable in exactly 'steps' moves from 'start' over open (non-collapsed)
+     * squares without revisiting a square, including the start.  Token squares are not excluded here.
+     */
+    public static int getReachableEndpoints(int openMask, int start, int steps) {
+        return endpointDFS(openMask, start, 1 << start, steps);
+    }
+
+    /**
+     * Move distance for a player whose token is on a card - jokers move 1 for their owner.
+     */
+    public static int getMoveDistance(int playerSeat, int cardValue) {
+        if ((playerSeat == 0 && cardValue == -1) || (playerSeat == 1 && cardValue == -2)) {
+            return 1;
+        }
+        return cardValue;
+    }
+
     private static final int[][] DIRS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}}; // up, down, left, right
 
-    private void performPathDFS(Location curr, int remaining,
-                                List<Location> currPath, Map<Location, String> validMoveMap) {
-        currPath.add(curr);
-        if (remaining == 0) {
-            // at end, valid if not on either token's location, and
-            // don't replace if a path already exists to here.
-            if (!curr.equals(token0) && !curr.equals(token1) &&
-                    !validMoveMap.containsKey(curr)) {
-                validMoveMap.put(curr, convertPathToString(currPath));
-            }
-        } else {
+    // Torus neighbours of each square index (r * SIZE + c), in DIRS order.
+    private static final int[][] NEIGHBORS = new int[SQUARE_COUNT][DIRS.length];
+
+    static {
+        for (int idx = 0; idx < SQUARE_COUNT; ++idx) {
             for (int d = 0; d < DIRS.length; ++d) {
-                int newR = (curr.row() + DIRS[d][0] + SIZE) % SIZE;
-                int newC = (curr.col() + DIRS[d][1] + SIZE) % SIZE;
-                if (grid[newR][newC] != 0) {
-                    Location newLoc = new Location(newR, newC);
-                    if (!currPath.contains(newLoc)) {
-                        performPathDFS(newLoc, remaining - 1, currPath, validMoveMap);
-                    }
+                int newR = (idx / SIZE + DIRS[d][0] + SIZE) % SIZE;
+                int newC = (idx % SIZE + DIRS[d][1] + SIZE) % SIZE;
+                NEIGHBORS[idx][d] = newR * SIZE + newC;
+            }
+        }
+    }
+
+    // Returns the updated mask of endpoints with a recorded path.  Only the first path found to an
+    // endpoint (in DIRS order) is kept, and only that one is converted to a string.
+    private int performPathDFS(int openMask, int visited, int depth, int remaining, int[] path,
+                               int foundEnds, Map<Location, String> validMoveMap) {
+        for (int d = 0; d < DIRS.length; ++d) {
+            int next = NEIGHBORS[path[depth - 1]][d];
+            int nextBit = 1 << next;
+            if ((openMask & nextBit) == 0 || (visited & nextBit) != 0) {
+                continue;
+            }
+            path[depth] = next;
+            if (remaining == 1) {
+                if ((foundEnds & nextBit) == 0) {
+                    foundEnds |= nextBit;
+                    validMoveMap.put(toLocation(next), convertPathToString(path));
                 }
-            }  // end for (each direction)
-        }  // end else (moves remaining)
+            } else {
+                foundEnds = performPathDFS(openMask, visited | nextBit, depth + 1, remaining - 1, path,
+                        foundEnds, validMoveMap);
+            }
+        }
+        return foundEnds;
+    }
 
-        // remove curr (last element) when done for backtracking
-        currPath.remove(currPath.size() - 1);
+    private static int endpointDFS(int openMask, int curr, int visited, int remaining) {
+        if (remaining == 0) {
+            return 1 << curr;
+        }
+        int ends = 0;
+        for (int next : NEIGHBORS[curr]) {
+            int nextBit = 1 << next;
+            if ((openMask & nextBit) != 0 && (visited & nextBit) == 0) {
+                ends |= endpointDFS(openMask, next, visited | nextBit, remaining - 1);
+            }
+        }
+        return ends;
     }
 
-    private String convertPathToString(List<Location> currPath) {
-        return currPath.stream().map(Location::toString).collect(Collectors.joining(" -> "));
+    private String convertPathToString(int[] path) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < path.length; ++i) {
+            if (i > 0) {
+                sb.append(" -> ");
+            }
+            sb.append(toLocation(path[i]));
+        }
+        return sb.toString();
     }
 
     /**
@@ -184,63 +234,90 @@ public class CollapsiBoard {
      * Generates the board text.
      */
     public String getBoardTextBody() {
+        return TEMPLATE.render((sb, slot) -> {
+            int r = slot / (SIZE * 3);
+            int txt = (slot / SIZE) % 3 + 1;
+            int c = slot % SIZE;
+            if (grid[r][c] == 0) {
+                sb.append("###");
+                return;
+            }
+            char playerSymbol = isToken(token0, r, c) ? SYMBOL_0 : isToken(token1, r, c) ? SYMBOL_1 : ' ';
+            if (txt == 2) {
+                sb.append(playerSymbol).append(grid[r][c] >= 0 ? grid[r][c] : 1).append(playerSymbol);
+            } else {
+                sb.append(' ').append(playerSymbol).append(' ');
+            }
+        });
+    }
+
+    private static boolean isToken(Location token, int r, int c) {
+        return token != null && token.row() == r && token.col() == c;
+    }
+
+    // Card rows - each row has 5 text rows (top-border, top, mid, bot, bot-border).  Slots are the insides of
+    // the card's top, mid and bot rows, by card row, then text row, then column.
+    private static BoardTemplate buildTemplate() {
         // Column identifier row
-        StringBuilder sb = new StringBuilder("     ");
+        BoardTemplate.Builder template = BoardTemplate.builder().text("     ");
         for (int i = 0; i < SIZE; i++) {
-            sb.append((char) ('A' + i)).append("     ");
+            template.text((char) ('A' + i)).text("     ");
         }
-        sb.append("\n");
+        template.text("\n");
 
-        // Card rows - each row has 5 text rows (top-border, top, mid, bot, bot-border)
         for (int r = 0; r < SIZE; r++) {
             for (int txt = 0; txt < 5; txt++) {
-                sb.append(txt == 2 ? String.format("%d  ", (r + 1)) : "   ");  // row ids
+                template.text(txt == 2 ? (r + 1) + "  " : "   ");  // row ids
                 for (int c = 0; c < SIZE; c++) {
-                    Location curr = new Location(r, c);
-                    int val = grid[r][c] >= 0 ? grid[r][c] : 1;
-
-                    boolean occupied = (curr.equals(token0) || curr.equals(token1));
-                    char playerSymbol = (curr.equals(token0) ? SYMBOL_0 : curr.equals(token1) ? SYMBOL_1 : ' ');
                     if (txt == 0) {
-                        sb.append(TOP_BORDER);
-                    }
-                    if (txt == 4) {
-                        sb.append(BOT_BORDER);
+                        template.text(TOP_BORDER);
+                    } else if (txt == 4) {
+                        template.text(BOT_BORDER);
+                    } else {
+                        template.text(MonoSymbol.GRID_VERTICAL.getSymbol()).slot()
+                                .text(MonoSymbol.GRID_VERTICAL.getSymbol());
                     }
-                    if (txt == 1 || txt == 3) {
-                        if (grid[r][c] == 0) {
-                            sb.append(MonoSymbol.GRID_VERTICAL.getSymbol());
-                            sb.append("###");
-                            sb.append(MonoSymbol.GRID_VERTICAL.getSymbol());
-                        } else {
-                            sb.append(MonoSymbol.GRID_VERTICAL.getSymbol());
-                            sb.append(" ").append(playerSymbol).append(" ");
-                            sb.append(MonoSymbol.GRID_VERTICAL.getSymbol());
-                        }
-                    }
-                    if (txt == 2) {
-                        if (grid[r][c] == 0) {
-                            sb.append(MonoSymbol.GRID_VERTICAL.getSymbol());
-                            sb.append("###");
-                            sb.append(MonoSymbol.GRID_VERTICAL.getSymbol());
-                        } else {
-                            sb.append(MonoSymbol.GRID_VERTICAL.getSymbol()).append(playerSymbol).append(val);
-                            sb.append(playerSymbol).append(MonoSymbol.GRID_VERTICAL.getSymbol());
-                        }
-                    }
-
-                    sb.append(" ");
+                    template.text(" ");
                 }
-                sb.append("\n");
+                template.text("\n");
             }  // end for (text row within card row)
-            sb.append("\n");
+            template.text("\n");
         }  // end for (card row)
-        sb.append("\n");
+        template.text("\n");
 
-        return sb.toString();
+        return template.build(3);
+    }
+
+    // Packed state accessors (square index is r * SIZE + c), used by the solver.
+    public int getOpenMask() {
+        int mask = 0;
+        for (int r = 0; r < SIZE; r++) {
+            for (int c = 0; c < SIZE; c++) {
+                if (grid[r][c] != 0) {
+                    mask |= 1 << (r * SIZE + c);
+                }
+            }
+        }
+        return mask;
+    }
+
+    public int getCardValue(int index) {
+        return grid[index / SIZE][index % SIZE];
+    }
+
+    public int getTokenIndex(int playerSeat) {
+        return toIndex(playerSeat == 0 ? token0 : token1);
+    }
+
+    public static Location toLocation(int index) {
+        return new Location(index / SIZE, index % SIZE);
     }
 
     // Utility methods
+    private static int toIndex(Location loc) {
+        return loc.row() * SIZE + loc.col();
+    }
+
     private boolean isOnBoard(Location loc) {
         return (loc.row() >= 0 && loc.row() < SIZE && loc.col() >= 0 && loc.col() < SIZE);
     }
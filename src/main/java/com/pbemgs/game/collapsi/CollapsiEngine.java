@@ -0,0 +1,83 @@
+package com.pbemgs.game.collapsi;
+
+import com.pbemgs.game.GameEngine;
+import com.pbemgs.model.GameType;
+import com.pbemgs.model.Location;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Collapsi rules.  Seats are the board's player seats (0 moves first).  Moves are the destination square,
+ * e.g. "B3".  A player with no legal move on their turn loses.
+ */
+public class CollapsiEngine implements GameEngine<CollapsiBoard, Location> {
+
+    @Override
+    public GameType getGameType() {
+        return GameType.COLLAPSI;
+    }
+
+    @Override
+    public int getNumPlayers() {
+        return 2;
+    }
+
+    @Override
+    public CollapsiBoard newBoard(Random rng) {
+        CollapsiBoard board = new CollapsiBoard();
+        board.initializeNewBoard();
+        return board;
+    }
+
+    @Override
+    public CollapsiBoard deserialize(String boardState) {
+        CollapsiBoard board = new CollapsiBoard();
+        board.deserialize(boardState);
+        return board;
+    }
+
+    @Override
+    public String serialize(CollapsiBoard board) {
+        return board.serialize();
+    }
+
+    @Override
+    public Location parseMove(String moveText) {
+        return Location.fromString(moveText.trim());
+    }
+
+    @Override
+    public String formatMove(Location move) {
+        return move.toString();
+    }
+
+    @Override
+    public String validateMove(CollapsiBoard board, int seat, Location move) {
+        if (!board.getValidMoves(seat).containsKey(move)) {
+            return "Square " + move + " is not a legal destination.";
+        }
+        return null;
+    }
+
+    @Override
+    public void applyMove(CollapsiBoard board, int seat, Location move) {
+        board.makeMove(seat, move);
+    }
+
+    @Override
+    public List<Location> getLegalMoves(CollapsiBoard board, int seat) {
+        return new ArrayList<>(board.getValidMoves(seat).keySet());
+    }
+
+    @Override
+    public int getResult(CollapsiBoard board, int nextSeat) {
+        return board.getValidMoves(nextSeat).isEmpty() ? 1 - nextSeat : IN_PROGRESS;
+    }
+
+    @Override
+    public String getBoardText(CollapsiBoard board) {
+        return board.getBoardTextBody();
+    }
+}
@@ -0,0 +1,66 @@
+package com.pbemgs.game.collapsi;
+
+import com.pbemgs.model.Location;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Post-game ("where did I go wrong") analysis for Collapsi.  Replays a finished game's move list from the
+ * initial board and grades every move against perfect play with the CollapsiSolver.
+ * <p>
+ * Move list format: comma-separated "seat:square" entries in play order, e.g. "0:B1,1:C3".
+ */
+public class CollapsiGameAnalysis {
+
+    public record MoveGrade(int moveNumber, int seat, Location played, int playedScore,
+                            Location best, int bestScore) {
+        // A move that turned a forced win into a forced loss.
+        public boolean isMistake() {
+            return bestScore > 0 && playedScore < 0;
+        }
+    }
+
+    public static String appendMove(String moveList, int seat, Location loc) {
+        String entry = CollapsiMoveReplayer.moveText(seat, loc);
+        return (moveList == null || moveList.isEmpty()) ? entry : moveList + "," + entry;
+    }
+
+    /**
+     * Grades every move in the list.  Solved positions are shared through the given cache.
+     */
+    public static List<MoveGrade> analyze(String initialBoardState, String moveList, CollapsiResultCache cache) {
+        List<MoveGrade> grades = new ArrayList<>();
+        if (moveList == null || moveList.isEmpty()) {
+            return grades;
+        }
+
+        CollapsiBoard board = new CollapsiBoard();
+        board.deserialize(initialBoardState);
+        int moveNumber = 0;
+        for (String entry : moveList.split(",")) {
+            String[] parts = entry.split(":");
+            int seat = Integer.parseInt(parts[0]);
+            Location played = Location.fromString(parts[1]);
+
+            Map<Location, Integer> moveScores = new CollapsiSolver(board, cache).gradeMoves(seat);
+            Location best = null;
+            int bestScore = Integer.MIN_VALUE;
+            for (Map.Entry<Location, Integer> score : moveScores.entrySet()) {
+                if (score.getValue() > bestScore) {
+                    bestScore = score.getValue();
+                    best = score.getKey();
+                }
+            }
+            Integer playedScore = moveScores.get(played);
+            if (playedScore == null) {
+                throw new IllegalStateException("Collapsi move list has an invalid move " + entry + " at move " + (moveNumber + 1));
+            }
+
+            grades.add(new MoveGrade(++moveNumber, seat, played, playedScore, best, bestScore));
+            board.makeMove(seat, played);
+        }
+        return grades;
+    }
+}
@@ -0,0 +1,75 @@
+package com.pbemgs.game.collapsi;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing int -> int hash table for the Collapsi solver's transposition tables.
+ * Keys must be non-negative; stored as key + 1 so that 0 marks an empty slot.  No boxing, grows by doubling.
+ */
+class CollapsiIntTable {
+    static final int MISSING = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    CollapsiIntTable(int initialCapacityPow2) {
+        keys = new int[initialCapacityPow2];
+        values = new int[initialCapacityPow2];
+    }
+
+    int get(int key) {
+        int mask = keys.length - 1;
+        int stored = key + 1;
+        for (int slot = mix(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == stored) {
+                return values[slot];
+            }
+        }
+        return MISSING;
+    }
+
+    void put(int key, int value) {
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        int stored = key + 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != stored) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == 0) {
+            ++size;
+        }
+        keys[slot] = stored;
+        values[slot] = value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] != 0) {
+                put(oldKeys[i] - 1, oldValues[i]);
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
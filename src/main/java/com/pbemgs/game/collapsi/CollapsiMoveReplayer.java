@@ -0,0 +1,23 @@
+package com.pbemgs.game.collapsi;
+
+import com.pbemgs.game.MoveReplayer;
+import com.pbemgs.model.Location;
+
+/**
+ * Collapsi move log notation: seat and destination, e.g. "0:B3" (the same entries as the game's move_list).
+ */
+public class CollapsiMoveReplayer implements MoveReplayer {
+
+    public static String moveText(int seat, Location loc) {
+        return seat + ":" + loc;
+    }
+
+    @Override
+    public String apply(String boardState, String moveText) {
+        String[] parts = moveText.split(":");
+        CollapsiBoard board = new CollapsiBoard();
+        board.deserialize(boardState);
+        board.makeMove(Integer.parseInt(parts[0]), Location.fromString(parts[1]));
+        return board.serialize();
+    }
+}
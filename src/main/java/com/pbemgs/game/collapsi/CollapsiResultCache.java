@@ -0,0 +1,162 @@
+package com.pbemgs.game.collapsi;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact table of solved Collapsi positions (packed state key -> score), stored outside the Java heap.
+ * Backed either by a direct ByteBuffer, or by a memory-mapped file so that results survive across
+ * invocations of a warm Lambda container and across cold starts while the file exists.
+ * <p>
+ * Layout: 16-byte header (magic, capacity, entry count), then fixed 9-byte slots of
+ * 8-byte key (0 = empty) + 1-byte score.  Keys are exact packed states (see CollapsiSolver), so an entry
+ * can be overwritten when its probe run is full but never returns a wrong answer.
+ */
+public class CollapsiResultCache {
+    static final int MISSING = Integer.MIN_VALUE;
+
+    private static final long MAGIC = 0x434F4C4C41505331L;  // "COLLAPS1"
+    private static final int HEADER_BYTES = 16;
+    private static final int SLOT_BYTES = 9;
+    private static final int MAX_PROBE = 16;
+    private static final int MAX_CAPACITY = 1 << 27;  // keeps slot offsets within an int
+
+    private static final String CACHE_PATH_ENV = "COLLAPSI_SOLVER_CACHE_PATH";
+    private static final String DEFAULT_CACHE_PATH = "/tmp/collapsi_solver_cache.bin";
+    private static final int SHARED_CAPACITY = 1 << 21;  // ~18MB file
+
+    private static CollapsiResultCache shared;
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final boolean persistent;
+    private int entries;
+
+    private CollapsiResultCache(ByteBuffer buffer, int capacity, boolean persistent) {
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.persistent = persistent;
+        if (buffer.getLong(0) == MAGIC && buffer.getInt(8) == capacity) {
+            entries = buffer.getInt(12);
+        } else {
+            if (buffer.getLong(0) != 0L) {
+                // some other layout - wipe it (fresh files and direct buffers are already zeroed)
+                for (int i = 0; i < buffer.capacity(); ++i) {
+                    buffer.put(i, (byte) 0);
+                }
+            }
+            buffer.putLong(0, MAGIC);
+            buffer.putInt(8, capacity);
+            buffer.putInt(12, 0);
+            entries = 0;
+        }
+    }
+
+    /**
+     * Off-heap (direct buffer) table - lives for the lifetime of this object.  Capacity must be a power of 2.
+     */
+    public static CollapsiResultCache offHeap(int capacityPow2) {
+        checkCapacity(capacityPow2);
+        return new CollapsiResultCache(ByteBuffer.allocateDirect(HEADER_BYTES + capacityPow2 * SLOT_BYTES),
+                capacityPow2, false);
+    }
+
+    /**
+     * Memory-mapped table backed by the file, created if needed.  An existing file with a different layout is reset.
+     */
+    public static CollapsiResultCache mapped(Path file, int capacityPow2) throws IOException {
+        checkCapacity(capacityPow2);
+        long bytes = HEADER_BYTES + (long) capacityPow2 * SLOT_BYTES;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new CollapsiResultCache(channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes), capacityPow2, true);
+        }
+    }
+
+    /**
+     * Process-wide table used by the game engine - memory-mapped at $COLLAPSI_SOLVER_CACHE_PATH (default under /tmp),
+     * falling back to off-heap memory if the file can't be mapped.
+     */
+    public static synchronized CollapsiResultCache getShared() {
+        if (shared == null) {
+            String path = System.getenv(CACHE_PATH_ENV);
+            try {
+                shared = mapped(Path.of(path == null ? DEFAULT_CACHE_PATH : path), SHARED_CAPACITY);
+            } catch (IOException | RuntimeException e) {
+                shared = offHeap(SHARED_CAPACITY);
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Returns the stored score for the key, or MISSING.
+     */
+    public synchronized int get(long key) {
+        int home = slotFor(key);
+        for (int probe = 0; probe < MAX_PROBE; ++probe) {
+            int pos = slotPosition((home + probe) & (capacity - 1));
+            long stored = buffer.getLong(pos);
+            if (stored == key) {
+                return buffer.get(pos + 8);
+            }
+            if (stored == 0L) {
+                return MISSING;
+            }
+        }
+        return MISSING;
+    }
+
+    /**
+     * Stores the score (-128..127) for the key.  Keys must be non-zero.
+     * If the probe run is full the home slot is overwritten.
+     */
+    public synchronized void put(long key, int score) {
+        int home = slotFor(key);
+        int pos = slotPosition(home);
+        for (int probe = 0; probe < MAX_PROBE; ++probe) {
+            int candidate = slotPosition((home + probe) & (capacity - 1));
+            long stored = buffer.getLong(candidate);
+            if (stored == key || stored == 0L) {
+                pos = candidate;
+                break;
+            }
+        }
+        if (buffer.getLong(pos) == 0L) {
+            buffer.putInt(12, ++entries);
+        }
+        // value before key, so a reader never sees a key with a stale score
+        buffer.put(pos + 8, (byte) score);
+        buffer.putLong(pos, key);
+    }
+
+    public synchronized int size() {
+        return entries;
+    }
+
+    public long sizeBytes() {
+        return HEADER_BYTES + (long) capacity * SLOT_BYTES;
+    }
+
+    public boolean isPersistent() {
+        return persistent;
+    }
+
+    private int slotFor(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (capacity - 1);
+    }
+
+    private static int slotPosition(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    private static void checkCapacity(int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("CollapsiResultCache capacity must be a power of 2, got " + capacity);
+        }
+    }
+}
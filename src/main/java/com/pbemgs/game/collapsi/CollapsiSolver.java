@@ -0,0 +1,167 @@
+package com.pbemgs.game.collapsi;
+
+import com.pbemgs.model.Location;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Perfect-play solver for Collapsi.
+ * The 4x4 board has at most 16 open squares and every move collapses one, so the game tree is small enough
+ * to search exhaustively.  Reachable endpoints are memoized by (open mask, token, steps), and solved positions
+ * go into a CollapsiResultCache keyed by the packed position (see packState()), which can be shared across
+ * solvers and games.
+ * <p>
+ * Scores are from the point of view of the seat to move: WIN_SCORE - n means a forced win in n plies,
+ * -(WIN_SCORE - n) a forced loss in n plies.
+ */
+public class CollapsiSolver {
+    public static final int WIN_SCORE = 100;
+    private static final int DEFAULT_TABLE_CAPACITY = 1 << 18;
+
+    private final long[] cardCodes = new long[CollapsiBoard.SQUARE_COUNT];  // per-square code, pre-shifted
+    private final int[] cardValues = new int[CollapsiBoard.SQUARE_COUNT];
+    private final long cards;
+    private final int openMask;
+    private final int token0;
+    private final int token1;
+
+    private final CollapsiResultCache results;
+    private final CollapsiIntTable endpoints = new CollapsiIntTable(1 << 12);
+    private long nodes;
+    private long cacheHits;
+    private long elapsedNanos;
+
+    public record SolveStats(long positionsSearched, long cacheHits, long elapsedMicros, int tableEntries,
+                             long tableBytes) {
+    }
+
+    public CollapsiSolver(CollapsiBoard board) {
+        this(board, CollapsiResultCache.offHeap(DEFAULT_TABLE_CAPACITY));
+    }
+
+    public CollapsiSolver(CollapsiBoard board, CollapsiResultCache results) {
+        this.results = results;
+        long packedCards = 0L;
+        for (int i = 0; i < cardValues.length; ++i) {
+            cardValues[i] = board.getCardValue(i);
+            cardCodes[i] = (long) cardCode(cardValues[i]) << (3 * i);
+            packedCards |= cardCodes[i];
+        }
+        cards = packedCards;
+        openMask = board.getOpenMask();
+        token0 = board.getTokenIndex(0);
+        token1 = board.getTokenIndex(1);
+    }
+
+    /**
+     * Solves the current position for the seat to move.
+     */
+    public int solve(int seatToMove) {
+        long start = System.nanoTime();
+        int score = negamax(cards, openMask, token0, token1, seatToMove);
+        elapsedNanos += System.nanoTime() - start;
+        return score;
+    }
+
+    /**
+     * Grades every valid move for the seat, in square order.  Each score is from the mover's point of view.
+     */
+    public Map<Location, Integer> gradeMoves(int seat) {
+        long startTime = System.nanoTime();
+        Map<Location, Integer> grades = new LinkedHashMap<>();
+        int start = seat == 0 ? token0 : token1;
+        int ends = validEndpoints(openMask, token0, token1, seat);
+        long childCards = cards & ~cardCodes[start];
+        int childMask = openMask & ~(1 << start);
+        for (int bits = ends; bits != 0; bits &= bits - 1) {
+            int end = Integer.numberOfTrailingZeros(bits);
+            int child = negamax(childCards, childMask, seat == 0 ? end : token0, seat == 1 ? end : token1, 1 - seat);
+            grades.put(CollapsiBoard.toLocation(end), backUp(child));
+        }
+        elapsedNanos += System.nanoTime() - startTime;
+        return grades;
+    }
+
+    /**
+     * Best move for the seat - fastest forced win, or slowest loss.  Null if the seat has no valid move.
+     */
+    public Location findBestMove(int seat) {
+        Location best = null;
+        int bestScore = Integer.MIN_VALUE;
+        for (Map.Entry<Location, Integer> entry : gradeMoves(seat).entrySet()) {
+            if (entry.getValue() > bestScore) {
+                bestScore = entry.getValue();
+                best = entry.getKey();
+            }
+        }
+        return best;
+    }
+
+    public SolveStats getStats() {
+        return new SolveStats(nodes, cacheHits, elapsedNanos / 1000, results.size(), results.sizeBytes());
+    }
+
+    private int negamax(long cardState, int open, int t0, int t1, int seat) {
+        long key = packState(cardState, t0, t1, seat);
+        int cached = results.get(key);
+        if (cached != CollapsiResultCache.MISSING) {
+            ++cacheHits;
+            return cached;
+        }
+        ++nodes;
+
+        int start = seat == 0 ? t0 : t1;
+        int ends = validEndpoints(open, t0, t1, seat);
+        int best = -WIN_SCORE;  // no valid move - the seat to move has lost
+        long childCards = cardState & ~cardCodes[start];
+        int childMask = open & ~(1 << start);
+        for (int bits = ends; bits != 0; bits &= bits - 1) {
+            int end = Integer.numberOfTrailingZeros(bits);
+            int child = negamax(childCards, childMask, seat == 0 ? end : t0, seat == 1 ? end : t1, 1 - seat);
+            best = Math.max(best, backUp(child));
+        }
+
+        results.put(key, best);
+        return best;
+    }
+
+    private int validEndpoints(int open, int t0, int t1, int seat) {
+        int start = seat == 0 ? t0 : t1;
+        int steps = CollapsiBoard.getMoveDistance(seat, cardValues[start]);
+        if (steps <= 0) {
+            return 0;
+        }
+        int key = open | (start << 16) | (steps << 20);
+        int ends = endpoints.get(key);
+        if (ends == CollapsiIntTable.MISSING) {
+            ends = CollapsiBoard.getReachableEndpoints(open, start, steps);
+            endpoints.put(key, ends);
+        }
+        return ends & ~(1 << t0) & ~(1 << t1);
+    }
+
+    // Negate the child's score and move it one ply further from the end.
+    private static int backUp(int childScore) {
+        int score = -childScore;
+        return score > 0 ? score - 1 : score + 1;
+    }
+
+    // 3-bit card code: 0 collapsed, 1-4 card value, 5/6 the seat 0/1 jokers.
+    private static int cardCode(int cardValue) {
+        return switch (cardValue) {
+            case -1 -> 5;
+            case -2 -> 6;
+            default -> cardValue;
+        };
+    }
+
+    /**
+     * Packs a position exactly into a long: card codes of all 16 squares (48 bits, collapsed squares are 0),
+     * token 0 square (4 bits), token 1 square (4 bits), seat to move (1 bit).  The key does not depend on
+     * anything but the position itself, so it is valid across games and never zero.
+     */
+    static long packState(long cardState, int t0, int t1, int seat) {
+        return cardState | ((long) t0 << 48) | ((long) t1 << 52) | ((long) seat << 56);
+    }
+}
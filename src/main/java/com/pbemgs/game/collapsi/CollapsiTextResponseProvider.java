@@ -4,6 +4,8 @@ import com.pbemgs.generated.tables.records.CollapsiGamesRecord;
 import com.pbemgs.generated.tables.records.UsersRecord;
 import com.pbemgs.model.Location;
 
+import java.util.List;
+
 /**
  * Stores blocks of text associated with Triad Cubed.
  */
@@ -68,7 +70,7 @@ public class CollapsiTextResponseProvider {
                 "  - Maximum simultaneous games per player: 3\n" +
                 "  - Maximum open games: 10\n" +
                 "  - Inactivity nudge: After 24 hours\n" +
-                "  - Auto-move: A random valid move is selected after 72 hours\n\n" +
+                "  - Auto-move: The computer selects a move after 72 hours\n\n" +
                 "Status:\n" +
                 "  - In testing. Send feedback using the 'feedback' command!";
     }
@@ -95,4 +97,34 @@ public class CollapsiTextResponseProvider {
         return String.valueOf(symbol) + ": " + handle + (activeTurn ? " - TO MOVE!" : "") + "\n";
     }
 
+    public static String getPostGameAnalysisText(long gameId, List<CollapsiGameAnalysis.MoveGrade> grades,
+                                                 String handle0, String handle1) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Post-game analysis for Collapsi game ID ").append(gameId).append(" (perfect play solver):\n\n");
+        CollapsiGameAnalysis.MoveGrade firstMistake = null;
+        for (CollapsiGameAnalysis.MoveGrade grade : grades) {
+            String handle = grade.seat() == 0 ? handle0 : handle1;
+            sb.append(String.format("%2d. %c %s to %s: ", grade.moveNumber(), CollapsiBoard.getPlayerSymbol(grade.seat()),
+                    handle, grade.played()));
+            if (grade.isMistake()) {
+                sb.append("MISTAKE - gave away a forced win (").append(grade.best()).append(" wins).\n");
+                if (firstMistake == null) {
+                    firstMistake = grade;
+                }
+            } else if (grade.bestScore() > 0) {
+                sb.append("forced win kept.\n");
+            } else {
+                sb.append("position already lost.\n");
+            }
+        }
+        sb.append("\n");
+        if (firstMistake == null) {
+            sb.append("No mistakes - the result was decided by the opening deal.\n");
+        } else {
+            sb.append("The game turned on move ").append(firstMistake.moveNumber()).append(" by ")
+                    .append(firstMistake.seat() == 0 ? handle0 : handle1).append(".\n");
+        }
+        return sb.toString();
+    }
+
 }
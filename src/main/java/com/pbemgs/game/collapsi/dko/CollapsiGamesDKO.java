@@ -1,7 +1,11 @@
 package com.pbemgs.game.collapsi.dko;
 
+import com.pbemgs.dko.ArchivedGamesDKO;
+import com.pbemgs.dko.GameParticipantsDKO;
+import com.pbemgs.dko.StaleGameUpdateException;
 import com.pbemgs.generated.enums.CollapsiGamesGameState;
 import com.pbemgs.generated.tables.records.CollapsiGamesRecord;
+import com.pbemgs.model.GameType;
 import org.jooq.DSLContext;
 
 import java.time.LocalDateTime;
@@ -9,7 +13,6 @@ import java.util.List;
 import java.util.Set;
 
 import static com.pbemgs.generated.tables.CollapsiGames.COLLAPSI_GAMES;
-import static com.pbemgs.generated.tables.CollapsiPlayers.COLLAPSI_PLAYERS;
 
 public class CollapsiGamesDKO {
     private final DSLContext dslContext;
@@ -22,9 +25,10 @@ public class CollapsiGamesDKO {
      * Fetch a game by game ID.
      */
     public CollapsiGamesRecord getGameById(Long gameId) {
-        return dslContext.selectFrom(COLLAPSI_GAMES)
+        CollapsiGamesRecord game = dslContext.selectFrom(COLLAPSI_GAMES)
                 .where(COLLAPSI_GAMES.GAME_ID.eq(gameId))
                 .fetchOne();
+        return game != null ? game : new ArchivedGamesDKO(dslContext).fetchArchivedGame(GameType.COLLAPSI, COLLAPSI_GAMES, gameId);
     }
 
     /**
@@ -36,26 +40,13 @@ public class CollapsiGamesDKO {
                 .fetchInto(CollapsiGamesRecord.class);
     }
 
-    /**
-     * Fetch all in-progress games.
-     */
-    public List<CollapsiGamesRecord> getActiveGames() {
-        return dslContext.selectFrom(COLLAPSI_GAMES)
-                .where(COLLAPSI_GAMES.GAME_STATE.eq(CollapsiGamesGameState.IN_PROGRESS))
-                .fetchInto(CollapsiGamesRecord.class);
-    }
-
-
     /**
      * Fetch all active games for a given user.
-     * This requires a JOIN with COLLAPSI_PLAYERS to find which games a user is in.
      */
     public List<CollapsiGamesRecord> getActiveGamesForUser(Long userId) {
-        return dslContext.select(COLLAPSI_GAMES.fields())
-                .from(COLLAPSI_GAMES)
-                .join(COLLAPSI_PLAYERS).on(COLLAPSI_GAMES.GAME_ID.eq(COLLAPSI_PLAYERS.GAME_ID))
-                .where(COLLAPSI_PLAYERS.USER_ID.eq(userId))
-                .and(COLLAPSI_GAMES.GAME_STATE.in(CollapsiGamesGameState.OPEN, CollapsiGamesGameState.IN_PROGRESS))
+        return dslContext.selectFrom(COLLAPSI_GAMES)
+                .where(COLLAPSI_GAMES.GAME_STATE.in(CollapsiGamesGameState.OPEN, CollapsiGamesGameState.IN_PROGRESS))
+                .and(GameParticipantsDKO.isActiveParticipant(GameType.COLLAPSI, COLLAPSI_GAMES.GAME_ID, userId))
                 .fetchInto(CollapsiGamesRecord.class);
     }
 
@@ -72,15 +63,24 @@ public class CollapsiGamesDKO {
     }
 
     public void completeGame(CollapsiGamesRecord gameRecord, Long userIdSeat1, Long userIdToStart) {
-        dslContext.update(COLLAPSI_GAMES)
+        int rowsUpdated = dslContext.update(COLLAPSI_GAMES)
                 .set(COLLAPSI_GAMES.GAME_STATE, CollapsiGamesGameState.IN_PROGRESS)
                 .set(COLLAPSI_GAMES.CURRENT_ACTION_USERID, gameRecord.getFirstTurnUserId())
                 .set(COLLAPSI_GAMES.FIRST_TURN_USER_ID, gameRecord.getFirstTurnUserId())
                 .set(COLLAPSI_GAMES.BOARD_STATE, gameRecord.getBoardState())
+                .set(COLLAPSI_GAMES.INITIAL_BOARD_STATE, gameRecord.getInitialBoardState())
                 .set(COLLAPSI_GAMES.LAST_MOVE_TIMESTAMP, gameRecord.getLastMoveTimestamp())
                 .set(COLLAPSI_GAMES.LAST_REMINDER_TIMESTAMP, gameRecord.getLastReminderTimestamp())
+                .set(COLLAPSI_GAMES.VERSION, COLLAPSI_GAMES.VERSION.plus(1))
                 .where(COLLAPSI_GAMES.GAME_ID.eq(gameRecord.getGameId()))
+                .and(COLLAPSI_GAMES.VERSION.eq(gameRecord.getVersion()))
                 .execute();
+
+        if (rowsUpdated == 0) {
+            throw new StaleGameUpdateException("collapsi_games", gameRecord.getGameId(), gameRecord.getVersion());
+        }
+        gameRecord.setVersion(gameRecord.getVersion() + 1);
+        new GameParticipantsDKO(dslContext).syncGameState(GameType.COLLAPSI, gameRecord.getGameId());
     }
 
     /**
@@ -91,14 +91,26 @@ public class CollapsiGamesDKO {
             throw new IllegalArgumentException("Cannot update game: GameID is null.");
         }
 
-        dslContext.update(COLLAPSI_GAMES)
+        int rowsUpdated = dslContext.update(COLLAPSI_GAMES)
                 .set(COLLAPSI_GAMES.GAME_STATE, gameRecord.getGameState())
                 .set(COLLAPSI_GAMES.CURRENT_ACTION_USERID, gameRecord.getCurrentActionUserid())
                 .set(COLLAPSI_GAMES.BOARD_STATE, gameRecord.getBoardState())
+                .set(COLLAPSI_GAMES.MOVE_LIST, gameRecord.getMoveList())
                 .set(COLLAPSI_GAMES.LAST_MOVE_TIMESTAMP, gameRecord.getLastMoveTimestamp())
                 .set(COLLAPSI_GAMES.LAST_REMINDER_TIMESTAMP, gameRecord.getLastReminderTimestamp())
+                .set(COLLAPSI_GAMES.VERSION, COLLAPSI_GAMES.VERSION.plus(1))
                 .where(COLLAPSI_GAMES.GAME_ID.eq(gameRecord.getGameId()))
+                .and(COLLAPSI_GAMES.VERSION.eq(gameRecord.getVersion()))
                 .execute();
+
+        if (rowsUpdated == 0) {
+            throw new StaleGameUpdateException("collapsi_games", gameRecord.getGameId(), gameRecord.getVersion());
+        }
+        gameRecord.setVersion(gameRecord.getVersion() + 1);
+        if (gameRecord.changed(COLLAPSI_GAMES.GAME_STATE)) {
+            new GameParticipantsDKO(dslContext).syncGameState(GameType.COLLAPSI, gameRecord.getGameId());
+            gameRecord.changed(COLLAPSI_GAMES.GAME_STATE, false);
+        }
     }
 
     /**
@@ -1,8 +1,12 @@
 package com.pbemgs.game.collapsi.dko;
 
+import com.pbemgs.dko.ArchivedGamesDKO;
+import com.pbemgs.dko.GameParticipantsDKO;
 import com.pbemgs.generated.tables.records.CollapsiPlayersRecord;
+import com.pbemgs.model.GameType;
 import org.jooq.DSLContext;
 
+import java.util.Comparator;
 import java.util.List;
 
 import static com.pbemgs.generated.tables.CollapsiPlayers.COLLAPSI_PLAYERS;
@@ -18,10 +22,16 @@ public class CollapsiPlayersDKO {
      * Fetch all players in a given game, sorted by their seat 2number
      */
     public List<CollapsiPlayersRecord> getPlayersForGame(Long gameId) {
-        return dslContext.selectFrom(COLLAPSI_PLAYERS)
+        List<CollapsiPlayersRecord> players = dslContext.selectFrom(COLLAPSI_PLAYERS)
                 .where(COLLAPSI_PLAYERS.GAME_ID.eq(gameId))
                 .orderBy(COLLAPSI_PLAYERS.PLAYER_SEAT)
                 .fetchInto(CollapsiPlayersRecord.class);
+        if (!players.isEmpty()) {
+            return players;
+        }
+        return new ArchivedGamesDKO(dslContext).fetchArchivedPlayers(GameType.COLLAPSI, COLLAPSI_PLAYERS, gameId).stream()
+                .sorted(Comparator.comparing(CollapsiPlayersRecord::getPlayerSeat))
+                .toList();
     }
 
     /**
@@ -50,6 +60,7 @@ public class CollapsiPlayersDKO {
         record.setGameId(gameId);
         record.setPlayerSeat(playerSeat);
         record.store();
+        new GameParticipantsDKO(dslContext).addParticipant(GameType.COLLAPSI, gameId, userId, playerSeat);
     }
 
 }
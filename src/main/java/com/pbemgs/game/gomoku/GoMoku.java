@@ -5,15 +5,20 @@ import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import com.pbemgs.controller.SESEmailSender;
 import com.pbemgs.dko.GoMokuGameDKO;
+import com.pbemgs.dko.MoveLogDKO;
 import com.pbemgs.dko.PlayerOutcomesDKO;
+import com.pbemgs.dko.StaleGamesDKO;
 import com.pbemgs.dko.UsersDKO;
+import com.pbemgs.game.GameEngine;
 import com.pbemgs.game.GameInterface;
 import com.pbemgs.game.GameMessageMailer;
+import com.pbemgs.game.GameUpdateRetry;
 import com.pbemgs.generated.enums.GomokuGamesGameState;
 import com.pbemgs.generated.enums.GomokuGamesSwap2State;
 import com.pbemgs.generated.enums.PlayerOutcomesOutcome;
 import com.pbemgs.generated.tables.records.GomokuGamesRecord;
 import com.pbemgs.generated.tables.records.UsersRecord;
+import com.pbemgs.model.ActiveGameSummary;
 import com.pbemgs.model.GameType;
 import com.pbemgs.model.Location;
 import com.pbemgs.model.S3Email;
@@ -23,6 +28,7 @@ import org.jooq.impl.DSL;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -41,7 +47,9 @@ public class GoMoku implements GameInterface {
 
     private final DSLContext dslContext;
     private final GoMokuGameDKO goMokuGameDKO;
+    private final StaleGamesDKO staleGamesDKO;
     private final UsersDKO usersDKO;
+    private final GoMokuEngine engine;
     private final LambdaLogger logger;
 
     private final BiMap<UsersRecord, Character> symbolByUser;
@@ -55,7 +63,9 @@ public class GoMoku implements GameInterface {
     public GoMoku(DSLContext dslContext, LambdaLogger logger) {
         this.dslContext = dslContext;
         goMokuGameDKO = new GoMokuGameDKO(dslContext);
+        staleGamesDKO = new StaleGamesDKO(dslContext);
         usersDKO = new UsersDKO(dslContext);
+        engine = new GoMokuEngine(BOARD_SIZE, logger);
         this.logger = logger;
         this.symbolByUser = HashBiMap.create();
     }
@@ -81,6 +91,10 @@ public class GoMoku implements GameInterface {
 
     @Override
     public void processJoinGame(UsersRecord user, long gameId, SESEmailSender emailSender) {
+        GameUpdateRetry.run(logger, "GOMOKU join_game " + gameId, () -> attemptJoinGame(user, gameId, emailSender));
+    }
+
+    private void attemptJoinGame(UsersRecord user, long gameId, SESEmailSender emailSender) {
         List<GomokuGamesRecord> userGames = goMokuGameDKO.getActiveGamesForUser(user.getUserId());
         if (userGames.size() >= PLAYER_GAME_LIMIT) {
             GameMessageMailer.gameLimitReached(emailSender, user.getEmailAddr(), "join_game", GameType.GOMOKU);
@@ -102,9 +116,9 @@ public class GoMoku implements GameInterface {
         UsersRecord createUser = usersDKO.fetchUserById(game.getXUserId());
         Random rng = new Random();
         if (rng.nextBoolean()) {
-            goMokuGameDKO.completeGameCreation(gameId, createUser.getUserId(), user.getUserId());
+            goMokuGameDKO.completeGameCreation(gameId, createUser.getUserId(), user.getUserId(), game.getVersion());
         } else {
-            goMokuGameDKO.completeGameCreation(gameId, user.getUserId(), createUser.getUserId());
+            goMokuGameDKO.completeGameCreation(gameId, user.getUserId(), createUser.getUserId(), game.getVersion());
         }
 
         // reload game so players are both set.
@@ -120,6 +134,10 @@ public class GoMoku implements GameInterface {
 
     @Override
     public void processMove(UsersRecord user, long gameId, S3Email emailBody, SESEmailSender emailSender) {
+        GameUpdateRetry.run(logger, "GOMOKU move " + gameId, () -> attemptMove(user, gameId, emailBody, emailSender));
+    }
+
+    private void attemptMove(UsersRecord user, long gameId, S3Email emailBody, SESEmailSender emailSender) {
         GomokuGamesRecord game = goMokuGameDKO.getGameById(gameId);
 
         // Validity checks: gameBoard must exist, be in IN_PROGRESS state, and the user must be active player.
@@ -144,8 +162,7 @@ public class GoMoku implements GameInterface {
         GoMokuMove move = parseResult.move();
 
         // Load gameBoard, verify move is valid
-        GoMokuBoard gameBoard = new GoMokuBoard(BOARD_SIZE, logger);
-        gameBoard.deserialize(game.getBoardState());
+        GoMokuBoard gameBoard = engine.deserialize(game.getBoardState());
 
         // Check move vs game swap2 state
         String stateError = validateMoveType(move, game.getSwap2State());
@@ -170,8 +187,11 @@ public class GoMoku implements GameInterface {
             return;
         }
 
+        // Regular play is a single placement checked by the engine; the Swap2 opening places stones for either side.
         for (Location loc : move.placements()) {
-            String errorMessage = gameBoard.validateMove(loc);
+            String errorMessage = game.getSwap2State() == GomokuGamesSwap2State.GAMEPLAY ?
+                    engine.validateMove(gameBoard, GoMokuEngine.getSeat(symbolByUser.get(user)), loc) :
+                    gameBoard.validateMove(loc);
             if (errorMessage != null) {
                 emailSender.sendEmail(user.getEmailAddr(), "PBEMGS - MOVE GOMOKU failed",
                         GoMokuTextResponseProvider.getMoveInvalidText(loc, gameId, errorMessage));
@@ -228,20 +248,21 @@ public class GoMoku implements GameInterface {
         char playerSymbol = symbolByUser.get(user);
         char oppSymbol = playerSymbol == GoMokuBoard.PLAYER_X ? GoMokuBoard.PLAYER_O : GoMokuBoard.PLAYER_X;
 
+        // Regular play is logged move by move; the Swap2 opening isn't, and the board is snapshotted as it ends.
+        String moveText = game.getSwap2State() == GomokuGamesSwap2State.GAMEPLAY ?
+                GoMokuMoveReplayer.moveText(playerSymbol, move.placements().get(0)) : null;
         StringBuilder boardHeader = new StringBuilder();
         switch (game.getSwap2State()) {
             case GAMEPLAY:
-                gameBoard.makeMove(symbolByUser.get(user), move.placements().get(0));
+                int seat = GoMokuEngine.getSeat(playerSymbol);
+                engine.applyMove(gameBoard, seat, move.placements().get(0));
                 boardHeader.append(user.getHandle()).append(" has placed a stone at ");
                 boardHeader.append(move.placements().get(0).toString()).append(".\n\n");
-                if (gameBoard.isVictoryCondition(playerSymbol)) {
-                    processGameOver(playerSymbol, game, gameBoard, emailSender,
-                            boardHeader.toString(), symbolByUser.inverse().get(oppSymbol).getUserId());
-                    return;
-                }
-                if (gameBoard.isBoardFull()) {
-                    processGameOver(null, game, gameBoard, emailSender,
-                            boardHeader.toString(), symbolByUser.inverse().get(oppSymbol).getUserId());
+                int result = engine.getResult(gameBoard, engine.getNextSeat(gameBoard, seat));
+                if (result != GameEngine.IN_PROGRESS) {
+                    processGameOver(result == GameEngine.DRAW ? null : GoMokuEngine.getSymbol(result), game, gameBoard,
+                            emailSender, boardHeader.toString(), symbolByUser.inverse().get(oppSymbol).getUserId(),
+                            user.getUserId(), moveText);
                     return;
                 }
                 break;
@@ -293,8 +314,18 @@ public class GoMoku implements GameInterface {
         game.setLastMoveTimestamp(LocalDateTime.now());
         game.setLastReminderTimestamp(null);
 
-        // update gameBoard state in DB
-        goMokuGameDKO.updateGame(game);
+        // update gameBoard state in DB, with the move log in the same transaction
+        dslContext.transaction(configuration -> {
+            DSLContext trx = DSL.using(configuration);
+            new GoMokuGameDKO(trx).updateGame(game);
+            MoveLogDKO moveLog = new MoveLogDKO(trx);
+            if (moveText != null) {
+                moveLog.appendMove(GameType.GOMOKU, game.getGameId(), game.getVersion(), user.getUserId(), moveText,
+                        game.getBoardState());
+            } else if (game.getSwap2State() == GomokuGamesSwap2State.GAMEPLAY) {
+                moveLog.recordSnapshot(GameType.GOMOKU, game.getGameId(), game.getVersion(), game.getBoardState());
+            }
+        });
 
         // Send emails out
         sendBoardStateEmail(emailSender, "MOVE GOMOKU " + game.getGameId(),
@@ -311,7 +342,7 @@ public class GoMoku implements GameInterface {
         game.setSwap2State(GomokuGamesSwap2State.GAMEPLAY);
         game.setLastMoveTimestamp(LocalDateTime.now());
         game.setLastReminderTimestamp(null);
-        goMokuGameDKO.updateGame(game);
+        updateGameAndSnapshot(game);
         populatePlayerMap(game);  // player swap, update internal map
         String boardHeader = TSP.getHandle() + " has elected to swap colors!\n\n";
         sendBoardStateEmail(emailSender, "MOVE GOMOKU " + game.getGameId(), boardHeader,
@@ -326,12 +357,22 @@ public class GoMoku implements GameInterface {
         game.setSwap2State(GomokuGamesSwap2State.GAMEPLAY);
         game.setLastMoveTimestamp(LocalDateTime.now());
         game.setLastReminderTimestamp(null);
-        goMokuGameDKO.updateGame(game);
+        updateGameAndSnapshot(game);
         String boardHeader = TFP.getHandle() + " has elected to stay as X - it is now O's move!\n\n";
         sendBoardStateEmail(emailSender, "MOVE GOMOKU " + game.getGameId(), boardHeader,
                 game, gameBoard, null);
     }
 
+    // Ends the Swap2 opening: the game update and the snapshot regular play's move log replays from, together.
+    private void updateGameAndSnapshot(GomokuGamesRecord game) {
+        dslContext.transaction(configuration -> {
+            DSLContext trx = DSL.using(configuration);
+            new GoMokuGameDKO(trx).updateGame(game);
+            new MoveLogDKO(trx).recordSnapshot(GameType.GOMOKU, game.getGameId(), game.getVersion(),
+                    game.getBoardState());
+        });
+    }
+
     @Override
     public String getOpenGamesTextBody() {
         List<GomokuGamesRecord> openGames = goMokuGameDKO.getOpenGames();
@@ -354,17 +395,16 @@ public class GoMoku implements GameInterface {
     }
 
     @Override
-    public String getMyGamesTextBody(long userId) {
+    public String getMyGamesTextBody(long userId, List<ActiveGameSummary> activeGames) {
         StringBuilder sb = new StringBuilder();
         sb.append("GOMOKU:\n");
-        List<GomokuGamesRecord> games = goMokuGameDKO.getActiveGamesForUser(userId);
-        for (GomokuGamesRecord game : games) {
-            sb.append("-- Game ID: ").append(game.getGameId());
-            if (game.getGameState() == GomokuGamesGameState.OPEN) {
+        for (ActiveGameSummary game : activeGames) {
+            sb.append("-- Game ID: ").append(game.gameId());
+            if (game.open()) {
                 sb.append(" is waiting for an opponent.\n");
             } else {
                 sb.append(" is in progress - ");
-                sb.append(game.getUserIdToMove() == userId ? "YOUR TURN!\n" : "opponent's turn.\n");
+                sb.append(Objects.equals(game.userIdToMove(), userId) ? "YOUR TURN!\n" : "opponent's turn.\n");
             }
         }
         return sb.toString();
@@ -395,23 +435,21 @@ public class GoMoku implements GameInterface {
     @Override
     public Map<Long, String> processStaleGameCheck(SESEmailSender emailSender) {
         Map<Long, String> staleStringByUserId = new HashMap<>();
-        List<GomokuGamesRecord> activeGames = goMokuGameDKO.getActiveGames();
-        if (activeGames == null || activeGames.isEmpty()) {
+        LocalDateTime currTime = LocalDateTime.now();
+        List<StaleGamesDKO.StaleGame> staleGames = staleGamesDKO.getStaleGames(GameType.GOMOKU, currTime,
+                REMINDER_DURATION, TIMEOUT_DURATION);
+        if (staleGames.isEmpty()) {
             return staleStringByUserId;
         }
 
-        LocalDateTime currTime = LocalDateTime.now();
-        for (GomokuGamesRecord game : activeGames) {
-            LocalDateTime lastMoveTime = game.getLastMoveTimestamp();
-
+        for (StaleGamesDKO.StaleGame staleGame : staleGames) {
             // TODO: random action if not in GAMEPLAY?  Or just spam reminders?
-            if (Duration.between(lastMoveTime, currTime).compareTo(TIMEOUT_DURATION) > 0 &&
-                    game.getSwap2State() == GomokuGamesSwap2State.GAMEPLAY) {
+            if (staleGame.timedOut() && GomokuGamesSwap2State.GAMEPLAY.getLiteral().equals(staleGame.phase())) {
                 try {
+                    GomokuGamesRecord game = goMokuGameDKO.getGameById(staleGame.gameId());
                     populatePlayerMap(game);
                     UsersRecord user = usersDKO.fetchUserById(game.getUserIdToMove());
-                    GoMokuBoard gameBoard = new GoMokuBoard(BOARD_SIZE, logger);
-                    gameBoard.deserialize(game.getBoardState());
+                    GoMokuBoard gameBoard = engine.deserialize(game.getBoardState());
                     GoMokuMove randomMove = new GoMokuMove(List.of(gameBoard.getRandomMove()), false, false);
                     logger.log("Auto-move for GoMoku Game ID " + game.getGameId() + ": selected " + randomMove);
                     executeMove(user, game, gameBoard, randomMove, emailSender);
@@ -419,12 +457,8 @@ public class GoMoku implements GameInterface {
                     logger.log("Exception while attempting to auto-move: " + e.getMessage());
                     // continue processing the rest...
                 }
-            } else {
-                LocalDateTime lastTime = game.getLastReminderTimestamp() == null ?
-                        game.getLastMoveTimestamp() : game.getLastReminderTimestamp();
-                if (Duration.between(lastTime, currTime).compareTo(REMINDER_DURATION) > 0) {
-                    staleStringByUserId.put(game.getUserIdToMove(), "GoMoku: Game ID " + game.getGameId());
-                }
+            } else if (staleGame.reminderDue()) {
+                staleStringByUserId.put(staleGame.userIdToAct(), "GoMoku: Game ID " + staleGame.gameId());
             }
         }
 
@@ -440,8 +474,10 @@ public class GoMoku implements GameInterface {
     }
 
     private void processGameOver(Character winnerMarker, GomokuGamesRecord game, GoMokuBoard gameBoard,
-                                 SESEmailSender emailSender, String boardHeader, Long newActiveUserId) {
+                                 SESEmailSender emailSender, String boardHeader, Long newActiveUserId,
+                                 long moverUserId, String moveText) {
         game.setGameState(GomokuGamesGameState.COMPLETE);
+        game.setBoardState(gameBoard.serialize());
 
         // Activate opposing player (header display only)
         game.setUserIdToMove(newActiveUserId);
@@ -470,6 +506,8 @@ public class GoMoku implements GameInterface {
                             outcome, null, null);
                 }
                 txGomokuDKO.updateGame(game);
+                new MoveLogDKO(trx).appendMove(GameType.GOMOKU, game.getGameId(), game.getVersion(), moverUserId,
+                        moveText, game.getBoardState());
             });
 
             sendBoardStateEmail(emailSender, subject.toString(), boardHeader + "\nFinal Board:\n\n", game, gameBoard, null);
@@ -526,10 +564,9 @@ public class GoMoku implements GameInterface {
 
     private void populatePlayerMap(GomokuGamesRecord game) {
         symbolByUser.clear();
-        UsersRecord xPlayer = usersDKO.fetchUserById(game.getXUserId());
-        UsersRecord oPlayer = usersDKO.fetchUserById(game.getOUserId());
-        symbolByUser.put(xPlayer, GoMokuBoard.PLAYER_X);
-        symbolByUser.put(oPlayer, GoMokuBoard.PLAYER_O);
+        List<UsersRecord> players = usersDKO.fetchUsersInOrder(Arrays.asList(game.getXUserId(), game.getOUserId()));
+        symbolByUser.put(players.get(0), GoMokuBoard.PLAYER_X);
+        symbolByUser.put(players.get(1), GoMokuBoard.PLAYER_O);
     }
 
     // Helper methods for formatting and sending outgoing board-state emails.
@@ -2,12 +2,15 @@ package com.pbemgs.game.gomoku;
 
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.pbemgs.VisibleForTesting;
+import com.pbemgs.game.BoardTemplate;
 import com.pbemgs.model.Location;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 public class GoMokuBoard {
@@ -15,6 +18,8 @@ public class GoMokuBoard {
     public final static char PLAYER_O = 'O';
     public final static char EMPTY = '.';
 
+    private static final Map<Integer, BoardTemplate> TEMPLATES_BY_SIZE = new ConcurrentHashMap<>();
+
     private LambdaLogger logger;
 
     private int size;
@@ -137,28 +142,34 @@ public class GoMokuBoard {
      * Generates the board text.  Large board, put grid coords on all 4 sides.
      */
     public String getBoardTextBody() {
-        StringBuilder sb = new StringBuilder("    ");
+        BoardTemplate template = TEMPLATES_BY_SIZE.computeIfAbsent(size, GoMokuBoard::buildTemplate);
+        return template.render((sb, slot) -> sb.append(grid[slot / size][slot % size]));
+    }
+
+    // Slots are the squares, row by row.
+    private static BoardTemplate buildTemplate(int size) {
+        BoardTemplate.Builder template = BoardTemplate.builder().text("    ");
         for (int i = 0; i < size; i++) {
-            sb.append((char) ('A' + i)).append(" ");
+            template.text((char) ('A' + i)).text(" ");
         }
-        sb.append("\n");
+        template.text("\n");
 
         for (int r = 0; r < size; r++) {
-            sb.append(String.format("%2d  ", (r + 1)));
+            template.text(String.format("%2d  ", (r + 1)));
             for (int c = 0; c < size; c++) {
-                sb.append(grid[r][c]).append(" ");
+                template.slot().text(" ");
             }
-            sb.append(" ").append(r + 1).append("\n");
+            template.text(" ").text(String.valueOf(r + 1)).text("\n");
         }
 
         // bottom column marks
-        sb.append("    ");
+        template.text("    ");
         for (int i = 0; i < size; i++) {
-            sb.append((char) ('A' + i)).append(" ");
+            template.text((char) ('A' + i)).text(" ");
         }
-        sb.append("\n");
+        template.text("\n");
 
-        return sb.toString();
+        return template.build(1);
     }
 
     private boolean isOnBoard(Location loc) {
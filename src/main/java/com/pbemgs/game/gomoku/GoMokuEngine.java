@@ -0,0 +1,110 @@
+package com.pbemgs.game.gomoku;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.game.GameEngine;
+import com.pbemgs.model.GameType;
+import com.pbemgs.model.Location;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Gomoku rules for regular play, after the Swap2 opening (which GoMoku drives from the game record).  Seat 0
+ * is X, seat 1 is O.  Moves are a single placement, e.g. "H8".
+ */
+public class GoMokuEngine implements GameEngine<GoMokuBoard, Location> {
+    private final int size;
+    private final LambdaLogger logger;
+
+    public GoMokuEngine(int size, LambdaLogger logger) {
+        this.size = size;
+        this.logger = logger;
+    }
+
+    public static char getSymbol(int seat) {
+        return seat == 0 ? GoMokuBoard.PLAYER_X : GoMokuBoard.PLAYER_O;
+    }
+
+    public static int getSeat(char symbol) {
+        return symbol == GoMokuBoard.PLAYER_X ? 0 : 1;
+    }
+
+    @Override
+    public GameType getGameType() {
+        return GameType.GOMOKU;
+    }
+
+    @Override
+    public int getNumPlayers() {
+        return 2;
+    }
+
+    @Override
+    public GoMokuBoard newBoard(Random rng) {
+        return new GoMokuBoard(size, logger);
+    }
+
+    @Override
+    public GoMokuBoard deserialize(String boardState) {
+        GoMokuBoard board = new GoMokuBoard(size, logger);
+        board.deserialize(boardState);
+        return board;
+    }
+
+    @Override
+    public String serialize(GoMokuBoard board) {
+        return board.serialize();
+    }
+
+    @Override
+    public Location parseMove(String moveText) {
+        return Location.fromString(moveText.trim());
+    }
+
+    @Override
+    public String formatMove(Location move) {
+        return move.toString();
+    }
+
+    @Override
+    public String validateMove(GoMokuBoard board, int seat, Location move) {
+        return board.validateMove(move);
+    }
+
+    @Override
+    public void applyMove(GoMokuBoard board, int seat, Location move) {
+        board.makeMove(getSymbol(seat), move);
+    }
+
+    @Override
+    public List<Location> getLegalMoves(GoMokuBoard board, int seat) {
+        List<Location> moves = new ArrayList<>();
+        for (int r = 0; r < size; ++r) {
+            for (int c = 0; c < size; ++c) {
+                Location loc = new Location(r, c);
+                if (board.validateMove(loc) == null) {
+                    moves.add(loc);
+                }
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Only the side that just moved can have made five in a row.
+     */
+    @Override
+    public int getResult(GoMokuBoard board, int nextSeat) {
+        int mover = 1 - nextSeat;
+        if (board.isVictoryCondition(getSymbol(mover))) {
+            return mover;
+        }
+        return board.isBoardFull() ? DRAW : IN_PROGRESS;
+    }
+
+    @Override
+    public String getBoardText(GoMokuBoard board) {
+        return board.getBoardTextBody();
+    }
+}
@@ -0,0 +1,30 @@
+package com.pbemgs.game.gomoku;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.game.MoveReplayer;
+import com.pbemgs.model.Location;
+
+/**
+ * GoMoku move log notation: player symbol and placement, e.g. "X:H8".  Only regular play is logged - the game is
+ * snapshotted when the Swap2 opening ends.  The board size is the number of rows in the serialized board.
+ */
+public class GoMokuMoveReplayer implements MoveReplayer {
+    private final LambdaLogger logger;
+
+    public GoMokuMoveReplayer(LambdaLogger logger) {
+        this.logger = logger;
+    }
+
+    public static String moveText(char playerSymbol, Location placement) {
+        return playerSymbol + ":" + placement;
+    }
+
+    @Override
+    public String apply(String boardState, String moveText) {
+        String[] parts = moveText.split(":");
+        GoMokuBoard board = new GoMokuBoard(boardState.split("\\|").length, logger);
+        board.deserialize(boardState);
+        board.makeMove(parts[0].charAt(0), Location.fromString(parts[1]));
+        return board.serialize();
+    }
+}
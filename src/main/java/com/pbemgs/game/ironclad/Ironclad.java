@@ -9,6 +9,7 @@ import com.pbemgs.dko.UsersDKO;
 import com.pbemgs.game.GameInterface;
 import com.pbemgs.game.GameMessageMailer;
 import com.pbemgs.game.GameTextUtilities;
+import com.pbemgs.game.GameUpdateRetry;
 import com.pbemgs.game.ironclad.dko.IroncladGameDKO;
 import com.pbemgs.generated.enums.IroncladGamesCurrentMovePhase;
 import com.pbemgs.generated.enums.IroncladGamesForcedMoveOption;
@@ -16,6 +17,7 @@ import com.pbemgs.generated.enums.IroncladGamesGameState;
 import com.pbemgs.generated.enums.PlayerOutcomesOutcome;
 import com.pbemgs.generated.tables.records.IroncladGamesRecord;
 import com.pbemgs.generated.tables.records.UsersRecord;
+import com.pbemgs.model.ActiveGameSummary;
 import com.pbemgs.model.GameType;
 import com.pbemgs.model.Location;
 import com.pbemgs.model.S3Email;
@@ -25,6 +27,7 @@ import org.jooq.impl.DSL;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -110,6 +113,10 @@ public class Ironclad implements GameInterface {
 
     @Override
     public void processJoinGame(UsersRecord user, long gameId, SESEmailSender emailSender) {
+        GameUpdateRetry.run(logger, "IRONCLAD join_game " + gameId, () -> attemptJoinGame(user, gameId, emailSender));
+    }
+
+    private void attemptJoinGame(UsersRecord user, long gameId, SESEmailSender emailSender) {
         List<IroncladGamesRecord> userGames = ironcladGameDKO.getActiveGamesForUser(user.getUserId());
         if (userGames.size() >= PLAYER_GAME_LIMIT) {
             GameMessageMailer.gameLimitReached(emailSender, user.getEmailAddr(), "join_game", GameType.IRONCLAD);
@@ -128,7 +135,7 @@ public class Ironclad implements GameInterface {
         }
 
         Long startingUserId = rng.nextBoolean() ? user.getUserId() : game.getWhiteUserId();
-        ironcladGameDKO.completeGameCreation(gameId, user.getUserId(), startingUserId);
+        ironcladGameDKO.completeGameCreation(gameId, user.getUserId(), startingUserId, game.getVersion());
 
         // reload game so players are both set.
         game = ironcladGameDKO.getGameById(gameId);
@@ -143,6 +150,10 @@ public class Ironclad implements GameInterface {
 
     @Override
     public void processMove(UsersRecord user, long gameId, S3Email emailBody, SESEmailSender emailSender) {
+        GameUpdateRetry.run(logger, "IRONCLAD move " + gameId, () -> attemptMove(user, gameId, emailBody, emailSender));
+    }
+
+    private void attemptMove(UsersRecord user, long gameId, S3Email emailBody, SESEmailSender emailSender) {
         IroncladGamesRecord game = ironcladGameDKO.getGameById(gameId);
 
         // Validity checks: gameBoard must exist, be in IN_PROGRESS state, and the user must be active player.
@@ -381,17 +392,16 @@ public class Ironclad implements GameInterface {
     }
 
     @Override
-    public String getMyGamesTextBody(long userId) {
+    public String getMyGamesTextBody(long userId, List<ActiveGameSummary> activeGames) {
         StringBuilder sb = new StringBuilder();
         sb.append("IRONCLAD:\n");
-        List<IroncladGamesRecord> games = ironcladGameDKO.getActiveGamesForUser(userId);
-        for (IroncladGamesRecord game : games) {
-            sb.append("-- Game ID: ").append(game.getGameId());
-            if (game.getGameState() == IroncladGamesGameState.OPEN) {
+        for (ActiveGameSummary game : activeGames) {
+            sb.append("-- Game ID: ").append(game.gameId());
+            if (game.open()) {
                 sb.append(" is waiting for an opponent.\n");
             } else {
                 sb.append(" is in progress - ");
-                sb.append(game.getUserIdToMove() == userId ? "YOUR TURN!\n" : "opponent's turn.\n");
+                sb.append(Objects.equals(game.userIdToMove(), userId) ? "YOUR TURN!\n" : "opponent's turn.\n");
             }
         }
         return sb.toString();
@@ -445,10 +455,9 @@ public class Ironclad implements GameInterface {
 
     private void populatePlayerMap(IroncladGamesRecord game) {
         symbolByUser.clear();
-        UsersRecord whitePlayer = usersDKO.fetchUserById(game.getWhiteUserId());
-        UsersRecord blackPlayer = usersDKO.fetchUserById(game.getBlackUserId());
-        symbolByUser.put(whitePlayer, IroncladSide.WHITE);
-        symbolByUser.put(blackPlayer, IroncladSide.BLACK);
+        List<UsersRecord> players = usersDKO.fetchUsersInOrder(Arrays.asList(game.getWhiteUserId(), game.getBlackUserId()));
+        symbolByUser.put(players.get(0), IroncladSide.WHITE);
+        symbolByUser.put(players.get(1), IroncladSide.BLACK);
     }
 
     private IroncladSide getSideToMove(IroncladGamesRecord game, IroncladSide submittingSide) {
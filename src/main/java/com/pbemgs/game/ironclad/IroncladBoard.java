@@ -1,16 +1,15 @@
 package com.pbemgs.game.ironclad;
 
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.game.BoardTemplate;
 import com.pbemgs.model.Location;
 import com.pbemgs.model.MonoSymbol;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Random;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -53,8 +52,19 @@ public class IroncladBoard {
             new IroncladRobot(Location.fromString("E8"), IroncladSide.WHITE, 2)
     );
 
+    // Stone path union-find: one forest per side (WHITE, BLACK) over the stone cells, plus four virtual
+    // edge nodes per side that every stone on that board edge is joined to.
+    private static final int STONE_COLS = GRID_COLS + 1;
+    private static final int STONE_CELLS = (GRID_ROWS + 1) * STONE_COLS;
+    private static final int NORTH_EDGE = STONE_CELLS;
+    private static final int SOUTH_EDGE = STONE_CELLS + 1;
+    private static final int WEST_EDGE = STONE_CELLS + 2;
+    private static final int EAST_EDGE = STONE_CELLS + 3;
+
     private final Map<Location, IroncladRobot> robotBoard;
     private final IroncladSide[][] stoneBoard;
+    private final int[][] pathParent = new int[2][STONE_CELLS + 4];
+    private final int[][] pathSize = new int[2][STONE_CELLS + 4];
 
 
     public IroncladBoard() {
@@ -84,6 +94,8 @@ public class IroncladBoard {
                 stoneBoard[r][c] = IroncladSide.deserialize(rows[r].charAt(c));
             }
         }
+        rebuildStonePaths(IroncladSide.WHITE);
+        rebuildStonePaths(IroncladSide.BLACK);
     }
 
     /**
@@ -113,6 +125,8 @@ public class IroncladBoard {
                 stoneBoard[r][c] = IroncladSide.BLANK;
             }
         }
+        rebuildStonePaths(IroncladSide.WHITE);
+        rebuildStonePaths(IroncladSide.BLACK);
 
         // robots in set config.
         for (IroncladRobot robot : startingRobots) {
@@ -310,11 +324,17 @@ public class IroncladBoard {
 
     public void executeStoneDrop(IroncladSide side, Location loc) {
         stoneBoard[loc.row()][loc.col()] = side;
+        addStoneToPaths(side, loc.row(), loc.col());
     }
 
+    /**
+     * Union-find can't split a group, so moving a stone rebuilds its side's forest (63 cells).
+     */
     public void executeStoneMove(Location from, Location to) {
-        stoneBoard[to.row()][to.col()] = stoneBoard[from.row()][from.col()];
+        IroncladSide side = stoneBoard[from.row()][from.col()];
+        stoneBoard[to.row()][to.col()] = side;
         stoneBoard[from.row()][from.col()] = IroncladSide.BLANK;
+        rebuildStonePaths(side);
     }
 
     /**
@@ -390,77 +410,129 @@ public class IroncladBoard {
 
     private VictoryResult checkStonePathVictory(IroncladSide side) {
         // Check north-south path
-        VictoryResult nsResult = checkPathWithEndpoints(side, 0, GRID_ROWS, true);
-        if (nsResult.side() != null) {
-            return nsResult;
+        if (stonePathFind(side, NORTH_EDGE) == stonePathFind(side, SOUTH_EDGE)) {
+            return describeStonePath(side, true);
         }
         // Check east-west path
-        return checkPathWithEndpoints(side, 0, GRID_COLS, false);
+        if (stonePathFind(side, WEST_EDGE) == stonePathFind(side, EAST_EDGE)) {
+            return describeStonePath(side, false);
+        }
+        return VictoryResult.none();
     }
 
-    private VictoryResult checkPathWithEndpoints(IroncladSide side, int start, int end, boolean isRow) {
-        Set<Location> visited = new HashSet<>();
-        Queue<Location> queue = new LinkedList<>();
-        Map<Location, Location> parent = new HashMap<>(); // Track path for endpoints
-
-        // Seed starting positions
-        if (isRow) {
+    private void rebuildStonePaths(IroncladSide side) {
+        if (side == IroncladSide.BLANK) {
+            return;
+        }
+        int[] parent = pathParent[side.ordinal()];
+        int[] size = pathSize[side.ordinal()];
+        for (int i = 0; i < parent.length; ++i) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+        for (int r = 0; r <= GRID_ROWS; ++r) {
             for (int c = 0; c <= GRID_COLS; ++c) {
-                if (stoneBoard[start][c] == side) {
-                    Location loc = new Location(start, c);
-                    queue.add(loc);
-                    visited.add(loc);
-                }
-            }
-        } else {
-            for (int r = 0; r <= GRID_ROWS; ++r) {
-                if (stoneBoard[r][start] == side) {
-                    Location loc = new Location(r, start);
-                    queue.add(loc);
-                    visited.add(loc);
+                if (stoneBoard[r][c] == side) {
+                    addStoneToPaths(side, r, c);
                 }
             }
         }
+    }
 
-        Location endLoc = null;
-        while (!queue.isEmpty() && endLoc == null) {
-            Location current = queue.poll();
-            if ((isRow ? current.row() : current.col()) == end) {
-                endLoc = current; // Found an endpoint
-                break;
-            }
-            for (Location neighbor : getStoneNeighbors(current)) {
-                if (stoneBoard[neighbor.row()][neighbor.col()] == side && !visited.contains(neighbor)) {
-                    queue.add(neighbor);
-                    visited.add(neighbor);
-                    parent.put(neighbor, current); // Track how we got here
-                }
+    // Joins a newly placed stone to its same-side cardinal neighbours and to any board edge it sits on.
+    private void addStoneToPaths(IroncladSide side, int r, int c) {
+        int idx = r * STONE_COLS + c;
+        pathParent[side.ordinal()][idx] = idx;
+        pathSize[side.ordinal()][idx] = 1;
+        if (r > 0 && stoneBoard[r - 1][c] == side) stonePathUnion(side, idx, idx - STONE_COLS);
+        if (r < GRID_ROWS && stoneBoard[r + 1][c] == side) stonePathUnion(side, idx, idx + STONE_COLS);
+        if (c > 0 && stoneBoard[r][c - 1] == side) stonePathUnion(side, idx, idx - 1);
+        if (c < GRID_COLS && stoneBoard[r][c + 1] == side) stonePathUnion(side, idx, idx + 1);
+        if (r == 0) stonePathUnion(side, idx, NORTH_EDGE);
+        if (r == GRID_ROWS) stonePathUnion(side, idx, SOUTH_EDGE);
+        if (c == 0) stonePathUnion(side, idx, WEST_EDGE);
+        if (c == GRID_COLS) stonePathUnion(side, idx, EAST_EDGE);
+    }
+
+    private int stonePathFind(IroncladSide side, int node) {
+        int[] parent = pathParent[side.ordinal()];
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];  // path halving
+            node = parent[node];
+        }
+        return node;
+    }
+
+    private void stonePathUnion(IroncladSide side, int a, int b) {
+        int rootA = stonePathFind(side, a);
+        int rootB = stonePathFind(side, b);
+        if (rootA == rootB) {
+            return;
+        }
+        int[] parent = pathParent[side.ordinal()];
+        int[] size = pathSize[side.ordinal()];
+        if (size[rootA] < size[rootB]) {
+            int tmp = rootA;
+            rootA = rootB;
+            rootB = tmp;
+        }
+        parent[rootB] = rootA;
+        size[rootA] += size[rootB];
+    }
+
+    /**
+     * Builds the victory message for a connection the union-find has already confirmed.  Breadth-first from the
+     * starting edge (seeded in column/row order, neighbours up/down/left/right) so the reported start and end
+     * stones are the same ones the message has always named.
+     */
+    private VictoryResult describeStonePath(IroncladSide side, boolean isRow) {
+        int end = isRow ? GRID_ROWS : GRID_COLS;
+        int[] queue = new int[STONE_CELLS];
+        int[] seed = new int[STONE_CELLS];  // starting edge stone each visited stone was reached from
+        boolean[] visited = new boolean[STONE_CELLS];
+        int head = 0;
+        int tail = 0;
+        int seeds = isRow ? STONE_COLS : GRID_ROWS + 1;
+        for (int i = 0; i < seeds; ++i) {
+            int idx = isRow ? i : i * STONE_COLS;
+            if (stoneBoard[idx / STONE_COLS][idx % STONE_COLS] == side) {
+                queue[tail++] = idx;
+                seed[idx] = idx;
+                visited[idx] = true;
             }
         }
 
-        if (endLoc != null) {
-            // Reconstruct path to find start point
-            Location startLoc = endLoc;
-            while (parent.containsKey(startLoc)) {
-                startLoc = parent.get(startLoc);
+        while (head < tail) {
+            int current = queue[head++];
+            int r = current / STONE_COLS;
+            int c = current % STONE_COLS;
+            if ((isRow ? r : c) == end) {
+                String sideName = side == IroncladSide.WHITE ? "White" : "Black";
+                String direction = isRow ? "top to bottom" : "left to right";
+                return new VictoryResult(side,
+                        String.format("%s has connected stones from %s to %s - %s!",
+                                sideName, stoneLocation(seed[current]), new Location(r, c), direction));
+            }
+            for (int dir = 0; dir < 4; ++dir) {
+                int neighbor = switch (dir) {
+                    case 0 -> r > 0 ? current - STONE_COLS : -1;
+                    case 1 -> r < GRID_ROWS ? current + STONE_COLS : -1;
+                    case 2 -> c > 0 ? current - 1 : -1;
+                    default -> c < GRID_COLS ? current + 1 : -1;
+                };
+                if (neighbor >= 0 && !visited[neighbor] &&
+                        stoneBoard[neighbor / STONE_COLS][neighbor % STONE_COLS] == side) {
+                    visited[neighbor] = true;
+                    seed[neighbor] = seed[current];
+                    queue[tail++] = neighbor;
+                }
             }
-            String sideName = side == IroncladSide.WHITE ? "White" : "Black";
-            String direction = isRow ? "top to bottom" : "left to right";
-            return new VictoryResult(side,
-                    String.format("%s has connected stones from %s to %s - %s!",
-                            sideName, startLoc.toString(), endLoc.toString(), direction));
         }
         return VictoryResult.none();
     }
 
-    private List<Location> getStoneNeighbors(Location loc) {
-        List<Location> neighbors = new ArrayList<>();
-        int r = loc.row(), c = loc.col();
-        if (r > 0) neighbors.add(new Location(r - 1, c));
-        if (r < GRID_ROWS) neighbors.add(new Location(r + 1, c));
-        if (c > 0) neighbors.add(new Location(r, c - 1));
-        if (c < GRID_COLS) neighbors.add(new Location(r, c + 1));
-        return neighbors;
+    private static Location stoneLocation(int idx) {
+        return new Location(idx / STONE_COLS, idx % STONE_COLS);
     }
 
     private boolean hasLegalStoneDrop() {
@@ -513,53 +585,67 @@ public class IroncladBoard {
      * Gets the (intertwined) board text representation for email output.
      */
     static final String HORIZ3 = String.valueOf(MonoSymbol.GRID_HORIZONTAL.getSymbol()) + MonoSymbol.GRID_HORIZONTAL.getSymbol() + MonoSymbol.GRID_HORIZONTAL.getSymbol();
+    private static final int SLOTS_PER_ROW = (GRID_COLS + 1) + GRID_COLS;  // stone points, then robot squares
+    private static final BoardTemplate TEMPLATE = buildTemplate();
+
     public String getBoardStateExpandedText() {
-        StringBuilder sb = new StringBuilder();
+        return TEMPLATE.render((sb, slot) -> {
+            int r = slot / SLOTS_PER_ROW;
+            int c = slot % SLOTS_PER_ROW;
+            if (c <= GRID_COLS) {
+                sb.append(stoneBoard[r][c] == IroncladSide.BLANK ? gridJunction(r, c) : stoneBoard[r][c].getStoneDisplayChar());
+                return;
+            }
+            IroncladRobot robot = robotBoard.get(new Location(r, c - GRID_COLS - 1));
+            if (robot != null) {
+                sb.append(" ").append(robot.side().getRobotDisplayChar(robot.HP())).append(" ");
+            } else {
+                sb.append("   ");
+            }
+        });
+    }
 
-        sb.append(HEADER_BIG).append(HEADER_ARR).append(BIG_INTER);
+    // The grid line junction shown at a stone point with no stone.
+    private static char gridJunction(int r, int c) {
+        char leftSide = r == 0 ? MonoSymbol.GRID_TOP_LEFT.getSymbol() :
+                (r == GRID_ROWS ? MonoSymbol.GRID_BOTTOM_LEFT.getSymbol() : MonoSymbol.GRID_T_LEFT.getSymbol());
+        char rightSide = r == 0 ? MonoSymbol.GRID_TOP_RIGHT.getSymbol() :
+                (r == GRID_ROWS ? MonoSymbol.GRID_BOTTOM_RIGHT.getSymbol() : MonoSymbol.GRID_T_RIGHT.getSymbol());
+        char divider = r == 0 ? MonoSymbol.GRID_T_DOWN.getSymbol() :
+                (r == GRID_ROWS ? MonoSymbol.GRID_T_UP.getSymbol() : MonoSymbol.GRID_CROSS.getSymbol());
+        return c == 0 ? leftSide : (c == GRID_COLS ? rightSide : divider);
+    }
+
+    // Slots by row: the stone points of the stone row, then the squares of the robot row below it.
+    private static BoardTemplate buildTemplate() {
+        BoardTemplate.Builder template = BoardTemplate.builder();
+        template.text(HEADER_BIG).text(HEADER_ARR).text(BIG_INTER);
 
         // go by row and col numbers - the last one only has the stone grid.
         for (int r = 0; r <= GRID_ROWS; ++r) {
-            char leftSide = r == 0 ? MonoSymbol.GRID_TOP_LEFT.getSymbol() :
-                    (r == GRID_ROWS ? MonoSymbol.GRID_BOTTOM_LEFT.getSymbol() : MonoSymbol.GRID_T_LEFT.getSymbol());
-            char rightSide = r == 0 ? MonoSymbol.GRID_TOP_RIGHT.getSymbol() :
-                    (r == GRID_ROWS ? MonoSymbol.GRID_BOTTOM_RIGHT.getSymbol() : MonoSymbol.GRID_T_RIGHT.getSymbol());
-            char divider = r == 0 ? MonoSymbol.GRID_T_DOWN.getSymbol() :
-                    (r == GRID_ROWS ? MonoSymbol.GRID_T_UP.getSymbol() : MonoSymbol.GRID_CROSS.getSymbol());
-
             // stone row
-            sb.append("  ").append(r + 1).append(" ");
+            template.text("  ").text(String.valueOf(r + 1)).text(" ");
             for (int c = 0; c <= GRID_COLS; ++c) {
-                if (stoneBoard[r][c] == IroncladSide.BLANK) {
-                    sb.append(c == 0 ? leftSide : (c == GRID_COLS ? rightSide : divider));
-                } else {
-                    sb.append(stoneBoard[r][c].getStoneDisplayChar());
-                }
+                template.slot();
                 if (c != GRID_COLS) {
-                    sb.append(HORIZ3);
+                    template.text(HORIZ3);
                 }
             }
-            sb.append(" ").append(r + 1).append("\n");
+            template.text(" ").text(String.valueOf(r + 1)).text("\n");
 
             // Robot row
             if (r < GRID_ROWS) {
-                sb.append(r + 1).append(MonoSymbol.RIGHTWARDS_ARROW.getSymbol()).append("  ").append(MonoSymbol.GRID_VERTICAL.getSymbol());
+                template.text(String.valueOf(r + 1)).text(MonoSymbol.RIGHTWARDS_ARROW.getSymbol()).text("  ")
+                        .text(MonoSymbol.GRID_VERTICAL.getSymbol());
                 for (int c = 0; c < GRID_COLS; ++c) {
-                    Location loc = new Location(r, c);
-                    if (robotBoard.containsKey(loc)) {
-                        IroncladRobot thisRobot = robotBoard.get(loc);
-                        sb.append(" ").append(thisRobot.side().getRobotDisplayChar(thisRobot.HP())).append(" ");
-                    } else {
-                        sb.append("   ");
-                    }
-                    sb.append(MonoSymbol.GRID_VERTICAL.getSymbol());
+                    template.slot().text(MonoSymbol.GRID_VERTICAL.getSymbol());
                 }
-                sb.append("  ").append(MonoSymbol.LEFTWARDS_ARROW.getSymbol()).append(r + 1).append("\n");
+                template.text("  ").text(MonoSymbol.LEFTWARDS_ARROW.getSymbol()).text(String.valueOf(r + 1)).text("\n");
             }
         }
 
-        sb.append(BIG_INTER).append(FOOTER_ARR).append(HEADER_BIG);
-        return sb.toString();
+        template.text(BIG_INTER).text(FOOTER_ARR).text(HEADER_BIG);
+        return template.build(2);
     }
 
     public String getRobotLegendText() {
@@ -1,9 +1,13 @@
 package com.pbemgs.game.ironclad.dko;
 
+import com.pbemgs.dko.ArchivedGamesDKO;
+import com.pbemgs.dko.GameParticipantsDKO;
+import com.pbemgs.dko.StaleGameUpdateException;
 import com.pbemgs.generated.enums.IroncladGamesCurrentMovePhase;
 import com.pbemgs.generated.enums.IroncladGamesForcedMoveOption;
 import com.pbemgs.generated.enums.IroncladGamesGameState;
 import com.pbemgs.generated.tables.records.IroncladGamesRecord;
+import com.pbemgs.model.GameType;
 import org.jooq.DSLContext;
 
 import java.time.LocalDateTime;
@@ -21,9 +25,10 @@ public class IroncladGameDKO {
 
     // Get game by game ID
     public IroncladGamesRecord getGameById(Long gameId) {
-        return dslContext.selectFrom(IRONCLAD_GAMES)
+        IroncladGamesRecord game = dslContext.selectFrom(IRONCLAD_GAMES)
                 .where(IRONCLAD_GAMES.GAME_ID.eq(gameId))
                 .fetchOne();
+        return game != null ? game : new ArchivedGamesDKO(dslContext).fetchArchivedGame(GameType.IRONCLAD, IRONCLAD_GAMES, gameId);
     }
 
     // Get all games in the OPEN state
@@ -37,7 +42,7 @@ public class IroncladGameDKO {
     public List<IroncladGamesRecord> getActiveGamesForUser(Long UserId) {
         return dslContext.selectFrom(IRONCLAD_GAMES)
                 .where(IRONCLAD_GAMES.GAME_STATE.in(IroncladGamesGameState.OPEN, IroncladGamesGameState.IN_PROGRESS)
-                        .and(IRONCLAD_GAMES.WHITE_USER_ID.eq(UserId).or(IRONCLAD_GAMES.BLACK_USER_ID.eq(UserId))))
+                        .and(GameParticipantsDKO.isActiveParticipant(GameType.IRONCLAD, IRONCLAD_GAMES.GAME_ID, UserId)))
                 .fetchInto(IroncladGamesRecord.class);
     }
 
@@ -54,17 +59,27 @@ public class IroncladGameDKO {
 
         record.setLastReminderTimestamp(null);
         record.store();
+        new GameParticipantsDKO(dslContext).addParticipant(GameType.IRONCLAD, record.getGameId(), whiteUserId, 0);
         return record.getGameId();
     }
 
     // Complete game creation by setting second player ID, game state, and first move.
-    public void completeGameCreation(Long gameId, Long blackUserId, Long firstMoveUserId) {
-        dslContext.update(IRONCLAD_GAMES)
+    public void completeGameCreation(Long gameId, Long blackUserId, Long firstMoveUserId, Integer expectedVersion) {
+        int rowsUpdated = dslContext.update(IRONCLAD_GAMES)
                 .set(IRONCLAD_GAMES.GAME_STATE, IroncladGamesGameState.IN_PROGRESS)
                 .set(IRONCLAD_GAMES.BLACK_USER_ID, blackUserId)
                 .set(IRONCLAD_GAMES.USER_ID_TO_MOVE, firstMoveUserId)
+                .set(IRONCLAD_GAMES.VERSION, IRONCLAD_GAMES.VERSION.plus(1))
                 .where(IRONCLAD_GAMES.GAME_ID.eq(gameId))
+                .and(IRONCLAD_GAMES.VERSION.eq(expectedVersion))
                 .execute();
+
+        if (rowsUpdated == 0) {
+            throw new StaleGameUpdateException("ironclad_games", gameId, expectedVersion);
+        }
+        GameParticipantsDKO participants = new GameParticipantsDKO(dslContext);
+        participants.addParticipant(GameType.IRONCLAD, gameId, blackUserId, 1);
+        participants.syncGameState(GameType.IRONCLAD, gameId);
     }
 
     // Update state in an existing game
@@ -84,11 +99,18 @@ public class IroncladGameDKO {
                 .set(IRONCLAD_GAMES.HALF_MOVE_TEXT, gameRecord.getHalfMoveText())
                 .set(IRONCLAD_GAMES.LAST_MOVE_TIMESTAMP, gameRecord.getLastMoveTimestamp())
                 .set(IRONCLAD_GAMES.LAST_REMINDER_TIMESTAMP, gameRecord.getLastMoveTimestamp())
+                .set(IRONCLAD_GAMES.VERSION, IRONCLAD_GAMES.VERSION.plus(1))
                 .where(IRONCLAD_GAMES.GAME_ID.eq(gameRecord.getGameId()))
+                .and(IRONCLAD_GAMES.VERSION.eq(gameRecord.getVersion()))
                 .execute();
 
         if (rowsUpdated == 0) {
-            throw new IllegalArgumentException("Cannot update game - game doesn't exist!");
+            throw new StaleGameUpdateException("ironclad_games", gameRecord.getGameId(), gameRecord.getVersion());
+        }
+        gameRecord.setVersion(gameRecord.getVersion() + 1);
+        if (gameRecord.changed(IRONCLAD_GAMES.GAME_STATE)) {
+            new GameParticipantsDKO(dslContext).syncGameState(GameType.IRONCLAD, gameRecord.getGameId());
+            gameRecord.changed(IRONCLAD_GAMES.GAME_STATE, false);
         }
     }
 
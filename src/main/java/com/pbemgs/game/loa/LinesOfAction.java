@@ -5,14 +5,19 @@ import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import com.pbemgs.controller.SESEmailSender;
 import com.pbemgs.dko.LoaGameDKO;
+import com.pbemgs.dko.MoveLogDKO;
 import com.pbemgs.dko.PlayerOutcomesDKO;
+import com.pbemgs.dko.StaleGamesDKO;
 import com.pbemgs.dko.UsersDKO;
+import com.pbemgs.game.GameEngine;
 import com.pbemgs.game.GameInterface;
 import com.pbemgs.game.GameMessageMailer;
+import com.pbemgs.game.GameUpdateRetry;
 import com.pbemgs.generated.enums.LoaGamesGameState;
 import com.pbemgs.generated.enums.PlayerOutcomesOutcome;
 import com.pbemgs.generated.tables.records.LoaGamesRecord;
 import com.pbemgs.generated.tables.records.UsersRecord;
+import com.pbemgs.model.ActiveGameSummary;
 import com.pbemgs.model.GameType;
 import com.pbemgs.model.Location;
 import com.pbemgs.model.S3Email;
@@ -21,6 +26,7 @@ import org.jooq.impl.DSL;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -34,10 +40,13 @@ public class LinesOfAction implements GameInterface {
     private static final int MAX_OPEN_GAMES = 10;
     private final Duration REMINDER_DURATION = Duration.ofHours(24);
     private final Duration TIMEOUT_DURATION = Duration.ofHours(96);
+    private final Duration AUTO_MOVE_SEARCH_BUDGET = Duration.ofSeconds(2);
 
     private final DSLContext dslContext;
     private final LoaGameDKO loaGameDKO;
+    private final StaleGamesDKO staleGamesDKO;
     private final UsersDKO usersDKO;
+    private final LoaEngine engine;
     private final LambdaLogger logger;
 
     private final BiMap<UsersRecord, Character> symbolByUser;
@@ -51,7 +60,9 @@ public class LinesOfAction implements GameInterface {
     public LinesOfAction(DSLContext dslContext, LambdaLogger logger) {
         this.dslContext = dslContext;
         loaGameDKO = new LoaGameDKO(dslContext);
+        staleGamesDKO = new StaleGamesDKO(dslContext);
         usersDKO = new UsersDKO(dslContext);
+        engine = new LoaEngine(logger);
         this.logger = logger;
         this.symbolByUser = HashBiMap.create();
     }
@@ -70,14 +81,17 @@ public class LinesOfAction implements GameInterface {
             return;
         }
 
-        LoaBoard newBoard = new LoaBoard(logger);
-        newBoard.createNewGame();
+        LoaBoard newBoard = engine.newBoard(new Random());
         Long newGameNum = loaGameDKO.createNewGame(user.getUserId(), newBoard.serialize());
         GameMessageMailer.createSuccess(emailSender, user.getEmailAddr(), GameType.LOA, newGameNum);
     }
 
     @Override
     public void processJoinGame(UsersRecord user, long gameId, SESEmailSender emailSender) {
+        GameUpdateRetry.run(logger, "LOA join_game " + gameId, () -> attemptJoinGame(user, gameId, emailSender));
+    }
+
+    private void attemptJoinGame(UsersRecord user, long gameId, SESEmailSender emailSender) {
         List<LoaGamesRecord> userGames = loaGameDKO.getActiveGamesForUser(user.getUserId());
         if (userGames.size() >= PLAYER_GAME_LIMIT) {
             GameMessageMailer.gameLimitReached(emailSender, user.getEmailAddr(), "join_game", GameType.LOA);
@@ -101,7 +115,14 @@ public class LinesOfAction implements GameInterface {
         Random rng = new Random();
         Long firstPlayerId = rng.nextBoolean() ? xPlayer.getUserId() : user.getUserId();
 
-        loaGameDKO.completeGameCreation(gameId, user.getUserId(), firstPlayerId);
+        // Start the game and snapshot the starting board in one transaction.
+        int readVersion = game.getVersion();
+        String startingBoard = game.getBoardState();
+        dslContext.transaction(configuration -> {
+            DSLContext trx = DSL.using(configuration);
+            new LoaGameDKO(trx).completeGameCreation(gameId, user.getUserId(), firstPlayerId, readVersion);
+            new MoveLogDKO(trx).recordSnapshot(GameType.LOA, gameId, readVersion + 1, startingBoard);
+        });
 
         // reload game so players are both set.
         game = loaGameDKO.getGameById(gameId);
@@ -116,6 +137,10 @@ public class LinesOfAction implements GameInterface {
 
     @Override
     public void processMove(UsersRecord user, long gameId, S3Email emailBody, SESEmailSender emailSender) {
+        GameUpdateRetry.run(logger, "LOA move " + gameId, () -> attemptMove(user, gameId, emailBody, emailSender));
+    }
+
+    private void attemptMove(UsersRecord user, long gameId, S3Email emailBody, SESEmailSender emailSender) {
         LoaGamesRecord game = loaGameDKO.getGameById(gameId);
 
         // Validity checks: gameBoard must exist, be in IN_PROGRESS state, and the user must be active player.
@@ -139,11 +164,10 @@ public class LinesOfAction implements GameInterface {
 
         // Load gameBoard, verify move is valid
         populatePlayerMap(game);
-        LoaBoard gameBoard = new LoaBoard(logger);
-        gameBoard.deserialize(game.getBoardState());
-        char playerSymbol = symbolByUser.get(user);
+        LoaBoard gameBoard = engine.deserialize(game.getBoardState());
+        int seat = LoaEngine.getSeat(symbolByUser.get(user));
 
-        String errorMessage = gameBoard.validateMove(move.from(), move.to(), playerSymbol);
+        String errorMessage = engine.validateMove(gameBoard, seat, move);
 
         if (errorMessage != null) {
             emailSender.sendEmail(user.getEmailAddr(), "PBEMGS - MOVE LOA failed",
@@ -156,10 +180,13 @@ public class LinesOfAction implements GameInterface {
 
     // Helper to fully execute a validated move
     private void executeMove(UsersRecord user, LoaGamesRecord game, LoaBoard gameBoard, LoaMove move, SESEmailSender emailSender) {
-        char playerSymbol = symbolByUser.get(user);
-        char oppSymbol = playerSymbol == LoaBoard.PLAYER_X ? LoaBoard.PLAYER_O : LoaBoard.PLAYER_X;
-        boolean capture = gameBoard.makeMove(playerSymbol, move);
-        game.setBoardState(gameBoard.serialize());
+        int seat = LoaEngine.getSeat(symbolByUser.get(user));
+        int nextSeat = engine.getNextSeat(gameBoard, seat);
+        char oppSymbol = LoaEngine.getSymbol(nextSeat);
+        int oppPieces = gameBoard.getPieceCount(oppSymbol);
+        engine.applyMove(gameBoard, seat, move);
+        boolean capture = gameBoard.getPieceCount(oppSymbol) < oppPieces;
+        game.setBoardState(engine.serialize(gameBoard));
 
         // Swap active player
         UsersRecord oppUser = symbolByUser.inverse().get(oppSymbol);
@@ -168,17 +195,20 @@ public class LinesOfAction implements GameInterface {
         game.setLastReminderTimestamp(null);
 
         // Check victory conditions, current player first
-        if (gameBoard.isVictoryCondition(playerSymbol)) {
-            processGameOver(playerSymbol, game, gameBoard, emailSender);
-            return;
-        }
-        if (gameBoard.isVictoryCondition(oppSymbol)) {
-            processGameOver(oppSymbol, game, gameBoard, emailSender);
+        String moveText = LoaMoveReplayer.moveText(move);
+        int result = engine.getResult(gameBoard, nextSeat);
+        if (result != GameEngine.IN_PROGRESS) {
+            processGameOver(LoaEngine.getSymbol(result), game, gameBoard, user.getUserId(), moveText, emailSender);
             return;
         }
 
-        // update gameBoard state in DB
-        loaGameDKO.updateGame(game);
+        // update gameBoard state in DB, and log the move
+        dslContext.transaction(configuration -> {
+            DSLContext trx = DSL.using(configuration);
+            new LoaGameDKO(trx).updateGame(game);
+            new MoveLogDKO(trx).appendMove(GameType.LOA, game.getGameId(), game.getVersion(), user.getUserId(),
+                    moveText, game.getBoardState());
+        });
 
         // Send emails out (2)
         // Generate the "header" portion for both players
@@ -211,17 +241,16 @@ public class LinesOfAction implements GameInterface {
     }
 
     @Override
-    public String getMyGamesTextBody(long userId) {
+    public String getMyGamesTextBody(long userId, List<ActiveGameSummary> activeGames) {
         StringBuilder sb = new StringBuilder();
         sb.append("LOA:\n");
-        List<LoaGamesRecord> games = loaGameDKO.getActiveGamesForUser(userId);
-        for (LoaGamesRecord game : games) {
-            sb.append("-- Game ID: ").append(game.getGameId());
-            if (game.getGameState() == LoaGamesGameState.OPEN) {
+        for (ActiveGameSummary game : activeGames) {
+            sb.append("-- Game ID: ").append(game.gameId());
+            if (game.open()) {
                 sb.append(" is waiting for an opponent.\n");
             } else {
                 sb.append(" is in progress - ");
-                sb.append(game.getUserIdToMove() == userId ? "YOUR TURN!\n" : "opponent's turn.\n");
+                sb.append(Objects.equals(game.userIdToMove(), userId) ? "YOUR TURN!\n" : "opponent's turn.\n");
             }
         }
         return sb.toString();
@@ -252,35 +281,35 @@ public class LinesOfAction implements GameInterface {
     @Override
     public Map<Long, String> processStaleGameCheck(SESEmailSender emailSender) {
         Map<Long, String> staleStringByUserId = new HashMap<>();
-        List<LoaGamesRecord> activeGames = loaGameDKO.getActiveGames();
-        if (activeGames == null || activeGames.isEmpty()) {
+        LocalDateTime currTime = LocalDateTime.now();
+        List<StaleGamesDKO.StaleGame> staleGames = staleGamesDKO.getStaleGames(GameType.LOA, currTime,
+                REMINDER_DURATION, TIMEOUT_DURATION);
+        if (staleGames.isEmpty()) {
             return staleStringByUserId;
         }
 
-        LocalDateTime currTime = LocalDateTime.now();
-        for (LoaGamesRecord game : activeGames) {
-            LocalDateTime lastMoveTime = game.getLastMoveTimestamp();
-
-            if (Duration.between(lastMoveTime, currTime).compareTo(TIMEOUT_DURATION) > 0) {
+        for (StaleGamesDKO.StaleGame staleGame : staleGames) {
+            if (staleGame.timedOut()) {
                 try {
+                    LoaGamesRecord game = loaGameDKO.getGameById(staleGame.gameId());
                     populatePlayerMap(game);
                     UsersRecord user = usersDKO.fetchUserById(game.getUserIdToMove());
-                    LoaBoard gameBoard = new LoaBoard(logger);
-                    gameBoard.deserialize(game.getBoardState());
+                    LoaBoard gameBoard = engine.deserialize(game.getBoardState());
                     char playerSymbol = symbolByUser.get(user);
-                    LoaMove randomMove = gameBoard.getRandomMove(playerSymbol);
-                    logger.log("Auto-move for LOA Game ID " + game.getGameId() + ": selected " + randomMove);
-                    executeMove(user, game, gameBoard, randomMove, emailSender);
+                    LoaSearch.SearchResult result = new LoaSearch(gameBoard).findBestMove(playerSymbol, AUTO_MOVE_SEARCH_BUDGET);
+                    if (result == null) {
+                        logger.log("Auto-move for LOA Game ID " + game.getGameId() + ": no legal moves available.");
+                        continue;
+                    }
+                    logger.log("Auto-move for LOA Game ID " + game.getGameId() + ": selected " + result.move() +
+                            " (depth " + result.depth() + ", " + result.nodes() + " nodes)");
+                    executeMove(user, game, gameBoard, result.move(), emailSender);
                 } catch (Exception e) {
                     logger.log("Exception while attempting to auto-move: " + e.getMessage());
                     // continue processing the rest...
                 }
-            } else {
-                LocalDateTime lastTime = game.getLastReminderTimestamp() == null ?
-                        game.getLastMoveTimestamp() : game.getLastReminderTimestamp();
-                if (Duration.between(lastTime, currTime).compareTo(REMINDER_DURATION) > 0) {
-                    staleStringByUserId.put(game.getUserIdToMove(), "LOA: Game ID " + game.getGameId());
-                }
+            } else if (staleGame.reminderDue()) {
+                staleStringByUserId.put(staleGame.userIdToAct(), "LOA: Game ID " + staleGame.gameId());
             }
         }
 
@@ -296,7 +325,8 @@ public class LinesOfAction implements GameInterface {
     }
 
 
-    private void processGameOver(char winnerMarker, LoaGamesRecord game, LoaBoard gameBoard, SESEmailSender emailSender) {
+    private void processGameOver(char winnerMarker, LoaGamesRecord game, LoaBoard gameBoard,
+                                 long moverUserId, String moveText, SESEmailSender emailSender) {
         // Game over processing:
         // Find winning player user number
         // Set the game state to complete
@@ -320,6 +350,8 @@ public class LinesOfAction implements GameInterface {
                             outcome, null, user.getUserId() == game.getStartingUserId());
                 }
                 txLoaDKO.updateGame(game);
+                new MoveLogDKO(trx).appendMove(GameType.LOA, game.getGameId(), game.getVersion(), moverUserId,
+                        moveText, game.getBoardState());
                 // Emails out
                 String subject = "PBEMGS - LOA game number " + game.getGameId() + " has ended - winner is " +
                         winUser.getHandle() + "!";
@@ -366,10 +398,9 @@ public class LinesOfAction implements GameInterface {
 
     private void populatePlayerMap(LoaGamesRecord game) {
         symbolByUser.clear();
-        UsersRecord xPlayer = usersDKO.fetchUserById(game.getXUserId());
-        UsersRecord oPlayer = usersDKO.fetchUserById(game.getOUserId());
-        symbolByUser.put(xPlayer, LoaBoard.PLAYER_X);
-        symbolByUser.put(oPlayer, LoaBoard.PLAYER_O);
+        List<UsersRecord> players = usersDKO.fetchUsersInOrder(Arrays.asList(game.getXUserId(), game.getOUserId()));
+        symbolByUser.put(players.get(0), LoaBoard.PLAYER_X);
+        symbolByUser.put(players.get(1), LoaBoard.PLAYER_O);
     }
 
     // Helper methods for formatting and sending outgoing board-state emails.
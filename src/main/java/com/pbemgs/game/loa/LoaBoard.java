@@ -2,15 +2,11 @@ package com.pbemgs.game.loa;
 
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.pbemgs.VisibleForTesting;
+import com.pbemgs.game.BoardTemplate;
 import com.pbemgs.model.Location;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.List;
 import java.util.Random;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 public class LoaBoard {
@@ -18,15 +14,35 @@ public class LoaBoard {
     public final static char PLAYER_O = 'O';
     public final static char EMPTY = '.';
     private final static int BOARD_SIZE = 8;
+    private final static int DIAG_COUNT = 2 * BOARD_SIZE - 1;
+
+    // Upper bound on legal moves for one side: 12 pieces, 8 directions each.
+    public final static int MAX_MOVES = 12 * 8;
+
+    // The 8 move directions, as row/col steps.
+    private final static int[] DIR_R = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private final static int[] DIR_C = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+    // Bitboard column masks (bit index is r * 8 + c) for the connectivity flood fill.
+    private final static long NOT_COL_A = ~0x0101010101010101L;
+    private final static long NOT_COL_H = ~0x8080808080808080L;
 
     // separate chars for white and black empty squares because diags are hard to count.
     private final static char WHITE_SQUARE = '.';
     private final static char BLACK_SQUARE = ':';
 
+    private final static BoardTemplate TEMPLATE = buildTemplate();
+
     private LambdaLogger logger;
 
     private char[][] grid;
 
+    // Piece counts (either side) along every line, maintained incrementally in makeMove()/undoMove().
+    // Diagonals are indexed by (r - c + BOARD_SIZE - 1), anti-diagonals by (r + c).
+    private final int[] rowCounts = new int[BOARD_SIZE];
+    private final int[] colCounts = new int[BOARD_SIZE];
+    private final int[] diagCounts = new int[DIAG_COUNT];
+    private final int[] antiDiagCounts = new int[DIAG_COUNT];
 
     public LoaBoard(LambdaLogger logger) {
         this.logger = logger;
@@ -52,6 +68,7 @@ public class LoaBoard {
             grid[x][0] = PLAYER_X;
             grid[x][7] = PLAYER_X;
         }
+        rebuildLineCounts();
     }
 
     public String serialize() {
@@ -65,6 +82,7 @@ public class LoaBoard {
         for (int r = 0; r < BOARD_SIZE; r++) {
             grid[r] = rows[r].toCharArray();
         }
+        rebuildLineCounts();
     }
 
     /**
@@ -94,18 +112,7 @@ public class LoaBoard {
         int stepR = Integer.signum(dr);
         int stepC = Integer.signum(dc);
 
-        // count pieces in line
-        int count = 1;  // self
-        for (int offset = 1; offset < BOARD_SIZE; ++offset) {
-            Location offFwd = new Location(from.row() + stepR * offset, from.col() + stepC * offset);
-            Location offBck = new Location(from.row() - stepR * offset, from.col() - stepC * offset);
-            if (isOnBoard(offFwd) && grid[offFwd.row()][offFwd.col()] != EMPTY) {
-                ++count;
-            }
-            if (isOnBoard(offBck) && grid[offBck.row()][offBck.col()] != EMPTY) {
-                ++count;
-            }
-        }
+        int count = lineCount(from.row(), from.col(), stepR, stepC);
         if (count != moveDist) {
             return ("Invalid move distance.  There are " + count + " pieces along the line, but move distance was " + moveDist + ".");
         }
@@ -123,8 +130,11 @@ public class LoaBoard {
     }
 
     public boolean isVictoryCondition(char symbol) {
-        Location loc = findAPiece(symbol);
-        return getPieceCount(symbol) == countConnectedPieces(symbol, loc);
+        long pieces = pieceMask(symbol);
+        if (pieces == 0L) {
+            throw new IllegalStateException("LOA board has no pieces of symbol " + symbol);
+        }
+        return connectedGroup(pieces) == pieces;
     }
 
     public int getPieceCount(char symbol) {
@@ -144,123 +154,226 @@ public class LoaBoard {
      * Returns true if a piece was captured.
      */
     public boolean makeMove(char symbol, LinesOfAction.LoaMove move) {
-        boolean capture = grid[move.to().row()][move.to().col()] != EMPTY;
-        grid[move.from().row()][move.from().col()] = EMPTY;
-        grid[move.to().row()][move.to().col()] = symbol;
-        return capture;
+        return makeMove(symbol, packMove(move.from().row(), move.from().col(), move.to().row(), move.to().col()));
     }
 
-    public LinesOfAction.LoaMove getRandomMove(char symbol) {
-        List<Location> pieces = new ArrayList<>();
-        for (int r = 0; r < BOARD_SIZE; r++) {
-            for (int c = 0; c < BOARD_SIZE; c++) {
-                if (grid[r][c] == symbol) {
-                    pieces.add(new Location(r, c));
-                }
-            }
+    /**
+     * Execute a packed move (see packMove()) - assumed validated already.
+     * Returns true if a piece was captured.
+     */
+    public boolean makeMove(char symbol, int packedMove) {
+        int fromR = fromRow(packedMove);
+        int fromC = fromCol(packedMove);
+        int toR = toRow(packedMove);
+        int toC = toCol(packedMove);
+        boolean capture = grid[toR][toC] != EMPTY;
+        grid[fromR][fromC] = EMPTY;
+        grid[toR][toC] = symbol;
+        adjustLineCounts(fromR, fromC, -1);
+        if (!capture) {
+            adjustLineCounts(toR, toC, 1);
         }
-        if (pieces.isEmpty()) {
-            throw new IllegalStateException("No pieces for symbol " + symbol);
+        return capture;
+    }
+
+    /**
+     * Reverses a makeMove() of the packed move.  The capture flag must be the value makeMove() returned.
+     */
+    public void undoMove(char symbol, int packedMove, boolean capture) {
+        int fromR = fromRow(packedMove);
+        int fromC = fromCol(packedMove);
+        int toR = toRow(packedMove);
+        int toC = toCol(packedMove);
+        grid[fromR][fromC] = symbol;
+        adjustLineCounts(fromR, fromC, 1);
+        if (capture) {
+            grid[toR][toC] = symbol == PLAYER_X ? PLAYER_O : PLAYER_X;
+        } else {
+            grid[toR][toC] = EMPTY;
+            adjustLineCounts(toR, toC, -1);
         }
-        Collections.shuffle(pieces); // Randomize piece order
-        Random rng = new Random();
-        int[] deltas = {-1, 0, 1}; // For 8 directions
-        for (Location from : pieces) {
-            List<Location> possibleTos = new ArrayList<>();
-            for (int dr : deltas) {
-                for (int dc : deltas) {
-                    if (dr == 0 && dc == 0) continue; // Skip no-move
-                    int count = countPiecesInLine(from, dr, dc);
-                    int toR = from.row() + dr * count;
-                    int toC = from.col() + dc * count;
-                    Location to = new Location(toR, toC);
-                    if (validateMove(from, to, symbol) == null) {
-                        possibleTos.add(to);
+    }
+
+    /**
+     * Generates every legal move for the symbol into the supplied buffer (sized at least MAX_MOVES),
+     * as packed moves.  Returns the number of moves written.  Does not allocate.
+     */
+    public int generateMoves(char symbol, int[] moves) {
+        int numMoves = 0;
+        for (int r = 0; r < BOARD_SIZE; ++r) {
+            for (int c = 0; c < BOARD_SIZE; ++c) {
+                if (grid[r][c] != symbol) {
+                    continue;
+                }
+                for (int d = 0; d < DIR_R.length; ++d) {
+                    int dr = DIR_R[d];
+                    int dc = DIR_C[d];
+                    int dist = lineCount(r, c, dr, dc);
+                    if (isLegalSlide(r, c, dr, dc, dist, symbol)) {
+                        moves[numMoves++] = packMove(r, c, r + dr * dist, c + dc * dist);
                     }
                 }
             }
-            if (!possibleTos.isEmpty()) {
-                return new LinesOfAction.LoaMove(from, possibleTos.get(rng.nextInt(possibleTos.size())));
-            }
         }
-        return null; // No valid moves—pass (rare, LOA’s open early)
+        return numMoves;
     }
 
-    private int countPiecesInLine(Location from, int dr, int dc) {
-        int count = 1; // Self
-        for (int offset = 1; offset < BOARD_SIZE; offset++) {
-            Location fwd = new Location(from.row() + dr * offset, from.col() + dc * offset);
-            Location bck = new Location(from.row() - dr * offset, from.col() - dc * offset);
-            if (isOnBoard(fwd) && grid[fwd.row()][fwd.col()] != EMPTY) count++;
-            if (isOnBoard(bck) && grid[bck.row()][bck.col()] != EMPTY) count++;
+    public LinesOfAction.LoaMove getRandomMove(char symbol) {
+        if (pieceMask(symbol) == 0L) {
+            throw new IllegalStateException("No pieces for symbol " + symbol);
         }
-        return count;
+        int[] moves = new int[MAX_MOVES];
+        int numMoves = generateMoves(symbol, moves);
+        if (numMoves == 0) {
+            return null; // No valid moves—pass (rare, LOA’s open early)
+        }
+        return unpackMove(moves[new Random().nextInt(numMoves)]);
     }
 
     /**
-     * Generates the board text.
+     * Counts the connected (8-direction) groups of the symbol's pieces.  A count of 1 is a victory.
      */
-    public String getBoardTextBody() {
-        StringBuilder sb = new StringBuilder("    ");
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            sb.append((char) ('A' + i)).append(" ");
+    public int countGroups(char symbol) {
+        long remaining = pieceMask(symbol);
+        int groups = 0;
+        while (remaining != 0L) {
+            remaining &= ~connectedGroup(remaining);
+            ++groups;
         }
-        sb.append("\n");
+        return groups;
+    }
 
-        for (int r = 0; r < BOARD_SIZE; r++) {
-            sb.append(String.format("%2d  ", (r + 1)));
-            for (int c = 0; c < BOARD_SIZE; c++) {
-                if (grid[r][c] == EMPTY) {
-                    sb.append((r + c) % 2 == 0 ? WHITE_SQUARE : BLACK_SQUARE);
-                } else {
-                    sb.append(grid[r][c]);
-                }
-                sb.append(" ");
+    // Packed move format: from-square index in bits 6-11, to-square index in bits 0-5 (index is r * 8 + c).
+    public static int packMove(int fromR, int fromC, int toR, int toC) {
+        return ((fromR * BOARD_SIZE + fromC) << 6) | (toR * BOARD_SIZE + toC);
+    }
+
+    public static LinesOfAction.LoaMove unpackMove(int packedMove) {
+        return new LinesOfAction.LoaMove(new Location(fromRow(packedMove), fromCol(packedMove)),
+                new Location(toRow(packedMove), toCol(packedMove)));
+    }
+
+    private static int fromRow(int packedMove) {
+        return (packedMove >> 6) / BOARD_SIZE;
+    }
+
+    private static int fromCol(int packedMove) {
+        return (packedMove >> 6) % BOARD_SIZE;
+    }
+
+    private static int toRow(int packedMove) {
+        return (packedMove & 0x3F) / BOARD_SIZE;
+    }
+
+    private static int toCol(int packedMove) {
+        return (packedMove & 0x3F) % BOARD_SIZE;
+    }
+
+    // Pieces (either side) on the line through (r, c) in direction (dr, dc).
+    private int lineCount(int r, int c, int dr, int dc) {
+        if (dr == 0) {
+            return rowCounts[r];
+        }
+        if (dc == 0) {
+            return colCounts[c];
+        }
+        return dr == dc ? diagCounts[r - c + BOARD_SIZE - 1] : antiDiagCounts[r + c];
+    }
+
+    // Checks the landing square and the jumped squares of a slide with the given distance.
+    private boolean isLegalSlide(int r, int c, int dr, int dc, int dist, char symbol) {
+        int toR = r + dr * dist;
+        int toC = c + dc * dist;
+        if (toR < 0 || toR >= BOARD_SIZE || toC < 0 || toC >= BOARD_SIZE || grid[toR][toC] == symbol) {
+            return false;
+        }
+        for (int step = 1; step < dist; ++step) {
+            char jumped = grid[r + dr * step][c + dc * step];
+            if (jumped != EMPTY && jumped != symbol) {
+                return false;
             }
-            sb.append("\n");
         }
+        return true;
+    }
 
-        return sb.toString();
+    private void adjustLineCounts(int r, int c, int delta) {
+        rowCounts[r] += delta;
+        colCounts[c] += delta;
+        diagCounts[r - c + BOARD_SIZE - 1] += delta;
+        antiDiagCounts[r + c] += delta;
     }
 
-    private Location findAPiece(char symbol) {
+    private void rebuildLineCounts() {
+        Arrays.fill(rowCounts, 0);
+        Arrays.fill(colCounts, 0);
+        Arrays.fill(diagCounts, 0);
+        Arrays.fill(antiDiagCounts, 0);
+        for (int r = 0; r < BOARD_SIZE; ++r) {
+            for (int c = 0; c < BOARD_SIZE; ++c) {
+                if (grid[r][c] != EMPTY) {
+                    adjustLineCounts(r, c, 1);
+                }
+            }
+        }
+    }
+
+    // Bitboard of the symbol's pieces, bit index r * 8 + c.
+    long pieceMask(char symbol) {
+        long mask = 0L;
         for (int r = 0; r < BOARD_SIZE; ++r) {
             for (int c = 0; c < BOARD_SIZE; ++c) {
                 if (grid[r][c] == symbol) {
-                    return new Location(r, c);
+                    mask |= 1L << (r * BOARD_SIZE + c);
                 }
             }
         }
-        throw new IllegalStateException("LOA board has no pieces of symbol " + symbol);
+        return mask;
+    }
+
+    // Flood fill (8 directions) from the lowest set bit of the mask, returns that piece's group.
+    private static long connectedGroup(long pieces) {
+        long group = Long.lowestOneBit(pieces);
+        while (true) {
+            long horiz = group | ((group << 1) & NOT_COL_A) | ((group >>> 1) & NOT_COL_H);
+            long grown = (horiz | (horiz << 8) | (horiz >>> 8)) & pieces;
+            if (grown == group) {
+                return group;
+            }
+            group = grown;
+        }
     }
 
     /**
-     * Return a count of the number of pieces connected (8 directions) to this one.
-     * This is the victory condition check (connected == total)
+     * Generates the board text.
      */
-    private int countConnectedPieces(char symbol, Location loc) {
-        Set<Location> group = new HashSet<>();  // grouped pieces with this one
-        group.add(loc);
-        createGroup(symbol, loc, group);
-        return group.size();
+    public String getBoardTextBody() {
+        return TEMPLATE.render((sb, slot) -> {
+            int r = slot / BOARD_SIZE;
+            int c = slot % BOARD_SIZE;
+            if (grid[r][c] == EMPTY) {
+                sb.append((r + c) % 2 == 0 ? WHITE_SQUARE : BLACK_SQUARE);
+            } else {
+                sb.append(grid[r][c]);
+            }
+        });
     }
 
-    // DFS to create the group
-    private void createGroup(char symbol, Location loc, Set<Location> group) {
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                if (dr == 0 && dc == 0) continue;
-                int nr = loc.row() + dr;
-                int nc = loc.col() + dc;
-                Location newLoc = new Location(nr, nc);
-                if (isOnBoard(newLoc) && grid[nr][nc] == symbol) {
-                    if (!group.contains(newLoc)) {
-                        group.add(newLoc);
-                        createGroup(symbol, newLoc, group);
-                    }
-                }
+    // Slots are the squares, row by row.
+    private static BoardTemplate buildTemplate() {
+        BoardTemplate.Builder template = BoardTemplate.builder().text("    ");
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            template.text((char) ('A' + i)).text(" ");
+        }
+        template.text("\n");
+
+        for (int r = 0; r < BOARD_SIZE; r++) {
+            template.text(String.format("%2d  ", (r + 1)));
+            for (int c = 0; c < BOARD_SIZE; c++) {
+                template.slot().text(" ");
             }
+            template.text("\n");
         }
+        return template.build(1);
     }
 
     private boolean isOnBoard(Location loc) {
@@ -0,0 +1,114 @@
+package com.pbemgs.game.loa;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.game.GameEngine;
+import com.pbemgs.model.GameType;
+import com.pbemgs.model.Location;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Lines of Action rules.  Seat 0 is X, seat 1 is O.  Moves are "from-to", e.g. "B1-D3".
+ */
+public class LoaEngine implements GameEngine<LoaBoard, LinesOfAction.LoaMove> {
+    private final LambdaLogger logger;
+
+    public LoaEngine(LambdaLogger logger) {
+        this.logger = logger;
+    }
+
+    public static char getSymbol(int seat) {
+        return seat == 0 ? LoaBoard.PLAYER_X : LoaBoard.PLAYER_O;
+    }
+
+    public static int getSeat(char symbol) {
+        return symbol == LoaBoard.PLAYER_X ? 0 : 1;
+    }
+
+    @Override
+    public GameType getGameType() {
+        return GameType.LOA;
+    }
+
+    @Override
+    public int getNumPlayers() {
+        return 2;
+    }
+
+    @Override
+    public LoaBoard newBoard(Random rng) {
+        LoaBoard board = new LoaBoard(logger);
+        board.createNewGame();
+        return board;
+    }
+
+    @Override
+    public LoaBoard deserialize(String boardState) {
+        LoaBoard board = new LoaBoard(logger);
+        board.deserialize(boardState);
+        return board;
+    }
+
+    @Override
+    public String serialize(LoaBoard board) {
+        return board.serialize();
+    }
+
+    @Override
+    public LinesOfAction.LoaMove parseMove(String moveText) {
+        String[] squares = moveText.trim().split("[\\s,:-]+");
+        if (squares.length < 2) {
+            return null;
+        }
+        Location from = Location.fromString(squares[0]);
+        Location to = Location.fromString(squares[1]);
+        return from == null || to == null ? null : new LinesOfAction.LoaMove(from, to);
+    }
+
+    @Override
+    public String formatMove(LinesOfAction.LoaMove move) {
+        return LoaMoveReplayer.moveText(move);
+    }
+
+    @Override
+    public String validateMove(LoaBoard board, int seat, LinesOfAction.LoaMove move) {
+        return board.validateMove(move.from(), move.to(), getSymbol(seat));
+    }
+
+    @Override
+    public void applyMove(LoaBoard board, int seat, LinesOfAction.LoaMove move) {
+        board.makeMove(getSymbol(seat), move);
+    }
+
+    @Override
+    public List<LinesOfAction.LoaMove> getLegalMoves(LoaBoard board, int seat) {
+        int[] packedMoves = new int[LoaBoard.MAX_MOVES];
+        int numMoves = board.generateMoves(getSymbol(seat), packedMoves);
+        List<LinesOfAction.LoaMove> moves = new ArrayList<>(numMoves);
+        for (int i = 0; i < numMoves; ++i) {
+            moves.add(LoaBoard.unpackMove(packedMoves[i]));
+        }
+        return moves;
+    }
+
+    /**
+     * A move can connect both sides at once (by capture); the side that just moved is checked first.
+     */
+    @Override
+    public int getResult(LoaBoard board, int nextSeat) {
+        int mover = 1 - nextSeat;
+        if (board.isVictoryCondition(getSymbol(mover))) {
+            return mover;
+        }
+        if (board.isVictoryCondition(getSymbol(nextSeat))) {
+            return nextSeat;
+        }
+        return IN_PROGRESS;
+    }
+
+    @Override
+    public String getBoardText(LoaBoard board) {
+        return board.getBoardTextBody();
+    }}
@@ -0,0 +1,31 @@
+package com.pbemgs.game.loa;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.game.MoveReplayer;
+import com.pbemgs.model.Location;
+
+/**
+ * LOA move log notation: "from-to", e.g. "B1-D3".  The mover is the piece on the from square.
+ */
+public class LoaMoveReplayer implements MoveReplayer {
+    private final LambdaLogger logger;
+
+    public LoaMoveReplayer(LambdaLogger logger) {
+        this.logger = logger;
+    }
+
+    public static String moveText(LinesOfAction.LoaMove move) {
+        return move.from() + "-" + move.to();
+    }
+
+    @Override
+    public String apply(String boardState, String moveText) {
+        String[] squares = moveText.split("-");
+        Location from = Location.fromString(squares[0]);
+        Location to = Location.fromString(squares[1]);
+        LoaBoard board = new LoaBoard(logger);
+        board.deserialize(boardState);
+        board.makeMove(board.getGrid(from.row(), from.col()), new LinesOfAction.LoaMove(from, to));
+        return board.serialize();
+    }
+}
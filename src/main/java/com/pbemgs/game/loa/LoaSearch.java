@@ -0,0 +1,185 @@
+package com.pbemgs.game.loa;
+
+import java.time.Duration;
+
+/**
+ * Alpha-beta (negamax) search used to pick LOA auto-moves on timeout.
+ * Runs iterative deepening over LoaBoard's packed move generator, making and undoing moves in place,
+ * so a search does no per-node allocation.  Stops at the time budget or the depth cap, returning the
+ * best move from the deepest fully completed iteration.
+ */
+public class LoaSearch {
+    private static final int MAX_DEPTH = 8;
+    private static final int WIN_SCORE = 1_000_000;
+    private static final int INFINITY = WIN_SCORE + 1;
+    private static final int TIME_CHECK_INTERVAL = 1024;  // nodes between clock checks
+
+    // Evaluation weights - fewer groups and tighter formations are better.
+    private static final int GROUP_WEIGHT = 40;
+    private static final int SPREAD_WEIGHT = 10;
+
+    private final LoaBoard board;
+    private final int[][] moveBuffers = new int[MAX_DEPTH + 1][LoaBoard.MAX_MOVES];
+
+    private long deadlineNanos;
+    private boolean canAbort;
+    private boolean timedOut;
+    private long nodes;
+
+    public record SearchResult(LinesOfAction.LoaMove move, int score, int depth, long nodes) {
+    }
+
+    public LoaSearch(LoaBoard board) {
+        this.board = board;
+    }
+
+    /**
+     * Searches for the best move for the symbol.  The board is left unchanged.
+     * Returns null if the symbol has no legal move.
+     */
+    public SearchResult findBestMove(char symbol, Duration timeBudget) {
+        return findBestMove(symbol, timeBudget, MAX_DEPTH);
+    }
+
+    public SearchResult findBestMove(char symbol, Duration timeBudget, int maxDepth) {
+        deadlineNanos = System.nanoTime() + timeBudget.toNanos();
+        canAbort = false;
+        timedOut = false;
+        nodes = 0;
+
+        int[] rootMoves = moveBuffers[0];
+        int numMoves = board.generateMoves(symbol, rootMoves);
+        if (numMoves == 0) {
+            return null;
+        }
+
+        int bestMove = rootMoves[0];
+        int bestScore = -INFINITY;
+        int completedDepth = 0;
+        for (int depth = 1; depth <= Math.min(maxDepth, MAX_DEPTH); ++depth) {
+            int iterBestMove = rootMoves[0];
+            int alpha = -INFINITY;
+            for (int i = 0; i < numMoves; ++i) {
+                int move = rootMoves[i];
+                boolean capture = board.makeMove(symbol, move);
+                int score = scoreAfterMove(symbol, depth, alpha, INFINITY, 1);
+                board.undoMove(symbol, move, capture);
+                if (timedOut) {
+                    break;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    iterBestMove = move;
+                }
+            }
+            if (timedOut) {
+                break;
+            }
+
+            bestMove = iterBestMove;
+            bestScore = alpha;
+            completedDepth = depth;
+            canAbort = true;
+            if (alpha >= WIN_SCORE - depth) {
+                break;  // forced win found, no need to look deeper
+            }
+            moveToFront(rootMoves, numMoves, bestMove);
+        }
+
+        return new SearchResult(LoaBoard.unpackMove(bestMove), bestScore, completedDepth, nodes);
+    }
+
+    // Negamax over the side to move.  Scores are from the point of view of the side to move.
+    private int negamax(char symbol, int depth, int alpha, int beta, int ply) {
+        ++nodes;
+        if (canAbort && nodes % TIME_CHECK_INTERVAL == 0 && System.nanoTime() > deadlineNanos) {
+            timedOut = true;
+            return 0;
+        }
+        if (depth == 0) {
+            return evaluate(symbol);
+        }
+
+        int[] moves = moveBuffers[ply];
+        int numMoves = board.generateMoves(symbol, moves);
+        if (numMoves == 0) {
+            return evaluate(symbol);
+        }
+
+        int best = -INFINITY;
+        for (int i = 0; i < numMoves; ++i) {
+            int move = moves[i];
+            boolean capture = board.makeMove(symbol, move);
+            int score = scoreAfterMove(symbol, depth, alpha, beta, ply + 1);
+            board.undoMove(symbol, move, capture);
+            if (timedOut) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    // Scores the position after the mover's move, from the mover's point of view.
+    // The mover's connection is checked first, matching LinesOfAction.executeMove().
+    private int scoreAfterMove(char mover, int depth, int alpha, int beta, int ply) {
+        char opp = opponent(mover);
+        if (board.countGroups(mover) == 1) {
+            return WIN_SCORE - ply;
+        }
+        if (board.countGroups(opp) == 1) {
+            return -(WIN_SCORE - ply);
+        }
+        return -negamax(opp, depth - 1, -beta, -alpha, ply);
+    }
+
+    private int evaluate(char symbol) {
+        return sideValue(symbol) - sideValue(opponent(symbol));
+    }
+
+    // Group count plus average distance (king moves) from the centre of mass.
+    private int sideValue(char symbol) {
+        long pieces = board.pieceMask(symbol);
+        int count = Long.bitCount(pieces);
+        if (count == 0) {
+            return 0;
+        }
+        int sumR = 0;
+        int sumC = 0;
+        for (long bits = pieces; bits != 0L; bits &= bits - 1) {
+            int idx = Long.numberOfTrailingZeros(bits);
+            sumR += idx >> 3;
+            sumC += idx & 7;
+        }
+        int centerR = Math.round((float) sumR / count);
+        int centerC = Math.round((float) sumC / count);
+        int spread = 0;
+        for (long bits = pieces; bits != 0L; bits &= bits - 1) {
+            int idx = Long.numberOfTrailingZeros(bits);
+            spread += Math.max(Math.abs((idx >> 3) - centerR), Math.abs((idx & 7) - centerC));
+        }
+        return -GROUP_WEIGHT * board.countGroups(symbol) - SPREAD_WEIGHT * spread / count;
+    }
+
+    private static void moveToFront(int[] moves, int numMoves, int move) {
+        for (int i = 0; i < numMoves; ++i) {
+            if (moves[i] == move) {
+                moves[i] = moves[0];
+                moves[0] = move;
+                return;
+            }
+        }
+    }
+
+    private static char opponent(char symbol) {
+        return symbol == LoaBoard.PLAYER_X ? LoaBoard.PLAYER_O : LoaBoard.PLAYER_X;
+    }
+}
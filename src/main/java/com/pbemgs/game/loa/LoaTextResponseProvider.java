@@ -71,7 +71,7 @@ public class LoaTextResponseProvider {
                 " - Max simultaneous games/player: 3\n" +
                 " - Max open games: 10\n" +
                 " - Reminder: Email nudge after 24 hours idle.\n" +
-                " - Auto-Move: Random move after 4 days (96 hours) no response.\n" +
+                " - Auto-Move: A computer-chosen move is made after 4 days (96 hours) no response.\n" +
                 " - First player (X or O) randomized at start.\n\n" +
                 "Status:\n" +
                 " - Ready! Test your wits — connect the chaos. Feedback? Hit 'feedback'!";
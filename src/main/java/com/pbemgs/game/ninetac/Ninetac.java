@@ -2,16 +2,21 @@ package com.pbemgs.game.ninetac;
 
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.pbemgs.controller.SESEmailSender;
+import com.pbemgs.dko.MoveLogDKO;
 import com.pbemgs.dko.NinetacGameDKO;
 import com.pbemgs.dko.PlayerOutcomesDKO;
+import com.pbemgs.dko.StaleGamesDKO;
 import com.pbemgs.dko.UsersDKO;
+import com.pbemgs.game.GameEngine;
 import com.pbemgs.game.GameInterface;
 import com.pbemgs.game.GameMessageMailer;
+import com.pbemgs.game.GameUpdateRetry;
 import com.pbemgs.generated.enums.NinetacGamesBoardOption;
 import com.pbemgs.generated.enums.NinetacGamesGameState;
 import com.pbemgs.generated.enums.PlayerOutcomesOutcome;
 import com.pbemgs.generated.tables.records.NinetacGamesRecord;
 import com.pbemgs.generated.tables.records.UsersRecord;
+import com.pbemgs.model.ActiveGameSummary;
 import com.pbemgs.model.GameType;
 import com.pbemgs.model.S3Email;
 import org.jooq.DSLContext;
@@ -19,6 +24,7 @@ import org.jooq.impl.DSL;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,7 +41,11 @@ public class Ninetac implements GameInterface {
 
     private final DSLContext dslContext;
     private final NinetacGameDKO ninetacDKO;
+    private final MoveLogDKO moveLogDKO;
+    private final StaleGamesDKO staleGamesDKO;
     private final UsersDKO usersDKO;
+    private final NinetacEngine engine;
+    private final NinetacMoveReplayer replayer;
     private final LambdaLogger logger;
 
     private record TextBodyParseResult(Integer move, boolean success, String error) {
@@ -44,7 +54,11 @@ public class Ninetac implements GameInterface {
     public Ninetac(DSLContext dslContext, LambdaLogger logger) {
         this.dslContext = dslContext;
         ninetacDKO = new NinetacGameDKO(dslContext);
+        moveLogDKO = new MoveLogDKO(dslContext);
+        staleGamesDKO = new StaleGamesDKO(dslContext);
         usersDKO = new UsersDKO(dslContext);
+        engine = new NinetacEngine(logger);
+        replayer = new NinetacMoveReplayer(logger);
         this.logger = logger;
     }
 
@@ -62,14 +76,17 @@ public class Ninetac implements GameInterface {
             return;
         }
 
-        NinetacBoard newBoard = new NinetacBoard(logger);
-        newBoard.createRandomizedBoard27();
+        NinetacBoard newBoard = engine.newBoard(new Random());
         Long newGameNum = ninetacDKO.createNewGame(user.getUserId(), newBoard.serialize(), NinetacGamesBoardOption.DEFAULT_27);
         GameMessageMailer.createSuccess(emailSender, user.getEmailAddr(), GameType.NINETAC, newGameNum);
     }
 
     @Override
     public void processJoinGame(UsersRecord user, long gameId, SESEmailSender emailSender) {
+        GameUpdateRetry.run(logger, "NINETAC join_game " + gameId, () -> attemptJoinGame(user, gameId, emailSender));
+    }
+
+    private void attemptJoinGame(UsersRecord user, long gameId, SESEmailSender emailSender) {
         List<NinetacGamesRecord> userGames = ninetacDKO.getActiveGamesForUser(user.getUserId());
         if (userGames.size() >= PLAYER_GAME_LIMIT) {
             GameMessageMailer.gameLimitReached(emailSender, user.getEmailAddr(), "join_game", GameType.NINETAC);
@@ -93,7 +110,14 @@ public class Ninetac implements GameInterface {
         Random rng = new Random();
         Long firstPlayerId = rng.nextBoolean() ? xPlayer.getUserId() : user.getUserId();
 
-        ninetacDKO.completeGameCreation(gameId, user.getUserId(), firstPlayerId);
+        // Start the game and snapshot the starting board in one transaction.
+        dslContext.transaction(configuration -> {
+            DSLContext trx = DSL.using(configuration);
+            new NinetacGameDKO(trx).completeGameCreation(gameId, user.getUserId(), firstPlayerId,
+                    requestGame.getVersion());
+            new MoveLogDKO(trx).recordSnapshot(GameType.NINETAC, gameId, requestGame.getVersion() + 1,
+                    requestGame.getBoardState());
+        });
         NinetacBoard gameBoard = new NinetacBoard(logger);
         gameBoard.deserialize(requestGame.getBoardState());
 
@@ -103,6 +127,10 @@ public class Ninetac implements GameInterface {
 
     @Override
     public void processMove(UsersRecord user, long gameId, S3Email emailBody, SESEmailSender emailSender) {
+        GameUpdateRetry.run(logger, "NINETAC move " + gameId, () -> attemptMove(user, gameId, emailBody, emailSender));
+    }
+
+    private void attemptMove(UsersRecord user, long gameId, S3Email emailBody, SESEmailSender emailSender) {
         NinetacGamesRecord requestGame = ninetacDKO.getGameById(gameId);
 
         // Validity checks: game must exist, be in IN_PROGRESS state, and the user must be active player.
@@ -115,38 +143,54 @@ public class Ninetac implements GameInterface {
             return;
         }
 
-        // Parse email body for the move (a single number), validate between 1 and 27.
+        // Parse email body for the move (a single number).
         TextBodyParseResult parseResult = parseMoveFromEmail(emailBody);
         if (!parseResult.success()) {
             GameMessageMailer.moveFailedToParse(emailSender, user.getEmailAddr(), GameType.NINETAC, gameId, parseResult.error());
             return;
         }
 
+        // Load game, verify move is valid (in range, and number is available)
         int move = parseResult.move();
-        if (move < 1 || move > 27) {
+        String loggedBoardState = replayBoardState(requestGame);
+        NinetacBoard game = engine.deserialize(loggedBoardState != null ? loggedBoardState : requestGame.getBoardState());
+        int seat = user.getUserId().equals(requestGame.getXUserId()) ? 0 : 1;
+        String errorMessage = engine.validateMove(game, seat, move);
+        if (errorMessage != null) {
             emailSender.sendEmail(user.getEmailAddr(), "PBEMGS - MOVE NINETAC failed",
-                    NinetacTextResponseProvider.getMoveInvalidNumberText(move, gameId));
+                    NinetacTextResponseProvider.getMoveInvalidText(move, gameId, errorMessage));
             return;
         }
-        // Load game, verify move is valid (number is available)
-        NinetacBoard game = new NinetacBoard(logger);
-        game.deserialize(requestGame.getBoardState());
 
-        if (!game.isMoveValid(move)) {
-            emailSender.sendEmail(user.getEmailAddr(), "PBEMGS - MOVE NINETAC failed",
-                    NinetacTextResponseProvider.getMoveUnavailableText(gameId, move));
-            return;
+        executeMove(user, gameId, emailSender, requestGame, game, move, loggedBoardState != null);
+    }
+
+    /**
+     * The board of an in-progress game, replayed from the move log - moves append to the log rather than rewrite
+     * board_state.  Null for a game started before the log (no snapshot), whose board_state is still current;
+     * complete games always have their final board in board_state.
+     */
+    private String replayBoardState(NinetacGamesRecord game) {
+        if (game.getGameState() != NinetacGamesGameState.IN_PROGRESS) {
+            return null;
         }
+        return moveLogDKO.replay(GameType.NINETAC, game.getGameId(), game.getVersion(), replayer);
+    }
 
-        executeMove(user, gameId, emailSender, requestGame, game, move);
+    private NinetacBoard loadBoard(NinetacGamesRecord game) {
+        String loggedBoardState = replayBoardState(game);
+        return engine.deserialize(loggedBoardState != null ? loggedBoardState : game.getBoardState());
     }
 
-    // Helper to fully execute a validated move
-    private void executeMove(UsersRecord user, long gameId, SESEmailSender emailSender, NinetacGamesRecord requestGame, NinetacBoard game, int move) {
+    // Helper to fully execute a validated move.  boardFromLog is false for a game started before the move log.
+    private void executeMove(UsersRecord user, long gameId, SESEmailSender emailSender, NinetacGamesRecord requestGame,
+                             NinetacBoard game, int move, boolean boardFromLog) {
         // Make move.
-        int playerSymbol = user.getUserId().equals(requestGame.getXUserId()) ? NinetacBoard.PLAYER_X : NinetacBoard.PLAYER_O;
-        game.makeMove(playerSymbol, move);
-        requestGame.setBoardState(game.serialize());
+        int seat = user.getUserId().equals(requestGame.getXUserId()) ? 0 : 1;
+        int playerSymbol = NinetacEngine.getPlayerMarker(seat);
+        int readVersion = requestGame.getVersion();
+        engine.applyMove(game, seat, move);
+        String boardAfter = engine.serialize(game);
 
         // Swap active player
         Long oppUserId = (playerSymbol == NinetacBoard.PLAYER_X) ? requestGame.getOUserId() : requestGame.getXUserId();
@@ -155,28 +199,28 @@ public class Ninetac implements GameInterface {
         requestGame.setLastMoveTimestamp(LocalDateTime.now());
         requestGame.setLastReminderTimestamp(null);
 
-        // Check end state - immediate victory (boards >= 5) - if so, end the game.
-        if (game.getClaimedCount(playerSymbol) >= 5) {
-            processGameOver(playerSymbol, requestGame, game, emailSender);
+        // Check end state - five boards, or the most boards once no numbers remain - if so, end the game.
+        String moveText = NinetacMoveReplayer.moveText(playerSymbol, move);
+        int result = engine.getResult(game, engine.getNextSeat(game, seat));
+        if (result != GameEngine.IN_PROGRESS) {
+            int winnerMarker = result == GameEngine.DRAW ? 0 : NinetacEngine.getPlayerMarker(result);  // 0 is drawn
+            requestGame.setBoardState(boardAfter);
+            processGameOver(winnerMarker, requestGame, game, user.getUserId(), moveText, emailSender);
             return;
         }
 
-        // Check no-more-numbers condition
-        if (game.isBoardFull()) {
-            int xCount = game.getClaimedCount(NinetacBoard.PLAYER_X);
-            int oCount = game.getClaimedCount(NinetacBoard.PLAYER_O);
-            if (xCount > oCount) {
-                processGameOver(NinetacBoard.PLAYER_X, requestGame, game, emailSender);
-            } else if (oCount > xCount) {
-                processGameOver(NinetacBoard.PLAYER_O, requestGame, game, emailSender);
-            } else {
-                processGameOver(0, requestGame, game, emailSender);  // drawn
+        // Log the move and advance the turn - board_state isn't rewritten.  A game started before the log first
+        // gets a snapshot of its stored board, the position before this move, so the log can take over from it.
+        dslContext.transaction(configuration -> {
+            DSLContext trx = DSL.using(configuration);
+            MoveLogDKO moveLog = new MoveLogDKO(trx);
+            if (!boardFromLog) {
+                moveLog.recordSnapshot(GameType.NINETAC, gameId, readVersion, requestGame.getBoardState());
             }
-            return;
-        }
-
-        // update game state in DB
-        ninetacDKO.updateGame(requestGame);
+            new NinetacGameDKO(trx).updateTurn(requestGame);
+            moveLog.appendMove(GameType.NINETAC, gameId, requestGame.getVersion(), user.getUserId(), moveText,
+                    boardAfter);
+        });
 
         // Send emails out (2)
         // Generate the "header" portion for both players
@@ -210,17 +254,16 @@ public class Ninetac implements GameInterface {
     }
 
     @Override
-    public String getMyGamesTextBody(long userId) {
+    public String getMyGamesTextBody(long userId, List<ActiveGameSummary> activeGames) {
         StringBuilder sb = new StringBuilder();
         sb.append("NINETAC:\n");
-        List<NinetacGamesRecord> games = ninetacDKO.getActiveGamesForUser(userId);
-        for (NinetacGamesRecord game : games) {
-            sb.append("-- Game ID: ").append(game.getGameId());
-            if (game.getGameState() == NinetacGamesGameState.OPEN) {
+        for (ActiveGameSummary game : activeGames) {
+            sb.append("-- Game ID: ").append(game.gameId());
+            if (game.open()) {
                 sb.append(" is waiting for an opponent.\n");
             } else {
                 sb.append(" is in progress - ");
-                sb.append(game.getUserIdToMove() == userId ? "YOUR TURN!\n" : "opponent's turn.\n");
+                sb.append(Objects.equals(game.userIdToMove(), userId) ? "YOUR TURN!\n" : "opponent's turn.\n");
             }
         }
         return sb.toString();
@@ -237,13 +280,13 @@ public class Ninetac implements GameInterface {
             GameMessageMailer.statusNotYourGame(emailSender, user.getEmailAddr(), GameType.NINETAC, gameId);
         }
 
-        UsersRecord xPlayer = usersDKO.fetchUserById(reqGame.getXUserId());
-        UsersRecord oPlayer = usersDKO.fetchUserById(reqGame.getOUserId());
+        List<UsersRecord> players = usersDKO.fetchUsersInOrder(Arrays.asList(reqGame.getXUserId(), reqGame.getOUserId()));
+        UsersRecord xPlayer = players.get(0);
+        UsersRecord oPlayer = players.get(1);
 
         String textHeader = "Ninetac Game ID: " + gameId +
                 (reqGame.getGameState() == NinetacGamesGameState.IN_PROGRESS ? " - In Progress\n\n" : " - Complete\n\n");
-        NinetacBoard board = new NinetacBoard(logger);
-        board.deserialize(reqGame.getBoardState());
+        NinetacBoard board = loadBoard(reqGame);
         sendBoardStateEmail(emailSender, "PBEMGS - NINETAC STATUS for game id " + gameId, textHeader,
                 gameId, xPlayer, oPlayer, board, reqGame.getUserIdToMove(), user.getUserId());
     }
@@ -251,33 +294,31 @@ public class Ninetac implements GameInterface {
     @Override
     public Map<Long, String> processStaleGameCheck(SESEmailSender emailSender) {
         Map<Long, String> staleStringByUserId = new HashMap<>();
-        List<NinetacGamesRecord> activeGames = ninetacDKO.getActiveGames();
-        if (activeGames == null || activeGames.isEmpty()) {
+        LocalDateTime currTime = LocalDateTime.now();
+        List<StaleGamesDKO.StaleGame> staleGames = staleGamesDKO.getStaleGames(GameType.NINETAC, currTime,
+                REMINDER_DURATION, TIMEOUT_DURATION);
+        if (staleGames.isEmpty()) {
             return staleStringByUserId;
         }
 
-        LocalDateTime currTime = LocalDateTime.now();
-        for (NinetacGamesRecord game : activeGames) {
-            LocalDateTime lastMoveTime = game.getLastMoveTimestamp();
-
-            if (Duration.between(lastMoveTime, currTime).compareTo(TIMEOUT_DURATION) > 0) {
+        for (StaleGamesDKO.StaleGame staleGame : staleGames) {
+            if (staleGame.timedOut()) {
                 try {
+                    NinetacGamesRecord game = ninetacDKO.getGameById(staleGame.gameId());
                     UsersRecord user = usersDKO.fetchUserById(game.getUserIdToMove());
-                    NinetacBoard gameBoard = new NinetacBoard(logger);
-                    gameBoard.deserialize(game.getBoardState());
+                    String loggedBoardState = replayBoardState(game);
+                    NinetacBoard gameBoard = engine.deserialize(loggedBoardState != null ? loggedBoardState :
+                            game.getBoardState());
                     int randomMove = gameBoard.getRandomMove();
                     logger.log("Auto-move for NINETAC Game ID " + game.getGameId() + ": selected " + randomMove);
-                    executeMove(user, game.getGameId(), emailSender, game, gameBoard, randomMove);
+                    executeMove(user, game.getGameId(), emailSender, game, gameBoard, randomMove,
+                            loggedBoardState != null);
                 } catch (Exception e) {
                     logger.log("Exception while attempting to auto-move: " + e.getMessage());
                     // continue processing the rest...
                 }
-            } else {
-                LocalDateTime lastTime = game.getLastReminderTimestamp() == null ?
-                        game.getLastMoveTimestamp() : game.getLastReminderTimestamp();
-                if (Duration.between(lastTime, currTime).compareTo(REMINDER_DURATION) > 0) {
-                    staleStringByUserId.put(game.getUserIdToMove(), "NINETAC: Game ID " + game.getGameId());
-                }
+            } else if (staleGame.reminderDue()) {
+                staleStringByUserId.put(staleGame.userIdToAct(), "NINETAC: Game ID " + staleGame.gameId());
             }
         }
 
@@ -293,13 +334,15 @@ public class Ninetac implements GameInterface {
     }
 
 
-    private void processGameOver(int winnerMarker, NinetacGamesRecord gameRecord, NinetacBoard gameBoard, SESEmailSender emailSender) {
+    private void processGameOver(int winnerMarker, NinetacGamesRecord gameRecord, NinetacBoard gameBoard,
+                                 long moverUserId, String moveText, SESEmailSender emailSender) {
         // Game over processing:
         // Find winning player user number (or null if drawn)
         // Set the game state to complete, and insert into player_outcomes.
         // Send final email (identical to both users)
-        UsersRecord xPlayer = usersDKO.fetchUserById(gameRecord.getXUserId());
-        UsersRecord oPlayer = usersDKO.fetchUserById(gameRecord.getOUserId());
+        List<UsersRecord> players = usersDKO.fetchUsersInOrder(Arrays.asList(gameRecord.getXUserId(), gameRecord.getOUserId()));
+        UsersRecord xPlayer = players.get(0);
+        UsersRecord oPlayer = players.get(1);
         UsersRecord winPlayer = null;
         PlayerOutcomesOutcome xOutcome = PlayerOutcomesOutcome.DRAW;
         PlayerOutcomesOutcome oOutcome = PlayerOutcomesOutcome.DRAW;
@@ -328,6 +371,8 @@ public class Ninetac implements GameInterface {
                 PlayerOutcomesDKO txOutcomesDKO = new PlayerOutcomesDKO(trx);
 
                 txNinetacDKO.updateGame(gameRecord);
+                new MoveLogDKO(trx).appendMove(GameType.NINETAC, gameRecord.getGameId(), gameRecord.getVersion(),
+                        moverUserId, moveText, gameRecord.getBoardState());
                 txOutcomesDKO.insertOutcome(GameType.NINETAC, gameRecord.getGameId(), xPlayer.getUserId(),
                         finalXOutcome, null, xPlayer.getUserId() == gameRecord.getStartingUserId());
                 txOutcomesDKO.insertOutcome(GameType.NINETAC, gameRecord.getGameId(), oPlayer.getUserId(),
@@ -2,6 +2,7 @@ package com.pbemgs.game.ninetac;
 
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.pbemgs.VisibleForTesting;
+import com.pbemgs.game.BoardTemplate;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -16,6 +17,8 @@ public class NinetacBoard {
     public static final int PLAYER_X = -1;  // marker for "X" squares
     public static final int PLAYER_O = -2;  // marker for "O" squares
 
+    private static final BoardTemplate TEMPLATE = buildTemplate();
+
     private LambdaLogger logger;
 
     private List<SingleBoard> boards;
@@ -162,29 +165,36 @@ public class NinetacBoard {
     // The output format is 3 rows of 3 boards, so the first row of text
     // has row 1 of board 0, then row 1 of board 1, then row 1 of board 2.
     public String getBoardTextBody() {
+        return TEMPLATE.render((sb, slot) -> {
+            // slot order: board group, text row, board within the group, cell column
+            int boardGroup = slot / 27;
+            int row = (slot % 27) / 9;
+            int board = (slot % 9) / 3;
+            boards.get(boardGroup * 3 + board).appendCellText(sb, row * 3 + slot % 3);
+        });
+    }
+
+    private static BoardTemplate buildTemplate() {
         String boardSpacer = "   ";
         String rowDivider = "---+----+---";
 
-        StringBuilder sb = new StringBuilder();
+        BoardTemplate.Builder template = BoardTemplate.builder();
         // 3 groups of 3 boards
-        int firstBoard = 0;  // SingleBoard index on the left side
         for (int boardGroup = 0; boardGroup < 3; ++boardGroup) {
             for (int row = 0; row < 3; ++row) {
-                sb.append(boards.get(firstBoard).getRowTextString(row)).append(boardSpacer)
-                        .append(boards.get(firstBoard + 1).getRowTextString(row)).append(boardSpacer)
-                        .append(boards.get(firstBoard + 2).getRowTextString(row));
-                sb.append("\n");
+                for (int board = 0; board < 3; ++board) {
+                    template.slot().text(" | ").slot().text(" | ").slot();
+                    template.text(board < 2 ? boardSpacer : "\n");
+                }
                 if (row <= 1) {
-                    sb.append(rowDivider).append(boardSpacer)
-                            .append(rowDivider).append(boardSpacer)
-                            .append(rowDivider).append("\n");
+                    template.text(rowDivider).text(boardSpacer)
+                            .text(rowDivider).text(boardSpacer)
+                            .text(rowDivider).text("\n");
                 }
             }
-            firstBoard += 3;
-            sb.append("\n\n");
+            template.text("\n\n");
         }
-
-        return sb.toString();
+        return template.build(2);
     }
 
     // Unit test support
@@ -0,0 +1,124 @@
+package com.pbemgs.game.ninetac;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.game.GameEngine;
+import com.pbemgs.model.GameType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Ninetac rules.  Seat 0 is X, seat 1 is O.  Moves are the number to claim, 1-27.
+ */
+public class NinetacEngine implements GameEngine<NinetacBoard, Integer> {
+    public static final int MAX_NUMBER = 27;
+    private static final int BOARDS_TO_WIN = 5;
+
+    private final LambdaLogger logger;
+
+    public NinetacEngine(LambdaLogger logger) {
+        this.logger = logger;
+    }
+
+    public static int getPlayerMarker(int seat) {
+        return seat == 0 ? NinetacBoard.PLAYER_X : NinetacBoard.PLAYER_O;
+    }
+
+    @Override
+    public GameType getGameType() {
+        return GameType.NINETAC;
+    }
+
+    @Override
+    public int getNumPlayers() {
+        return 2;
+    }
+
+    @Override
+    public NinetacBoard newBoard(Random rng) {
+        NinetacBoard board = new NinetacBoard(logger);
+        board.createRandomizedBoard27();
+        return board;
+    }
+
+    @Override
+    public NinetacBoard deserialize(String boardState) {
+        NinetacBoard board = new NinetacBoard(logger);
+        board.deserialize(boardState);
+        return board;
+    }
+
+    @Override
+    public String serialize(NinetacBoard board) {
+        return board.serialize();
+    }
+
+    @Override
+    public Integer parseMove(String moveText) {
+        try {
+            return Integer.parseInt(moveText.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String formatMove(Integer move) {
+        return String.valueOf(move);
+    }
+
+    @Override
+    public String validateMove(NinetacBoard board, int seat, Integer move) {
+        if (move < 1 || move > MAX_NUMBER) {
+            return "This number is not valid, the range is 1 to " + MAX_NUMBER + ".";
+        }
+        if (!board.isMoveValid(move)) {
+            return "This number is not available on the board.  Please pick a valid number.";
+        }
+        return null;
+    }
+
+    @Override
+    public void applyMove(NinetacBoard board, int seat, Integer move) {
+        board.makeMove(getPlayerMarker(seat), move);
+    }
+
+    @Override
+    public List<Integer> getLegalMoves(NinetacBoard board, int seat) {
+        List<Integer> moves = new ArrayList<>();
+        for (int number = 1; number <= MAX_NUMBER; ++number) {
+            if (board.isMoveValid(number)) {
+                moves.add(number);
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Five boards wins outright; otherwise once no numbers remain, the most boards wins.
+     */
+    @Override
+    public int getResult(NinetacBoard board, int nextSeat) {
+        int xCount = board.getClaimedCount(NinetacBoard.PLAYER_X);
+        int oCount = board.getClaimedCount(NinetacBoard.PLAYER_O);
+        if (xCount >= BOARDS_TO_WIN) {
+            return 0;
+        }
+        if (oCount >= BOARDS_TO_WIN) {
+            return 1;
+        }
+        if (!board.isBoardFull()) {
+            return IN_PROGRESS;
+        }
+        if (xCount != oCount) {
+            return xCount > oCount ? 0 : 1;
+        }
+        return DRAW;
+    }
+
+    @Override
+    public String getBoardText(NinetacBoard board) {
+        return board.getBoardTextBody();
+    }
+}
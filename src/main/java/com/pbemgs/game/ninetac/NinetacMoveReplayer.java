@@ -0,0 +1,29 @@
+package com.pbemgs.game.ninetac;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.game.MoveReplayer;
+
+/**
+ * Ninetac move log notation: player and number claimed, e.g. "X:17".
+ */
+public class NinetacMoveReplayer implements MoveReplayer {
+    private final LambdaLogger logger;
+
+    public NinetacMoveReplayer(LambdaLogger logger) {
+        this.logger = logger;
+    }
+
+    public static String moveText(int playerSymbol, int number) {
+        return (playerSymbol == NinetacBoard.PLAYER_X ? "X" : "O") + ":" + number;
+    }
+
+    @Override
+    public String apply(String boardState, String moveText) {
+        String[] parts = moveText.split(":");
+        int playerSymbol = parts[0].equals("X") ? NinetacBoard.PLAYER_X : NinetacBoard.PLAYER_O;
+        NinetacBoard board = new NinetacBoard(logger);
+        board.deserialize(boardState);
+        board.makeMove(playerSymbol, Integer.parseInt(parts[1]));
+        return board.serialize();
+    }
+}
@@ -71,14 +71,8 @@ public class NinetacTextResponseProvider {
         return "- Game ID: " + gameId.toString() + " - Created By: " + usersRecord.getHandle() + "\n";
     }
 
-    public static String getMoveInvalidNumberText(int move, long gameId) {
-        return "You requested the move " + move + " in Ninetac Game ID: " + gameId + ".\n" +
-                "This number is not valid, the range is 1 to 27.";
-    }
-
-    public static String getMoveUnavailableText(long gameId, int move) {
-        return "You requested the move " + move + " in Ninetac Game ID: " + gameId + ".\n" +
-                "This number is not available on the board.  Please pick a valid number.";
+    public static String getMoveInvalidText(int move, long gameId, String errorMessage) {
+        return "You requested the move " + move + " in Ninetac Game ID: " + gameId + ".\n" + errorMessage;
     }
 
     public static String getGameHeader(long gameId, String topSymbol, String topHandle, int topClaimed, boolean topActive,
@@ -91,22 +91,20 @@ public class SingleBoard {
         return isWon ? winner : 0;
     }
 
-    public String getRowTextString(int row) {
-        if (isWon) {
-            String fill = winner == NinetacBoard.PLAYER_X ? X_REP : O_REP;
-            return fill + " | " + fill + " | " + fill;
+    /**
+     * Appends the two-character display text for a cell.  Every cell of a won board shows the winner.
+     */
+    public void appendCellText(StringBuilder sb, int cell) {
+        int cellVal = isWon ? winner : cells[cell];
+        switch (cellVal) {
+            case NinetacBoard.PLAYER_X -> sb.append(X_REP);
+            case NinetacBoard.PLAYER_O -> sb.append(O_REP);
+            default -> {
+                if (cellVal < 10) {
+                    sb.append('0');
+                }
+                sb.append(cellVal);
+            }
         }
-        return String.format("%2s | %2s | %2s",
-                renderCell(cells[row * 3]),
-                renderCell(cells[row * 3 + 1]),
-                renderCell(cells[row * 3 + 2]));
-    }
-
-    private String renderCell(int cellVal) {
-        return switch (cellVal) {
-            case NinetacBoard.PLAYER_X -> X_REP;
-            case NinetacBoard.PLAYER_O -> O_REP;
-            default -> String.format("%02d", cellVal);
-        };
     }
 }
\ No newline at end of file
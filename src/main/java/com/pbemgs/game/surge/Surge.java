@@ -1,22 +1,28 @@
 package com.pbemgs.game.surge;
 
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.VisibleForTesting;
 import com.pbemgs.controller.SESEmailSender;
 import com.pbemgs.dko.PlayerOutcomesDKO;
+import com.pbemgs.dko.StaleGameUpdateException;
 import com.pbemgs.dko.SurgeGamesDKO;
 import com.pbemgs.dko.SurgePlayersDKO;
 import com.pbemgs.dko.UsersDKO;
 import com.pbemgs.game.GameInterface;
 import com.pbemgs.game.GameMessageMailer;
 import com.pbemgs.game.GameTextUtilities;
+import com.pbemgs.game.GameUpdateRetry;
 import com.pbemgs.generated.enums.PlayerOutcomesOutcome;
 import com.pbemgs.generated.enums.SurgeGamesGameState;
 import com.pbemgs.generated.enums.SurgeGamesGameTimezone;
 import com.pbemgs.generated.enums.SurgePlayersStatus;
+import com.pbemgs.generated.tables.records.PlayerOutcomesRecord;
 import com.pbemgs.generated.tables.records.SurgeGamesRecord;
 import com.pbemgs.generated.tables.records.SurgePlayersRecord;
 import com.pbemgs.generated.tables.records.UsersRecord;
+import com.pbemgs.model.ActiveGameSummary;
 import com.pbemgs.model.GameType;
+import com.pbemgs.model.LeveledLogger;
 import com.pbemgs.model.Location;
 import com.pbemgs.model.S3Email;
 import org.jooq.DSLContext;
@@ -40,10 +46,13 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
+import static com.pbemgs.generated.tables.SurgeGames.SURGE_GAMES;
+
 public class Surge implements GameInterface {
     private static final String GAME_NAME = "Surge";
     private static final int PLAYER_GAME_LIMIT = 3;
     private static final int MAX_OPEN_GAMES = 15;
+    private static final int TICK_WRITE_GROUP_SIZE = 25;  // games written per transaction by the periodic update
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("h:mm a z (M/d/yy)");
     public static final Map<String, ZoneId> GAME_TIME_ZONES = Map.of(
             "ET", ZoneId.of("America/New_York"), // Eastern Time (US)
@@ -55,7 +64,14 @@ public class Surge implements GameInterface {
     private record TextBodyParseResult(List<SurgeCommand> commands, boolean success, String error) {
     }
 
+    // One game's periodic update, computed but not yet written.  readVersion is the game version it was computed from.
+    record TickResult(SurgeGamesRecord game, int readVersion, List<SurgePlayersRecord> players,
+                              List<UsersRecord> users, String commandString, List<SurgePlayersRecord> eliminated,
+                              UsersRecord winner, List<PlayerOutcomesRecord> outcomes) {
+    }
+
     private final LambdaLogger logger;
+    private final LeveledLogger log;
     private final DSLContext dslContext;
     private final SurgeGamesDKO surgeGamesDKO;
     private final SurgePlayersDKO surgePlayersDKO;
@@ -64,6 +80,7 @@ public class Surge implements GameInterface {
     public Surge(DSLContext dslContext, LambdaLogger logger) {
         this.dslContext = dslContext;
         this.logger = logger;
+        this.log = LeveledLogger.of(logger, "surge");
         this.surgeGamesDKO = new SurgeGamesDKO(dslContext);
         this.surgePlayersDKO = new SurgePlayersDKO(dslContext);
         this.usersDKO = new UsersDKO(dslContext);
@@ -139,6 +156,10 @@ public class Surge implements GameInterface {
 
     @Override
     public void processJoinGame(UsersRecord user, long gameId, SESEmailSender emailSender) {
+        GameUpdateRetry.run(logger, "SURGE join_game " + gameId, () -> attemptJoinGame(user, gameId, emailSender));
+    }
+
+    private void attemptJoinGame(UsersRecord user, long gameId, SESEmailSender emailSender) {
         List<SurgeGamesRecord> userGames = surgeGamesDKO.getActiveGamesForUser(user.getUserId());
         if (userGames.size() >= PLAYER_GAME_LIMIT) {
             GameMessageMailer.gameLimitReached(emailSender, user.getEmailAddr(), "join_game", GameType.SURGE);
@@ -160,7 +181,8 @@ public class Surge implements GameInterface {
 
         boolean isFinalPlayer = players.size() + 1 == game.getNumPlayers();
 
-        // Single DB transaction for adding the new player (always) and staring the game (if ready)
+        // Single DB transaction for adding the new player (always) and staring the game (if ready).
+        // The game row is updated on every join so its version check stops two joins taking the same seat.
         try {
             dslContext.transaction(configuration -> {
                 DSLContext trx = DSL.using(configuration);
@@ -170,18 +192,20 @@ public class Surge implements GameInterface {
                 if (isFinalPlayer) {
                     game.setLastTimeStep(LocalDateTime.now());
                     game.setGameState(SurgeGamesGameState.IN_PROGRESS);
-                    new SurgeGamesDKO(trx).updateGame(game);
                 }
+                new SurgeGamesDKO(trx).updateGame(game);
             });
 
             if (isFinalPlayer) {
-                List<UsersRecord> userList = getUserList(game);
                 List<SurgePlayersRecord> playerList = surgePlayersDKO.getPlayersForGame(game.getGameId());
+                List<UsersRecord> userList = getUserList(playerList);
                 sendGameStateEmail(emailSender, game, userList, playerList,
                         "PBEMGS - Surge game has started!  Game ID:", "");
             } else {
                 GameMessageMailer.joinSuccess(emailSender, user.getEmailAddr(), GameType.SURGE, gameId);
             }
+        } catch (StaleGameUpdateException e) {
+            throw e;  // lost a race with another join - retried by the caller
         } catch (Exception e) {
             logger.log("Error in join_game transaction: " + e.getMessage() + "\n" +
                     Arrays.stream(e.getStackTrace())
@@ -307,18 +331,14 @@ public class Surge implements GameInterface {
             return SurgeTextResponseProvider.getNoOpenGamesText();
         }
 
-        // Collect user IDs per game in a single pass
-        Map<Long, Set<Long>> usersByGameMap = openGames.stream()
-                .collect(Collectors.toMap(
-                        SurgeGamesRecord::getGameId, // Key: game ID
-                        game -> surgePlayersDKO.getPlayersForGame(game.getGameId()).stream()
-                                .map(SurgePlayersRecord::getUserId)
-                                .collect(Collectors.toSet()) // Collect user IDs as a set
-                ));
+        // Players for all open games in one query, then all of their users in one more
+        Map<Long, List<SurgePlayersRecord>> playersByGame = surgePlayersDKO.getPlayersForGames(
+                openGames.stream().map(SurgeGamesRecord::getGameId).toList());
 
-        // Flatten all user IDs from the map into a set for batch fetching
-        Set<Long> userIds = usersByGameMap.values().stream()
-                .flatMap(Set::stream).collect(Collectors.toSet());
+        Set<Long> userIds = playersByGame.values().stream()
+                .flatMap(List::stream)
+                .map(SurgePlayersRecord::getUserId)
+                .collect(Collectors.toSet());
 
         Map<Long, UsersRecord> usersById = usersDKO.fetchUsersByIds(userIds);
 
@@ -326,8 +346,8 @@ public class Surge implements GameInterface {
         sb.append(SurgeTextResponseProvider.getOpenGamesHeaderText(openGames.size()));
 
         openGames.forEach(game -> {
-            List<UsersRecord> thisGameUsers = usersByGameMap.get(game.getGameId()).stream()
-                    .map(usersById::get).collect(Collectors.toList());
+            List<UsersRecord> thisGameUsers = playersByGame.getOrDefault(game.getGameId(), List.of()).stream()
+                    .map(player -> usersById.get(player.getUserId())).collect(Collectors.toList());
             sb.append(SurgeTextResponseProvider.getOpenGameDescription(game, thisGameUsers));
         });
 
@@ -356,26 +376,24 @@ public class Surge implements GameInterface {
     }
 
     @Override
-    public String getMyGamesTextBody(long userId) {
+    public String getMyGamesTextBody(long userId, List<ActiveGameSummary> activeGames) {
         StringBuilder sb = new StringBuilder();
         sb.append("SURGE:\n");
-        List<SurgeGamesRecord> myGames = surgeGamesDKO.getActiveGamesForUser(userId);
-        if (myGames.isEmpty()) {
+        if (activeGames.isEmpty()) {
             sb.append(" - No active Surge games.");
         }
-        for (SurgeGamesRecord game : myGames) {
-            sb.append("-- Game ID: ").append(game.getGameId());
-            if (game.getGameState() == SurgeGamesGameState.OPEN) {
+        for (ActiveGameSummary game : activeGames) {
+            sb.append("-- Game ID: ").append(game.gameId());
+            if (game.open()) {
                 sb.append(" is waiting for opponent(s).\n");
             } else {
-                ZonedDateTime nextUpdateTime = getNextUpdateTime(game.getTicksPerDay(), GAME_TIME_ZONES.get(game.getGameTimezone().getLiteral()), game.getLastTimeStep());
+                ZonedDateTime nextUpdateTime = getNextUpdateTime(game.ticksPerDay(), GAME_TIME_ZONES.get(game.gameTimezone()), game.lastTimeStep());
                 String updateTimeStr = nextUpdateTime.format(TIME_FORMATTER);
                 String durationUntilNextUpdateStr = getUntilNextUpdateString(nextUpdateTime);
                 sb.append(" is in progress.  Next update time is: ");
                 sb.append(updateTimeStr);
                 sb.append(" (in ").append(durationUntilNextUpdateStr).append(") ");
-                SurgePlayersRecord thisPlayer = surgePlayersDKO.getPlayerByUserId(game.getGameId(), userId);
-                if (thisPlayer.getCurrentCommand() == null || thisPlayer.getCurrentCommand().isEmpty()) {
+                if (game.needsInput()) {
                     sb.append(" - No Current Gate Commands!");
                 }
                 sb.append("\n");
@@ -384,19 +402,14 @@ public class Surge implements GameInterface {
         return sb.toString();
     }
 
-    private List<UsersRecord> getUserList(SurgeGamesRecord game) {
-        List<SurgePlayersRecord> playerRecs = surgePlayersDKO.getPlayersForGame(game.getGameId());
-
-        // Sort by player number
-        playerRecs.sort(Comparator.comparingInt(SurgePlayersRecord::getSeatNumber));
-
-        Map<Long, UsersRecord> usersById = usersDKO.fetchUsersByIds(
-                playerRecs.stream().map(SurgePlayersRecord::getUserId).collect(Collectors.toSet())
-        );
-
-        return playerRecs.stream()
-                .map(player -> usersById.get(player.getUserId())) // Map to UsersRecord
-                .toList();
+    /**
+     * Users for the given player records, in player number order - one query for all of them.
+     */
+    private List<UsersRecord> getUserList(List<SurgePlayersRecord> playerRecs) {
+        return usersDKO.fetchUsersInOrder(playerRecs.stream()
+                .sorted(Comparator.comparingInt(SurgePlayersRecord::getSeatNumber))
+                .map(SurgePlayersRecord::getUserId)
+                .toList());
     }
 
     private int getSeatNumber(UsersRecord user, List<SurgePlayersRecord> players) {
@@ -549,115 +562,173 @@ public class Surge implements GameInterface {
 
     /**
      * API Endpoint for the overall periodic update for all Surge games
-     * Checks all active games for updates that need to happen at the moment, and runs the update
-     * for those individually.
+     * Checks all active games for updates that need to happen at the moment, runs the update for those in memory,
+     * writes them back in batches, and then sends out the board state emails.
      */
     @Override
     public void processPeriodicUpdate(SESEmailSender emailSender) {
         logger.log("Processing periodic update step for Surge games.");
         List<SurgeGamesRecord> surgeGames = surgeGamesDKO.getActiveGames();
 
+        List<SurgeGamesRecord> dueGames = new ArrayList<>();
         for (SurgeGamesRecord game : surgeGames) {
             ZonedDateTime nextUpdateTime = getNextUpdateTime(game.getTicksPerDay(),
                     GAME_TIME_ZONES.get(game.getGameTimezone().getLiteral()), game.getLastTimeStep());
 
             ZonedDateTime now = ZonedDateTime.now();
-            logger.log("checking game ID: " + game.getGameId() + " - lastUpdateTime: " + game.getLastTimeStep() + " - nextUpdateTime: " + nextUpdateTime.toString() +
-                    " - now: " + now.toString());
+            log.debug(() -> "checking game ID: " + game.getGameId() + " - lastUpdateTime: " + game.getLastTimeStep() +
+                    " - nextUpdateTime: " + nextUpdateTime.toString() + " - now: " + now.toString());
 
             if (now.isAfter(nextUpdateTime)) {
-                logger.log("Updating Surge Game ID: " + game.getGameId());
-
-                SurgeBoard board = new SurgeBoard(game.getBoardRows(), game.getBoardCols(), SurgeBoard.PROD_COEFFS, logger);
-                board.deserialize(game.getBoardState(), game.getGeyserState(), game.getPressureState(), game.getMomentumState());
-                List<SurgePlayersRecord> players = surgePlayersDKO.getPlayersForGame(game.getGameId());
-                List<UsersRecord> users = getUserList(game);
-
-                Set<SurgeCommand> commands = players.stream()
-                        .map(SurgePlayersRecord::getCurrentCommand)  // Extract command string
-                        .filter(Objects::nonNull)  // Ensure we skip null commands
-                        .flatMap(commandStr -> SurgeCommand.parseCommandList(commandStr).stream())  // Parse and flatten lists
-                        .collect(Collectors.toSet());  // Collect into a Set
-
-                String commandString = board.processGateCommands(commands);
-                board.processUpdateStep(game.getNumPlayers());
-
-                // Update game data representation - geysers are static, no need to re-serialize those
-                game.setLastTimeStep(LocalDateTime.now());
-                game.setBoardState(board.serializeBoardState());
-                game.setPressureState(board.serializePressure());
-                game.setMomentumState(board.serializeMomentum());
-                surgeGamesDKO.updateGame(game);
-
-                // Update player data (wipe commands)
-                surgePlayersDKO.clearAllCommandsForGame(game.getGameId());
-
-                // Board State Email out
-                sendGameStateEmail(emailSender, game, users, players, "MOVE SURGE", commandString);
-
-                // Check for player elimination (< 5% of total force on map)
-                Map<Integer, Integer> totalForceByPlayer = board.getTotalForceMap();
-                int totalForce = totalForceByPlayer.values().stream().mapToInt(Integer::intValue).sum();
-                totalForceByPlayer.remove(0);  // remove neutral for finding the number of remaining players.
-                int remainingPlayers = totalForceByPlayer.size();
-                int activePlayers = 0;
-                int winnerSeat = 0;
-                for (SurgePlayersRecord player : players) {
-                    if (player.getStatus() == SurgePlayersStatus.ACTIVE) {
-                        double percent = (100.0 * totalForceByPlayer.get(player.getSeatNumber())) / totalForce;
-                        logger.log("- Elim check: " + player.getSeatNumber() + " has " + percent + "% of total (" + totalForce + ")");
-                        if (percent < 5.0) {
-                            logger.log("-- attempting to eliminate player!");
-                            handlePlayerElimination(game, board, player.getSeatNumber(), player.getUserId(), remainingPlayers);
-                            emailSender.sendEmail(users.get(player.getSeatNumber() - 1).getEmailAddr(),
-                                    "PBEMGS - Eliminated in Surge Game " + game.getGameId(),
-                                    SurgeTextResponseProvider.getEliminationText());
-                        } else {
-                            ++activePlayers;
-                            winnerSeat = player.getSeatNumber();
-                        }
-                    }
-                }
+                dueGames.add(game);
+            }
+        }
+        if (dueGames.isEmpty()) {
+            return;
+        }
 
-                logger.log("active players: " + activePlayers);
-                if (activePlayers == 1) {
-                    processEndOfGame(game, users.get(winnerSeat - 1), emailSender);
-                }
-            }  // end if (need to update this game)
+        // Tick every due game in memory, then write the results in grouped transactions, then send email.
+        Map<Long, List<SurgePlayersRecord>> playersByGame =
+                surgePlayersDKO.getPlayersForGames(dueGames.stream().map(SurgeGamesRecord::getGameId).toList());
+        Map<Long, UsersRecord> usersById = usersDKO.fetchUsersByIds(playersByGame.values().stream()
+                .flatMap(List::stream)
+                .map(SurgePlayersRecord::getUserId)
+                .collect(Collectors.toSet()));
+        List<TickResult> results = new ArrayList<>();
+        for (SurgeGamesRecord game : dueGames) {
+            logger.log("Updating Surge Game ID: " + game.getGameId());
+            List<SurgePlayersRecord> players = playersByGame.getOrDefault(game.getGameId(), List.of());
+            List<UsersRecord> users = players.stream().map(p -> usersById.get(p.getUserId())).toList();
+            results.add(computeTick(game, players, users));
+        }
+
+        for (TickResult result : writeTickResults(results)) {
+            SurgeGamesRecord game = result.game();
+            sendGameStateEmail(emailSender, game, result.users(), result.players(), "MOVE SURGE", result.commandString());
+            for (SurgePlayersRecord player : result.eliminated()) {
+                emailSender.sendEmail(result.users().get(player.getSeatNumber() - 1).getEmailAddr(),
+                        "PBEMGS - Eliminated in Surge Game " + game.getGameId(),
+                        SurgeTextResponseProvider.getEliminationText());
+            }
+            if (result.winner() != null) {
+                emailSender.sendEmail(result.winner().getEmailAddr(), "PBEMGS - Victory in Surge Game " + game.getGameId() + "!",
+                        SurgeTextResponseProvider.getVictoryText());
+            }
         }
     }
 
-    private void handlePlayerElimination(SurgeGamesRecord game, SurgeBoard gameBoard,
-                                         int playerId, long userId, int remainingPlayers) {
-        try {
-            gameBoard.eliminatePlayer(playerId);
-            game.setBoardState(gameBoard.serializeBoardState());
-            dslContext.transaction(configuration -> {
-                DSLContext trx = DSL.using(configuration);
-                new SurgeGamesDKO(trx).updateGame(game);
-                new SurgePlayersDKO(trx).eliminatePlayer(userId, game.getGameId());
-                new PlayerOutcomesDKO(trx).insertOutcome(GameType.SURGE, game.getGameId(), userId,
-                        PlayerOutcomesOutcome.LOSS, remainingPlayers, null);
-            });
-        } catch (Exception e) {
-            // fall through - it'll catch on the next pass
+    /**
+     * Runs one update step on the game in memory: gate commands, the board update, eliminations
+     * (< 5% of total force on map) and the end of game check.  The game record is updated; nothing is written.
+     */
+    private TickResult computeTick(SurgeGamesRecord game, List<SurgePlayersRecord> players, List<UsersRecord> users) {
+        int readVersion = game.getVersion();
+        SurgeBoard board = new SurgeBoard(game.getBoardRows(), game.getBoardCols(), SurgeBoard.PROD_COEFFS, logger);
+        board.deserialize(game.getBoardState(), game.getGeyserState(), game.getPressureState(), game.getMomentumState());
+
+        Set<SurgeCommand> commands = players.stream()
+                .map(SurgePlayersRecord::getCurrentCommand)  // Extract command string
+                .filter(Objects::nonNull)  // Ensure we skip null commands
+                .flatMap(commandStr -> SurgeCommand.parseCommandList(commandStr).stream())  // Parse and flatten lists
+                .collect(Collectors.toSet());  // Collect into a Set
+
+        String commandString = board.processGateCommands(commands);
+        board.processUpdateStep(game.getNumPlayers());
+
+        // Check for player elimination (< 5% of total force on map)
+        Map<Integer, Integer> totalForceByPlayer = board.getTotalForceMap();
+        int totalForce = totalForceByPlayer.values().stream().mapToInt(Integer::intValue).sum();
+        totalForceByPlayer.remove(0);  // remove neutral for finding the number of remaining players.
+        int remainingPlayers = totalForceByPlayer.size();
+        int activePlayers = 0;
+        int winnerSeat = 0;
+        List<SurgePlayersRecord> eliminated = new ArrayList<>();
+        List<PlayerOutcomesRecord> outcomes = new ArrayList<>();
+        PlayerOutcomesDKO outcomeBuilder = new PlayerOutcomesDKO(dslContext);
+        for (SurgePlayersRecord player : players) {
+            if (player.getStatus() == SurgePlayersStatus.ACTIVE) {
+                double percent = (100.0 * totalForceByPlayer.get(player.getSeatNumber())) / totalForce;
+                log.debug(() -> "- Elim check: " + player.getSeatNumber() + " has " + percent + "% of total (" + totalForce + ")");
+                if (percent < 5.0) {
+                    logger.log("Surge Game ID " + game.getGameId() + " - eliminating seat " + player.getSeatNumber());
+                    board.eliminatePlayer(player.getSeatNumber());
+                    eliminated.add(player);
+                    outcomes.add(outcomeBuilder.newOutcome(GameType.SURGE, game.getGameId(), player.getUserId(),
+                            PlayerOutcomesOutcome.LOSS, remainingPlayers, null));
+                } else {
+                    ++activePlayers;
+                    winnerSeat = player.getSeatNumber();
+                }
+            }
         }
-    }
 
-    private void processEndOfGame(SurgeGamesRecord game, UsersRecord user, SESEmailSender emailSender) {
-        try {
+        int activePlayerCount = activePlayers;
+        log.debug(() -> "active players: " + activePlayerCount);
+        UsersRecord winner = null;
+        if (activePlayers == 1) {
+            winner = users.get(winnerSeat - 1);
             game.setGameState(SurgeGamesGameState.COMPLETE);
-            dslContext.transaction(configuration -> {
-                DSLContext trx = DSL.using(configuration);
-                new SurgeGamesDKO(trx).updateGame(game);
-                new PlayerOutcomesDKO(trx).insertOutcome(GameType.SURGE, game.getGameId(), user.getUserId(),
-                        PlayerOutcomesOutcome.WIN, 1, null);
-            });
-            emailSender.sendEmail(user.getEmailAddr(), "PBEMGS - Victory in Surge Game " + game.getGameId() + "!",
-                    SurgeTextResponseProvider.getVictoryText());
-        } catch (Exception e) {
-            // do nothing but don't throw - it'll catch next tick
+            outcomes.add(outcomeBuilder.newOutcome(GameType.SURGE, game.getGameId(), winner.getUserId(),
+                    PlayerOutcomesOutcome.WIN, 1, null));
+        }
+
+        // Update game data representation - geysers are static, no need to re-serialize those
+        game.setLastTimeStep(LocalDateTime.now());
+        game.setBoardState(board.serializeBoardState());
+        game.setPressureState(board.serializePressure());
+        game.setMomentumState(board.serializeMomentum());
+        return new TickResult(game, readVersion, players, users, commandString, eliminated, winner, outcomes);
+    }
+
+    /**
+     * Writes the tick results TICK_WRITE_GROUP_SIZE games per transaction, each group as a handful of batched
+     * statements.  If a group fails (typically a game updated under us), its games are retried one per transaction
+     * so one bad game doesn't hold up the others.  Returns the results that were committed.
+     * A failed group leaves the records as computed (version and GAME_STATE changed flag included), so the retry
+     * writes and syncs them again; the changed flag is only cleared once a game's transaction commits.
+     */
+    @VisibleForTesting
+    List<TickResult> writeTickResults(List<TickResult> results) {
+        List<TickResult> written = new ArrayList<>();
+        for (int start = 0; start < results.size(); start += TICK_WRITE_GROUP_SIZE) {
+            List<TickResult> group = results.subList(start, Math.min(results.size(), start + TICK_WRITE_GROUP_SIZE));
+            try {
+                dslContext.transaction(configuration -> writeTickGroup(DSL.using(configuration), group));
+                group.forEach(Surge::markCommitted);
+                written.addAll(group);
+                continue;
+            } catch (Exception e) {
+                logger.log("Grouped write of " + group.size() + " Surge games failed, writing one at a time: " + e.getMessage());
+            }
+
+            for (TickResult result : group) {
+                result.game().setVersion(result.readVersion());
+                try {
+                    dslContext.transaction(configuration -> writeTickGroup(DSL.using(configuration), List.of(result)));
+                    markCommitted(result);
+                    written.add(result);
+                } catch (StaleGameUpdateException e) {
+                    // Another update run got to this game first - leave it to that one.
+                    logger.log("Skipping Surge Game ID " + result.game().getGameId() + ": " + e.getMessage());
+                } catch (Exception e) {
+                    // don't throw - the game is still due, so it'll catch on the next tick
+                    logger.log("Failed to write Surge Game ID " + result.game().getGameId() + ": " + e.getMessage());
+                }
+            }
         }
+        return written;
+    }
+
+    private static void markCommitted(TickResult result) {
+        result.game().changed(SURGE_GAMES.GAME_STATE, false);
+    }
+
+    private void writeTickGroup(DSLContext trx, List<TickResult> group) {
+        new SurgeGamesDKO(trx).updateGames(group.stream().map(TickResult::game).toList());
+        SurgePlayersDKO trxPlayersDKO = new SurgePlayersDKO(trx);
+        trxPlayersDKO.clearAllCommandsForGames(group.stream().map(r -> r.game().getGameId()).toList());
+        trxPlayersDKO.eliminatePlayers(group.stream().flatMap(r -> r.eliminated().stream()).toList());
+        new PlayerOutcomesDKO(trx).insertOutcomes(group.stream().flatMap(r -> r.outcomes().stream()).toList());
     }
 
     // Timing methods
@@ -709,24 +780,31 @@ public class Surge implements GameInterface {
         gameBoard.deserialize(game.getBoardState(), game.getGeyserState(), game.getPressureState(), game.getMomentumState());
         Map<Integer, Integer> forceByPlayerId = gameBoard.getTotalForceMap();
 
-        String htmlHeader = generatePlayerDisplayHtml(game, forceByPlayerId);
+        // With a player list the recipients are the whole game, in seat order; otherwise look the players up.
+        List<UsersRecord> usersInGameOrdered = playerList != null ? userList :
+                getUserList(surgePlayersDKO.getPlayersForGame(game.getGameId()));
+        String htmlHeader = generatePlayerDisplayHtml(game, usersInGameOrdered, forceByPlayerId);
         String boardTextHtml = gameBoard.getBoardTextHtml();
         String symbolKeyTextHtml = generateSymbolKeyText();
         String threatenedGeyserString = gameBoard.getThreatenedGeyserList();
         String threatOutput = threatenedGeyserString.isEmpty() ? "" : "\n\nThreatened Geyser Force:\n" + threatenedGeyserString;
 
+        // Everyone gets the same text, so it is built once and the sender shares its MIME parts.
+        String subject = subjectHeader + " " + game.getGameId();
+        String body = htmlHeader + "\n\n" + commandWrite +
+                "\n\nBoard State:\n\n" + boardTextHtml + "\n\n" + threatOutput +
+                "\n\n" + symbolKeyTextHtml;
+        List<SESEmailSender.Email> emails = new ArrayList<>();
         for (int i = 0; i < userList.size(); ++i) {
             if (playerList == null || playerList.get(i).getStatus() == SurgePlayersStatus.ACTIVE) {
-                emailSender.sendEmail(userList.get(i).getEmailAddr(), subjectHeader + " " + game.getGameId(),
-                        htmlHeader + "\n\n" + commandWrite +
-                                "\n\nBoard State:\n\n" + boardTextHtml + "\n\n" + threatOutput +
-                                "\n\n" + symbolKeyTextHtml);
+                emails.add(new SESEmailSender.Email(userList.get(i).getEmailAddr(), subject, body));
             }
         }
+        emailSender.sendEmails(emails);
     }
 
-    private String generatePlayerDisplayHtml(SurgeGamesRecord game, Map<Integer, Integer> forceByPlayerId) {
-        List<UsersRecord> usersInGameOrdered = getUserList(game);
+    private String generatePlayerDisplayHtml(SurgeGamesRecord game, List<UsersRecord> usersInGameOrdered,
+                                             Map<Integer, Integer> forceByPlayerId) {
         StringBuilder sb = new StringBuilder();
         sb.append("Current board state for Surge Game # ").append(game.getGameId()).append(".\n");
         sb.append("(Command Limit: ").append(game.getCommandLimit()).append(")\n\n");
@@ -2,6 +2,8 @@ package com.pbemgs.game.surge;
 
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.pbemgs.VisibleForTesting;
+import com.pbemgs.game.BoardTemplate;
+import com.pbemgs.model.LeveledLogger;
 import com.pbemgs.model.Location;
 import com.pbemgs.model.MonoSymbol;
 
@@ -19,6 +21,7 @@ import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 public class SurgeBoard {
@@ -43,6 +46,11 @@ public class SurgeBoard {
     private record ForceMove(int r, int c, int playerNum) {
     }  // Location is the move-to square
 
+    private record GridSize(int rows, int cols) {
+    }
+
+    private static final Map<GridSize, BoardTemplate> TEMPLATES_BY_SIZE = new ConcurrentHashMap<>();
+
     private final int rows;
     private final int cols;
     private final SurgeSquare[][] grid;
@@ -50,14 +58,14 @@ public class SurgeBoard {
 
     private int[][] pressure;  // actual incoming quantity last turn.
     private Map<SurgeGate, Integer> momentumByGate;
-    private final LambdaLogger logger;
+    private final LeveledLogger log;
 
     // coefficients
     private final Coeffs coeffs;
 
     public SurgeBoard(int rows, int cols, Coeffs coeffs, LambdaLogger logger) {
         this.coeffs = coeffs;
-        this.logger = logger;
+        this.log = LeveledLogger.of(logger, "surge");
 
         this.rows = rows;
         this.cols = cols;
@@ -186,7 +194,7 @@ public class SurgeBoard {
     public void deserialize(String boardData, String geyserData, String pressureData, String momentumData) {
         String[] lines = boardData.split("\\|");
 
-        logger.log("Deserializing board state.  String state rows: " + lines.length);
+        log.debug(() -> "Deserializing board state.  String state rows: " + lines.length);
 
         // Deserialize board state
         for (int r = 0; r < rows; r++) {
@@ -198,20 +206,20 @@ public class SurgeBoard {
                 // false and edges should never be open so no need to check.
                 if (grid[r][c].isGateOpen(SurgeDirection.SOUTH)) {
                     if (r + 1 == rows) {
-                        logger.log("Serialization error - open gate off the south border");
+                        log.warn("Serialization error - open gate off the south border");
                     }
                     grid[r + 1][c].setGate(SurgeDirection.NORTH, true);
                 }
                 if (grid[r][c].isGateOpen(SurgeDirection.EAST)) {
                     if (c + 1 == cols) {
-                        logger.log("Serialization error - open gate off the east border");
+                        log.warn("Serialization error - open gate off the east border");
                     }
                     grid[r][c + 1].setGate(SurgeDirection.WEST, true);
                 }
             }
         }
 
-        logger.log("Done deserializing grid.  Deserializing Pressure...");
+        log.debug("Done deserializing grid.  Deserializing Pressure...");
         if (!pressureData.isEmpty()) {
             String[] rows = pressureData.split(";");
             for (int r = 0; r < rows.length; r++) {
@@ -222,7 +230,7 @@ public class SurgeBoard {
             }
         }
 
-        logger.log("Done deserializing pressure.  Deserializing Momentum...");
+        log.debug("Done deserializing pressure.  Deserializing Momentum...");
         momentumByGate.clear();
         if (!momentumData.isEmpty()) {
             for (String entry : momentumData.split(";")) {
@@ -239,7 +247,7 @@ public class SurgeBoard {
             }
         }
 
-        logger.log("Done deserializing board - deserializing Geysers...");
+        log.debug("Done deserializing board - deserializing Geysers...");
         deserializeGeysers(geyserData);
     }
 
@@ -307,10 +315,10 @@ public class SurgeBoard {
                         int newThatSide = computeInitialMomentum(new Location(oppSurgeGate.r(), oppSurgeGate.c()));
                         momentumByGate.put(thisSurgeGate, newThisSide);
                         momentumByGate.put(oppSurgeGate, newThatSide);
-                        System.out.println("Opening gate: " + thisSurgeGate.toString() + " to " + newThisSide + " - factors: qty: " +
+                        log.debug(() -> "Opening gate: " + thisSurgeGate + " to " + newThisSide + " - factors: qty: " +
                                 grid[command.getRow()][command.getCol()].getQuantity() + ", pressure: " +
                                 pressure[command.getRow()][command.getCol()]);
-                        System.out.println("Opening gate: " + oppSurgeGate.toString() + " to " + newThatSide + " - factors: qty: " +
+                        log.debug(() -> "Opening gate: " + oppSurgeGate + " to " + newThatSide + " - factors: qty: " +
                                 grid[oppSurgeGate.r()][oppSurgeGate.c()].getQuantity() + ", pressure: " +
                                 pressure[oppSurgeGate.r()][oppSurgeGate.c()]);
                         if (!executedOpens.isEmpty()) {
@@ -378,6 +386,7 @@ public class SurgeBoard {
      */
     public void processUpdateStep(int numPlayers) {
         LocalDateTime start = LocalDateTime.now();
+        boolean traceOn = log.isTraceEnabled();  // checked once - the flow loop below is the hot path
 
         // First, initialize all gate data.  Gate flow done is per player (including neutral player 0).
         List<Map<SurgeGate, Integer>> gateFlowPerPlayer = new ArrayList<>(numPlayers + 1);
@@ -407,8 +416,9 @@ public class SurgeBoard {
 
         for (int iteration = 0; iteration < coeffs.updateIter(); ++iteration) {
             Set<Location> nextToProcess = new HashSet<>();  // what to process next iteration
-            logger.log("");
-            logger.log("Update iteration: " + iteration);
+            if (traceOn) {
+                log.trace("Update iteration: " + iteration);
+            }
 
             // Collect quantity changes and apply at the end of the step.
             Map<ForceMove, Integer> qtyChangeByForce = new HashMap<>();
@@ -422,7 +432,9 @@ public class SurgeBoard {
                 int locOwner = tile.getPlayerNum();
                 int thisQty = tile.getQuantity();  // this square's current qty
                 int totalQty = tile.getQuantity(); // total of this and lower adjacent nodes
-                logger.log("- Processing loc: " + loc.toString() + ", qty: " + thisQty);
+                if (traceOn) {
+                    log.trace("- Processing loc: " + loc.toString() + ", qty: " + thisQty);
+                }
                 Map<SurgeDirection, Integer> pushTo = new HashMap<>();  // direction to adjacent quantity
                 for (SurgeDirection dir : SurgeDirection.values()) {
                     if (tile.isGateOpen(dir)) {
@@ -435,13 +447,17 @@ public class SurgeBoard {
                     }
                 }
 
-                logger.log("-- dir map: " + pushTo.toString());
+                if (traceOn) {
+                    log.trace("-- dir map: " + pushTo.toString());
+                }
                 // Push to an average target quantity, respecting the gate capacity.
                 if (!pushTo.isEmpty()) {
                     boolean updated = false;  // if any updates made, add appropriate squares for next pass
                     int equilibQty = Math.round((float) totalQty / (pushTo.size() + 1));
                     // equilibQty = Math.min(equilibQty, 1000);  // Don't move force unless there's actually room
-                    logger.log("-- equilibrium qty: " + equilibQty);
+                    if (traceOn) {
+                        log.trace("-- equilibrium qty: " + equilibQty);
+                    }
                     Map<SurgeGate, Integer> ownerFlowByGate = gateFlowPerPlayer.get(locOwner);
                     for (SurgeDirection dir : pushTo.keySet()) {
                         SurgeGate pushSurgeGate = new SurgeGate(loc.row(), loc.col(), dir);
@@ -457,7 +473,9 @@ public class SurgeBoard {
                             int remainingGateLimit = momentumByGate.get(pushSurgeGate) - ownerFlowByGate.getOrDefault(pushSurgeGate, 0);
 
                             diff = Math.min(distToTarget, remainingGateLimit);
-                            logger.log("--- push - Dir of: " + dir.name() + ", diff: " + diff);
+                            if (traceOn) {
+                                log.trace("--- push - Dir of: " + dir.name() + ", diff: " + diff);
+                            }
                         } else if (equilibQty < currPushTargetQty) {
                             // adjacent loc < current square, but > equil.  Pull from that square to here instead.
                             int distToTarget = currPushTargetQty - equilibQty;
@@ -470,7 +488,9 @@ public class SurgeBoard {
                             pullSurgeGate = new SurgeGate(loc.row(), loc.col(), dir);
                             ;
 
-                            logger.log("--- pull Dir of: " + dir.name() + ", diff: " + diff);
+                            if (traceOn) {
+                                log.trace("--- pull Dir of: " + dir.name() + ", diff: " + diff);
+                            }
                         }
 
                         if (diff > 0) {
@@ -500,8 +520,10 @@ public class SurgeBoard {
                 }  // end if (somewhere needed to push)
             }  // end while (processing squares)
 
-            logger.log("-- Qty Differences: " + qtyChangeByForce.toString());
-            logger.log("-- GateFlow List of Maps: " + gateFlowPerPlayer.toString());
+            if (traceOn) {
+                log.trace("-- Qty Differences: " + qtyChangeByForce.toString());
+                log.trace("-- GateFlow List of Maps: " + gateFlowPerPlayer.toString());
+            }
             // Apply quantity diffs, checking for combat.
             for (ForceMove delta : qtyChangeByForce.keySet()) {
                 // Note here: moving into an unoccupied square will put this in the combat map instead of
@@ -510,12 +532,16 @@ public class SurgeBoard {
                     // Retrieve the existing list of armies for this location, or create a new one if absent, then add.
                     combatForces.computeIfAbsent(new Location(delta.r(), delta.c()), k -> new HashMap<>())
                             .merge(delta.playerNum(), qtyChangeByForce.get(delta), Integer::sum);
-                    logger.log("---- Adding Combat Force: " + delta.toString() + " - " + qtyChangeByForce.get(delta));
+                    if (traceOn) {
+                        log.trace("---- Adding Combat Force: " + delta.toString() + " - " + qtyChangeByForce.get(delta));
+                    }
                 } else {
                     int newTotal = grid[delta.r()][delta.c()].getQuantity() + qtyChangeByForce.get(delta);
                     grid[delta.r()][delta.c()].update(delta.playerNum(), newTotal);
-                    logger.log("applying delta " + delta.toString() + " qty: " + qtyChangeByForce.get(delta) +
-                            " - new val: " + grid[delta.r()][delta.c()].getQuantity());
+                    if (traceOn) {
+                        log.trace("applying delta " + delta.toString() + " qty: " + qtyChangeByForce.get(delta) +
+                                " - new val: " + grid[delta.r()][delta.c()].getQuantity());
+                    }
                 }
             }
 
@@ -551,7 +577,9 @@ public class SurgeBoard {
                 armies.put(grid[fightLoc.row()][fightLoc.col()].getPlayerNum(),
                         grid[fightLoc.row()][fightLoc.col()].getQuantity());
             }
-            logger.log("handling combat at: " + fightLoc.toString() + " - contesting: " + armies.toString());
+            if (traceOn) {
+                log.trace("handling combat at: " + fightLoc.toString() + " - contesting: " + armies.toString());
+            }
 
             Army result = resolveCombat(armies, grid[fightLoc.row()][fightLoc.col()].getPlayerNum(), combatLosses);
             grid[fightLoc.row()][fightLoc.col()].update(result.playerNum(), result.force());
@@ -560,9 +588,9 @@ public class SurgeBoard {
         // Post-combat data collection/aggregation step
         computeUpdatedPressures(gateFlowPerPlayer);
         computeUpdatedMomentum(gateFlowPerPlayer);
-        System.out.println("combat losses: " + combatLosses.toString());
+        log.debug(() -> "combat losses: " + combatLosses.toString());
 
-        logger.log("Update time: " + Duration.between(start, LocalDateTime.now()).toMillis() + "ms");
+        log.debug(() -> "Update time: " + Duration.between(start, LocalDateTime.now()).toMillis() + "ms");
     }
 
     // Cache effective quantities - this is a per-player/per-location force count.
@@ -709,7 +737,7 @@ public class SurgeBoard {
             throw new IllegalArgumentException("resolveCombat requires at least 1 force!");
         }
 
-        logger.log("Start combat - forces: " + forceByPlayer.toString() + ", defender: " + defender);
+        log.trace(() -> "Start combat - forces: " + forceByPlayer.toString() + ", defender: " + defender);
 
         // First compute the effective force and combat index for each player.
         // effectiveForce = F or F * defenderPenalty (if that player is defending)
@@ -756,7 +784,7 @@ public class SurgeBoard {
 
         // If no player is dominant, then the result is a full wipe (mutual destruction).
         if (winningPlayer == null) {
-            logger.log("Combat result: wipe!");
+            log.trace("Combat result: wipe!");
             for (int player : forceByPlayer.keySet()) {
                 combatLosses.merge(player, forceByPlayer.get(player), Integer::sum);
             }
@@ -774,7 +802,7 @@ public class SurgeBoard {
             }
         }
 
-        logger.log("Combat result: " + result.toString());
+        log.trace(() -> "Combat result: " + result.toString());
         return result;
     }
 
@@ -816,60 +844,77 @@ public class SurgeBoard {
 
     // Display methods
     public String getBoardTextHtml() {
-        StringBuilder sb = new StringBuilder();
+        BoardTemplate template = TEMPLATES_BY_SIZE.computeIfAbsent(new GridSize(rows, cols), SurgeBoard::buildTemplate);
+        int slotsPerRow = 3 * cols;
+        return template.render((sb, slot) -> {
+            int r = slot / slotsPerRow;
+            int k = slot % slotsPerRow;
+            if (k < cols) {
+                sb.append(getHorizontalGateChar(grid[r][k]));
+                return;
+            }
+            int c = (k - cols) / 2;
+            if ((k - cols) % 2 == 1) {
+                sb.append(getVerticalGateChar(grid[r][c]));
+                return;
+            }
+            SurgeGeyser geyser = geysers.get(new Location(r, c));
+            sb.append(geyser != null ? geyser.toHtmlDisplay(grid[r][c].getPlayerNum()) : grid[r][c].toHtmlDisplay());
+        });
+    }
+
+    // Slots by row: the gates on the row's top border, then each square followed by its east gate.
+    private static BoardTemplate buildTemplate(GridSize size) {
+        int rows = size.rows();
+        int cols = size.cols();
+        BoardTemplate.Builder template = BoardTemplate.builder();
 
         // Column Headers
-        sb.append("      ");
+        template.text("      ");
         for (int c = 0; c < cols; c++) {
-            sb.append((char) ('A' + c)).append("   ");
+            template.text((char) ('A' + c)).text("   ");
         }
-        sb.append("\n\n");
+        template.text("\n\n");
 
         for (int r = 0; r < rows; r++) {
             // Row Border (Top Gate Line)
-            sb.append("    ").append(r == 0 ? MonoSymbol.GRID_TOP_LEFT.getSymbol() : MonoSymbol.GRID_T_LEFT.getSymbol());
+            template.text("    ").text(r == 0 ? MonoSymbol.GRID_TOP_LEFT.getSymbol() : MonoSymbol.GRID_T_LEFT.getSymbol());
             for (int c = 0; c < cols; c++) {
-                sb.append(MonoSymbol.GRID_HORIZONTAL.getSymbol());
-                sb.append(getHorizontalGateChar(grid[r][c]));
-                sb.append(MonoSymbol.GRID_HORIZONTAL.getSymbol());
+                template.text(MonoSymbol.GRID_HORIZONTAL.getSymbol());
+                template.slot();
+                template.text(MonoSymbol.GRID_HORIZONTAL.getSymbol());
                 if (c != cols - 1) {
-                    sb.append(r == 0 ? MonoSymbol.GRID_T_DOWN.getSymbol() : MonoSymbol.GRID_CROSS.getSymbol());
+                    template.text(r == 0 ? MonoSymbol.GRID_T_DOWN.getSymbol() : MonoSymbol.GRID_CROSS.getSymbol());
                 } else {
-                    sb.append(r == 0 ? MonoSymbol.GRID_TOP_RIGHT.getSymbol() : MonoSymbol.GRID_T_RIGHT.getSymbol());
+                    template.text(r == 0 ? MonoSymbol.GRID_TOP_RIGHT.getSymbol() : MonoSymbol.GRID_T_RIGHT.getSymbol());
                 }
             }
-            sb.append("\n");
+            template.text("\n");
 
             // Row Content (Squares + Vertical Gates)
-            sb.append(String.format("%2d  ", r + 1)).append(MonoSymbol.GRID_VERTICAL.getSymbol()); // Row Label
+            template.text(String.format("%2d  ", r + 1)).text(MonoSymbol.GRID_VERTICAL.getSymbol()); // Row Label
             for (int c = 0; c < cols; c++) {
-                Location loc = new Location(r, c);
-                if (geysers.containsKey(loc)) {
-                    sb.append(geysers.get(loc).toHtmlDisplay(grid[r][c].getPlayerNum()));
-                } else {
-                    sb.append(grid[r][c].toHtmlDisplay());
-                }
-                sb.append(getVerticalGateChar(grid[r][c]));
+                template.slot().slot();
             }
-            sb.append(String.format("  %2d\n", r + 1));
+            template.text(String.format("  %2d\n", r + 1));
         }
 
         // Bottom border of grid
-        sb.append("    ").append(MonoSymbol.GRID_BOTTOM_LEFT.getSymbol());
+        template.text("    ").text(MonoSymbol.GRID_BOTTOM_LEFT.getSymbol());
         for (int c = 0; c < cols; c++) {
-            sb.append(MonoSymbol.GRID_HORIZONTAL.getSymbol()).append(MonoSymbol.GRID_HORIZONTAL.getSymbol()).append(MonoSymbol.GRID_HORIZONTAL.getSymbol());
-            sb.append(c != cols - 1 ? MonoSymbol.GRID_T_UP.getSymbol() : MonoSymbol.GRID_BOTTOM_RIGHT.getSymbol());
+            template.text(MonoSymbol.GRID_HORIZONTAL.getSymbol()).text(MonoSymbol.GRID_HORIZONTAL.getSymbol()).text(MonoSymbol.GRID_HORIZONTAL.getSymbol());
+            template.text(c != cols - 1 ? MonoSymbol.GRID_T_UP.getSymbol() : MonoSymbol.GRID_BOTTOM_RIGHT.getSymbol());
         }
-        sb.append("\n");
+        template.text("\n");
 
         // Column Footers
-        sb.append("      ");
+        template.text("      ");
         for (int c = 0; c < cols; c++) {
-            sb.append((char) ('A' + c)).append("   ");
+            template.text((char) ('A' + c)).text("   ");
         }
-        sb.append("\n");
+        template.text("\n");
 
-        return sb.toString();
+        return template.build(12);
     }
 
     static final int arrowMin = 450;  // minimum momentum to display an arrow.
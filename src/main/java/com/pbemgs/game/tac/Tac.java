@@ -2,13 +2,20 @@ package com.pbemgs.game.tac;
 
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.pbemgs.controller.SESEmailSender;
+import com.pbemgs.dko.MoveLogDKO;
+import com.pbemgs.dko.StaleGamesDKO;
 import com.pbemgs.dko.TacGamesDKO;
+import com.pbemgs.game.GameEngine;
 import com.pbemgs.game.GameInterface;
+import com.pbemgs.game.GameUpdateRetry;
 import com.pbemgs.generated.enums.TacGamesGameState;
 import com.pbemgs.generated.tables.records.TacGamesRecord;
 import com.pbemgs.generated.tables.records.UsersRecord;
+import com.pbemgs.model.ActiveGameSummary;
+import com.pbemgs.model.GameType;
 import com.pbemgs.model.S3Email;
 import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -23,12 +30,17 @@ public class Tac implements GameInterface {
 
     private final Duration REMINDER_DURATION = Duration.ofHours(24);
 
+    private final DSLContext dslContext;
     private final TacGamesDKO tacGameDKO;
+    private final StaleGamesDKO staleGamesDKO;
+    private final TacEngine engine = new TacEngine();
     private final LambdaLogger logger;
     private final Random rng = new Random();
 
     public Tac(DSLContext dslContext, LambdaLogger logger) {
+        this.dslContext = dslContext;
         this.tacGameDKO = new TacGamesDKO(dslContext);
+        this.staleGamesDKO = new StaleGamesDKO(dslContext);
         this.logger = logger;
     }
 
@@ -51,6 +63,10 @@ public class Tac implements GameInterface {
      */
     @Override
     public void processMove(UsersRecord user, long gameId, S3Email email, SESEmailSender emailSender) {
+        GameUpdateRetry.run(logger, "TAC move " + gameId, () -> attemptMove(user, gameId, email, emailSender));
+    }
+
+    private void attemptMove(UsersRecord user, long gameId, S3Email email, SESEmailSender emailSender) {
         TacGamesRecord game = tacGameDKO.getGameById(gameId);
         if (game == null || game.getGameState() != TacGamesGameState.IN_PROGRESS) {
             emailSender.sendEmail(user.getEmailAddr(), "PBEMGS - Tac move Failed", TacTextResponseProvider.getGameNotValidText());
@@ -63,8 +79,7 @@ public class Tac implements GameInterface {
             return;
         }
 
-        TacBoard board = new TacBoard();
-        board.deserialize(game.getBoardState());
+        TacBoard board = engine.deserialize(game.getBoardState());
         TextBodyParseResult playerMove = parseMoveFromEmail(email);
         if (!playerMove.success()) {
             emailSender.sendEmail(user.getEmailAddr(), "PBEMGS - Tac move failed - format issue",
@@ -72,7 +87,7 @@ public class Tac implements GameInterface {
             return;
         }
 
-        if (!board.isValidMove(playerMove.move())) {
+        if (engine.validateMove(board, 0, playerMove.move()) != null) {  // User plays as 'X', seat 0
             emailSender.sendEmail(user.getEmailAddr(), "PBEMGS - Invalid Move", TacTextResponseProvider.getMoveInvalidText());
             return;
         }
@@ -82,22 +97,24 @@ public class Tac implements GameInterface {
         StringBuilder footer = new StringBuilder();
         StringBuilder subject = new StringBuilder();
 
-        board.makeMove(playerMove.move(), 'X'); // User plays as 'X'
-        if (board.isWin('X')) {
+        engine.applyMove(board, 0, playerMove.move());
+        Integer systemMove = null;
+        int result = engine.getResult(board, 1);
+        if (result == 0) {
             game.setGameState(TacGamesGameState.COMPLETE);
             header.append("\n").append(user.getHandle()).append(" has won!");
             footer.append(TacTextResponseProvider.getGameWonText());
             subject.append("PBEMGS - Tac Game complete - victory!");
-        } else if (!board.hasEmptyCells()) {
+        } else if (result == GameEngine.DRAW) {
             game.setGameState(TacGamesGameState.COMPLETE);
             header.append("\n").append(user.getHandle()).append(" - board is full, drawn!");
             footer.append(TacTextResponseProvider.getGameDrawText());
             subject.append("PBEMGS - Tac Game complete - drawn!");
         } else {
-            int systemMove = board.getRandomAvailableMove(rng);
-            board.makeMove(systemMove, 'O');
+            systemMove = board.getRandomAvailableMove(rng);
+            engine.applyMove(board, 1, systemMove);
             header.append("PBEMGS selects square ").append(systemMove);
-            if (board.isWin('O')) {
+            if (engine.getResult(board, 0) == 1) {
                 game.setGameState(TacGamesGameState.COMPLETE);
                 header.append("\nPBEMGS has won!");
                 footer.append(TacTextResponseProvider.getGameLostText());
@@ -108,10 +125,18 @@ public class Tac implements GameInterface {
                 subject.append("MOVE TAC ").append(gameId);
             }
         }
-        game.setBoardState(board.serialize());
+        game.setBoardState(engine.serialize(board));
         game.setLastMoveTimestamp(LocalDateTime.now());
         game.setLastReminderTimestamp(null);
-        tacGameDKO.updateGame(game);
+
+        // Update the game and log both moves in one transaction.
+        String moveText = TacMoveReplayer.moveText(playerMove.move(), systemMove);
+        dslContext.transaction(configuration -> {
+            DSLContext trx = DSL.using(configuration);
+            new TacGamesDKO(trx).updateGame(game);
+            new MoveLogDKO(trx).appendMove(GameType.TAC, gameId, game.getVersion(), user.getUserId(), moveText,
+                    game.getBoardState());
+        });
 
         sendBoardStateEmail(emailSender, subject.toString(), header.toString(), footer.toString(),
                 gameId, user, board);
@@ -128,14 +153,13 @@ public class Tac implements GameInterface {
     }
 
     @Override
-    public String getMyGamesTextBody(long userId) {
+    public String getMyGamesTextBody(long userId, List<ActiveGameSummary> activeGames) {
         StringBuilder sb = new StringBuilder();
-        TacGamesRecord game = tacGameDKO.getActiveGameForUser(userId);
-        if (game != null) {
+        for (ActiveGameSummary game : activeGames) {
             sb.append("TAC (tutorial):\n");
-            sb.append("-- Game ID: ").append(game.getGameId()).
+            sb.append("-- Game ID: ").append(game.gameId()).
                     append(" - it is your move.  Send a command of 'game_status tac ").
-                    append(game.getGameId()).append("' to get the board state.");
+                    append(game.gameId()).append("' to get the board state.");
         }
         return sb.toString();
     }
@@ -164,19 +188,17 @@ public class Tac implements GameInterface {
     @Override
     public Map<Long, String> processStaleGameCheck(SESEmailSender emailSender) {
         Map<Long, String> staleStringByUserId = new HashMap<>();
-        List<TacGamesRecord> activeGames = tacGameDKO.getActiveGames();
-        if (activeGames == null || activeGames.isEmpty()) {
+        LocalDateTime currTime = LocalDateTime.now();
+        // The tutorial never times out, so every stale game is a reminder.
+        List<StaleGamesDKO.StaleGame> staleGames = staleGamesDKO.getStaleGames(GameType.TAC, currTime,
+                REMINDER_DURATION, null);
+        if (staleGames.isEmpty()) {
             return staleStringByUserId;
         }
 
-        LocalDateTime currTime = LocalDateTime.now();
-        for (TacGamesRecord game : activeGames) {
-            LocalDateTime lastTime = game.getLastReminderTimestamp() == null ?
-                    game.getLastMoveTimestamp() : game.getLastReminderTimestamp();
-            if (Duration.between(lastTime, currTime).compareTo(REMINDER_DURATION) > 0) {
-                staleStringByUserId.put(game.getUserId(), "TAC (tutorial): Game ID " + game.getGameId() +
-                        " - send 'game_status tac " + game.getGameId() + "' to get the board state!");
-            }
+        for (StaleGamesDKO.StaleGame game : staleGames) {
+            staleStringByUserId.put(game.userIdToAct(), "TAC (tutorial): Game ID " + game.gameId() +
+                    " - send 'game_status tac " + game.gameId() + "' to get the board state!");
         }
 
         // Update reminder timestamps as necessary
@@ -198,7 +220,13 @@ public class Tac implements GameInterface {
         game.setUserId(user.getUserId());
         game.setGameState(TacGamesGameState.IN_PROGRESS);
         TacBoard board = new TacBoard();
-        long gameId = tacGameDKO.createNewGame(user.getUserId(), board.serialize());
+        // Create the game and snapshot the empty board (a new row's version is 0) in one transaction.
+        long gameId = dslContext.transactionResult(configuration -> {
+            DSLContext trx = DSL.using(configuration);
+            long newGameId = new TacGamesDKO(trx).createNewGame(user.getUserId(), board.serialize());
+            new MoveLogDKO(trx).recordSnapshot(GameType.TAC, newGameId, 0, board.serialize());
+            return newGameId;
+        });
 
         String header = "Game of Tac has started - it is your move!";
         sendBoardStateEmail(emailSender, "MOVE TAC " + gameId + " - TUTORIAL STARTED!",
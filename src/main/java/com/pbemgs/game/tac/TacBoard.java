@@ -1,11 +1,14 @@
 package com.pbemgs.game.tac;
 
+import com.pbemgs.game.BoardTemplate;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
 public class TacBoard {
     private static final int SIZE = 3;
+    private static final BoardTemplate TEMPLATE = buildTemplate();
 
     private final char[][] board;
 
@@ -80,27 +83,30 @@ public class TacBoard {
     }
 
     public String getBoardTextBody() {
+        return TEMPLATE.render((sb, slot) -> renderCell(sb, slot / SIZE, slot % SIZE));
+    }
+
+    // Slots are the squares, row by row.
+    private static BoardTemplate buildTemplate() {
         String rowDivider = "---+---+---";
 
-        StringBuilder sb = new StringBuilder();
+        BoardTemplate.Builder template = BoardTemplate.builder();
         for (int row = 0; row < 3; ++row) {
-            sb.append(String.format(" %1s | %1s | %1s",
-                    renderCell(row, 0),
-                    renderCell(row, 1),
-                    renderCell(row, 2)));
-            sb.append("\n");
+            template.text(" ").slot().text(" | ").slot().text(" | ").slot();
+            template.text("\n");
             if (row <= 1) {
-                sb.append(rowDivider).append("\n");
+                template.text(rowDivider).text("\n");
             }
         }
-        return sb.toString();
+        return template.build(1);
     }
 
-    private String renderCell(int row, int col) {
+    private void renderCell(StringBuilder sb, int row, int col) {
         if (board[row][col] == '-') {
-            return Integer.toString((row * 3) + col + 1);
+            sb.append((row * 3) + col + 1);
+        } else {
+            sb.append(board[row][col]);
         }
-        return (String.valueOf(board[row][col]));
     }
 
 }
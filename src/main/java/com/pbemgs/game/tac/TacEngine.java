@@ -0,0 +1,93 @@
+package com.pbemgs.game.tac;
+
+import com.pbemgs.game.GameEngine;
+import com.pbemgs.model.GameType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tic-tac-toe rules.  Seat 0 is the player (X), seat 1 the system (O).  Moves are square numbers 1-9.
+ */
+public class TacEngine implements GameEngine<TacBoard, Integer> {
+    private static final char[] SYMBOLS = {'X', 'O'};
+
+    @Override
+    public GameType getGameType() {
+        return GameType.TAC;
+    }
+
+    @Override
+    public int getNumPlayers() {
+        return 2;
+    }
+
+    @Override
+    public TacBoard newBoard(Random rng) {
+        return new TacBoard();
+    }
+
+    @Override
+    public TacBoard deserialize(String boardState) {
+        TacBoard board = new TacBoard();
+        board.deserialize(boardState);
+        return board;
+    }
+
+    @Override
+    public String serialize(TacBoard board) {
+        return board.serialize();
+    }
+
+    @Override
+    public Integer parseMove(String moveText) {
+        try {
+            return Integer.parseInt(moveText.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String formatMove(Integer move) {
+        return String.valueOf(move);
+    }
+
+    @Override
+    public String validateMove(TacBoard board, int seat, Integer move) {
+        return board.isValidMove(move) ? null : "Square " + move + " is not an empty square between 1 and 9.";
+    }
+
+    @Override
+    public void applyMove(TacBoard board, int seat, Integer move) {
+        board.makeMove(move, SYMBOLS[seat]);
+    }
+
+    @Override
+    public List<Integer> getLegalMoves(TacBoard board, int seat) {
+        List<Integer> moves = new ArrayList<>();
+        for (int square = 1; square <= 9; ++square) {
+            if (board.isValidMove(square)) {
+                moves.add(square);
+            }
+        }
+        return moves;
+    }
+
+    @Override
+    public int getResult(TacBoard board, int nextSeat) {
+        if (board.isWin(SYMBOLS[0])) {
+            return 0;
+        }
+        if (board.isWin(SYMBOLS[1])) {
+            return 1;
+        }
+        return board.hasEmptyCells() ? IN_PROGRESS : DRAW;
+    }
+
+    @Override
+    public String getBoardText(TacBoard board) {
+        return board.getBoardTextBody();
+    }
+}
@@ -0,0 +1,25 @@
+package com.pbemgs.game.tac;
+
+import com.pbemgs.game.MoveReplayer;
+
+/**
+ * Tac move log notation: the player's square, then the system's reply if the game went on, e.g. "5,3" or "7".
+ * Both go in one entry since they are written by one game update.
+ */
+public class TacMoveReplayer implements MoveReplayer {
+    private final TacEngine engine = new TacEngine();
+
+    public static String moveText(int playerMove, Integer systemMove) {
+        return systemMove == null ? String.valueOf(playerMove) : playerMove + "," + systemMove;
+    }
+
+    @Override
+    public String apply(String boardState, String moveText) {
+        String[] squares = moveText.split(",");
+        TacBoard board = engine.deserialize(boardState);
+        for (int seat = 0; seat < squares.length; ++seat) {
+            engine.applyMove(board, seat, Integer.parseInt(squares[seat]));
+        }
+        return engine.serialize(board);
+    }
+}
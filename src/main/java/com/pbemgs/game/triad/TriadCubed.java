@@ -4,10 +4,13 @@ import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.pbemgs.controller.SESEmailSender;
 import com.pbemgs.controller.TextResponseProvider;
 import com.pbemgs.dko.PlayerOutcomesDKO;
+import com.pbemgs.dko.StaleGameUpdateException;
+import com.pbemgs.dko.StaleGamesDKO;
 import com.pbemgs.dko.UsersDKO;
 import com.pbemgs.game.GameInterface;
 import com.pbemgs.game.GameMessageMailer;
 import com.pbemgs.game.GameTextUtilities;
+import com.pbemgs.game.GameUpdateRetry;
 import com.pbemgs.game.triad.dko.TriadGameVictorsDKO;
 import com.pbemgs.game.triad.dko.TriadGamesDKO;
 import com.pbemgs.game.triad.dko.TriadPlayersDKO;
@@ -17,6 +20,7 @@ import com.pbemgs.generated.enums.TriadGamesGameState;
 import com.pbemgs.generated.tables.records.TriadGamesRecord;
 import com.pbemgs.generated.tables.records.TriadPlayersRecord;
 import com.pbemgs.generated.tables.records.UsersRecord;
+import com.pbemgs.model.ActiveGameSummary;
 import com.pbemgs.model.Direction;
 import com.pbemgs.model.GameType;
 import com.pbemgs.model.Location;
@@ -48,11 +52,13 @@ public class TriadCubed implements GameInterface {
     private static final int MAX_OPEN_GAMES = 10;
     private static final Duration REMINDER_DURATION = Duration.ofHours(24);
     private static final Duration TIMEOUT_DURATION = Duration.ofHours(72);
+    private static final Duration AUTO_MOVE_SEARCH_BUDGET = Duration.ofSeconds(2);
 
     private static final String SERIALIZED_INITAL_CARDSET = "1,2,3,4,5,6,7,8,9,10,11,12,13,14,15";
 
     private final DSLContext dslContext;
     private final TriadGamesDKO triadGamesDKO;
+    private final StaleGamesDKO staleGamesDKO;
     private final TriadPlayersDKO triadPlayersDKO;
     private final UsersDKO usersDKO;
     private final LambdaLogger logger;
@@ -73,6 +79,7 @@ public class TriadCubed implements GameInterface {
     public TriadCubed(DSLContext dslContext, LambdaLogger logger) {
         this.dslContext = dslContext;
         triadGamesDKO = new TriadGamesDKO(dslContext);
+        staleGamesDKO = new StaleGamesDKO(dslContext);
         triadPlayersDKO = new TriadPlayersDKO(dslContext);
         usersDKO = new UsersDKO(dslContext);
         this.logger = logger;
@@ -134,6 +141,10 @@ public class TriadCubed implements GameInterface {
 
     @Override
     public void processJoinGame(UsersRecord user, long gameId, SESEmailSender emailSender) {
+        GameUpdateRetry.run(logger, "TRIAD join_game " + gameId, () -> attemptJoinGame(user, gameId, emailSender));
+    }
+
+    private void attemptJoinGame(UsersRecord user, long gameId, SESEmailSender emailSender) {
         List<TriadGamesRecord> userGames = triadGamesDKO.getActiveGamesForUser(user.getUserId());
         if (userGames.size() >= PLAYER_GAME_LIMIT) {
             GameMessageMailer.gameLimitReached(emailSender, user.getEmailAddr(), "join_game", GameType.TRIAD);
@@ -146,7 +157,7 @@ public class TriadCubed implements GameInterface {
             GameMessageMailer.joinNonopenGame(emailSender, user.getEmailAddr(), GameType.TRIAD, gameId);
             return;
         }
-        populatePlayerMap(game);
+        populatePlayerMap(game.getGameId());
         if (playerList.get(0).getUserId() == user.getUserId()) {
             GameMessageMailer.joinAlreadyIn(emailSender, user.getEmailAddr(), GameType.TRIAD, gameId);
             return;
@@ -177,6 +188,8 @@ public class TriadCubed implements GameInterface {
                 new TriadGamesDKO(trx).updateGame(finalGame);
                 new TriadPlayersDKO(trx).addPlayer(gameId, user.getUserId(), 1, SERIALIZED_INITAL_CARDSET);
             });
+        } catch (StaleGameUpdateException e) {
+            throw e;  // retried from the top by GameUpdateRetry
         } catch (Exception e) {
             logger.log("Exception attempting to join game: " + e.getMessage());
             emailSender.sendEmail(user.getEmailAddr(), "PBEMGS - join_game triad failed",
@@ -186,7 +199,7 @@ public class TriadCubed implements GameInterface {
 
         // reload game so players are both set.
         game = triadGamesDKO.getGameById(gameId);
-        populatePlayerMap(game);
+        populatePlayerMap(game.getGameId());
 
         sendHandSelectionEmail(emailSender, "MOVE TRIAD " + gameId + " - GAME START!",
                 user.getHandle() + " has joined the action - GAME #1 is underway - select your hand!\n\n",
@@ -195,6 +208,10 @@ public class TriadCubed implements GameInterface {
 
     @Override
     public void processMove(UsersRecord user, long gameId, S3Email emailBody, SESEmailSender emailSender) {
+        GameUpdateRetry.run(logger, "TRIAD move " + gameId, () -> attemptMove(user, gameId, emailBody, emailSender));
+    }
+
+    private void attemptMove(UsersRecord user, long gameId, S3Email emailBody, SESEmailSender emailSender) {
         TriadGamesRecord game = triadGamesDKO.getGameById(gameId);
 
         // Validity checks: game must exist, be in IN_PROGRESS state, and user part of game
@@ -202,7 +219,7 @@ public class TriadCubed implements GameInterface {
             GameMessageMailer.moveGameNotValid(emailSender, user.getEmailAddr(), GameType.TRIAD, gameId);
             return;
         }
-        populatePlayerMap(game);
+        populatePlayerMap(game.getGameId());
         if (!Objects.equals(user.getUserId(), usersList.get(0).getUserId()) &&
                 !Objects.equals(user.getUserId(), usersList.get(1).getUserId())) {
             GameMessageMailer.moveNotActiveText(emailSender, user.getEmailAddr(), GameType.TRIAD, gameId);
@@ -338,6 +355,8 @@ public class TriadCubed implements GameInterface {
                 trxPlayerDKO.updatePlayerCardsInHand(user.getUserId(), game.getGameId(), playerList.get(playerSeat).getCardsInHand());
                 trxGameDKO.updateGame(game);
             });
+        } catch (StaleGameUpdateException e) {
+            throw e;  // retried from the top by GameUpdateRetry
         } catch (Exception e) {
             emailSender.sendEmail(user.getEmailAddr(), "PBEMGS - MOVE TRIAD " + game.getGameId() + " Failed (internal error)",
                     TextResponseProvider.getExceptionTextBody("move triad", e.getMessage()));
@@ -365,9 +384,14 @@ public class TriadCubed implements GameInterface {
         gameBoard.deserialize(game.getBoardState());
 
         // check other player - if the other player hasn't selected yet, just update DB for this player and bail.
+        // The game record is still written, so its version check catches two selections racing each other.
         TriadPlayersRecord otherPlayerRecord = playerList.get(1 - playerSeat);
         if (otherPlayerRecord.getCardsInHand().isEmpty()) {
-            triadPlayersDKO.updatePlayerRecord(playerList.get(playerSeat));
+            dslContext.transaction(configuration -> {
+                DSLContext trx = DSL.using(configuration);
+                new TriadPlayersDKO(trx).updatePlayerRecord(playerList.get(playerSeat));
+                new TriadGamesDKO(trx).updateGame(game);
+            });
             sendHandSelectionEmail(emailSender, "PBEMGS - TRIAD " + game.getGameId() + " hand selection successful!",
                     "Your hand has been locked in.  Waiting for opponent to select theirs.\n\n", game, gameBoard, user.getUserId());
             return;
@@ -386,6 +410,8 @@ public class TriadCubed implements GameInterface {
                 trxPlayersDKO.updatePlayerUndrafted(user.getUserId(), game.getGameId(), undraftedStr);
                 trxGamesDKO.updateGame(game);
             });
+        } catch (StaleGameUpdateException e) {
+            throw e;  // retried from the top by GameUpdateRetry
         } catch (Exception e) {
             emailSender.sendEmail(user.getEmailAddr(), "PBEMGS - MOVE TRIAD " + game.getGameId() + " Failed (internal error)",
                     TextResponseProvider.getExceptionTextBody("move triad", e.getMessage()));
@@ -417,22 +443,20 @@ public class TriadCubed implements GameInterface {
     }
 
     @Override
-    public String getMyGamesTextBody(long userId) {
+    public String getMyGamesTextBody(long userId, List<ActiveGameSummary> activeGames) {
         StringBuilder sb = new StringBuilder();
         sb.append("TRIAD:\n");
-        List<TriadGamesRecord> games = triadGamesDKO.getActiveGamesForUser(userId);
-        for (TriadGamesRecord game : games) {
-            sb.append("-- Game ID: ").append(game.getGameId());
-            if (game.getGameState() == TriadGamesGameState.OPEN) {
+        for (ActiveGameSummary game : activeGames) {
+            sb.append("-- Game ID: ").append(game.gameId());
+            if (game.open()) {
                 sb.append(" is waiting for an opponent.\n");
             } else {
                 sb.append(" is in progress - ");
-                if (game.getGamePhase() == TriadGamesGamePhase.GAMEPLAY) {
-                    sb.append(game.getCurrentActionUserid() == userId ? "YOUR TURN!\n" : "opponent's turn.\n");
+                if (TriadGamesGamePhase.GAMEPLAY.getLiteral().equals(game.phase())) {
+                    sb.append(Objects.equals(game.userIdToMove(), userId) ? "YOUR TURN!\n" : "opponent's turn.\n");
                 } else {
                     sb.append(" HAND SELECTION PHASE ");
-                    TriadPlayersRecord gamePlayerRecord = triadPlayersDKO.getPlayerByUserId(game.getGameId(), userId);
-                    if (gamePlayerRecord.getCardsInHand().isEmpty()) {
+                    if (game.needsInput()) {
                         sb.append(" - YOU NEED TO SELECT!");
                     }
                 }
@@ -448,7 +472,7 @@ public class TriadCubed implements GameInterface {
             GameMessageMailer.statusNotValidGame(emailSender, user.getEmailAddr(), GameType.TRIAD, gameId);
             return;
         }
-        populatePlayerMap(game);
+        populatePlayerMap(game.getGameId());
 
         if (user.getUserId() != usersList.get(0).getUserId() &&
                 user.getUserId() != usersList.get(1).getUserId()) {
@@ -473,21 +497,21 @@ public class TriadCubed implements GameInterface {
         Map<Long, String> staleStringByUserId = new HashMap<>();
         Set<Long> gameIdsToUpdateReminderTime = new HashSet<>();
 
-        List<TriadGamesRecord> activeGames = triadGamesDKO.getActiveGames();
-        if (activeGames == null || activeGames.isEmpty()) {
+        LocalDateTime currTime = LocalDateTime.now();
+        List<StaleGamesDKO.StaleGame> staleGames = staleGamesDKO.getStaleGames(GameType.TRIAD, currTime,
+                REMINDER_DURATION, TIMEOUT_DURATION);
+        if (staleGames.isEmpty()) {
             return staleStringByUserId;
         }
 
-        LocalDateTime currTime = LocalDateTime.now();
-        for (TriadGamesRecord game : activeGames) {
-            LocalDateTime lastMoveTime = game.getLastMoveTimestamp();
-
+        for (StaleGamesDKO.StaleGame staleGame : staleGames) {
             // Timeout processing:
             // - Hand selection, select hands randomly for each player who hasn't yet.
-            // - Gameplay: select random card to random open slot.
-            if (Duration.between(lastMoveTime, currTime).compareTo(TIMEOUT_DURATION) > 0) {
+            // - Gameplay: card and square chosen by TriadSearch.
+            if (staleGame.timedOut()) {
+                TriadGamesRecord game = triadGamesDKO.getGameById(staleGame.gameId());
                 logger.log("TriadCubed Game ID: " + game.getGameId() + " exceeded timeout...");
-                populatePlayerMap(game);
+                populatePlayerMap(game.getGameId());
                 TriadGamesGamePhase phase = game.getGamePhase();
                 if (phase == TriadGamesGamePhase.HAND_SELECTION) {
                     logger.log("-- hand selection phase");
@@ -496,7 +520,12 @@ public class TriadCubed implements GameInterface {
                             logger.log("--- selecting hand for seat: " + seat + ", user: " + usersList.get(seat).getHandle());
                             List<Integer> undraftedIds = deserializeCardIds(playerList.get(seat).getUndraftedCards());
                             Collections.shuffle(undraftedIds);
-                            executeHandSelectionMove(usersList.get(seat), seat, game, undraftedIds.subList(0, 5), emailSender);
+                            try {
+                                executeHandSelectionMove(usersList.get(seat), seat, game, undraftedIds.subList(0, 5), emailSender);
+                            } catch (StaleGameUpdateException e) {
+                                logger.log("--- skipped, game was updated concurrently: " + e.getMessage());
+                                break;
+                            }
                         }
                     }
                 } else {
@@ -506,35 +535,44 @@ public class TriadCubed implements GameInterface {
                     int seat = game.getCurrentActionUserid() == playerList.get(0).getUserId() ? 0 : 1;
 
                     List<Integer> cardIds = deserializeCardIds(playerList.get(seat).getCardsInHand());
-                    Collections.shuffle(cardIds);
-                    logger.log("--- card placement for " + usersList.get(seat).getHandle() + " - cardID: " + cardIds.get(0));
-                    executeCardPlacementMove(usersList.get(seat), seat, game, gameBoard,
-                            cardIds.get(0), gameBoard.getRandomEmptyLocation(), emailSender);
+                    // Face-down hands: the opponent could hold any card they have left, so don't peek.
+                    TriadPlayersRecord opponent = playerList.get(1 - seat);
+                    List<Integer> opponentHand = deserializeCardIds(opponent.getCardsInHand());
+                    List<Integer> opponentCards = new ArrayList<>(opponentHand);
+                    if (!game.getOptionFaceup()) {
+                        opponentCards.addAll(deserializeCardIds(opponent.getUndraftedCards()));
+                    }
+                    TriadSearch.SearchResult result = new TriadSearch(gameBoard).findBestMove(seat, cardIds,
+                            opponentCards, opponentHand.size(), AUTO_MOVE_SEARCH_BUDGET, new Random());
+                    logger.log("--- card placement for " + usersList.get(seat).getHandle() + " - cardID: " + result.cardId() +
+                            " at " + result.loc() + " (score " + result.score() + ", depth " + result.depth() + ", " +
+                            result.nodes() + " nodes, " + result.samples() + " hand samples)");
+                    try {
+                        executeCardPlacementMove(usersList.get(seat), seat, game, gameBoard,
+                                result.cardId(), result.loc(), emailSender);
+                    } catch (StaleGameUpdateException e) {
+                        logger.log("--- skipped, game was updated concurrently: " + e.getMessage());
+                    }
                 }
-            } else {
-                LocalDateTime lastTime = game.getLastReminderTimestamp() == null ?
-                        game.getLastMoveTimestamp() : game.getLastReminderTimestamp();
-
-                if (Duration.between(lastTime, currTime).compareTo(REMINDER_DURATION) > 0) {
-                    logger.log("TriadCubed Game ID: " + game.getGameId() + " exceeded reminder time...");
-                    gameIdsToUpdateReminderTime.add(game.getGameId());
-                    populatePlayerMap(game);
-                    TriadGamesGamePhase phase = game.getGamePhase();
-                    if (phase == TriadGamesGamePhase.HAND_SELECTION) {
-                        // Reminder processing - if in hand selection, send to all players needing to select.
-                        logger.log("-- hand selection phase");
-                        for (int seat = 0; seat <= 1; ++seat) {
-                            if (playerList.get(seat).getCardsInHand().isEmpty()) {
-                                logger.log("--- sending reminder for seat: " + seat + ", user: " + usersList.get(seat).getHandle());
-                                staleStringByUserId.put(usersList.get(seat).getUserId(), "Triad Cubed: Game ID " + game.getGameId() + " - hand selection.");
-                            }
+            } else if (staleGame.reminderDue()) {
+                long gameId = staleGame.gameId();
+                logger.log("TriadCubed Game ID: " + gameId + " exceeded reminder time...");
+                gameIdsToUpdateReminderTime.add(gameId);
+                populatePlayerMap(gameId);
+                if (TriadGamesGamePhase.HAND_SELECTION.getLiteral().equals(staleGame.phase())) {
+                    // Reminder processing - if in hand selection, send to all players needing to select.
+                    logger.log("-- hand selection phase");
+                    for (int seat = 0; seat <= 1; ++seat) {
+                        if (playerList.get(seat).getCardsInHand().isEmpty()) {
+                            logger.log("--- sending reminder for seat: " + seat + ", user: " + usersList.get(seat).getHandle());
+                            staleStringByUserId.put(usersList.get(seat).getUserId(), "Triad Cubed: Game ID " + gameId + " - hand selection.");
                         }
-                    } else {
-                        logger.log("-- gameplay phase");
-                        int seat = game.getCurrentActionUserid() == playerList.get(0).getUserId() ? 0 : 1;
-                        logger.log("--- sending reminder for seat: " + seat + ", user: " + usersList.get(seat).getHandle());
-                        staleStringByUserId.put(usersList.get(seat).getUserId(), "Triad Cubed: Game ID " + game.getGameId());
                     }
+                } else {
+                    logger.log("-- gameplay phase");
+                    int seat = playerList.get(0).getUserId().equals(staleGame.userIdToAct()) ? 0 : 1;
+                    logger.log("--- sending reminder for seat: " + seat + ", user: " + usersList.get(seat).getHandle());
+                    staleStringByUserId.put(usersList.get(seat).getUserId(), "Triad Cubed: Game ID " + gameId);
                 }
             }
         }  // end for (processing active games)
@@ -613,6 +651,8 @@ public class TriadCubed implements GameInterface {
                 trxGameVictorDKO.addVictor(game.getGameId(), usersList.get(winnerSeat).getUserId(),
                         game.getCurrentSubgame() - 1, usersList.get(firstPlayerSeat).getUserId());
             });
+        } catch (StaleGameUpdateException e) {
+            throw e;  // retried from the top by GameUpdateRetry
         } catch (Exception e) {
             logger.log("-- EXCEPTION writing updated game state for " + game.getCurrentSubgame() + ": " + e.getMessage());
             emailSender.sendEmail(usersList.get(winnerSeat).getEmailAddr(), "PBEMGS - MOVE TRIAD " + game.getGameId() + " Failed (internal error)",
@@ -664,6 +704,8 @@ public class TriadCubed implements GameInterface {
                 trxPlayerOutcomesDKO.insertOutcome(GameType.TRIAD, game.getGameId(), loseUserId,
                         PlayerOutcomesOutcome.LOSS, null, loseUserId == game.getFirstTurnUserId());
             });
+        } catch (StaleGameUpdateException e) {
+            throw e;  // retried from the top by GameUpdateRetry
         } catch (Exception e) {
             logger.log("-- EXCEPTION writing updated game state for " + game.getCurrentSubgame() + ": " + e.getMessage());
             emailSender.sendEmail(usersList.get(winnerSeat).getEmailAddr(), "PBEMGS - MOVE TRIAD " + game.getGameId() + " Failed (internal error)",
@@ -823,12 +865,10 @@ public class TriadCubed implements GameInterface {
         }
     }
 
-    private void populatePlayerMap(TriadGamesRecord game) {
+    private void populatePlayerMap(long gameId) {
         usersList.clear();
-        playerList = triadPlayersDKO.getPlayersForGame(game.getGameId());
-        for (TriadPlayersRecord p : playerList) {
-            usersList.add(usersDKO.fetchUserById(p.getUserId()));
-        }
+        playerList = triadPlayersDKO.getPlayersForGame(gameId);
+        usersList.addAll(usersDKO.fetchUsersInOrder(playerList.stream().map(TriadPlayersRecord::getUserId).toList()));
     }
 
     private int getFirstPlayerSeatForGame(TriadGamesRecord game) {
@@ -855,16 +895,19 @@ public class TriadCubed implements GameInterface {
         String p0Hand = getPlayerHandText(0, game.getOptionElemental());
         String p1Hand = getPlayerHandText(1, game.getOptionElemental());
 
+        // Both players' emails go out together over one connection.
+        List<SESEmailSender.Email> emails = new ArrayList<>(2);
         if (toUserId == null || toUserId == usersList.get(0).getUserId()) {
-            emailSender.sendEmail(usersList.get(0).getEmailAddr(), subject,
+            emails.add(new SESEmailSender.Email(usersList.get(0).getEmailAddr(), subject,
                     gameHeader + p0Header + p1Header + "\n" + header + gameBoardTextBody +
-                            TriadCubedTextResponseProvider.getHandDisplay(p0Hand, p1Hand, game.getOptionFaceup()));
+                            TriadCubedTextResponseProvider.getHandDisplay(p0Hand, p1Hand, game.getOptionFaceup())));
         }
         if (toUserId == null || toUserId == usersList.get(1).getUserId()) {
-            emailSender.sendEmail(usersList.get(1).getEmailAddr(), subject,
+            emails.add(new SESEmailSender.Email(usersList.get(1).getEmailAddr(), subject,
                     gameHeader + p1Header + p0Header + "\n" + header + gameBoardTextBody +
-                            TriadCubedTextResponseProvider.getHandDisplay(p1Hand, p0Hand, game.getOptionFaceup()));
+                            TriadCubedTextResponseProvider.getHandDisplay(p1Hand, p0Hand, game.getOptionFaceup())));
         }
+        emailSender.sendEmails(emails);
     }
 
     private void sendHandSelectionEmail(SESEmailSender emailSender, String subject, String header,
@@ -2,7 +2,9 @@ package com.pbemgs.game.triad;
 
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.pbemgs.VisibleForTesting;
+import com.pbemgs.game.BoardTemplate;
 import com.pbemgs.model.Direction;
+import com.pbemgs.model.LeveledLogger;
 import com.pbemgs.model.Location;
 import com.pbemgs.model.MonoSymbol;
 
@@ -36,14 +38,53 @@ public class TriadCubedBoard {
     }
 
     private static final int SIZE = 3;
+    static final int CELL_COUNT = SIZE * SIZE;
 
-    private LambdaLogger logger;
-    private Space[][] grid;
+    private static final String COLOR_END = "</span>";
+    private static final List<String> COLOR_START = COLOR.stream()
+            .map(color -> "<span style='color:" + color + ";'>")
+            .toList();
+    private static final BoardTemplate TEMPLATE = buildTemplate();
+
+    // Packed cell layout: bits 0-1 owner (0 empty, 1 seat 0, 2 seat 1), bits 2-5 card id, bits 6-7 element ordinal.
+    private static final int OWNER_MASK = 0x3;
+    private static final int CARD_SHIFT = 2;
+    private static final int CARD_MASK = 0xF;
+    private static final int ELEMENT_SHIFT = 6;
+
+    // Side values by (card id, cell element) and side (N, E, S, W), with the elemental +1 already applied.
+    private static final int[] ADJUSTED_SIDES = new int[16 * 4 * 4];
+    // Neighbour cell by (cell, side), -1 off the board.
+    private static final int[] NEIGHBORS = new int[CELL_COUNT * 4];
+
+    static {
+        TriadElement[] elements = TriadElement.values();
+        for (TriadCardSet cardDef : TriadCardSet.values()) {
+            TriadCard card = cardDef.toTriadCard();
+            for (TriadElement element : elements) {
+                int adjustment = (element != TriadElement.NONE && element == card.element()) ? 1 : 0;
+                for (int side = 0; side < 4; ++side) {
+                    ADJUSTED_SIDES[((element.ordinal() << 4) | card.cardId()) * 4 + side] = card.values()[side] + adjustment;
+                }
+            }
+        }
+        Direction[] dirs = Direction.values();  // N, E, S, W - matches TriadCard value order
+        for (int idx = 0; idx < CELL_COUNT; ++idx) {
+            for (int side = 0; side < 4; ++side) {
+                int r = dirs[side].getAdjacentRow(idx / SIZE);
+                int c = dirs[side].getAdjacentCol(idx % SIZE);
+                NEIGHBORS[idx * 4 + side] = (r >= 0 && r < SIZE && c >= 0 && c < SIZE) ? r * SIZE + c : -1;
+            }
+        }
+    }
+
+    private final LeveledLogger log;
+    private final int[] cells;
 
 
     public TriadCubedBoard(LambdaLogger logger) {
-        this.logger = logger;
-        grid = new Space[SIZE][SIZE];
+        this.log = LeveledLogger.of(logger, "triad");
+        cells = new int[CELL_COUNT];
     }
 
     /**
@@ -53,7 +94,7 @@ public class TriadCubedBoard {
         StringBuilder sb = new StringBuilder();
         for (int r = 0; r < SIZE; r++) {
             for (int c = 0; c < SIZE; c++) {
-                Space space = grid[r][c];
+                Space space = getSpace(r, c);
                 if (!sb.isEmpty()) {
                     sb.append(",");
                 }
@@ -74,7 +115,7 @@ public class TriadCubedBoard {
                 int cardId = Integer.parseInt(spaceData[0]);
                 Integer owner = spaceData[1].equals("null") ? null : Integer.parseInt(spaceData[1]);
                 TriadElement element = TriadElement.fromChar(spaceData[2].charAt(0));
-                grid[r][c] = new Space(cardId, owner, element);
+                cells[r * SIZE + c] = packCell(owner, cardId, element);
             }
         }
     }
@@ -93,9 +134,9 @@ public class TriadCubedBoard {
         for (int r = 0; r < SIZE; ++r) {
             for (int c = 0; c < SIZE; ++c) {
                 if (!elemLocs.contains(new Location(r, c))) {
-                    grid[r][c] = new Space(0, null, TriadElement.NONE);
+                    cells[r * SIZE + c] = packCell(null, 0, TriadElement.NONE);
                 } else {
-                    grid[r][c] = new Space(0, null, TriadElement.getRandom(rng));
+                    cells[r * SIZE + c] = packCell(null, 0, TriadElement.getRandom(rng));
                 }
             }
         }
@@ -109,7 +150,7 @@ public class TriadCubedBoard {
         if (!isOnBoard(square)) {
             return "Chosen Location " + square.toString() + " is not on the board.";
         }
-        if (grid[square.row()][square.col()].owner() != null) {
+        if (cellOwner(cells[square.row() * SIZE + square.col()]) >= 0) {
             return "Chosen Location " + square.toString() + " is not empty!";
         }
 
@@ -117,26 +158,16 @@ public class TriadCubedBoard {
     }
 
     public boolean isBoardFull() {
-        for (int r = 0; r < SIZE; ++r) {
-            for (int c = 0; c < SIZE; ++c) {
-                if (grid[r][c].owner() == null) {
-                    return false;
-                }
+        for (int cell : cells) {
+            if (cellOwner(cell) < 0) {
+                return false;
             }
         }
         return true;
     }
 
     public int getCardCount(int owner) {
-        int count = 0;
-        for (int r = 0; r < SIZE; ++r) {
-            for (int c = 0; c < SIZE; ++c) {
-                if (grid[r][c].owner() != null && grid[r][c].owner() == owner) {
-                    ++count;
-                }
-            }
-        }
-        return count;
+        return countOwned(cells, owner);
     }
 
     /**
@@ -144,11 +175,9 @@ public class TriadCubedBoard {
      */
     public String getBoardElementString() {
         Map<TriadElement, Integer> countByElement = new HashMap<>();
-        for (int r = 0; r < SIZE; ++r) {
-            for (int c = 0; c < SIZE; ++c) {
-                if (grid[r][c].element() != TriadElement.NONE) {
-                    countByElement.merge(grid[r][c].element(), 1, Integer::sum);
-                }
+        for (int cell : cells) {
+            if (cellElement(cell) != TriadElement.NONE) {
+                countByElement.merge(cellElement(cell), 1, Integer::sum);
             }
         }
         if (countByElement.isEmpty()) {
@@ -167,29 +196,15 @@ public class TriadCubedBoard {
      * Checks captures in all directions.
      */
     public void makeMove(int playerSeat, int cardId, Location loc) {
-        grid[loc.row()][loc.col()] = new Space(cardId, playerSeat, grid[loc.row()][loc.col()].element());
-        logger.log("updated loc: " + loc.toString() + " to " + grid[loc.row()][loc.col()].toString());
-        for (Direction dir : Direction.values()) {
-            Location checkLoc = dir.getAdjacentLoc(loc);
-            if (isOnBoard(checkLoc) &&
-                    grid[checkLoc.row()][checkLoc.col()].owner() != null &&
-                    grid[checkLoc.row()][checkLoc.col()].owner() != playerSeat) {
-                int thisVal = getCardSideValue(loc, dir, true);
-                int thatVal = getCardSideValue(checkLoc, dir.getOpposite(), true);
-                if (thisVal > thatVal) {
-                    Space flipped = new Space(grid[checkLoc.row()][checkLoc.col()].cardId, playerSeat,
-                            grid[checkLoc.row()][checkLoc.col()].element());
-                    grid[checkLoc.row()][checkLoc.col()] = flipped;
-                }
-            }
-        }
+        int flips = placeCard(cells, loc.row() * SIZE + loc.col(), playerSeat, cardId);
+        log.debug(() -> "placed card " + cardId + " at " + loc + " for seat " + playerSeat + ", flipped " + Integer.bitCount(flips));
     }
 
     public Location getRandomEmptyLocation() {
         List<Location> emptyLocs = new ArrayList<>();
         for (int r = 0; r < SIZE; r++) {
             for (int c = 0; c < SIZE; c++) {
-                if (grid[r][c].owner() == null) {
+                if (cellOwner(cells[r * SIZE + c]) < 0) {
                     emptyLocs.add(new Location(r, c));
                 }
             }
@@ -201,72 +216,147 @@ public class TriadCubedBoard {
         return emptyLocs.get(0);
     }
 
+    /**
+     * Copy of the packed cells, for search.
+     */
+    int[] getCells() {
+        return cells.clone();
+    }
+
+    // Packed cell resolver - static and allocation free, shared by makeMove() and TriadSearch.
+
+    /**
+     * Places the card in the (empty) cell and flips every adjacent opposing card it beats.
+     * Returns the bitmask of flipped cells, which undoPlacement() needs.
+     */
+    static int placeCard(int[] cells, int idx, int seat, int cardId) {
+        int placed = (cells[idx] & ~(OWNER_MASK | (CARD_MASK << CARD_SHIFT))) | (cardId << CARD_SHIFT) | (seat + 1);
+        cells[idx] = placed;
+        int flips = 0;
+        for (int side = 0; side < 4; ++side) {
+            int n = NEIGHBORS[idx * 4 + side];
+            if (n < 0) {
+                continue;
+            }
+            int neighbor = cells[n];
+            int neighborOwner = neighbor & OWNER_MASK;
+            if (neighborOwner != 0 && neighborOwner != seat + 1 &&
+                    sideValue(placed, side) > sideValue(neighbor, (side + 2) & 3)) {
+                cells[n] = neighbor ^ OWNER_MASK;  // 1 <-> 2
+                flips |= 1 << n;
+            }
+        }
+        return flips;
+    }
+
+    /**
+     * Reverses placeCard(): flips the captured cells back and empties the placed cell.
+     */
+    static void undoPlacement(int[] cells, int idx, int flips) {
+        for (int bits = flips; bits != 0; bits &= bits - 1) {
+            cells[Integer.numberOfTrailingZeros(bits)] ^= OWNER_MASK;
+        }
+        cells[idx] &= ~(OWNER_MASK | (CARD_MASK << CARD_SHIFT));
+    }
+
+    static int countOwned(int[] cells, int seat) {
+        int count = 0;
+        for (int cell : cells) {
+            if ((cell & OWNER_MASK) == seat + 1) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Owner seat of a packed cell, or -1 if empty.
+     */
+    static int cellOwner(int cell) {
+        return (cell & OWNER_MASK) - 1;
+    }
+
+    static int cellCardId(int cell) {
+        return (cell >>> CARD_SHIFT) & CARD_MASK;
+    }
+
+    static TriadElement cellElement(int cell) {
+        return TriadElement.values()[cell >>> ELEMENT_SHIFT];
+    }
+
+    static int packCell(Integer owner, int cardId, TriadElement element) {
+        return (owner == null ? 0 : owner + 1) | (cardId << CARD_SHIFT) | (element.ordinal() << ELEMENT_SHIFT);
+    }
+
+    // Elementally adjusted value of a side (0-3 = N, E, S, W) of an occupied packed cell.
+    private static int sideValue(int cell, int side) {
+        return ADJUSTED_SIDES[((cell >>> CARD_SHIFT) & 0x3F) * 4 + side];
+    }
+
     /**
      * Generates the board text.
      */
     public String getBoardTextBody() {
+        return TEMPLATE.render((sb, slot) -> appendSpaceText(sb, slot / (SIZE * 5), (slot / SIZE) % 5, slot % SIZE));
+    }
+
+    // One text row (0-4 = top-border, top, mid, bot, bot-border) of a space, colored by owner.
+    private void appendSpaceText(StringBuilder sb, int r, int txt, int c) {
+        int cell = cells[r * SIZE + c];
+        int owner = cellOwner(cell);
+        if (owner < 0) {
+            switch (txt) {
+                case 0 -> sb.append(TOP_BORDER);
+                case 4 -> sb.append(BOT_BORDER);
+                case 2 -> sb.append(MonoSymbol.GRID_VERTICAL.getSymbol()).append(" ")
+                        .append(cellElement(cell).getDisplayChar())
+                        .append(" ").append(MonoSymbol.GRID_VERTICAL.getSymbol());
+                default -> sb.append(BLANK_INNER);
+            }
+            return;
+        }
+
+        TriadCard card = TriadCardSet.getById(cellCardId(cell));
+        TriadElement element = cellElement(cell);
+        char spaceChar = (element != TriadElement.NONE && element == card.element()) ? SHADING_CHAR : ' ';
+        sb.append(COLOR_START.get(owner));
+        switch (txt) {
+            case 0 -> sb.append(TOP_BORDER);
+            case 4 -> sb.append(BOT_BORDER);
+            case 2 -> sb.append(MonoSymbol.GRID_VERTICAL.getSymbol())
+                    .append(card.valueOfSide(Direction.WEST)).append(spaceChar)
+                    .append(card.valueOfSide(Direction.EAST))
+                    .append(MonoSymbol.GRID_VERTICAL.getSymbol());
+            default -> sb.append(MonoSymbol.GRID_VERTICAL.getSymbol()).append(spaceChar)
+                    .append(card.valueOfSide(txt == 1 ? Direction.NORTH : Direction.SOUTH)).append(spaceChar)
+                    .append(MonoSymbol.GRID_VERTICAL.getSymbol());
+        }
+        sb.append(COLOR_END);
+    }
+
+    // Card rows - each row has 5 text rows (top-border, top, mid, bot, bot-border).  Slots are the spaces'
+    // text rows, by card row, then text row, then column.
+    private static BoardTemplate buildTemplate() {
         // Column identifier row
-        StringBuilder sb = new StringBuilder("     ");
+        BoardTemplate.Builder template = BoardTemplate.builder().text("     ");
         for (int i = 0; i < SIZE; i++) {
-            sb.append((char) ('A' + i)).append("     ");
+            template.text((char) ('A' + i)).text("     ");
         }
-        sb.append("\n");
+        template.text("\n");
 
-        // Card rows - each row has 5 text rows (top-border, top, mid, bot, bot-border)
         for (int r = 0; r < SIZE; r++) {
             for (int txt = 0; txt < 5; txt++) {
-                sb.append(txt == 2 ? String.format("%d  ", (r + 1)) : "   ");  // row ids
+                template.text(txt == 2 ? (r + 1) + "  " : "   ");  // row ids
                 for (int c = 0; c < SIZE; c++) {
-                    String colorStart = "";
-                    String colorEnd = "";
-                    char spaceChar = ' ';
-                    if (grid[r][c].owner() != null) {
-                        colorStart = "<span style='color:" + COLOR.get(grid[r][c].owner()) + ";'>";
-                        colorEnd = "</span>";
-                        if (grid[r][c].element() != TriadElement.NONE &&
-                                grid[r][c].element() == TriadCardSet.getById(grid[r][c].cardId()).element()) {
-                            spaceChar = SHADING_CHAR;
-                        }
-                    }
-                    if (txt == 0) {
-                        sb.append(colorStart).append(TOP_BORDER).append(colorEnd);
-                    }
-                    if (txt == 4) {
-                        sb.append(colorStart).append(BOT_BORDER).append(colorEnd);
-                    }
-                    if (txt == 1 || txt == 3) {
-                        if (grid[r][c].owner() == null) {
-                            sb.append(BLANK_INNER);
-                        } else {
-                            Direction dir = txt == 1 ? Direction.NORTH : Direction.SOUTH;
-                            int val = getCardSideValue(new Location(r, c), dir, false);
-                            sb.append(colorStart);
-                            sb.append(MonoSymbol.GRID_VERTICAL.getSymbol()).append(spaceChar);
-                            sb.append(val).append(spaceChar).append(MonoSymbol.GRID_VERTICAL.getSymbol()).append(colorEnd);
-                        }
-                    }
-                    if (txt == 2) {
-                        if (grid[r][c].owner() == null) {
-                            sb.append(MonoSymbol.GRID_VERTICAL.getSymbol()).append(" ");
-                            sb.append(grid[r][c].element().getDisplayChar());
-                            sb.append(" ").append(MonoSymbol.GRID_VERTICAL.getSymbol());
-                        } else {
-                            sb.append(colorStart).append(MonoSymbol.GRID_VERTICAL.getSymbol());
-                            sb.append(getCardSideValue(new Location(r, c), Direction.WEST, false)).append(spaceChar);
-                            sb.append(getCardSideValue(new Location(r, c), Direction.EAST, false));
-                            sb.append(MonoSymbol.GRID_VERTICAL.getSymbol()).append(colorEnd);
-                        }
-                    }
-
-                    sb.append(" ");
+                    template.slot().text(" ");
                 }
-                sb.append("\n");
+                template.text("\n");
             }  // end for (text row within card row)
-            sb.append("\n");
+            template.text("\n");
         }  // end for (card row)
-        sb.append("\n");
+        template.text("\n");
 
-        return sb.toString();
+        return template.build(40);
     }
 
     // Utility methods
@@ -274,21 +364,16 @@ public class TriadCubedBoard {
         return (loc.row() >= 0 && loc.row() < SIZE && loc.col() >= 0 && loc.col() < SIZE);
     }
 
-    /**
-     * Get the value of a card side at a location.  "adjusted" adjusts the value for elemental
-     * effects if set.
-     */
-    private int getCardSideValue(Location loc, Direction dir, boolean adjust) {
-        TriadCard card = TriadCardSet.getById(grid[loc.row()][loc.col()].cardId());
-        int adjustment = (adjust && grid[loc.row()][loc.col()].element() != TriadElement.NONE &&
-                grid[loc.row()][loc.col()].element() == card.element()) ? 1 : 0;
-        return card.valueOfSide(dir) + adjustment;
+    private Space getSpace(int r, int c) {
+        int cell = cells[r * SIZE + c];
+        int owner = cellOwner(cell);
+        return new Space(cellCardId(cell), owner < 0 ? null : owner, cellElement(cell));
     }
 
     // Unit test support
     @VisibleForTesting
     public Space getGrid(int r, int c) {
-        return grid[r][c];
+        return getSpace(r, c);
     }
 
-}
\ No newline at end of file
+}
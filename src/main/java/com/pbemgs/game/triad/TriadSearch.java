@@ -0,0 +1,215 @@
+package com.pbemgs.game.triad;
+
+import com.pbemgs.model.Location;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Card placement search used to pick TriadCubed auto-moves on timeout.
+ * Negamax with alpha-beta over TriadCubedBoard's packed cell resolver, placing and undoing cards in place,
+ * with hands held as card id bitmasks, so a search does no per-node allocation.  Iterative deepening stops
+ * at the time budget or once the board is searched to the end.
+ * <p>
+ * With face-down hands the opponent's hand is unknown; it is some subset of the cards they have left.  In that
+ * case a set of opponent hands is sampled from those cards, every root move is scored against each sample, and
+ * the move with the best average wins (expectimax over the hidden hand).  With a known hand there is one sample
+ * and the search is plain minimax.
+ */
+public class TriadSearch {
+    private static final int WIN_SCORE = 100;
+    private static final int INFINITY = WIN_SCORE * 2;
+    private static final int HIDDEN_HAND_SAMPLES = 16;
+    private static final int TIME_CHECK_INTERVAL = 1024;  // nodes between clock checks
+    private static final int FULL_BOARD = (1 << TriadCubedBoard.CELL_COUNT) - 1;
+
+    private final int[] cells;
+
+    private long deadlineNanos;
+    private boolean canAbort;
+    private boolean timedOut;
+    private long nodes;
+
+    /**
+     * Score is from the mover's point of view, averaged over samples: above WIN_SCORE is a won board,
+     * below -WIN_SCORE a lost one, anything else the card count margin at the search horizon.
+     */
+    public record SearchResult(int cardId, Location loc, int score, int depth, long nodes, int samples) {
+    }
+
+    public TriadSearch(TriadCubedBoard board) {
+        this.cells = board.getCells();
+    }
+
+    /**
+     * Searches for the best card and square for the seat.  opponentCards holds every card the opponent could
+     * be holding; if it has exactly opponentHandSize cards the hand is known.
+     * Returns null if the seat has no card or the board is full.
+     */
+    public SearchResult findBestMove(int seat, List<Integer> hand, List<Integer> opponentCards, int opponentHandSize,
+                                     Duration timeBudget, Random rng) {
+        deadlineNanos = System.nanoTime() + timeBudget.toNanos();
+        canAbort = false;
+        timedOut = false;
+        nodes = 0;
+
+        int myHand = toMask(hand);
+        int empty = emptyMask();
+        if (myHand == 0 || empty == 0) {
+            return null;
+        }
+
+        int[] samples = sampleOpponentHands(opponentCards, opponentHandSize, rng);
+        int[] rootMoves = new int[Integer.bitCount(myHand) * Integer.bitCount(empty)];
+        int numMoves = 0;
+        for (int cards = myHand; cards != 0; cards &= cards - 1) {
+            for (int open = empty; open != 0; open &= open - 1) {
+                rootMoves[numMoves++] = packMove(Integer.numberOfTrailingZeros(cards), Integer.numberOfTrailingZeros(open));
+            }
+        }
+
+        int bestMove = rootMoves[0];
+        int bestTotal = 0;
+        int completedDepth = 0;
+        int[] totals = new int[numMoves];
+        for (int depth = 1; depth <= Integer.bitCount(empty); ++depth) {
+            Arrays.fill(totals, 0);
+            for (int sample : samples) {
+                // A single known hand only needs the best move, so the root window can narrow.
+                int alpha = -INFINITY;
+                for (int i = 0; i < numMoves && !timedOut; ++i) {
+                    int move = rootMoves[i];
+                    int card = moveCard(move);
+                    int idx = moveCell(move);
+                    int flips = TriadCubedBoard.placeCard(cells, idx, seat, card);
+                    int score = -negamax(1 - seat, sample, myHand & ~(1 << card), empty & ~(1 << idx),
+                            depth - 1, -INFINITY, samples.length == 1 ? -alpha : INFINITY);
+                    TriadCubedBoard.undoPlacement(cells, idx, flips);
+                    totals[i] += score;
+                    alpha = Math.max(alpha, score);
+                }
+                if (timedOut) {
+                    break;
+                }
+            }
+            if (timedOut) {
+                break;
+            }
+
+            int iterBest = 0;
+            for (int i = 1; i < numMoves; ++i) {
+                if (totals[i] > totals[iterBest]) {
+                    iterBest = i;
+                }
+            }
+            bestMove = rootMoves[iterBest];
+            bestTotal = totals[iterBest];
+            completedDepth = depth;
+            canAbort = true;
+            moveToFront(rootMoves, iterBest);
+        }
+
+        int idx = moveCell(bestMove);
+        return new SearchResult(moveCard(bestMove), new Location(idx / 3, idx % 3), bestTotal / samples.length,
+                completedDepth, nodes, samples.length);
+    }
+
+    // Negamax over the seat to move.  Scores are from the point of view of the seat to move.
+    private int negamax(int seat, int hand, int otherHand, int empty, int depth, int alpha, int beta) {
+        ++nodes;
+        if (canAbort && nodes % TIME_CHECK_INTERVAL == 0 && System.nanoTime() > deadlineNanos) {
+            timedOut = true;
+            return 0;
+        }
+        int margin = TriadCubedBoard.countOwned(cells, seat) - TriadCubedBoard.countOwned(cells, 1 - seat);
+        if (empty == 0) {
+            return margin > 0 ? WIN_SCORE + margin : -WIN_SCORE + margin;
+        }
+        if (depth == 0 || hand == 0) {
+            return margin;
+        }
+
+        int best = -INFINITY;
+        for (int cards = hand; cards != 0; cards &= cards - 1) {
+            int card = Integer.numberOfTrailingZeros(cards);
+            for (int open = empty; open != 0; open &= open - 1) {
+                int idx = Integer.numberOfTrailingZeros(open);
+                int flips = TriadCubedBoard.placeCard(cells, idx, seat, card);
+                int score = -negamax(1 - seat, otherHand, hand & ~(1 << card), empty & ~(1 << idx),
+                        depth - 1, -beta, -alpha);
+                TriadCubedBoard.undoPlacement(cells, idx, flips);
+                if (timedOut) {
+                    return 0;
+                }
+                if (score > best) {
+                    best = score;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                }
+                if (alpha >= beta) {
+                    return best;
+                }
+            }
+        }
+        return best;
+    }
+
+    // One opponent hand (as a card mask) per sample; a single exact hand if the cards are all known.
+    private int[] sampleOpponentHands(List<Integer> opponentCards, int handSize, Random rng) {
+        if (opponentCards.size() <= handSize) {
+            return new int[]{toMask(opponentCards)};
+        }
+        int[] samples = new int[HIDDEN_HAND_SAMPLES];
+        int[] pool = opponentCards.stream().mapToInt(Integer::intValue).toArray();
+        for (int s = 0; s < samples.length; ++s) {
+            // partial Fisher-Yates over the pool
+            for (int i = 0; i < handSize; ++i) {
+                int j = i + rng.nextInt(pool.length - i);
+                int tmp = pool[i];
+                pool[i] = pool[j];
+                pool[j] = tmp;
+                samples[s] |= 1 << pool[i];
+            }
+        }
+        return samples;
+    }
+
+    private int emptyMask() {
+        int empty = 0;
+        for (int idx = 0; idx < cells.length; ++idx) {
+            if (TriadCubedBoard.cellOwner(cells[idx]) < 0) {
+                empty |= 1 << idx;
+            }
+        }
+        return empty & FULL_BOARD;
+    }
+
+    private static int toMask(List<Integer> cardIds) {
+        int mask = 0;
+        for (int cardId : cardIds) {
+            mask |= 1 << cardId;
+        }
+        return mask;
+    }
+
+    private static int packMove(int cardId, int idx) {
+        return (cardId << 4) | idx;
+    }
+
+    private static int moveCard(int move) {
+        return move >>> 4;
+    }
+
+    private static int moveCell(int move) {
+        return move & 0xF;
+    }
+
+    private static void moveToFront(int[] moves, int index) {
+        int move = moves[index];
+        moves[index] = moves[0];
+        moves[0] = move;
+    }
+}
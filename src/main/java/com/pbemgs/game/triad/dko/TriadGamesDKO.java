@@ -1,8 +1,12 @@
 package com.pbemgs.game.triad.dko;
 
+import com.pbemgs.dko.ArchivedGamesDKO;
+import com.pbemgs.dko.GameParticipantsDKO;
+import com.pbemgs.dko.StaleGameUpdateException;
 import com.pbemgs.generated.enums.TriadGamesGamePhase;
 import com.pbemgs.generated.enums.TriadGamesGameState;
 import com.pbemgs.generated.tables.records.TriadGamesRecord;
+import com.pbemgs.model.GameType;
 import org.jooq.DSLContext;
 
 import java.time.LocalDateTime;
@@ -10,7 +14,6 @@ import java.util.List;
 import java.util.Set;
 
 import static com.pbemgs.generated.tables.TriadGames.TRIAD_GAMES;
-import static com.pbemgs.generated.tables.TriadPlayers.TRIAD_PLAYERS;
 
 public class TriadGamesDKO {
     private final DSLContext dslContext;
@@ -23,9 +26,10 @@ public class TriadGamesDKO {
      * Fetch a game by game ID.
      */
     public TriadGamesRecord getGameById(Long gameId) {
-        return dslContext.selectFrom(TRIAD_GAMES)
+        TriadGamesRecord game = dslContext.selectFrom(TRIAD_GAMES)
                 .where(TRIAD_GAMES.GAME_ID.eq(gameId))
                 .fetchOne();
+        return game != null ? game : new ArchivedGamesDKO(dslContext).fetchArchivedGame(GameType.TRIAD, TRIAD_GAMES, gameId);
     }
 
     /**
@@ -37,26 +41,13 @@ public class TriadGamesDKO {
                 .fetchInto(TriadGamesRecord.class);
     }
 
-    /**
-     * Fetch all in-progress games.
-     */
-    public List<TriadGamesRecord> getActiveGames() {
-        return dslContext.selectFrom(TRIAD_GAMES)
-                .where(TRIAD_GAMES.GAME_STATE.eq(TriadGamesGameState.IN_PROGRESS))
-                .fetchInto(TriadGamesRecord.class);
-    }
-
-
     /**
      * Fetch all active games for a given user.
-     * This requires a JOIN with TRIAD_PLAYERS to find which games a user is in.
      */
     public List<TriadGamesRecord> getActiveGamesForUser(Long userId) {
-        return dslContext.select(TRIAD_GAMES.fields())
-                .from(TRIAD_GAMES)
-                .join(TRIAD_PLAYERS).on(TRIAD_GAMES.GAME_ID.eq(TRIAD_PLAYERS.GAME_ID))
-                .where(TRIAD_PLAYERS.USER_ID.eq(userId))
-                .and(TRIAD_GAMES.GAME_STATE.in(TriadGamesGameState.OPEN, TriadGamesGameState.IN_PROGRESS))
+        return dslContext.selectFrom(TRIAD_GAMES)
+                .where(TRIAD_GAMES.GAME_STATE.in(TriadGamesGameState.OPEN, TriadGamesGameState.IN_PROGRESS))
+                .and(GameParticipantsDKO.isActiveParticipant(GameType.TRIAD, TRIAD_GAMES.GAME_ID, userId))
                 .fetchInto(TriadGamesRecord.class);
     }
 
@@ -85,7 +76,7 @@ public class TriadGamesDKO {
             throw new IllegalArgumentException("Cannot update game: GameID is null.");
         }
 
-        dslContext.update(TRIAD_GAMES)
+        int rowsUpdated = dslContext.update(TRIAD_GAMES)
                 .set(TRIAD_GAMES.GAME_STATE, gameRecord.getGameState())
                 .set(TRIAD_GAMES.GAME_PHASE, gameRecord.getGamePhase())
                 .set(TRIAD_GAMES.CURRENT_ACTION_USERID, gameRecord.getCurrentActionUserid())
@@ -93,8 +84,19 @@ public class TriadGamesDKO {
                 .set(TRIAD_GAMES.CURRENT_SUBGAME, gameRecord.getCurrentSubgame())
                 .set(TRIAD_GAMES.LAST_MOVE_TIMESTAMP, gameRecord.getLastMoveTimestamp())
                 .set(TRIAD_GAMES.LAST_REMINDER_TIMESTAMP, gameRecord.getLastReminderTimestamp())
+                .set(TRIAD_GAMES.VERSION, TRIAD_GAMES.VERSION.plus(1))
                 .where(TRIAD_GAMES.GAME_ID.eq(gameRecord.getGameId()))
+                .and(TRIAD_GAMES.VERSION.eq(gameRecord.getVersion()))
                 .execute();
+
+        if (rowsUpdated == 0) {
+            throw new StaleGameUpdateException("triad_games", gameRecord.getGameId(), gameRecord.getVersion());
+        }
+        gameRecord.setVersion(gameRecord.getVersion() + 1);
+        if (gameRecord.changed(TRIAD_GAMES.GAME_STATE)) {
+            new GameParticipantsDKO(dslContext).syncGameState(GameType.TRIAD, gameRecord.getGameId());
+            gameRecord.changed(TRIAD_GAMES.GAME_STATE, false);
+        }
     }
 
     /**
@@ -1,8 +1,12 @@
 package com.pbemgs.game.triad.dko;
 
+import com.pbemgs.dko.ArchivedGamesDKO;
+import com.pbemgs.dko.GameParticipantsDKO;
 import com.pbemgs.generated.tables.records.TriadPlayersRecord;
+import com.pbemgs.model.GameType;
 import org.jooq.DSLContext;
 
+import java.util.Comparator;
 import java.util.List;
 
 import static com.pbemgs.generated.tables.TriadPlayers.TRIAD_PLAYERS;
@@ -18,10 +22,16 @@ public class TriadPlayersDKO {
      * Fetch all players in a given game, sorted by their seat 2number
      */
     public List<TriadPlayersRecord> getPlayersForGame(Long gameId) {
-        return dslContext.selectFrom(TRIAD_PLAYERS)
+        List<TriadPlayersRecord> players = dslContext.selectFrom(TRIAD_PLAYERS)
                 .where(TRIAD_PLAYERS.GAME_ID.eq(gameId))
                 .orderBy(TRIAD_PLAYERS.PLAYER_SEAT)
                 .fetchInto(TriadPlayersRecord.class);
+        if (!players.isEmpty()) {
+            return players;
+        }
+        return new ArchivedGamesDKO(dslContext).fetchArchivedPlayers(GameType.TRIAD, TRIAD_PLAYERS, gameId).stream()
+                .sorted(Comparator.comparing(TriadPlayersRecord::getPlayerSeat))
+                .toList();
     }
 
     /**
@@ -53,6 +63,7 @@ public class TriadPlayersDKO {
         record.setCardsInHand("");
         record.setUndraftedCards(undraftedCards);
         record.store();
+        new GameParticipantsDKO(dslContext).addParticipant(GameType.TRIAD, gameId, userId, playerSeat);
     }
 
     /**
@@ -0,0 +1,14 @@
+package com.pbemgs.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One of a user's active (OPEN or IN_PROGRESS) games, across all game types - the "my_games" read model.
+ * phase and needsInput carry the per-game extras: Triad's game phase and whether the user still has to
+ * select a hand, or whether a Surge player has no gate commands queued.  The Surge timing fields are null
+ * for every other game.
+ */
+public record ActiveGameSummary(GameType gameType, long gameId, boolean open, Long userIdToMove,
+                                String phase, boolean needsInput,
+                                Integer ticksPerDay, String gameTimezone, LocalDateTime lastTimeStep) {
+}
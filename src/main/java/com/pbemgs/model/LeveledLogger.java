@@ -0,0 +1,149 @@
+package com.pbemgs.model;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Leveled logging over a LambdaLogger, with a level per subsystem.  Debug and trace messages are passed as
+ * suppliers (or guarded with isDebugEnabled() / isTraceEnabled()) so a disabled level costs no string building
+ * and no CloudWatch ingestion.
+ * <p>
+ * Levels come from PBEMGS_LOG_LEVELS, e.g. "default=INFO,surge=DEBUG,s3email=WARN"; unset subsystems use the
+ * default, which is INFO.  PBEMGS_LOG_TRACE_SAMPLE (0.0 - 1.0) samples whole requests: a sampled request logs
+ * every subsystem at TRACE, so a small fraction of production traffic carries full verbose traces.  Handlers
+ * decide sampling per request via RequestTrace.begin().
+ */
+public class LeveledLogger {
+    public enum Level {
+        TRACE,
+        DEBUG,
+        INFO,
+        WARN,
+        ERROR,
+        OFF
+    }
+
+    private static final String DEFAULT_KEY = "default";
+    private static final Map<String, Level> configuredLevels = parseLevels(System.getenv("PBEMGS_LOG_LEVELS"));
+    private static final double traceSampleRate = parseRate(System.getenv("PBEMGS_LOG_TRACE_SAMPLE"));
+    private static final ThreadLocal<Boolean> sampledRequest = ThreadLocal.withInitial(() -> false);
+
+    private final LambdaLogger logger;
+    private final String subsystem;
+    private final Level level;
+
+    LeveledLogger(LambdaLogger logger, String subsystem, Level level) {
+        this.logger = logger;
+        this.subsystem = subsystem;
+        this.level = level;
+    }
+
+    public static LeveledLogger of(LambdaLogger logger, String subsystem) {
+        Level level = configuredLevels.getOrDefault(subsystem,
+                configuredLevels.getOrDefault(DEFAULT_KEY, Level.INFO));
+        return new LeveledLogger(logger, subsystem, level);
+    }
+
+    /**
+     * Decides whether the request starting on this thread is trace-sampled.  Returns the decision.
+     */
+    public static boolean sampleRequest() {
+        boolean sampled = traceSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < traceSampleRate;
+        sampledRequest.set(sampled);
+        return sampled;
+    }
+
+    public boolean isEnabled(Level messageLevel) {
+        return messageLevel.compareTo(level) >= 0 || (sampledRequest.get() && messageLevel != Level.OFF);
+    }
+
+    public boolean isTraceEnabled() {
+        return isEnabled(Level.TRACE);
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public void trace(Supplier<String> message) {
+        if (isEnabled(Level.TRACE)) {
+            write(Level.TRACE, message.get());
+        }
+    }
+
+    public void trace(String message) {
+        if (isEnabled(Level.TRACE)) {
+            write(Level.TRACE, message);
+        }
+    }
+
+    public void debug(Supplier<String> message) {
+        if (isEnabled(Level.DEBUG)) {
+            write(Level.DEBUG, message.get());
+        }
+    }
+
+    public void debug(String message) {
+        if (isEnabled(Level.DEBUG)) {
+            write(Level.DEBUG, message);
+        }
+    }
+
+    public void info(String message) {
+        if (isEnabled(Level.INFO)) {
+            write(Level.INFO, message);
+        }
+    }
+
+    public void warn(String message) {
+        if (isEnabled(Level.WARN)) {
+            write(Level.WARN, message);
+        }
+    }
+
+    public void error(String message) {
+        if (isEnabled(Level.ERROR)) {
+            write(Level.ERROR, message);
+        }
+    }
+
+    // INFO lines keep the plain format the handlers have always logged.
+    private void write(Level messageLevel, String message) {
+        logger.log(messageLevel == Level.INFO ? message : messageLevel + " [" + subsystem + "] " + message);
+    }
+
+    static Map<String, Level> parseLevels(String spec) {
+        Map<String, Level> levels = new HashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return levels;
+        }
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts.length != 2) {
+                continue;
+            }
+            try {
+                levels.put(parts[0].trim().toLowerCase(Locale.ROOT), Level.valueOf(parts[1].trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                // ignore unknown level names
+            }
+        }
+        return levels;
+    }
+
+    private static double parseRate(String rate) {
+        if (rate == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Math.min(1, Double.parseDouble(rate.trim())));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
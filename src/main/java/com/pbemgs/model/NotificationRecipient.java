@@ -0,0 +1,7 @@
+package com.pbemgs.model;
+
+/**
+ * One recipient of a bulk notification - the user id is the resume checkpoint.
+ */
+public record NotificationRecipient(long userId, String emailAddr) {
+}
@@ -0,0 +1,7 @@
+package com.pbemgs.model;
+
+/**
+ * A player's Elo rating for one game (or across all games), with the number of rated games behind it.
+ */
+public record PlayerRating(long userId, String gameName, double rating, int gamesPlayed) {
+}
@@ -0,0 +1,180 @@
+package com.pbemgs.model;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-request latency breakdown for the Lambda handlers.  A handler calls begin() on entry and end() on exit;
+ * code along the way wraps its stages in spans:
+ * <pre>
+ *     try (RequestTrace.Span span = RequestTrace.span(RequestTrace.S3_FETCH)) {
+ *         ...
+ *     }
+ * </pre>
+ * Spans nest, and each span name is credited with its self time (elapsed minus any spans opened inside it), so
+ * e.g. ENGINE around a game's move processing counts only the game logic, not the DB statements, rendering or
+ * SMTP sends it made.  end() logs one CloudWatch Embedded Metric Format line with the total and each span's
+ * time as metrics, dimensioned by handler, so CloudWatch can chart p99s per stage.
+ * <p>
+ * The trace is held per thread; span() with no trace begun on the thread is a no-op.
+ */
+public class RequestTrace {
+    public static final String S3_FETCH = "S3Fetch";
+    public static final String SUBJECT_PARSE = "SubjectParse";
+    public static final String USER_LOOKUP = "UserLookup";
+    public static final String DB_READ = "DbRead";
+    public static final String DB_WRITE = "DbWrite";
+    public static final String ENGINE = "Engine";
+    public static final String RENDER = "Render";
+    public static final String SMTP_SEND = "SmtpSend";
+
+    private static final String NAMESPACE = "PBEMGS";
+    private static final ThreadLocal<RequestTrace> current = new ThreadLocal<>();
+    private static final Span NO_OP = () -> {
+    };
+
+    private final String handler;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, String> properties = new LinkedHashMap<>();
+    private final Map<String, SpanStats> statsBySpan = new LinkedHashMap<>();
+    private OpenSpan open = null;
+
+    private static class SpanStats {
+        int count;
+        long selfNanos;
+    }
+
+    /**
+     * A timed stage; close() ends it.
+     */
+    public interface Span extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private class OpenSpan implements Span {
+        private final String name;
+        private final OpenSpan parent;
+        private final long start = System.nanoTime();
+        private long childNanos = 0;
+        private boolean closed = false;
+
+        OpenSpan(String name, OpenSpan parent) {
+            this.name = name;
+            this.parent = parent;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            long elapsed = System.nanoTime() - start;
+            SpanStats stats = statsBySpan.computeIfAbsent(name, k -> new SpanStats());
+            ++stats.count;
+            stats.selfNanos += Math.max(0, elapsed - childNanos);
+            if (parent != null) {
+                parent.childNanos += elapsed;
+            }
+            if (open == this) {
+                open = parent;
+            }
+        }
+    }
+
+    private RequestTrace(String handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Starts the trace for this thread's request, replacing any left over from a previous one.
+     */
+    public static RequestTrace begin(String handler, String requestId) {
+        RequestTrace trace = new RequestTrace(handler);
+        if (requestId != null) {
+            trace.properties.put("RequestId", requestId);
+        }
+        if (LeveledLogger.sampleRequest()) {
+            trace.properties.put("LogSampled", "true");
+        }
+        current.set(trace);
+        return trace;
+    }
+
+    public static Span span(String name) {
+        RequestTrace trace = current.get();
+        if (trace == null) {
+            return NO_OP;
+        }
+        OpenSpan span = trace.new OpenSpan(name, trace.open);
+        trace.open = span;
+        return span;
+    }
+
+    /**
+     * Adds a searchable property (e.g. the command or game type) to the current request's line.
+     */
+    public static void property(String key, String value) {
+        RequestTrace trace = current.get();
+        if (trace != null && value != null) {
+            trace.properties.put(key, value);
+        }
+    }
+
+    /**
+     * Credits time measured elsewhere (e.g. on a worker thread, where span() is a no-op) to a named metric.
+     */
+    public void addTiming(String name, long nanos) {
+        SpanStats stats = statsBySpan.computeIfAbsent(name, k -> new SpanStats());
+        ++stats.count;
+        stats.selfNanos += nanos;
+    }
+
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Logs the request's metric line and clears the trace from the thread.
+     */
+    public void end(LambdaLogger logger) {
+        if (current.get() == this) {
+            current.remove();
+        }
+        logger.log(toEmfJson(System.currentTimeMillis()));
+    }
+
+    String toEmfJson(long timestampMillis) {
+        StringBuilder metrics = new StringBuilder("{\"Name\":\"TotalMs\",\"Unit\":\"Milliseconds\"}");
+        StringBuilder values = new StringBuilder();
+        values.append(",\"TotalMs\":").append(millis(System.nanoTime() - startNanos));
+        for (Map.Entry<String, SpanStats> entry : statsBySpan.entrySet()) {
+            String name = entry.getKey();
+            metrics.append(",{\"Name\":\"").append(name).append("Ms\",\"Unit\":\"Milliseconds\"}");
+            values.append(",\"").append(name).append("Ms\":").append(millis(entry.getValue().selfNanos));
+            values.append(",\"").append(name).append("Count\":").append(entry.getValue().count);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"_aws\":{\"Timestamp\":").append(timestampMillis);
+        sb.append(",\"CloudWatchMetrics\":[{\"Namespace\":\"").append(NAMESPACE).append("\"");
+        sb.append(",\"Dimensions\":[[\"Handler\"]],\"Metrics\":[").append(metrics).append("]}]}");
+        sb.append(",\"Handler\":\"").append(escape(handler)).append("\"");
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+            sb.append(",\"").append(escape(entry.getKey())).append("\":\"").append(escape(entry.getValue())).append("\"");
+        }
+        sb.append(values).append("}");
+        return sb.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.valueOf(nanos / 1000 / 1000.0);
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -13,6 +13,7 @@ import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.function.Function;
 
 /**
  * Structure for a "base" email - the email metadata and link to the contents of the body which are stored in S3.
@@ -26,25 +27,35 @@ public class S3Email {
     private final static String EXPECTED_SOURCE = "aws:ses";
     private final static String EXPECTED_VERSION = "1.0";
     private final static String EXPECTED_TO_ADDR = "pbemgs@angryturtlestudios.com";
+    private final static String LOG_SUBSYSTEM = "s3email";
 
     private final String from;
     private final String subject;
     private final String messageId;
     private final StatusType spamVerdict;
     private final StatusType virusVerdict;
+    // Body lookup by message ID, or null to read the body from S3.
+    private final Function<String, String> bodySource;
 
-    private S3Email(String from, String subject, String messageId, StatusType spamVerdict, StatusType virusVerdict) {
+    private S3Email(String from, String subject, String messageId, StatusType spamVerdict, StatusType virusVerdict,
+                    Function<String, String> bodySource) {
         this.from = from;
         this.subject = subject;
         this.messageId = messageId;
         this.spamVerdict = spamVerdict;
         this.virusVerdict = virusVerdict;
+        this.bodySource = bodySource;
     }
 
     // Create the S3 Email from the given "JSON structure"
     public static S3Email fromJson(Map<String, Object> json, LambdaLogger logger) {
-        logger.log("S3Email constructor - parsing json from email.");
-        logger.log(json.toString());
+        return fromJson(json, logger, null);
+    }
+
+    // As above, with the body read from bodySource (by message ID) rather than S3, for local runs.
+    public static S3Email fromJson(Map<String, Object> json, LambdaLogger logger, Function<String, String> bodySource) {
+        LeveledLogger log = LeveledLogger.of(logger, LOG_SUBSYSTEM);
+        log.debug(() -> "S3Email constructor - parsing json from email:\n" + json);
 
         validateJson(json, logger);
 
@@ -70,9 +81,9 @@ public class S3Email {
         }
 
         String from = (String) mailBlock.get("source");
-        logger.log("From: " + from.toString());
+        log.debug(() -> "From: " + from);
         List<String> toList = (List<String>) receiptBlock.get("recipients");
-        logger.log("ToList: " + toList.toString());
+        log.debug(() -> "ToList: " + toList);
 
         if (toList == null || toList.isEmpty() || !toList.contains(EXPECTED_TO_ADDR)) {
             logger.log("To list missing expected recipient: " + toList);
@@ -101,7 +112,7 @@ public class S3Email {
             throw new IllegalArgumentException("Bad virus verdict");
         }
 
-        return new S3Email(from, subject, messageId, spamVerdict, virusVerdict);
+        return new S3Email(from, subject, messageId, spamVerdict, virusVerdict, bodySource);
     }
 
     public String getFrom() {
@@ -126,7 +137,12 @@ public class S3Email {
 
     // Methods to extract the plain text of the email body (which is stored in MIME format in S3)
     public String getEmailBodyText(LambdaLogger logger) throws Exception {
-        return extractPlainTextFromS3Object("pbemgs-email-bodies", messageId, logger);
+        try (RequestTrace.Span span = RequestTrace.span(RequestTrace.S3_FETCH)) {
+            if (bodySource != null) {
+                return bodySource.apply(messageId);
+            }
+            return extractPlainTextFromS3Object("pbemgs-email-bodies", messageId, logger);
+        }
     }
 
     private String extractPlainTextFromS3Object(String bucketName, String objectKey, LambdaLogger logger) throws Exception {
@@ -152,10 +168,11 @@ public class S3Email {
     }
 
     private String getTextFromMimeMessage(MimeMessage message, LambdaLogger logger) throws Exception {
+        LeveledLogger log = LeveledLogger.of(logger, LOG_SUBSYSTEM);
         Object content = message.getContent();
         if (content instanceof String) {
             String fullContent = (String) content;
-            logger.log("Raw pure string content:\n" + fullContent);
+            log.debug(() -> "Raw pure string content:\n" + fullContent);
             return fullContent.replace("\r", "").trim();
         } else if (content instanceof Multipart) {
             Multipart multipart = (Multipart) content;
@@ -163,9 +180,9 @@ public class S3Email {
                 BodyPart part = multipart.getBodyPart(i);
                 if (part.isMimeType("text/html")) {
                     String fullContent = (String) part.getContent();
-                    logger.log("Raw HTML content:\n " + fullContent);
+                    log.debug(() -> "Raw HTML content:\n " + fullContent);
                     String processedHtml = extractTextFromHtml(fullContent);
-                    logger.log("-- Flattened Text Part:\n " + processedHtml);
+                    log.debug(() -> "-- Flattened Text Part:\n " + processedHtml);
                     return processedHtml;
                 }
             }
@@ -175,7 +192,7 @@ public class S3Email {
                 BodyPart part = multipart.getBodyPart(i);
                 if (part.isMimeType("text/plain")) {
                     String fullContent = (String) part.getContent();
-                    logger.log("Raw Plain Text content:\n " + fullContent);
+                    log.debug(() -> "Raw Plain Text content:\n " + fullContent);
                     return fullContent.trim(); // Return plain text part
                 }
             }
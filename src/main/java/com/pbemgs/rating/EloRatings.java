@@ -0,0 +1,97 @@
+package com.pbemgs.rating;
+
+import java.util.Arrays;
+
+/**
+ * Elo ratings held in primitive arrays, indexed by slot (a caller-assigned dense index per player and game).
+ * <p>
+ * A game is rated from the players' finishing ranks: every pair of players is scored as a head-to-head Elo
+ * result (lower rank wins, equal ranks draw), with the K factor split across each player's opponents.  For two
+ * players this is plain Elo; in a multi-player game a player who beats everyone moves about as far as a 2-player
+ * win.  All deltas are computed from the pre-game ratings, so the order of players within a game doesn't matter.
+ */
+public class EloRatings {
+    public static final double INITIAL_RATING = 1500.0;
+    public static final double K_FACTOR = 32.0;
+    private static final double SCALE = 400.0;
+
+    private final double[] ratings;
+    private final int[] gamesPlayed;
+    private final boolean[] changed;
+    private double[] deltas = new double[4];
+
+    public EloRatings(int slots) {
+        ratings = new double[slots];
+        gamesPlayed = new int[slots];
+        changed = new boolean[slots];
+        Arrays.fill(ratings, INITIAL_RATING);
+    }
+
+    public int size() {
+        return ratings.length;
+    }
+
+    /**
+     * Sets a starting rating (e.g. the stored one, when rating incrementally).  Doesn't mark the slot changed.
+     */
+    public void set(int slot, double rating, int games) {
+        ratings[slot] = rating;
+        gamesPlayed[slot] = games;
+    }
+
+    public double getRating(int slot) {
+        return ratings[slot];
+    }
+
+    public int getGamesPlayed(int slot) {
+        return gamesPlayed[slot];
+    }
+
+    /**
+     * True if a game has been rated into the slot since construction.
+     */
+    public boolean isChanged(int slot) {
+        return changed[slot];
+    }
+
+    /**
+     * Rates one game: the players in slots[from, to) finished at ranks[from, to) (lower is better).
+     */
+    public void rateGame(int[] slots, int[] ranks, int from, int to) {
+        int n = to - from;
+        if (n < 2) {
+            return;
+        }
+        if (deltas.length < n) {
+            deltas = new double[n];
+        }
+        Arrays.fill(deltas, 0, n, 0.0);
+
+        double k = K_FACTOR / (n - 1);
+        for (int i = 0; i < n; ++i) {
+            double rating = ratings[slots[from + i]];
+            int rank = ranks[from + i];
+            for (int j = i + 1; j < n; ++j) {
+                int otherRank = ranks[from + j];
+                double actual = rank < otherRank ? 1.0 : rank == otherRank ? 0.5 : 0.0;
+                double change = k * (actual - expectedScore(rating, ratings[slots[from + j]]));
+                deltas[i] += change;
+                deltas[j] -= change;
+            }
+        }
+
+        for (int i = 0; i < n; ++i) {
+            int slot = slots[from + i];
+            ratings[slot] += deltas[i];
+            ++gamesPlayed[slot];
+            changed[slot] = true;
+        }
+    }
+
+    /**
+     * Expected score (0 to 1) for a player rated `rating` against one rated `opponent`.
+     */
+    public static double expectedScore(double rating, double opponent) {
+        return 1.0 / (1.0 + Math.pow(10.0, (opponent - rating) / SCALE));
+    }
+}
@@ -0,0 +1,165 @@
+package com.pbemgs.rating;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One pass of the rating engine over a sequence of completed games.
+ * <p>
+ * Outcome rows are added column-wise into primitive arrays, grouped by game and with games in the order they are
+ * to be rated (completion order).  Each user then gets one EloRatings slot per game name seen plus one for the
+ * overall (all games) rating; slots are found by binary search over the sorted distinct user ids, so a full
+ * history recompute allocates nothing per row beyond the arrays.
+ * <p>
+ * Usage: addOutcome() for every row, then setInitialRating() for any stored ratings to continue from
+ * (incremental runs), run(), and forEachChanged() to write the results.
+ */
+public class RatingRun {
+    public static final String OVERALL = "ALL";
+
+    public interface RatingConsumer {
+        void accept(long userId, String gameName, double rating, int gamesPlayed);
+    }
+
+    private final List<String> gameNames = new ArrayList<>();
+    private long[] userIds = new long[1024];
+    private int[] gameNameIdx = new int[1024];
+    private int[] ranks = new int[1024];
+    private int[] gameStarts = new int[256];
+    private int rows;
+    private int games;
+    private int prevGameNameIdx = -1;
+    private long prevGameId;
+    private long lastOutcomeId;
+
+    private long[] users;
+    private EloRatings ratings;
+
+    /**
+     * Adds one outcome row.  rank is the finishing position (lower is better, equal ranks draw);
+     * completedOutcomeId is the newest outcome id of the row's game.
+     */
+    public void addOutcome(String gameName, long gameId, long userId, int rank, long completedOutcomeId) {
+        if (users != null) {
+            throw new IllegalStateException("Outcomes can't be added once the run is prepared.");
+        }
+        int nameIdx = gameNames.indexOf(gameName);
+        if (nameIdx < 0) {
+            nameIdx = gameNames.size();
+            gameNames.add(gameName);
+        }
+        if (rows == userIds.length) {
+            userIds = Arrays.copyOf(userIds, rows * 2);
+            gameNameIdx = Arrays.copyOf(gameNameIdx, rows * 2);
+            ranks = Arrays.copyOf(ranks, rows * 2);
+        }
+        if (nameIdx != prevGameNameIdx || gameId != prevGameId) {
+            if (games == gameStarts.length) {
+                gameStarts = Arrays.copyOf(gameStarts, games * 2);
+            }
+            gameStarts[games++] = rows;
+            prevGameNameIdx = nameIdx;
+            prevGameId = gameId;
+        }
+        userIds[rows] = userId;
+        gameNameIdx[rows] = nameIdx;
+        ranks[rows] = rank;
+        ++rows;
+        lastOutcomeId = Math.max(lastOutcomeId, completedOutcomeId);
+    }
+
+    public int getOutcomeCount() {
+        return rows;
+    }
+
+    public int getGameCount() {
+        return games;
+    }
+
+    /**
+     * Newest outcome id covered by the games added - the point to continue from next time.
+     */
+    public long getLastOutcomeId() {
+        return lastOutcomeId;
+    }
+
+    /**
+     * The distinct users in the run, sorted.  Ends the adding phase.
+     */
+    public long[] getUserIds() {
+        prepare();
+        return users;
+    }
+
+    /**
+     * Starting rating for a user's slot.  Ratings for games not in this run are ignored.
+     */
+    public void setInitialRating(long userId, String gameName, double rating, int gamesPlayed) {
+        prepare();
+        int slot = slotFor(userId, gameName);
+        if (slot >= 0) {
+            ratings.set(slot, rating, gamesPlayed);
+        }
+    }
+
+    /**
+     * Rates every game in order, into both the per-game and the overall slots.
+     */
+    public void run() {
+        prepare();
+        int[] gameSlots = new int[rows];
+        int[] overallSlots = new int[rows];
+        int overallBase = gameNames.size() * users.length;
+        for (int r = 0; r < rows; ++r) {
+            int userIdx = Arrays.binarySearch(users, userIds[r]);
+            gameSlots[r] = gameNameIdx[r] * users.length + userIdx;
+            overallSlots[r] = overallBase + userIdx;
+        }
+
+        for (int g = 0; g < games; ++g) {
+            int from = gameStarts[g];
+            int to = g + 1 < games ? gameStarts[g + 1] : rows;
+            ratings.rateGame(gameSlots, ranks, from, to);
+            ratings.rateGame(overallSlots, ranks, from, to);
+        }
+    }
+
+    /**
+     * Passes every rating changed by run() to the consumer.
+     */
+    public void forEachChanged(RatingConsumer consumer) {
+        for (int slot = 0; slot < ratings.size(); ++slot) {
+            if (ratings.isChanged(slot)) {
+                int nameIdx = slot / users.length;
+                String gameName = nameIdx < gameNames.size() ? gameNames.get(nameIdx) : OVERALL;
+                consumer.accept(users[slot % users.length], gameName, ratings.getRating(slot), ratings.getGamesPlayed(slot));
+            }
+        }
+    }
+
+    private void prepare() {
+        if (users != null) {
+            return;
+        }
+        long[] sorted = Arrays.copyOf(userIds, rows);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; ++i) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        users = Arrays.copyOf(sorted, distinct);
+        ratings = new EloRatings((gameNames.size() + 1) * users.length);
+    }
+
+    private int slotFor(long userId, String gameName) {
+        int userIdx = Arrays.binarySearch(users, userId);
+        int nameIdx = OVERALL.equals(gameName) ? gameNames.size() : gameNames.indexOf(gameName);
+        if (userIdx < 0 || nameIdx < 0) {
+            return -1;
+        }
+        return nameIdx * users.length + userIdx;
+    }
+}
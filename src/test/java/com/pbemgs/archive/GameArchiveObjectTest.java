@@ -0,0 +1,72 @@
+package com.pbemgs.archive;
+
+import com.pbemgs.generated.enums.LoaGamesGameState;
+import com.pbemgs.generated.tables.records.LoaGamesRecord;
+import org.jooq.DSLContext;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.pbemgs.generated.tables.LoaGames.LOA_GAMES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GameArchiveObjectTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testObjectRoundTrip() {
+        Map<String, String> tables = new LinkedHashMap<>();
+        tables.put("loa_games", "{\"records\":[]}");
+        tables.put("triad_players", "x".repeat(10_000));
+
+        byte[] data = GameArchiveObject.write(tables);
+        assertTrue(data.length < 1_000, "entries should be compressed");
+        assertEquals(tables, GameArchiveObject.read(data));
+    }
+
+    @Test
+    public void testGameRowsRoundTripThroughStore() {
+        DSLContext dsl = DSL.using(SQLDialect.MYSQL);
+        LoaGamesRecord game = dsl.newRecord(LOA_GAMES);
+        game.setGameId(17L);
+        game.setGameState(LoaGamesGameState.COMPLETE);
+        game.setXUserId(3L);
+        game.setOUserId(4L);
+        game.setBoardState(".XXXXXX.O......OO......O");
+        game.setLastMoveTimestamp(LocalDateTime.of(2024, 5, 1, 12, 30));
+        game.setVersion(9);
+        Result<LoaGamesRecord> games = dsl.newResult(LOA_GAMES);
+        games.add(game);
+
+        GameArchiveStore store = new LocalFileGameArchiveStore(tempDir);
+        store.put("games/loa/17-17.zip", GameArchiveObject.write(Map.of(LOA_GAMES.getName(), games.formatJSON())));
+
+        String json = GameArchiveObject.read(store.get("games/loa/17-17.zip")).get(LOA_GAMES.getName());
+        LoaGamesRecord restored = dsl.fetchFromJSON(json).into(LOA_GAMES).get(0);
+        assertEquals(game.getGameId(), restored.getGameId());
+        assertEquals(game.getGameState(), restored.getGameState());
+        assertEquals(game.getOUserId(), restored.getOUserId());
+        assertEquals(game.getBoardState(), restored.getBoardState());
+        assertEquals(game.getLastMoveTimestamp(), restored.getLastMoveTimestamp());
+        assertEquals(game.getVersion(), restored.getVersion());
+    }
+
+    @Test
+    public void testLocalStoreMissingAndEscapingKeys() {
+        GameArchiveStore store = new LocalFileGameArchiveStore(tempDir);
+        assertNull(store.get("games/tac/1-1.zip"));
+        assertThrows(IllegalArgumentException.class, () -> store.put("../outside.zip", new byte[1]));
+    }
+}
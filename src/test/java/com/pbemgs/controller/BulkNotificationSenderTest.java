@@ -0,0 +1,159 @@
+package com.pbemgs.controller;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.dko.BulkNotificationDKO;
+import com.pbemgs.dko.UsersDKO;
+import com.pbemgs.model.NotificationRecipient;
+import com.pbemgs.sim.RecordingEmailSender;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BulkNotificationSenderTest {
+    private static final LambdaLogger mockLogger = mock(LambdaLogger.class);
+    private static final long NOTIFICATION_ID = 7L;
+
+    private BulkNotificationDKO notificationDKO;
+    private UsersDKO usersDKO;
+    private RecordingEmailSender emailSender;
+    private AtomicLong clockNanos;
+    private BulkNotificationSender sender;
+
+    @BeforeEach
+    public void setUp() {
+        notificationDKO = mock(BulkNotificationDKO.class);
+        usersDKO = mock(UsersDKO.class);
+        emailSender = new RecordingEmailSender(mockLogger, 10);
+        // Sleeping just advances the clock.
+        clockNanos = new AtomicLong();
+        sender = new BulkNotificationSender(notificationDKO, usersDKO, emailSender, mockLogger,
+                new BulkNotificationSender.Settings(50, 100), clockNanos::get, clockNanos::addAndGet);
+    }
+
+    @Test
+    public void testSendsPacedChunksAndCheckpointsEach() {
+        givenProgress(0, 0);
+        givenUsers(0, 120);
+
+        assertTrue(sender.send(NOTIFICATION_ID, Duration.ofMinutes(1)));
+
+        // The configured 50 is capped so the To address plus the BCC list stays within the SES limit.
+        List<SESEmailSender.Email> sent = emailSender.getRecent();
+        assertEquals(3, sent.size());
+        for (SESEmailSender.Email email : sent) {
+            int recipients = 1 + email.toAddress().split(",").length;
+            assertTrue(recipients <= SESEmailSender.MAX_RECIPIENTS_PER_MESSAGE, recipients + " recipients");
+        }
+        assertEquals(49, sent.get(0).toAddress().split(",").length);
+        assertEquals(22, sent.get(2).toAddress().split(",").length);
+        verify(notificationDKO).checkpoint(NOTIFICATION_ID, 49, 49, 0);
+        verify(notificationDKO).checkpoint(NOTIFICATION_ID, 98, 98, 0);
+        verify(notificationDKO).checkpoint(NOTIFICATION_ID, 120, 120, 0);
+        verify(notificationDKO).complete(NOTIFICATION_ID);
+
+        // 49 recipients at 100/s is 490ms before each of the last two messages.
+        assertEquals(980, TimeUnit.NANOSECONDS.toMillis(clockNanos.get()));
+    }
+
+    @Test
+    public void testStopsBeforePacingPastTheBudget() {
+        givenProgress(0, 0);
+        givenUsers(0, 120);
+
+        // The third message would go out at 980ms.
+        assertFalse(sender.send(NOTIFICATION_ID, Duration.ofMillis(700)));
+
+        assertEquals(2, emailSender.getSentCount());
+        assertEquals(490, TimeUnit.NANOSECONDS.toMillis(clockNanos.get()));
+        verify(notificationDKO).checkpoint(NOTIFICATION_ID, 98, 98, 0);
+        verify(notificationDKO, never()).complete(anyLong());
+        verify(notificationDKO).release(NOTIFICATION_ID);
+    }
+
+    @Test
+    public void testStopsBeforeRetryPausePastTheBudget() {
+        givenProgress(0, 0);
+        givenUsers(0, 20);
+        RecordingEmailSender failingSender = new RecordingEmailSender(mockLogger, 10) {
+            @Override
+            public boolean sendNotificationEmail(List<String> toAddresses, SESEmailSender.PreparedBody body) {
+                return false;
+            }
+        };
+        sender = new BulkNotificationSender(notificationDKO, usersDKO, failingSender, mockLogger,
+                new BulkNotificationSender.Settings(50, 100), clockNanos::get, clockNanos::addAndGet);
+
+        // The retry pause is 2s, so the failed chunk is left for the next run rather than retried late.
+        assertFalse(sender.send(NOTIFICATION_ID, Duration.ofSeconds(1)));
+
+        assertEquals(0, clockNanos.get());
+        verify(notificationDKO, never()).checkpoint(anyLong(), anyLong(), anyInt(), anyInt());
+        verify(notificationDKO).release(NOTIFICATION_ID);
+    }
+
+    @Test
+    public void testResumesAfterCheckpoint() {
+        givenProgress(100, 100);
+        givenUsers(100, 120);
+
+        assertTrue(sender.send(NOTIFICATION_ID, Duration.ofMinutes(1)));
+
+        assertEquals(1, emailSender.getRecent().size());
+        assertTrue(emailSender.getRecent().get(0).toAddress().startsWith("user101@"));
+        verify(notificationDKO).checkpoint(NOTIFICATION_ID, 120, 120, 0);
+    }
+
+    @Test
+    public void testStopsAndReleasesWhenOutOfTime() {
+        givenProgress(0, 0);
+        givenUsers(0, 120);
+
+        assertFalse(sender.send(NOTIFICATION_ID, Duration.ZERO));
+
+        assertEquals(0, emailSender.getSentCount());
+        verify(notificationDKO, never()).complete(anyLong());
+        verify(notificationDKO).release(NOTIFICATION_ID);
+    }
+
+    @Test
+    public void testSkipsNotificationClaimedByAnotherRun() {
+        when(notificationDKO.claim(eq(NOTIFICATION_ID), any(), any())).thenReturn(null);
+
+        assertFalse(sender.send(NOTIFICATION_ID, Duration.ofMinutes(1)));
+
+        verify(usersDKO, never()).fetchActiveRecipientsAfter(anyLong(), anyInt());
+        verify(notificationDKO, never()).release(anyLong());
+    }
+
+    private void givenProgress(long lastUserId, int sentCount) {
+        when(notificationDKO.claim(eq(NOTIFICATION_ID), any(), any())).thenReturn(
+                new BulkNotificationDKO.Progress(NOTIFICATION_ID, "Server maintenance tonight.", lastUserId,
+                        sentCount, 0));
+    }
+
+    // Active users (afterUserId, lastUserId], then an empty page.
+    private void givenUsers(long afterUserId, long lastUserId) {
+        List<NotificationRecipient> users = LongStream.rangeClosed(afterUserId + 1, lastUserId)
+                .mapToObj(id -> new NotificationRecipient(id, "user" + id + "@example.com"))
+                .toList();
+        when(usersDKO.fetchActiveRecipientsAfter(afterUserId, BulkNotificationSender.PAGE_SIZE)).thenReturn(users);
+        when(usersDKO.fetchActiveRecipientsAfter(lastUserId, BulkNotificationSender.PAGE_SIZE)).thenReturn(List.of());
+    }
+}
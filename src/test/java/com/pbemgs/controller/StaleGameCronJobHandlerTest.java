@@ -0,0 +1,51 @@
+package com.pbemgs.controller;
+
+import com.pbemgs.controller.StaleGameCronJobHandler.ScanResult;
+import com.pbemgs.model.GameType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class StaleGameCronJobHandlerTest {
+
+    @Test
+    public void testMergedTextIsTheSameWhateverOrderScansFinish() {
+        List<ScanResult> results = new ArrayList<>(List.of(
+                scan(GameType.TAC, Map.of(1L, "Tac 10", 2L, "Tac 11")),
+                scan(GameType.ATAXX, Map.of(1L, "Ataxx 20")),
+                scan(GameType.LOA, Map.of(1L, "LOA 30", 3L, "LOA 31")),
+                scan(GameType.COLLAPSI, Map.of(2L, "Collapsi 40"))));
+        Map<Long, String> expected = Map.of(
+                1L, "Tac 10\nAtaxx 20\nLOA 30",
+                2L, "Tac 11\nCollapsi 40",
+                3L, "LOA 31");
+
+        Random rng = new Random(7);
+        for (int trial = 0; trial < 10; ++trial) {
+            Collections.shuffle(results, rng);
+            assertEquals(expected, StaleGameCronJobHandler.mergeStaleMessages(results));
+        }
+    }
+
+    @Test
+    public void testFailedTypeDoesNotDropOtherReminders() {
+        List<ScanResult> results = List.of(
+                scan(GameType.TAC, Map.of(1L, "Tac 10")),
+                new ScanResult(GameType.SURGE, Map.of(), 0, "java.sql.SQLException: timeout"),
+                scan(GameType.GOMOKU, Map.of(1L, "GoMoku 50", 2L, "GoMoku 51")));
+
+        Map<Long, String> merged = StaleGameCronJobHandler.mergeStaleMessages(results);
+
+        assertEquals(Map.of(1L, "Tac 10\nGoMoku 50", 2L, "GoMoku 51"), merged);
+    }
+
+    private static ScanResult scan(GameType gameType, Map<Long, String> staleMsgs) {
+        return new ScanResult(gameType, staleMsgs, 0, null);
+    }
+}
@@ -0,0 +1,43 @@
+package com.pbemgs.controller;
+
+import com.pbemgs.model.GameType;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StaticResponseCacheTest {
+
+    @Test
+    public void testGeneralResponseBuiltOnce() {
+        SESEmailSender.PreparedBody intro = StaticResponseCache.get(StaticResponseCache.Kind.INTRO);
+        assertEquals(TextResponseProvider.getIntroText(), intro.plainTextBody());
+        assertNotNull(intro.bodyParts());
+        assertSame(intro, StaticResponseCache.get(StaticResponseCache.Kind.INTRO));
+    }
+
+    @Test
+    public void testRulesTextGeneratedOnce() {
+        AtomicInteger calls = new AtomicInteger();
+        SESEmailSender.PreparedBody first = StaticResponseCache.getRules(GameType.TAC, () -> {
+            calls.incrementAndGet();
+            return "tac rules";
+        });
+        SESEmailSender.PreparedBody second = StaticResponseCache.getRules(GameType.TAC, () -> {
+            calls.incrementAndGet();
+            return "other rules";
+        });
+        assertSame(first, second);
+        assertEquals(1, calls.get());
+        assertEquals("tac rules", second.plainTextBody());
+    }
+
+    @Test
+    public void testRulesNeedAGame() {
+        assertThrows(IllegalArgumentException.class, () -> StaticResponseCache.get(StaticResponseCache.Kind.RULES));
+    }
+}
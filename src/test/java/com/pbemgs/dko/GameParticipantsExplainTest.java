@@ -0,0 +1,90 @@
+package com.pbemgs.dko;
+
+import com.pbemgs.generated.enums.LoaGamesGameState;
+import com.pbemgs.model.GameType;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.conf.ParamType;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+
+import static com.pbemgs.generated.tables.LoaGames.LOA_GAMES;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks the per-user game lookup plan against a real MySQL.  Skipped unless PBEMGS_TEST_DB_URL (plus _USER and
+ * _PASSWORD) points at a scratch schema - the test creates and drops game_participants and loa_games there.
+ */
+public class GameParticipantsExplainTest {
+    private static final int USERS = 200;
+    private static final int GAMES = 2000;
+
+    private Connection connection;
+    private DSLContext dsl;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        String url = System.getenv("PBEMGS_TEST_DB_URL");
+        assumeTrue(url != null, "PBEMGS_TEST_DB_URL not set");
+        connection = DriverManager.getConnection(url, System.getenv("PBEMGS_TEST_DB_USER"),
+                System.getenv("PBEMGS_TEST_DB_PASSWORD"));
+        dsl = DSL.using(connection, SQLDialect.MYSQL);
+
+        dropTables();
+        dsl.execute(createStatement("SQL/create_game_participants_table.sql"));
+        dsl.execute(createStatement("SQL/create_loa_games_table.sql"));
+
+        for (int g = 1; g <= GAMES; ++g) {
+            long x = g % USERS;
+            long o = (g * 7L) % USERS;
+            String state = g % 10 == 0 ? "IN_PROGRESS" : "COMPLETE";
+            dsl.execute("INSERT INTO loa_games (game_id, game_state, x_user_id, o_user_id, board_state) VALUES (?, ?, ?, ?, '')",
+                    g, state, x, o);
+            dsl.execute("INSERT INTO game_participants VALUES ('LOA', ?, ?, 0, ?), ('LOA', ?, ?, 1, ?)",
+                    g, x, state, g, o, state);
+        }
+        dsl.execute("ANALYZE TABLE game_participants, loa_games");
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (connection != null) {
+            dropTables();
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testActiveGamesForUserReadsUserStateIndex() {
+        String sql = dsl.selectFrom(LOA_GAMES)
+                .where(LOA_GAMES.GAME_STATE.in(LoaGamesGameState.OPEN, LoaGamesGameState.IN_PROGRESS)
+                        .and(GameParticipantsDKO.isActiveParticipant(GameType.LOA, LOA_GAMES.GAME_ID, 42L)))
+                .getSQL(ParamType.INLINED);
+
+        Result<Record> plan = dsl.fetch("EXPLAIN " + sql);
+        boolean usesIndex = plan.stream()
+                .anyMatch(row -> "game_participants".equals(row.get("table", String.class))
+                        && "idx_user_state".equals(row.get("key", String.class)));
+        assertTrue(usesIndex, plan.format());
+    }
+
+    private void dropTables() {
+        dsl.execute("DROP TABLE IF EXISTS game_participants, loa_games");
+    }
+
+    // The CREATE TABLE statement at the top of a SQL/ script (the rest is backfill).
+    private static String createStatement(String file) throws Exception {
+        String script = Files.readString(Path.of(file));
+        return script.substring(0, script.indexOf(';'));
+    }
+}
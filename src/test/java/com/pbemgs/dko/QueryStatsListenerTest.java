@@ -0,0 +1,105 @@
+package com.pbemgs.dko;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.game.collapsi.dko.CollapsiPlayersDKO;
+import com.pbemgs.generated.tables.records.UsersRecord;
+import org.jooq.DSLContext;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.impl.DefaultExecuteListenerProvider;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.pbemgs.generated.Pbemgs.PBEMGS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class QueryStatsListenerTest {
+
+    @Test
+    public void testStatementsAttributedToDkoMethods() {
+        QueryStatsListener stats = new QueryStatsListener(QueryStatsListener.DEFAULT_SLOW_QUERY_MS);
+        LambdaLogger logger = mock(LambdaLogger.class);
+        stats.beginRequest(logger);
+
+        UsersDKO usersDKO = new UsersDKO(instrumentedContext(stats));
+        usersDKO.fetchUserById(1L);
+        usersDKO.fetchUserById(2L);
+        usersDKO.fetchUsersInOrder(List.of(1L, 2L, 3L));
+
+        assertEquals(3, stats.getStatementCount());
+        assertEquals(2, stats.getStatementCount("UsersDKO.fetchUserById"));
+        assertEquals(1, stats.getStatementCount("UsersDKO.fetchUsersByIds"));
+
+        String summary = stats.getSummary("test");
+        assertTrue(summary.startsWith("QUERY_STATS {\"request\":\"test\",\"statements\":3,"), summary);
+        assertTrue(summary.contains("\"UsersDKO.fetchUserById\":{\"count\":2,"), summary);
+        verify(logger, never()).log(startsWith("SLOW_QUERY"));
+    }
+
+    @Test
+    public void testGamePackageDkosAttributed() {
+        QueryStatsListener stats = new QueryStatsListener(QueryStatsListener.DEFAULT_SLOW_QUERY_MS);
+        stats.beginRequest(mock(LambdaLogger.class));
+
+        new CollapsiPlayersDKO(instrumentedContext(stats)).getPlayerByPlayerSeat(5L, 0);
+
+        assertEquals(1, stats.getStatementCount("CollapsiPlayersDKO.getPlayerByPlayerSeat"));
+        assertEquals(0, stats.getStatementCount("(non-DKO)"));
+        assertTrue(QueryStatsListener.isDkoClass("com.pbemgs.game.triad.dko.TriadGamesDKO"));
+        assertFalse(QueryStatsListener.isDkoClass("com.pbemgs.game.triad.Triad"));
+    }
+
+    @Test
+    public void testSlowQueriesLoggedAndResetPerRequest() {
+        QueryStatsListener stats = new QueryStatsListener(0);
+        LambdaLogger logger = mock(LambdaLogger.class);
+        stats.beginRequest(logger);
+
+        UsersDKO usersDKO = new UsersDKO(instrumentedContext(stats));
+        usersDKO.fetchUsersByIds(Set.of(1L, 2L));
+        verify(logger, times(1)).log(startsWith("SLOW_QUERY UsersDKO.fetchUsersByIds"));
+        assertTrue(stats.getSummary("test").contains("\"rows\":2,\"slow\":1,"));
+
+        stats.beginRequest(logger);
+        assertEquals(0, stats.getStatementCount());
+        stats.logSummary(logger, "next");
+        verify(logger).log(startsWith("QUERY_STATS {\"request\":\"next\",\"statements\":0,"));
+        verify(logger, times(2)).log(anyString());
+    }
+
+    // Every users statement returns one user per bound id; collapsi_players statements find nothing.
+    private static DSLContext instrumentedContext(QueryStatsListener stats) {
+        DSLContext records = DSL.using(SQLDialect.MYSQL);
+        MockConnection connection = new MockConnection(ctx -> {
+            if (ctx.sql().contains("collapsi_players")) {
+                return new MockResult[]{new MockResult(0, records.newResult(PBEMGS.COLLAPSI_PLAYERS))};
+            }
+            Result<UsersRecord> users = records.newResult(PBEMGS.USERS);
+            for (Object userId : ctx.getBindings()) {
+                UsersRecord user = records.newRecord(PBEMGS.USERS);
+                user.setUserId((Long) userId);
+                user.setHandle("player" + userId);
+                users.add(user);
+            }
+            return new MockResult[]{new MockResult(users.size(), users)};
+        });
+        return DSL.using(new DefaultConfiguration()
+                .set(connection)
+                .set(SQLDialect.MYSQL)
+                .set(new DefaultExecuteListenerProvider(stats)));
+    }
+}
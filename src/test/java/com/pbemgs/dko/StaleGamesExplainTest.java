@@ -0,0 +1,114 @@
+package com.pbemgs.dko;
+
+import com.pbemgs.model.GameType;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.conf.ParamType;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks the stale game query against a real MySQL.  Skipped unless PBEMGS_TEST_DB_URL (plus _USER and _PASSWORD)
+ * points at a scratch schema - the test creates and drops loa_games there.
+ */
+public class StaleGamesExplainTest {
+    private static final int GAMES = 2000;
+    private static final Duration REMINDER = Duration.ofHours(24);
+    private static final Duration TIMEOUT = Duration.ofHours(96);
+
+    private Connection connection;
+    private DSLContext dsl;
+    private LocalDateTime now;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        String url = System.getenv("PBEMGS_TEST_DB_URL");
+        assumeTrue(url != null, "PBEMGS_TEST_DB_URL not set");
+        connection = DriverManager.getConnection(url, System.getenv("PBEMGS_TEST_DB_USER"),
+                System.getenv("PBEMGS_TEST_DB_PASSWORD"));
+        dsl = DSL.using(connection, SQLDialect.MYSQL);
+        now = LocalDateTime.now().withNano(0);
+
+        dropTables();
+        dsl.execute(createStatement("SQL/create_loa_games_table.sql"));
+
+        // In-progress games moved 0 - 199 hours ago; every third was reminded 30 hours ago.
+        for (int g = 1; g <= GAMES; ++g) {
+            String state = g % 10 == 0 ? "IN_PROGRESS" : "COMPLETE";
+            LocalDateTime lastMove = now.minusHours(g % 200);
+            LocalDateTime lastReminder = g % 3 == 0 ? now.minusHours(30) : null;
+            dsl.execute("INSERT INTO loa_games (game_id, game_state, x_user_id, o_user_id, user_id_to_move, board_state, "
+                            + "last_move_timestamp, last_reminder_timestamp) VALUES (?, ?, ?, ?, ?, '', ?, ?)",
+                    g, state, g, g + 1, g, lastMove, lastReminder);
+        }
+        dsl.execute("ANALYZE TABLE loa_games");
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (connection != null) {
+            dropTables();
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testStaleQueryReadsOnlyTheIndex() {
+        String sql = new StaleGamesDKO(dsl).staleGamesQuery(GameType.LOA, now, REMINDER, TIMEOUT)
+                .getSQL(ParamType.INLINED);
+
+        Result<Record> plan = dsl.fetch("EXPLAIN " + sql);
+        boolean coveredByIndex = plan.stream()
+                .anyMatch(row -> "idx_stale_check".equals(row.get("key", String.class))
+                        && row.get("Extra", String.class) != null
+                        && row.get("Extra", String.class).contains("Using index"));
+        assertTrue(coveredByIndex, plan.format());
+    }
+
+    @Test
+    public void testStaleGamesMatchTimestampRules() {
+        List<StaleGamesDKO.StaleGame> staleGames = new StaleGamesDKO(dsl).getStaleGames(GameType.LOA, now,
+                REMINDER, TIMEOUT);
+
+        int expected = 0;
+        for (int g = 10; g <= GAMES; g += 10) {
+            long movedHoursAgo = g % 200;
+            boolean timedOut = movedHoursAgo > TIMEOUT.toHours();
+            boolean reminderDue = g % 3 == 0 || movedHoursAgo > REMINDER.toHours();
+            if (timedOut || reminderDue) {
+                ++expected;
+            }
+        }
+        assertEquals(expected, staleGames.size());
+        for (StaleGamesDKO.StaleGame game : staleGames) {
+            assertEquals(game.gameId() % 200 > TIMEOUT.toHours(), game.timedOut(), "game " + game.gameId());
+            assertEquals(Long.valueOf(game.gameId()), game.userIdToAct());
+        }
+    }
+
+    private void dropTables() {
+        dsl.execute("DROP TABLE IF EXISTS loa_games");
+    }
+
+    // The CREATE TABLE statement at the top of a SQL/ script.
+    private static String createStatement(String file) throws Exception {
+        String script = Files.readString(Path.of(file));
+        return script.substring(0, script.indexOf(';'));
+    }
+}
@@ -0,0 +1,32 @@
+package com.pbemgs.game;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Times each game's board render on the BoardRenderGoldenTest sample positions.  Not a unit test - run
+ * main() by hand:
+ * java -cp target/classes:target/test-classes:[test classpath] com.pbemgs.game.BoardRenderBenchmark
+ */
+public class BoardRenderBenchmark {
+    private static final int RENDERS = 100_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        Map<String, Supplier<String>> renders = BoardRenderGoldenTest.sampleRenders();
+        for (int round = 0; round < ROUNDS; ++round) {
+            StringBuilder line = new StringBuilder("round " + round + ":");
+            long check = 0;
+            for (Map.Entry<String, Supplier<String>> render : renders.entrySet()) {
+                Supplier<String> renderer = render.getValue();
+                long start = System.nanoTime();
+                for (int i = 0; i < RENDERS; ++i) {
+                    check += renderer.get().length();
+                }
+                long nanos = System.nanoTime() - start;
+                line.append(String.format(" %s %d ns", render.getKey(), nanos / RENDERS));
+            }
+            System.out.println(line + " (chars " + check + ")");
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.pbemgs.game;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.game.ataxx.AtaxxBoard;
+import com.pbemgs.game.collapsi.CollapsiBoard;
+import com.pbemgs.game.gomoku.GoMokuBoard;
+import com.pbemgs.game.ironclad.IroncladBoard;
+import com.pbemgs.game.loa.LoaBoard;
+import com.pbemgs.game.ninetac.NinetacBoard;
+import com.pbemgs.game.surge.SurgeBoard;
+import com.pbemgs.game.tac.TacBoard;
+import com.pbemgs.game.triad.TriadCubedBoard;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Every board renderer against the email text it produced before the renderers moved to BoardTemplate,
+ * byte for byte.  The expected text is in src/test/resources/render/[name].txt.
+ */
+public class BoardRenderGoldenTest {
+    private static final LambdaLogger mockLogger = mock(LambdaLogger.class);
+
+    /**
+     * One render per sample position, by golden file name.  Also used by BoardRenderBenchmark.
+     */
+    static Map<String, Supplier<String>> sampleRenders() {
+        Map<String, Supplier<String>> renders = new LinkedHashMap<>();
+
+        TacBoard tac = new TacBoard();
+        tac.deserialize("X-OOX---X");
+        renders.put("tac", tac::getBoardTextBody);
+
+        NinetacBoard ninetac = new NinetacBoard(mockLogger);
+        ninetac.deserialize("W:1|" + "2,-2,-2,-1,-1,5,-2,13,12|" + "27,-2,14,1,24,21,-2,8,-1|" +
+                "10,-2,14,-2,-1,21,-2,6,26|" + "W:2|" + "-2,-1,6,10,13,7,27,-1,12|" +
+                "5,27,7,-2,22,-2,24,-1,8|" + "19,2,24,-1,12,8,21,22,-1|" + "-2,2,5,-2,14,26,6,10,19");
+        renders.put("ninetac", ninetac::getBoardTextBody);
+
+        AtaxxBoard ataxx7 = new AtaxxBoard(7, mockLogger);
+        ataxx7.deserialize("x..oooo|....o.o|..#.#..|.......|..#.#x.|.x.xxx.|xxxx.xx");
+        renders.put("ataxx-7", ataxx7::getBoardTextBody);
+        AtaxxBoard ataxx9 = new AtaxxBoard(9, mockLogger);
+        ataxx9.deserialize("+#.....#x|+......xx|+...#..xx|+...#....|.........|...o#....|..oo#...*|" +
+                ".o.....**|o#.....#*");
+        renders.put("ataxx-9", ataxx9::getBoardTextBody);
+
+        SurgeBoard surge8 = new SurgeBoard(8, 8, SurgeBoard.PROD_COEFFS, mockLogger);
+        surge8.deserialize("1000:0:CO,0:0:CC,1000:2:OC,1000:2:OO,1000:2:CO,0:0:CC,1000:0:CC,X|" +
+                        "1000:0:CC,X,0:0:CO,1000:2:CC,1000:2:CO,0:0:CC,0:0:CC,0:0:CO|" +
+                        "0:0:CC,0:0:OC,0:0:CC,0:0:CC,1000:2:CC,0:0:CC,0:0:CC,0:0:CC|" +
+                        "0:0:OC,0:0:CC,0:0:CC,0:0:CC,1000:0:CO,X,0:0:CO,1000:0:CC|" +
+                        "1000:0:CC,0:0:CC,X,800:0:CO,1000:0:CC,0:0:CO,0:0:CO,0:0:CC|" +
+                        "0:0:CC,0:0:CC,0:0:CC,800:0:CC,0:0:CC,0:0:CC,0:0:CC,0:0:CC|" +
+                        "0:0:CC,0:0:CC,0:0:CC,0:0:CC,1000:1:OO,1000:1:CC,X,666:0:CO|" +
+                        "X,1000:0:CC,0:0:CC,1000:1:OC,1000:1:OC,1000:1:CC,666:0:OC,668:0:CC",
+                "A1:S,H8:S,E4:S,D1:H,H4:S,G1:S,B8:S,A5:S,E8:H,D5:S", "",
+                "E8:N:600;D5:S:410;D1:W:364;D1:S:364;E7:E:381;E8:E:396;E8:W:396;D1:E:600;E1:S:538;A1:S:198");
+        renders.put("surge-8x8", surge8::getBoardTextHtml);
+        SurgeBoard surge5 = new SurgeBoard(5, 5, SurgeBoard.PROD_COEFFS, mockLogger);
+        surge5.deserialize("100:2:CO,0:0:CC,250:1:OO,420:1:OO,810:1:CO|" +
+                        "380:2:OO,130:2:OC,220:1:CC,50:1:CC,780:1:CO|" +
+                        "830:2:OC,830:2:CO,X,0:0:CC,130:1:CO|" +
+                        "0:0:CC,550:2:CO,0:0:CC,0:0:CC,0:0:CC|" +
+                        "250:2:OC,450:2:OC,100:2:CC,0:0:CC,1000:0:CC",
+                "A3:H,E1:H,E5:M", "", "A1:S:500;A2:N:500;C1:E:600;E1:W:700;B2:E:450");
+        renders.put("surge-5x5", surge5::getBoardTextHtml);
+
+        LoaBoard loa = new LoaBoard(mockLogger);
+        loa.deserialize("XO.O..OO|........|X......O|X.X..X.X|X......X|......OX|..X....X|.OOOOOO.");
+        renders.put("loa", loa::getBoardTextBody);
+
+        GoMokuBoard gomoku15 = new GoMokuBoard(15, mockLogger);
+        gomoku15.deserialize("...............|...............|O...........O..|..O........X...|" +
+                "...O.....X.....|.............X.|.....O.........|.X.X..O........|" +
+                ".X.O.....O.....|..X.......X.O..|....X.O.......X|.......X.......|" +
+                "..OX.....O....X|....XX.......OO|......O..X.....");
+        renders.put("gomoku-15", gomoku15::getBoardTextBody);
+        GoMokuBoard gomoku19 = new GoMokuBoard(19, mockLogger);
+        gomoku19.deserialize("................X..|...................|.....X...O.........|" +
+                "...................|..X...OX...X......O|....OOX............|" +
+                ".................X.|...................|....O......O.......|" +
+                ".O.................|..X...X......O.O...|..................O|" +
+                "........O..O.......|...........X.......|...............X...|" +
+                ".................X.|.X.................|......X.X..........|" +
+                ".....O..X.O........");
+        renders.put("gomoku-19", gomoku19::getBoardTextBody);
+
+        TriadCubedBoard triad = new TriadCubedBoard(mockLogger);
+        triad.deserialize("8:0: ,0:null:F,5:1: ,0:null: ,0:null: ,2:1:L,14:0: ,0:null:I,11:1: ");
+        renders.put("triad", triad::getBoardTextBody);
+
+        IroncladBoard ironclad = new IroncladBoard();
+        ironclad.deserialize("W:A1:3,W:C2:2,W:F1:1,B:B8:3,B:D7:1,B:E6:2",
+                "W......|.B.....|..W....|...B...|....W..|.......|B.....W|......B|...W...");
+        renders.put("ironclad", ironclad::getBoardStateExpandedText);
+
+        CollapsiBoard collapsi = new CollapsiBoard();
+        collapsi.deserialize("4,1,3,0,2,4,3,0,2,0,0,0,1,1,3,2,A2,C1");
+        renders.put("collapsi", collapsi::getBoardTextBody);
+
+        return renders;
+    }
+
+    @Test
+    public void testRendersMatchGoldenText() throws IOException {
+        for (Map.Entry<String, Supplier<String>> render : sampleRenders().entrySet()) {
+            String expected = readGolden(render.getKey());
+            assertEquals(expected, render.getValue().get(), render.getKey());
+            // The reused render buffer must not leak between renders.
+            assertEquals(expected, render.getValue().get(), render.getKey() + " (second render)");
+        }
+    }
+
+    private static String readGolden(String name) throws IOException {
+        try (InputStream in = BoardRenderGoldenTest.class.getResourceAsStream("/render/" + name + ".txt")) {
+            assertNotNull(in, "missing golden file for " + name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.pbemgs.game;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.dko.StaleGameUpdateException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+public class GameUpdateRetryTest {
+    private static final LambdaLogger mockLogger = mock(LambdaLogger.class);
+
+    @Test
+    public void testRetriesUntilUpdateSucceeds() {
+        AtomicInteger attempts = new AtomicInteger();
+        GameUpdateRetry.run(mockLogger, "TEST move 1", () -> {
+            if (attempts.incrementAndGet() < 2) {
+                throw new StaleGameUpdateException("test_games", 1L, 4);
+            }
+        });
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void testGivesUpAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+        assertThrows(StaleGameUpdateException.class, () -> GameUpdateRetry.run(mockLogger, "TEST move 1", () -> {
+            attempts.incrementAndGet();
+            throw new StaleGameUpdateException("test_games", 1L, 4);
+        }));
+        assertEquals(GameUpdateRetry.MAX_ATTEMPTS, attempts.get());
+    }
+
+    @Test
+    public void testOtherExceptionsAreNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        assertThrows(IllegalStateException.class, () -> GameUpdateRetry.run(mockLogger, "TEST move 1", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(1, attempts.get());
+    }
+}
@@ -0,0 +1,34 @@
+package com.pbemgs.game.ataxx;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.generated.enums.AtaxxGamesBoardOption;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+public class AtaxxMoveReplayerTest {
+    private static LambdaLogger mockLogger = mock(LambdaLogger.class);
+
+    @Test
+    public void testReplayMatchesDirectMoves() {
+        AtaxxBoard board = new AtaxxBoard(7, mockLogger);
+        board.createInitialBoard(2, AtaxxGamesBoardOption.STANDARD);
+        AtaxxMoveReplayer replayer = new AtaxxMoveReplayer(mockLogger);
+
+        String replayed = board.serialize();
+        int slot = 0;
+        for (int i = 0; i < 8; i++) {
+            // alternate to-only clones (listed first) and jumps (listed last)
+            List<Ataxx.AtaxxMove> moves = board.getLegalMoves(slot);
+            Ataxx.AtaxxMove move = i % 4 < 2 ? moves.get(0) : moves.get(moves.size() - 1);
+            board.makeMove(slot, move.from(), move.to());
+            String moveText = AtaxxMoveReplayer.moveText(slot, move);
+            replayed = replayer.apply(replayed, moveText);
+            assertEquals(board.serialize(), replayed, "after " + moveText);
+            slot = 1 - slot;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.pbemgs.game.collapsi;
+
+import com.pbemgs.model.Location;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CollapsiBoardTest {
+    private CollapsiBoard board;
+
+    @BeforeEach
+    public void setUp() {
+        board = new CollapsiBoard();
+    }
+
+    @Test
+    public void testGetValidMoves_jokerMovesOne() {
+        board.deserialize("-1,1,2,3,4,1,2,3,1,2,3,4,1,2,3,-2,A1,D4");
+        Map<Location, String> moves = board.getValidMoves(0);
+        assertEquals(4, moves.size(), "4 moves from joker");
+        assertEquals("A1 -> A4", moves.get(Location.fromString("A4")), "wraps up");
+        assertEquals("A1 -> A2", moves.get(Location.fromString("A2")), "down");
+        assertEquals("A1 -> D1", moves.get(Location.fromString("D1")), "wraps left");
+        assertEquals("A1 -> B1", moves.get(Location.fromString("B1")), "right");
+    }
+
+    @Test
+    public void testGetValidMoves_firstPathKeptAndTokensExcluded() {
+        board.deserialize("2,1,2,3,4,1,2,3,1,2,3,4,1,2,3,-2,A1,D4");
+        Map<Location, String> moves = board.getValidMoves(0);
+        assertEquals(5, moves.size(), "5 moves for a 2-card");
+        // B2 is reachable through A2 or B1 - the first path found (down before right) is kept.
+        assertEquals("A1 -> A2 -> B2", moves.get(Location.fromString("B2")), "B2 path");
+        assertEquals("A1 -> A4 -> A3", moves.get(Location.fromString("A3")), "A3 path");
+        assertFalse(moves.containsKey(Location.fromString("D4")), "cannot end on opponent");
+        assertFalse(moves.containsKey(Location.fromString("A1")), "cannot end on self");
+    }
+
+    @Test
+    public void testGetValidMoves_collapsedSquaresBlock() {
+        board.deserialize("1,1,0,0,0,0,0,0,0,0,0,0,0,0,0,1,A1,D4");
+        Map<Location, String> moves = board.getValidMoves(0);
+        assertEquals(1, moves.size(), "only B1 is open");
+        assertEquals("A1 -> B1", moves.get(Location.fromString("B1")));
+        assertTrue(board.getValidMoves(1).isEmpty(), "D4 is boxed in");
+    }
+
+    @Test
+    public void testGetReachableEndpoints_matchesValidMoves() {
+        board.deserialize("2,1,2,3,4,1,2,3,1,2,3,4,1,2,3,-2,A1,D3");
+        int ends = CollapsiBoard.getReachableEndpoints(board.getOpenMask(), board.getTokenIndex(0), 2);
+        ends &= ~(1 << board.getTokenIndex(0)) & ~(1 << board.getTokenIndex(1));
+        Map<Location, String> moves = board.getValidMoves(0);
+        assertEquals(moves.size(), Integer.bitCount(ends), "same endpoint count");
+        for (Location loc : moves.keySet()) {
+            assertTrue((ends & (1 << (loc.row() * 4 + loc.col()))) != 0, "endpoint " + loc + " in mask");
+        }
+    }
+
+    @Test
+    public void testMakeMove_collapsesStart() {
+        board.deserialize("-1,1,2,3,4,1,2,3,1,2,3,4,1,2,3,-2,A1,D4");
+        board.makeMove(0, Location.fromString("B1"));
+        assertEquals(0, board.getGrid(0, 0), "A1 collapsed");
+        assertEquals("0,1,2,3,4,1,2,3,1,2,3,4,1,2,3,-2,B1,D4", board.serialize(), "token moved");
+    }
+}
@@ -0,0 +1,28 @@
+package com.pbemgs.game.collapsi;
+
+import com.pbemgs.model.Location;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CollapsiMoveReplayerTest {
+
+    @Test
+    public void testReplayMatchesDirectMoves() {
+        String start = "-1,1,2,3,4,1,2,3,1,2,3,4,1,2,3,-2,A1,D4";
+        CollapsiBoard board = new CollapsiBoard();
+        board.deserialize(start);
+        CollapsiMoveReplayer replayer = new CollapsiMoveReplayer();
+
+        String replayed = start;
+        int seat = 0;
+        for (int i = 0; i < 4; i++) {
+            Location move = board.getValidMoves(seat).keySet().iterator().next();
+            board.makeMove(seat, move);
+            String moveText = CollapsiMoveReplayer.moveText(seat, move);
+            replayed = replayer.apply(replayed, moveText);
+            assertEquals(board.serialize(), replayed, "after " + moveText);
+            seat = 1 - seat;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.pbemgs.game.collapsi;
+
+import com.pbemgs.model.Location;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CollapsiResultCacheTest {
+
+    @Test
+    public void testPutGet() {
+        CollapsiResultCache cache = CollapsiResultCache.offHeap(1 << 8);
+        assertEquals(CollapsiResultCache.MISSING, cache.get(12345L), "empty table");
+        cache.put(12345L, -97);
+        cache.put(67890L, 99);
+        assertEquals(-97, cache.get(12345L));
+        assertEquals(99, cache.get(67890L));
+        assertEquals(2, cache.size());
+        assertFalse(cache.isPersistent());
+    }
+
+    @Test
+    public void testMapped_survivesReopen() throws Exception {
+        Path file = Files.createTempFile("collapsi_cache", ".bin");
+        Files.delete(file);
+        try {
+            CollapsiBoard board = new CollapsiBoard();
+            board.deserialize("2,1,3,0,0,4,2,0,1,0,3,2,0,1,2,3,B1,D4");
+            CollapsiSolver first = new CollapsiSolver(board, CollapsiResultCache.mapped(file, 1 << 10));
+            int score = first.solve(0);
+            assertTrue(first.getStats().positionsSearched() > 0, "cold table searches");
+
+            CollapsiSolver second = new CollapsiSolver(board, CollapsiResultCache.mapped(file, 1 << 10));
+            assertEquals(score, second.solve(0), "same result from the reopened table");
+            assertEquals(0, second.getStats().positionsSearched(), "warm table answers from the file");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testAnalyze_gradesEveryMove() {
+        String start = "2,1,3,0,0,4,2,0,1,0,3,2,0,1,2,3,B1,D4";
+        CollapsiBoard board = new CollapsiBoard();
+        board.deserialize(start);
+        String moves = null;
+        int seat = 0;
+        for (int ply = 0; ply < 2; ++ply) {
+            Location loc = board.getValidMoves(seat).keySet().iterator().next();
+            board.makeMove(seat, loc);
+            moves = CollapsiGameAnalysis.appendMove(moves, seat, loc);
+            seat = 1 - seat;
+        }
+
+        List<CollapsiGameAnalysis.MoveGrade> grades =
+                CollapsiGameAnalysis.analyze(start, moves, CollapsiResultCache.offHeap(1 << 10));
+        assertEquals(2, grades.size());
+        for (CollapsiGameAnalysis.MoveGrade grade : grades) {
+            assertTrue(grade.bestScore() >= grade.playedScore(), "best is never worse than played");
+        }
+    }
+}
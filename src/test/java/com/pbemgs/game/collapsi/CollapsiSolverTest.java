@@ -0,0 +1,68 @@
+package com.pbemgs.game.collapsi;
+
+import com.pbemgs.model.Location;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CollapsiSolverTest {
+
+    @Test
+    public void testSolve_immediateWinAndLoss() {
+        CollapsiBoard board = new CollapsiBoard();
+        board.deserialize("1,1,0,0,0,0,0,0,0,0,0,0,0,0,0,1,A1,D4");
+        CollapsiSolver solver = new CollapsiSolver(board);
+        assertEquals(CollapsiSolver.WIN_SCORE - 1, solver.solve(0), "X wins in one");
+        assertEquals(-CollapsiSolver.WIN_SCORE, solver.solve(1), "O to move has no moves");
+        assertEquals(Location.fromString("B1"), solver.findBestMove(0), "only move");
+    }
+
+    @Test
+    public void testGradeMoves_coversValidMoves() {
+        CollapsiBoard board = new CollapsiBoard();
+        board.deserialize("2,1,2,3,4,1,2,3,1,2,3,4,1,2,3,-2,A1,D4");
+        Map<Location, Integer> grades = new CollapsiSolver(board).gradeMoves(0);
+        assertEquals(board.getValidMoves(0).keySet(), grades.keySet(), "one grade per valid move");
+        assertEquals(87, grades.get(Location.fromString("C1")), "C1 wins");
+        assertEquals(-88, grades.get(Location.fromString("B2")), "B2 loses");
+    }
+
+    @Test
+    public void testSolve_matchesPlainMinimax() {
+        CollapsiBoard board = new CollapsiBoard();
+        board.deserialize("2,1,3,0,0,4,2,0,1,0,3,2,0,1,2,3,B1,D4");
+        for (int seat = 0; seat < 2; ++seat) {
+            int solved = new CollapsiSolver(board).solve(seat);
+            assertEquals(minimax(board.serialize(), seat), solved, "seat " + seat);
+        }
+    }
+
+    @Test
+    public void testFindBestMove_fullBoardIsValid() {
+        CollapsiBoard board = new CollapsiBoard();
+        board.initializeNewBoard();
+        CollapsiSolver solver = new CollapsiSolver(board);
+        Location best = solver.findBestMove(0);
+        assertTrue(board.getValidMoves(0).containsKey(best), "best move is valid");
+        assertTrue(Math.abs(solver.solve(0)) > 0, "full game is a forced result");
+    }
+
+    // Reference search straight over CollapsiBoard, no tables.
+    private int minimax(String state, int seat) {
+        CollapsiBoard board = new CollapsiBoard();
+        board.deserialize(state);
+        Map<Location, String> moves = board.getValidMoves(seat);
+        int best = -CollapsiSolver.WIN_SCORE;
+        for (Location move : moves.keySet()) {
+            CollapsiBoard child = new CollapsiBoard();
+            child.deserialize(state);
+            child.makeMove(seat, move);
+            int score = -minimax(child.serialize(), 1 - seat);
+            best = Math.max(best, score > 0 ? score - 1 : score + 1);
+        }
+        return best;
+    }
+}
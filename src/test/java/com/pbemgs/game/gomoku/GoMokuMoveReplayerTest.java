@@ -0,0 +1,29 @@
+package com.pbemgs.game.gomoku;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.model.Location;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+public class GoMokuMoveReplayerTest {
+    private static LambdaLogger mockLogger = mock(LambdaLogger.class);
+
+    @Test
+    public void testReplayMatchesDirectMoves() {
+        GoMokuBoard board = new GoMokuBoard(15, mockLogger);
+        GoMokuMoveReplayer replayer = new GoMokuMoveReplayer(mockLogger);
+
+        String replayed = board.serialize();
+        char symbol = GoMokuBoard.PLAYER_X;
+        for (int i = 0; i < 12; i++) {
+            Location move = board.getRandomMove();
+            board.makeMove(symbol, move);
+            String moveText = GoMokuMoveReplayer.moveText(symbol, move);
+            replayed = replayer.apply(replayed, moveText);
+            assertEquals(board.serialize(), replayed, "after " + moveText);
+            symbol = symbol == GoMokuBoard.PLAYER_X ? GoMokuBoard.PLAYER_O : GoMokuBoard.PLAYER_X;
+        }
+    }
+}
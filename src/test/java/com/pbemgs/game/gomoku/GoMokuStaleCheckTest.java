@@ -0,0 +1,100 @@
+package com.pbemgs.game.gomoku;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.controller.SESEmailSender;
+import com.pbemgs.generated.enums.GomokuGamesSwap2State;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record5;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockDataProvider;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.pbemgs.generated.tables.GomokuGames.GOMOKU_GAMES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Checks the GoMoku stale check works from the StaleGamesDKO rows: reminders go to the user to act, and only
+ * timed-out games in GAMEPLAY load their full record for an auto-move.  Runs against a jOOQ mock connection that
+ * answers the stale query with fixed rows and records every full game load.
+ */
+public class GoMokuStaleCheckTest {
+    private static final LambdaLogger mockLogger = mock(LambdaLogger.class);
+    private static final DSLContext RECORDS = DSL.using(SQLDialect.MYSQL);
+    private static final Field<Boolean> TIMED_OUT = DSL.field("timed_out", Boolean.class);
+    private static final Field<Boolean> REMINDER_DUE = DSL.field("reminder_due", Boolean.class);
+    private static final Field<String> PHASE = DSL.field("phase", String.class);
+
+    private final List<Long> loadedGameIds = new ArrayList<>();
+
+    @Test
+    public void testRemindsUserToActAndLoadsOnlyTimedOutGames() {
+        Result<Record5<Long, Long, Boolean, Boolean, String>> staleRows =
+                RECORDS.newResult(GOMOKU_GAMES.GAME_ID, GOMOKU_GAMES.USER_ID_TO_MOVE, TIMED_OUT, REMINDER_DUE, PHASE);
+        staleRows.add(staleRow(1L, 11L, true, true, GomokuGamesSwap2State.GAMEPLAY));
+        staleRows.add(staleRow(2L, 12L, false, true, GomokuGamesSwap2State.GAMEPLAY));
+        staleRows.add(staleRow(3L, 13L, false, true, GomokuGamesSwap2State.AWAITING_TSP_CHOICE));
+
+        Map<Long, String> reminders = new GoMoku(mockContext(staleRows), mockLogger)
+                .processStaleGameCheck(mock(SESEmailSender.class));
+
+        assertEquals(Map.of(12L, "GoMoku: Game ID 2", 13L, "GoMoku: Game ID 3"), reminders);
+        assertEquals(List.of(1L), loadedGameIds);
+    }
+
+    @Test
+    public void testTimedOutGameOutsideGameplayStillGetsReminder() {
+        Result<Record5<Long, Long, Boolean, Boolean, String>> staleRows =
+                RECORDS.newResult(GOMOKU_GAMES.GAME_ID, GOMOKU_GAMES.USER_ID_TO_MOVE, TIMED_OUT, REMINDER_DUE, PHASE);
+        staleRows.add(staleRow(4L, 14L, true, true, GomokuGamesSwap2State.AWAITING_INITIAL_PLACEMENT));
+        staleRows.add(staleRow(5L, 15L, true, true, GomokuGamesSwap2State.AWAITING_TFP_SWAP));
+
+        Map<Long, String> reminders = new GoMoku(mockContext(staleRows), mockLogger)
+                .processStaleGameCheck(mock(SESEmailSender.class));
+
+        // The Swap2 opening has no auto-move, so these are reminded rather than loaded.
+        assertEquals(Map.of(14L, "GoMoku: Game ID 4", 15L, "GoMoku: Game ID 5"), reminders);
+        assertEquals(List.of(), loadedGameIds);
+    }
+
+    private static Record5<Long, Long, Boolean, Boolean, String> staleRow(long gameId, long userIdToAct,
+                                                                        boolean timedOut, boolean reminderDue,
+                                                                        GomokuGamesSwap2State phase) {
+        Record5<Long, Long, Boolean, Boolean, String> row =
+                RECORDS.newRecord(GOMOKU_GAMES.GAME_ID, GOMOKU_GAMES.USER_ID_TO_MOVE, TIMED_OUT, REMINDER_DUE, PHASE);
+        row.values(gameId, userIdToAct, timedOut, reminderDue, phase.getLiteral());
+        return row;
+    }
+
+    // The stale query (the only select without board_state) gets staleRows.  A full game load is recorded and
+    // finds nothing, so the auto-move it starts stops there - the auto-move itself isn't under test.  Updates
+    // match one row.
+    private DSLContext mockContext(Result<Record5<Long, Long, Boolean, Boolean, String>> staleRows) {
+        MockDataProvider provider = ctx -> {
+            String sql = ctx.sql().toLowerCase();
+            if (!sql.startsWith("select")) {
+                return new MockResult[]{new MockResult(1)};
+            }
+            if (sql.contains(GOMOKU_GAMES.BOARD_STATE.getName())) {
+                loadedGameIds.add(((Number) ctx.bindings()[0]).longValue());
+                return new MockResult[]{new MockResult(0, RECORDS.newResult(GOMOKU_GAMES))};
+            }
+            return new MockResult[]{new MockResult(staleRows.size(), staleRows)};
+        };
+
+        DefaultConfiguration config = new DefaultConfiguration();
+        config.set(new MockConnection(provider));
+        config.set(SQLDialect.MYSQL);
+        return DSL.using(config);
+    }
+}
@@ -0,0 +1,129 @@
+package com.pbemgs.game.ironclad;
+
+import com.pbemgs.model.Location;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class IroncladBoardTest {
+    private static final String EMPTY_STONES = ".......|.......|.......|.......|.......|.......|.......|.......|.......";
+
+    @Test
+    public void testStonePath_northSouth() {
+        IroncladBoard board = new IroncladBoard();
+        board.deserialize("", "..W....|..W....|..WW...|...W...|...W...|...W...|...W...|...W...|...W...");
+        IroncladBoard.VictoryResult result = board.checkVictoryConditions();
+        assertEquals(IroncladSide.WHITE, result.side());
+        assertEquals("White has connected stones from C1 to D9 - top to bottom!", result.message());
+    }
+
+    @Test
+    public void testStonePath_dropAndMove() {
+        IroncladBoard board = new IroncladBoard();
+        board.deserialize("", "BBB.BBB|.......|.......|.......|.......|.......|.......|.......|.......");
+        assertNull(board.checkVictoryConditions().side());
+
+        board.executeStoneDrop(IroncladSide.BLACK, Location.fromString("D1"));
+        IroncladBoard.VictoryResult result = board.checkVictoryConditions();
+        assertEquals(IroncladSide.BLACK, result.side());
+        assertEquals("Black has connected stones from A1 to G1 - left to right!", result.message());
+
+        board.executeStoneMove(Location.fromString("D1"), Location.fromString("D2"));
+        assertNull(board.checkVictoryConditions().side(), "moving the bridge stone breaks the path");
+    }
+
+    @Test
+    public void testStonePath_incrementalMatchesBreadthFirstSearch() {
+        Random rng = new Random(99);
+        IroncladSide[] sides = {IroncladSide.WHITE, IroncladSide.BLACK};
+        for (int game = 0; game < 300; ++game) {
+            IroncladBoard board = new IroncladBoard();
+            board.deserialize("", EMPTY_STONES);
+            for (int turn = 0; turn < 50; ++turn) {
+                String stones = board.serializeStones();
+                Location from = new Location(rng.nextInt(9), rng.nextInt(7));
+                Location to = new Location(rng.nextInt(9), rng.nextInt(7));
+                if (stones.split("\\|")[to.row()].charAt(to.col()) == '.') {
+                    if (stones.split("\\|")[from.row()].charAt(from.col()) != '.' && rng.nextInt(4) == 0) {
+                        board.executeStoneMove(from, to);
+                    } else {
+                        board.executeStoneDrop(sides[rng.nextInt(2)], to);
+                    }
+                }
+
+                IroncladBoard fresh = new IroncladBoard();
+                fresh.deserialize("", board.serializeStones());
+                String expected = referenceStonePathMessage(board.serializeStones());
+                assertEquals(expected, board.checkVictoryConditions().message(), "incremental, game " + game);
+                assertEquals(expected, fresh.checkVictoryConditions().message(), "rebuilt, game " + game);
+            }
+        }
+    }
+
+    // The original Location/HashSet breadth-first search, kept as the reference for the victory message.
+    private static String referenceStonePathMessage(String stoneRep) {
+        String[] rows = stoneRep.split("\\|");
+        for (IroncladSide side : new IroncladSide[]{IroncladSide.WHITE, IroncladSide.BLACK}) {
+            String ns = referencePath(rows, side, true);
+            if (ns != null) {
+                return ns;
+            }
+            String ew = referencePath(rows, side, false);
+            if (ew != null) {
+                return ew;
+            }
+        }
+        return null;
+    }
+
+    private static String referencePath(String[] rows, IroncladSide side, boolean isRow) {
+        char ch = side.getStoneSerializeChar();
+        int end = isRow ? 8 : 6;
+        Set<Location> visited = new HashSet<>();
+        Queue<Location> queue = new LinkedList<>();
+        Map<Location, Location> parent = new HashMap<>();
+        for (int i = 0; i <= (isRow ? 6 : 8); ++i) {
+            Location loc = isRow ? new Location(0, i) : new Location(i, 0);
+            if (rows[loc.row()].charAt(loc.col()) == ch) {
+                queue.add(loc);
+                visited.add(loc);
+            }
+        }
+        while (!queue.isEmpty()) {
+            Location current = queue.poll();
+            if ((isRow ? current.row() : current.col()) == end) {
+                Location startLoc = current;
+                while (parent.containsKey(startLoc)) {
+                    startLoc = parent.get(startLoc);
+                }
+                return String.format("%s has connected stones from %s to %s - %s!",
+                        side == IroncladSide.WHITE ? "White" : "Black", startLoc, current,
+                        isRow ? "top to bottom" : "left to right");
+            }
+            List<Location> neighbors = new ArrayList<>();
+            int r = current.row(), c = current.col();
+            if (r > 0) neighbors.add(new Location(r - 1, c));
+            if (r < 8) neighbors.add(new Location(r + 1, c));
+            if (c > 0) neighbors.add(new Location(r, c - 1));
+            if (c < 6) neighbors.add(new Location(r, c + 1));
+            for (Location neighbor : neighbors) {
+                if (rows[neighbor.row()].charAt(neighbor.col()) == ch && visited.add(neighbor)) {
+                    queue.add(neighbor);
+                    parent.put(neighbor, current);
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -179,4 +179,95 @@ public class LoaBoardTest {
         String reserialize = newBoard.serialize();
         assertEquals(reserialize, serialized, "Serialization round-trip");
     }
+
+    @Test
+    public void testGenerateMoves_matchesValidateMove() {
+        board.deserialize(testBoardString());
+        int[] moves = new int[LoaBoard.MAX_MOVES];
+        int numX = board.generateMoves(LoaBoard.PLAYER_X, moves);
+        for (int i = 0; i < numX; ++i) {
+            LinesOfAction.LoaMove move = LoaBoard.unpackMove(moves[i]);
+            assertNull(board.validateMove(move.from(), move.to(), LoaBoard.PLAYER_X), "Generated move " + move + " valid");
+        }
+        assertEquals(countValidatedMoves(LoaBoard.PLAYER_X), numX, "X generated count matches brute force");
+        assertEquals(countValidatedMoves(LoaBoard.PLAYER_O),
+                board.generateMoves(LoaBoard.PLAYER_O, moves), "O generated count matches brute force");
+    }
+
+    @Test
+    public void testUndoMove_restoresBoardAndCounts() {
+        board.deserialize(testBoardString());
+        String before = board.serialize();
+        int quietO = LoaBoard.packMove(2, 7, 0, 5);  // H3-F1, F1 is empty
+        int captureX = LoaBoard.packMove(0, 6, 3, 3);  // G1-D4, captures O
+
+        boolean captured = board.makeMove(LoaBoard.PLAYER_X, captureX);
+        assertTrue(captured, "G1-D4 captures");
+        board.undoMove(LoaBoard.PLAYER_X, captureX, captured);
+        captured = board.makeMove(LoaBoard.PLAYER_O, quietO);
+        assertFalse(captured, "H3-F1 no capture");
+        board.undoMove(LoaBoard.PLAYER_O, quietO, captured);
+        assertEquals(before, board.serialize(), "Board restored after undo");
+
+        // Line counts must be restored too - validation should agree with the untouched board.
+        assertNull(board.validateMove(Location.fromString("C1"), Location.fromString("F1"), LoaBoard.PLAYER_X), "C1-F1 still legal");
+        assertNull(board.validateMove(Location.fromString("G1"), Location.fromString("D4"), LoaBoard.PLAYER_X), "G1-D4 still legal");
+    }
+
+    @Test
+    public void testPerft_initialPosition() {
+        board.createNewGame();
+        String start = board.serialize();
+        assertEquals(36, perft(LoaBoard.PLAYER_X, 1), "perft(1)");
+        assertEquals(1244, perft(LoaBoard.PLAYER_X, 2), "perft(2)");
+        assertEquals(44952, perft(LoaBoard.PLAYER_X, 3), "perft(3)");
+        assertEquals(1563208, perft(LoaBoard.PLAYER_X, 4), "perft(4)");
+        assertEquals(start, board.serialize(), "Board unchanged after perft");
+    }
+
+    @Test
+    public void testPerft_midgamePosition() {
+        board.deserialize(testBoardString());
+        assertEquals(32, perft(LoaBoard.PLAYER_X, 1), "perft(1)");
+        assertEquals(891, perft(LoaBoard.PLAYER_X, 2), "perft(2)");
+        assertEquals(28566, perft(LoaBoard.PLAYER_X, 3), "perft(3)");
+    }
+
+    @Test
+    public void testCountGroups() {
+        board.createNewGame();
+        assertEquals(2, board.countGroups(LoaBoard.PLAYER_X), "X starts in two groups");
+        assertEquals(2, board.countGroups(LoaBoard.PLAYER_O), "O starts in two groups");
+        board.deserialize(testBoardString());
+        assertEquals(7, board.countGroups(LoaBoard.PLAYER_X), "X groups");
+        assertEquals(6, board.countGroups(LoaBoard.PLAYER_O), "O groups");
+    }
+
+    private long perft(char symbol, int depth) {
+        int[] moves = new int[LoaBoard.MAX_MOVES];
+        int numMoves = board.generateMoves(symbol, moves);
+        if (depth == 1) {
+            return numMoves;
+        }
+        char opp = symbol == LoaBoard.PLAYER_X ? LoaBoard.PLAYER_O : LoaBoard.PLAYER_X;
+        long nodes = 0;
+        for (int i = 0; i < numMoves; ++i) {
+            boolean capture = board.makeMove(symbol, moves[i]);
+            nodes += perft(opp, depth - 1);
+            board.undoMove(symbol, moves[i], capture);
+        }
+        return nodes;
+    }
+
+    private int countValidatedMoves(char symbol) {
+        int count = 0;
+        for (int from = 0; from < 64; ++from) {
+            for (int to = 0; to < 64; ++to) {
+                if (board.validateMove(new Location(from / 8, from % 8), new Location(to / 8, to % 8), symbol) == null) {
+                    ++count;
+                }
+            }
+        }
+        return count;
+    }
 }
@@ -0,0 +1,29 @@
+package com.pbemgs.game.loa;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+public class LoaMoveReplayerTest {
+    private static LambdaLogger mockLogger = mock(LambdaLogger.class);
+
+    @Test
+    public void testReplayMatchesDirectMoves() {
+        LoaBoard board = new LoaBoard(mockLogger);
+        board.createNewGame();
+        LoaMoveReplayer replayer = new LoaMoveReplayer(mockLogger);
+
+        String replayed = board.serialize();
+        char symbol = LoaBoard.PLAYER_X;
+        for (int i = 0; i < 8; i++) {
+            LinesOfAction.LoaMove move = board.getRandomMove(symbol);
+            board.makeMove(symbol, move);
+            String moveText = LoaMoveReplayer.moveText(move);
+            replayed = replayer.apply(replayed, moveText);
+            assertEquals(board.serialize(), replayed, "after " + moveText);
+            symbol = symbol == LoaBoard.PLAYER_X ? LoaBoard.PLAYER_O : LoaBoard.PLAYER_X;
+        }
+    }
+}
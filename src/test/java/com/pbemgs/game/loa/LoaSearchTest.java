@@ -0,0 +1,47 @@
+package com.pbemgs.game.loa;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class LoaSearchTest {
+    private static LambdaLogger mockLogger = mock(LambdaLogger.class);
+
+    private LoaBoard board;
+
+    @BeforeEach
+    public void setUp() {
+        board = new LoaBoard(mockLogger);
+    }
+
+    @Test
+    public void testFindBestMove_initialPositionLegalAndBoardUnchanged() {
+        board.createNewGame();
+        String start = board.serialize();
+        LoaSearch.SearchResult result = new LoaSearch(board).findBestMove(LoaBoard.PLAYER_X, Duration.ofMillis(200));
+        assertNotNull(result, "Search returns a move");
+        assertTrue(result.depth() >= 1, "At least one iteration completed");
+        assertEquals(start, board.serialize(), "Search leaves board unchanged");
+        assertNull(board.validateMove(result.move().from(), result.move().to(), LoaBoard.PLAYER_X), "Search move is valid");
+    }
+
+    @Test
+    public void testFindBestMove_takesImmediateWin() {
+        // X: A1, B1, D2 - D2 to C2 connects all three.  O is split.
+        String state = "XX......|...X....|........|........|........|.......O|........|......OO";
+        board.deserialize(state);
+        LoaSearch.SearchResult result = new LoaSearch(board).findBestMove(LoaBoard.PLAYER_X, Duration.ofSeconds(1));
+        assertNotNull(result, "Search returns a move");
+        assertNull(board.validateMove(result.move().from(), result.move().to(), LoaBoard.PLAYER_X), "Search move is valid");
+        board.makeMove(LoaBoard.PLAYER_X, result.move());
+        assertTrue(board.isVictoryCondition(LoaBoard.PLAYER_X), "Winning move chosen");
+    }
+}
@@ -0,0 +1,146 @@
+package com.pbemgs.game.ninetac;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.controller.SESEmailSender;
+import com.pbemgs.generated.enums.NinetacGamesGameState;
+import com.pbemgs.generated.tables.records.GameSnapshotsRecord;
+import com.pbemgs.generated.tables.records.NinetacGamesRecord;
+import com.pbemgs.generated.tables.records.UsersRecord;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record5;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockDataProvider;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.pbemgs.generated.Pbemgs.PBEMGS;
+import static com.pbemgs.generated.tables.GameMoves.GAME_MOVES;
+import static com.pbemgs.generated.tables.GameSnapshots.GAME_SNAPSHOTS;
+import static com.pbemgs.generated.tables.NinetacGames.NINETAC_GAMES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Checks a Ninetac move is written to the move log rather than to board_state: the turn update leaves the board
+ * alone and the move goes into game_moves.  Drives a stale auto-move against a jOOQ mock connection and records
+ * every write.
+ */
+public class NinetacMoveLogTest {
+    private static final LambdaLogger mockLogger = mock(LambdaLogger.class);
+    private static final DSLContext RECORDS = DSL.using(SQLDialect.MYSQL);
+    private static final Field<Boolean> TIMED_OUT = DSL.field("timed_out", Boolean.class);
+    private static final Field<Boolean> REMINDER_DUE = DSL.field("reminder_due", Boolean.class);
+    private static final Field<String> PHASE = DSL.field("phase", String.class);
+    private static final long GAME_ID = 7L;
+    private static final int VERSION = 4;
+
+    private final List<String> writes = new ArrayList<>();
+
+    @Test
+    public void testMoveIsLoggedWithoutRewritingBoard() {
+        String board = newBoard();
+
+        new Ninetac(mockContext(board, board), mockLogger).processStaleGameCheck(mock(SESEmailSender.class));
+
+        // The auto-move's writes, then the reminder timestamp update.
+        assertEquals(3, writes.size(), writes.toString());
+        assertTrue(writes.get(0).startsWith("update " + NINETAC_GAMES.getName()), writes.get(0));
+        assertFalse(writes.get(0).contains(NINETAC_GAMES.BOARD_STATE.getName()), writes.get(0));
+        assertTrue(writes.get(1).startsWith("insert into " + GAME_MOVES.getName()), writes.get(1));
+    }
+
+    @Test
+    public void testGameWithoutSnapshotIsSnapshottedBeforeItsMove() {
+        String board = newBoard();
+
+        // A game started before the move log: the stored board is the only copy of the position.
+        new Ninetac(mockContext(board, null), mockLogger).processStaleGameCheck(mock(SESEmailSender.class));
+
+        assertEquals(4, writes.size(), writes.toString());
+        assertTrue(writes.get(0).startsWith("insert into " + GAME_SNAPSHOTS.getName()), writes.get(0));
+        assertTrue(writes.get(1).startsWith("update " + NINETAC_GAMES.getName()), writes.get(1));
+        assertFalse(writes.get(1).contains(NINETAC_GAMES.BOARD_STATE.getName()), writes.get(1));
+        assertTrue(writes.get(2).startsWith("insert into " + GAME_MOVES.getName()), writes.get(2));
+    }
+
+    // One timed-out game, X to move.  Its stored board is storedBoard, and its latest snapshot (at the current
+    // version, with no moves since) is snapshotBoard, or none if null.  Every write is recorded, stripped of its
+    // schema qualifier and quotes, and matches one row.
+    private DSLContext mockContext(String storedBoard, String snapshotBoard) {
+        MockDataProvider provider = ctx -> {
+            String sql = ctx.sql().toLowerCase().replace("`", "").replace(PBEMGS.getName() + ".", "");
+            if (!sql.startsWith("select")) {
+                writes.add(sql);
+                return new MockResult[]{new MockResult(1)};
+            }
+            if (sql.contains("from " + GAME_SNAPSHOTS.getName())) {
+                Result<GameSnapshotsRecord> snapshots = RECORDS.newResult(GAME_SNAPSHOTS);
+                if (snapshotBoard != null) {
+                    GameSnapshotsRecord snapshot = RECORDS.newRecord(GAME_SNAPSHOTS);
+                    snapshot.setGameId(GAME_ID);
+                    snapshot.setSeq(VERSION);
+                    snapshot.setBoardState(snapshotBoard);
+                    snapshots.add(snapshot);
+                }
+                return new MockResult[]{new MockResult(snapshots.size(), snapshots)};
+            }
+            if (sql.contains("from " + GAME_MOVES.getName())) {
+                Result<?> moves = RECORDS.newResult(GAME_MOVES.MOVE_TEXT);
+                return new MockResult[]{new MockResult(0, moves)};
+            }
+            if (sql.contains("from " + NINETAC_GAMES.getName()) && sql.contains(NINETAC_GAMES.BOARD_STATE.getName())) {
+                Result<NinetacGamesRecord> games = RECORDS.newResult(NINETAC_GAMES);
+                games.add(game(storedBoard));
+                return new MockResult[]{new MockResult(1, games)};
+            }
+            if (sql.contains("from " + NINETAC_GAMES.getName())) {
+                Result<Record5<Long, Long, Boolean, Boolean, String>> staleRows = RECORDS.newResult(
+                        NINETAC_GAMES.GAME_ID, NINETAC_GAMES.USER_ID_TO_MOVE, TIMED_OUT, REMINDER_DUE, PHASE);
+                Record5<Long, Long, Boolean, Boolean, String> row = RECORDS.newRecord(
+                        NINETAC_GAMES.GAME_ID, NINETAC_GAMES.USER_ID_TO_MOVE, TIMED_OUT, REMINDER_DUE, PHASE);
+                row.values(GAME_ID, 1L, true, true, null);
+                staleRows.add(row);
+                return new MockResult[]{new MockResult(1, staleRows)};
+            }
+            Result<UsersRecord> users = RECORDS.newResult(PBEMGS.USERS);
+            UsersRecord user = RECORDS.newRecord(PBEMGS.USERS);
+            user.setUserId(((Number) ctx.bindings()[0]).longValue());
+            user.setHandle("player" + user.getUserId());
+            users.add(user);
+            return new MockResult[]{new MockResult(1, users)};
+        };
+
+        DefaultConfiguration config = new DefaultConfiguration();
+        config.set(new MockConnection(provider));
+        config.set(SQLDialect.MYSQL);
+        return DSL.using(config);
+    }
+
+    private static String newBoard() {
+        NinetacEngine engine = new NinetacEngine(mockLogger);
+        return engine.serialize(engine.newBoard(new Random(5)));
+    }
+
+    private static NinetacGamesRecord game(String boardState) {
+        NinetacGamesRecord game = RECORDS.newRecord(NINETAC_GAMES);
+        game.setGameId(GAME_ID);
+        game.setGameState(NinetacGamesGameState.IN_PROGRESS);
+        game.setXUserId(1L);
+        game.setOUserId(2L);
+        game.setUserIdToMove(1L);
+        game.setBoardState(boardState);
+        game.setVersion(VERSION);
+        return game;
+    }
+}
@@ -0,0 +1,29 @@
+package com.pbemgs.game.ninetac;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+public class NinetacMoveReplayerTest {
+    private static LambdaLogger mockLogger = mock(LambdaLogger.class);
+
+    @Test
+    public void testReplayMatchesDirectMoves() {
+        NinetacBoard board = new NinetacBoard(mockLogger);
+        board.createRandomizedBoard27();
+        NinetacMoveReplayer replayer = new NinetacMoveReplayer(mockLogger);
+
+        String replayed = board.serialize();
+        int symbol = NinetacBoard.PLAYER_X;
+        for (int i = 0; i < 8; i++) {
+            int move = board.getRandomMove();
+            board.makeMove(symbol, move);
+            String moveText = NinetacMoveReplayer.moveText(symbol, move);
+            replayed = replayer.apply(replayed, moveText);
+            assertEquals(board.serialize(), replayed, "after " + moveText);
+            symbol = symbol == NinetacBoard.PLAYER_X ? NinetacBoard.PLAYER_O : NinetacBoard.PLAYER_X;
+        }
+    }
+}
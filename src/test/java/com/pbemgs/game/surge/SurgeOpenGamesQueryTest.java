@@ -0,0 +1,112 @@
+package com.pbemgs.game.surge;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.generated.enums.SurgeGamesGameState;
+import com.pbemgs.generated.enums.SurgeGamesGameTimezone;
+import com.pbemgs.generated.tables.records.SurgeGamesRecord;
+import com.pbemgs.generated.tables.records.SurgePlayersRecord;
+import com.pbemgs.generated.tables.records.UsersRecord;
+import org.jooq.DSLContext;
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListener;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockDataProvider;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.pbemgs.generated.Pbemgs.PBEMGS;
+import static com.pbemgs.generated.tables.SurgeGames.SURGE_GAMES;
+import static com.pbemgs.generated.tables.SurgePlayers.SURGE_PLAYERS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Checks the number of queries issued for open_games doesn't grow with the number of games.
+ * Runs against a jOOQ mock connection that answers by table, counting every executed statement.
+ */
+public class SurgeOpenGamesQueryTest {
+    private static final LambdaLogger mockLogger = mock(LambdaLogger.class);
+    private static final DSLContext RECORDS = DSL.using(SQLDialect.MYSQL);
+
+    private final AtomicInteger queryCount = new AtomicInteger();
+
+    @Test
+    public void testOpenGamesQueryCountIsBounded() {
+        assertEquals(3, countOpenGamesQueries(1));
+        assertEquals(3, countOpenGamesQueries(25));
+    }
+
+    @Test
+    public void testOpenGamesListsPlayersInSeatOrder() {
+        Surge surge = new Surge(countingContext(4), mockLogger);
+        String text = surge.getOpenGamesTextBody();
+        assertTrue(text.contains("Players: player1  player2  "), text);
+        assertTrue(text.contains("Players: player4  player5  "), text);
+    }
+
+    private int countOpenGamesQueries(int numGames) {
+        queryCount.set(0);
+        new Surge(countingContext(numGames), mockLogger).getOpenGamesTextBody();
+        return queryCount.get();
+    }
+
+    // Game n has two joined players, users (3n + 1) and (3n + 2).
+    private DSLContext countingContext(int numGames) {
+        MockDataProvider provider = ctx -> {
+            String sql = ctx.sql();
+            if (sql.contains(SURGE_PLAYERS.getName())) {
+                Result<SurgePlayersRecord> players = RECORDS.newResult(SURGE_PLAYERS);
+                for (long gameId = 0; gameId < numGames; ++gameId) {
+                    for (int seat = 1; seat <= 2; ++seat) {
+                        SurgePlayersRecord player = RECORDS.newRecord(SURGE_PLAYERS);
+                        player.setGameId(gameId);
+                        player.setUserId(3 * gameId + seat);
+                        player.setSeatNumber(seat);
+                        players.add(player);
+                    }
+                }
+                return new MockResult[]{new MockResult(players.size(), players)};
+            }
+            if (sql.contains(SURGE_GAMES.getName())) {
+                Result<SurgeGamesRecord> games = RECORDS.newResult(SURGE_GAMES);
+                for (long gameId = 0; gameId < numGames; ++gameId) {
+                    SurgeGamesRecord game = RECORDS.newRecord(SURGE_GAMES);
+                    game.setGameId(gameId);
+                    game.setGameState(SurgeGamesGameState.OPEN);
+                    game.setNumPlayers(4);
+                    game.setTicksPerDay(2);
+                    game.setGameTimezone(SurgeGamesGameTimezone.GMT);
+                    game.setCommandLimit(3);
+                    games.add(game);
+                }
+                return new MockResult[]{new MockResult(games.size(), games)};
+            }
+            Result<UsersRecord> users = RECORDS.newResult(PBEMGS.USERS);
+            for (long userId = 0; userId < 3L * numGames; ++userId) {
+                UsersRecord user = RECORDS.newRecord(PBEMGS.USERS);
+                user.setUserId(userId);
+                user.setHandle("player" + userId);
+                users.add(user);
+            }
+            return new MockResult[]{new MockResult(users.size(), users)};
+        };
+
+        DefaultConfiguration config = new DefaultConfiguration();
+        config.set(new MockConnection(provider));
+        config.set(SQLDialect.MYSQL);
+        config.set(new ExecuteListener() {
+            @Override
+            public void executeStart(ExecuteContext ctx) {
+                queryCount.incrementAndGet();
+            }
+        });
+        return DSL.using(config);
+    }
+}
@@ -0,0 +1,81 @@
+package com.pbemgs.game.surge;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.generated.enums.SurgeGamesGameState;
+import com.pbemgs.generated.tables.records.SurgeGamesRecord;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockDataProvider;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.pbemgs.generated.tables.GameParticipants.GAME_PARTICIPANTS;
+import static com.pbemgs.generated.tables.SurgeGames.SURGE_GAMES;
+import static com.pbemgs.generated.tables.SurgePlayers.SURGE_PLAYERS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Checks the grouped periodic-update write falls back cleanly when a statement after the game update fails.
+ * Runs against a jOOQ mock connection, where commit and rollback are no-ops.
+ */
+public class SurgeTickWriteTest {
+    private static final LambdaLogger mockLogger = mock(LambdaLogger.class);
+    private static final DSLContext RECORDS = DSL.using(SQLDialect.MYSQL);
+
+    private final AtomicInteger participantSyncs = new AtomicInteger();
+    private final AtomicInteger commandClears = new AtomicInteger();
+
+    @Test
+    public void testFallbackResyncsParticipantsAfterLaterStatementFails() {
+        SurgeGamesRecord game = RECORDS.newRecord(SURGE_GAMES);
+        game.setGameId(9L);
+        game.setGameState(SurgeGamesGameState.IN_PROGRESS);
+        game.setVersion(3);
+        game.changed(false);  // as read from the database
+        game.setGameState(SurgeGamesGameState.COMPLETE);  // finished this tick
+        Surge.TickResult result = new Surge.TickResult(game, 3, List.of(), List.of(), "", List.of(), null, List.of());
+
+        // The first command clear fails, rolling back the grouped write; the one-game retry succeeds.
+        List<Surge.TickResult> written = new Surge(failingContext(1), mockLogger).writeTickResults(List.of(result));
+
+        assertEquals(List.of(result), written);
+        assertEquals(2, commandClears.get());
+        assertEquals(2, participantSyncs.get(), "the retry must sync game_participants again");
+        assertEquals(4, game.getVersion());
+        assertFalse(game.changed(SURGE_GAMES.GAME_STATE));
+    }
+
+    // Every update matches one row, except the first failClears surge_players updates, which throw.
+    private DSLContext failingContext(int failClears) {
+        MockDataProvider provider = ctx -> {
+            String sql = ctx.sql();
+            if (sql.contains(GAME_PARTICIPANTS.getName())) {
+                participantSyncs.incrementAndGet();
+            } else if (sql.contains(SURGE_PLAYERS.getName())) {
+                if (commandClears.incrementAndGet() <= failClears) {
+                    throw new SQLException("Deadlock found when trying to get lock");
+                }
+            }
+            int statements = ctx.batch() ? Math.max(ctx.batchSQL().length, ctx.batchBindings().length) : 1;
+            MockResult[] results = new MockResult[statements];
+            for (int i = 0; i < statements; ++i) {
+                results[i] = new MockResult(1);
+            }
+            return results;
+        };
+
+        DefaultConfiguration config = new DefaultConfiguration();
+        config.set(new MockConnection(provider));
+        config.set(SQLDialect.MYSQL);
+        return DSL.using(config);
+    }
+}
@@ -0,0 +1,34 @@
+package com.pbemgs.game.tac;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TacMoveReplayerTest {
+
+    @Test
+    public void testReplayMatchesDirectMoves() {
+        TacEngine engine = new TacEngine();
+        TacBoard board = new TacBoard();
+        TacMoveReplayer replayer = new TacMoveReplayer();
+        Random rng = new Random(3);
+
+        String replayed = board.serialize();
+        for (int turn = 0; turn < 4; turn++) {
+            int playerMove = board.getRandomAvailableMove(rng);
+            engine.applyMove(board, 0, playerMove);
+            int systemMove = board.getRandomAvailableMove(rng);
+            engine.applyMove(board, 1, systemMove);
+            String moveText = TacMoveReplayer.moveText(playerMove, systemMove);
+            replayed = replayer.apply(replayed, moveText);
+            assertEquals(board.serialize(), replayed, "after " + moveText);
+        }
+
+        // The ninth square ends the game with no system reply.
+        int lastMove = board.getRandomAvailableMove(rng);
+        engine.applyMove(board, 0, lastMove);
+        assertEquals(board.serialize(), replayer.apply(replayed, TacMoveReplayer.moveText(lastMove, null)));
+    }
+}
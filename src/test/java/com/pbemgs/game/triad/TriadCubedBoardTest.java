@@ -0,0 +1,71 @@
+package com.pbemgs.game.triad;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.model.Location;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+public class TriadCubedBoardTest {
+    private static final LambdaLogger mockLogger = mock(LambdaLogger.class);
+
+    @Test
+    public void testSerializeRoundTrip() {
+        String state = "5:0:F,0:null: ,3:1: ,0:null:I,12:1:L,0:null: ,0:null: ,7:0:I,0:null: ";
+        TriadCubedBoard board = new TriadCubedBoard(mockLogger);
+        board.deserialize(state);
+        assertEquals(state, board.serialize());
+        assertEquals(new TriadCubedBoard.Space(5, 0, TriadElement.FIRE), board.getGrid(0, 0));
+        assertEquals(new TriadCubedBoard.Space(0, null, TriadElement.ICE), board.getGrid(1, 0));
+        assertEquals(2, board.getCardCount(0));
+        assertEquals(2, board.getCardCount(1));
+    }
+
+    @Test
+    public void testMakeMove_elementalCapture() {
+        // Imp (6,4,2,3 - Ice) on an Ice square plays as 7,5,3,4: its top 7 beats Goblin's bottom 6 (a tie
+        // without the bonus), its left 4 loses to Ghoul's right 5.
+        TriadCubedBoard board = new TriadCubedBoard(mockLogger);
+        board.deserialize("0:null: ,3:1: ,0:null: ,4:1: ,0:null:I,0:null: ,0:null: ,0:null: ,0:null: ");
+        assertNull(board.validateMove(Location.fromString("B2")));
+        board.makeMove(0, 5, Location.fromString("B2"));
+        assertEquals(0, board.getGrid(0, 1).owner(), "Goblin flipped");
+        assertEquals(1, board.getGrid(1, 0).owner(), "Ghoul held");
+        assertEquals(2, board.getCardCount(0));
+    }
+
+    @Test
+    public void testPlaceCard_matchesLegacyResolverAndUndoes() {
+        Random rng = new Random(42);
+        TriadCubedBoard board = new TriadCubedBoard(mockLogger);
+        for (int game = 0; game < 2000; ++game) {
+            String start = TriadResolverBenchmark.randomEmptyBoard(rng);
+            int[] moves = TriadResolverBenchmark.randomMoveOrder(rng);
+            TriadResolverBenchmark.LegacyResolver legacy = new TriadResolverBenchmark.LegacyResolver(start);
+            board.deserialize(start);
+            int[] cells = board.getCells();
+            for (int move : moves) {
+                int seat = move >> 8;
+                int card = (move >> 4) & 0xF;
+                int idx = move & 0xF;
+                legacy.makeMove(seat, card, idx);
+                int[] before = cells.clone();
+                int flips = TriadCubedBoard.placeCard(cells, idx, seat, card);
+                for (int i = 0; i < cells.length; ++i) {
+                    Integer owner = TriadCubedBoard.cellOwner(cells[i]) < 0 ? null : TriadCubedBoard.cellOwner(cells[i]);
+                    assertEquals(legacy.get(i).owner(), owner, "game " + game + " cell " + i);
+                }
+                int[] after = cells.clone();
+                TriadCubedBoard.undoPlacement(cells, idx, flips);
+                assertArrayEquals(before, cells, "undo restores");
+                TriadCubedBoard.placeCard(cells, idx, seat, card);
+                assertArrayEquals(after, cells, "replay matches");
+            }
+        }
+    }
+}
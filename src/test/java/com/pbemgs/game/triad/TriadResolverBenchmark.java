@@ -0,0 +1,152 @@
+package com.pbemgs.game.triad;
+
+import com.pbemgs.model.Direction;
+import com.pbemgs.model.Location;
+
+import java.util.Random;
+
+/**
+ * Compares the packed cell resolver against the original record-per-square resolver on the same
+ * random games.  Not a unit test - run main() by hand:
+ * java -cp target/classes:target/test-classes com.pbemgs.game.triad.TriadResolverBenchmark
+ */
+public class TriadResolverBenchmark {
+    private static final int GAMES = 200_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        String[] starts = new String[GAMES];
+        int[][] moves = new int[GAMES][];
+        Random rng = new Random(1234);
+        for (int g = 0; g < GAMES; ++g) {
+            starts[g] = randomEmptyBoard(rng);
+            moves[g] = randomMoveOrder(rng);
+        }
+
+        // Parse up front so only move resolution is timed.
+        TriadCubedBoard board = new TriadCubedBoard(null);
+        int[][] startCells = new int[GAMES][];
+        LegacyResolver[] legacyStarts = new LegacyResolver[GAMES];
+        for (int g = 0; g < GAMES; ++g) {
+            board.deserialize(starts[g]);
+            startCells[g] = board.getCells();
+            legacyStarts[g] = new LegacyResolver(starts[g]);
+        }
+
+        int[] cells = new int[TriadCubedBoard.CELL_COUNT];
+        for (int round = 0; round < ROUNDS; ++round) {
+            long check = 0;
+            long start = System.nanoTime();
+            for (int g = 0; g < GAMES; ++g) {
+                LegacyResolver legacy = new LegacyResolver(legacyStarts[g]);
+                for (int move : moves[g]) {
+                    legacy.makeMove(move >> 8, (move >> 4) & 0xF, move & 0xF);
+                }
+                check += legacy.count(0);
+            }
+            long legacyNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long packedCheck = 0;
+            for (int g = 0; g < GAMES; ++g) {
+                System.arraycopy(startCells[g], 0, cells, 0, cells.length);
+                for (int move : moves[g]) {
+                    TriadCubedBoard.placeCard(cells, move & 0xF, move >> 8, (move >> 4) & 0xF);
+                }
+                packedCheck += TriadCubedBoard.countOwned(cells, 0);
+            }
+            long packedNanos = System.nanoTime() - start;
+
+            System.out.printf("round %d: legacy %d ns/game, packed %d ns/game (results %s)%n", round,
+                    legacyNanos / GAMES, packedNanos / GAMES, check == packedCheck ? "match" : "DIFFER");
+        }
+    }
+
+    static String randomEmptyBoard(Random rng) {
+        StringBuilder sb = new StringBuilder();
+        TriadElement[] elements = TriadElement.values();
+        for (int idx = 0; idx < TriadCubedBoard.CELL_COUNT; ++idx) {
+            TriadElement element = rng.nextInt(3) == 0 ? elements[rng.nextInt(1, elements.length)] : TriadElement.NONE;
+            sb.append(idx == 0 ? "" : ",").append("0:null:").append(element.getDisplayChar());
+        }
+        return sb.toString();
+    }
+
+    // Nine moves packed as seat << 8 | cardId << 4 | cell, alternating seats, random cards and squares.
+    static int[] randomMoveOrder(Random rng) {
+        int[] cellOrder = {0, 1, 2, 3, 4, 5, 6, 7, 8};
+        int[] moves = new int[cellOrder.length];
+        for (int i = 0; i < cellOrder.length; ++i) {
+            int j = i + rng.nextInt(cellOrder.length - i);
+            int tmp = cellOrder[i];
+            cellOrder[i] = cellOrder[j];
+            cellOrder[j] = tmp;
+            moves[i] = ((i & 1) << 8) | (rng.nextInt(1, 16) << 4) | cellOrder[i];
+        }
+        return moves;
+    }
+
+    /**
+     * The original resolver - one Space record per square, new records on every placement and flip.
+     */
+    static class LegacyResolver {
+        private final TriadCubedBoard.Space[][] grid = new TriadCubedBoard.Space[3][3];
+
+        LegacyResolver(LegacyResolver other) {
+            for (int r = 0; r < 3; ++r) {
+                System.arraycopy(other.grid[r], 0, grid[r], 0, 3);
+            }
+        }
+
+        LegacyResolver(String serialized) {
+            String[] parts = serialized.split(",");
+            for (int idx = 0; idx < parts.length; ++idx) {
+                TriadElement element = TriadElement.fromChar(parts[idx].split(":")[2].charAt(0));
+                grid[idx / 3][idx % 3] = new TriadCubedBoard.Space(0, null, element);
+            }
+        }
+
+        void makeMove(int playerSeat, int cardId, int idx) {
+            Location loc = new Location(idx / 3, idx % 3);
+            grid[loc.row()][loc.col()] = new TriadCubedBoard.Space(cardId, playerSeat, grid[loc.row()][loc.col()].element());
+            for (Direction dir : Direction.values()) {
+                Location checkLoc = dir.getAdjacentLoc(loc);
+                if (isOnBoard(checkLoc) &&
+                        grid[checkLoc.row()][checkLoc.col()].owner() != null &&
+                        grid[checkLoc.row()][checkLoc.col()].owner() != playerSeat) {
+                    int thisVal = getCardSideValue(loc, dir);
+                    int thatVal = getCardSideValue(checkLoc, dir.getOpposite());
+                    if (thisVal > thatVal) {
+                        grid[checkLoc.row()][checkLoc.col()] = new TriadCubedBoard.Space(grid[checkLoc.row()][checkLoc.col()].cardId(),
+                                playerSeat, grid[checkLoc.row()][checkLoc.col()].element());
+                    }
+                }
+            }
+        }
+
+        TriadCubedBoard.Space get(int idx) {
+            return grid[idx / 3][idx % 3];
+        }
+
+        int count(int seat) {
+            int count = 0;
+            for (int idx = 0; idx < 9; ++idx) {
+                if (get(idx).owner() != null && get(idx).owner() == seat) {
+                    ++count;
+                }
+            }
+            return count;
+        }
+
+        private boolean isOnBoard(Location loc) {
+            return loc.row() >= 0 && loc.row() < 3 && loc.col() >= 0 && loc.col() < 3;
+        }
+
+        private int getCardSideValue(Location loc, Direction dir) {
+            TriadCubedBoard.Space space = grid[loc.row()][loc.col()];
+            TriadCard card = TriadCardSet.getById(space.cardId());
+            int adjustment = (space.element() != TriadElement.NONE && space.element() == card.element()) ? 1 : 0;
+            return card.valueOfSide(dir) + adjustment;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.pbemgs.game.triad;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.model.Location;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class TriadSearchTest {
+    private static final LambdaLogger mockLogger = mock(LambdaLogger.class);
+
+    @Test
+    public void testFindBestMove_lastSquareTakesTheWin() {
+        // Tied 4-4 going into the last square; Titan at B2 captures three for the widest margin.
+        TriadCubedBoard board = new TriadCubedBoard(mockLogger);
+        board.deserialize("1:0: ,2:1: ,3:0: ,4:1: ,0:null: ,6:0: ,7:1: ,8:1: ,9:0: ");
+        TriadSearch.SearchResult result = new TriadSearch(board).findBestMove(0, List.of(15, 1),
+                List.of(), 0, Duration.ofSeconds(1), new Random(1));
+        assertEquals(15, result.cardId());
+        assertEquals(Location.fromString("B2"), result.loc());
+        assertTrue(result.score() > 100, "winning score");
+    }
+
+    @Test
+    public void testFindBestMove_openingIsValidUnderHiddenHand() {
+        TriadCubedBoard board = new TriadCubedBoard(mockLogger);
+        board.initializeNewBoard(true);
+        List<Integer> hand = List.of(1, 5, 9, 12, 14);
+        TriadSearch.SearchResult result = new TriadSearch(board).findBestMove(0, hand,
+                List.of(2, 3, 4, 6, 7, 8, 10, 11, 13, 15), 5, Duration.ofMillis(300), new Random(7));
+        assertTrue(hand.contains(result.cardId()), "plays a card from hand");
+        assertNull(board.validateMove(result.loc()), "plays to an empty square");
+        assertEquals(16, result.samples(), "samples the hidden hand");
+        assertTrue(result.depth() >= 1);
+    }
+}
@@ -0,0 +1,61 @@
+package com.pbemgs.model;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LeveledLoggerTest {
+
+    private static class CapturingLogger implements LambdaLogger {
+        final List<String> lines = new ArrayList<>();
+
+        public void log(String message) {
+            lines.add(message);
+        }
+
+        public void log(byte[] message) {
+        }
+    }
+
+    @Test
+    public void testDisabledLevelNeverBuildsMessage() {
+        CapturingLogger logger = new CapturingLogger();
+        LeveledLogger log = new LeveledLogger(logger, "surge", LeveledLogger.Level.INFO);
+        log.debug(() -> {
+            throw new AssertionError("debug message built while disabled");
+        });
+        log.trace(() -> {
+            throw new AssertionError("trace message built while disabled");
+        });
+        assertFalse(log.isDebugEnabled());
+        assertTrue(logger.lines.isEmpty());
+    }
+
+    @Test
+    public void testFormatByLevel() {
+        CapturingLogger logger = new CapturingLogger();
+        LeveledLogger log = new LeveledLogger(logger, "triad", LeveledLogger.Level.DEBUG);
+        log.debug(() -> "placed card");
+        log.info("plain line");
+        log.warn("careful");
+        log.trace("not shown");
+        assertEquals(List.of("DEBUG [triad] placed card", "plain line", "WARN [triad] careful"), logger.lines);
+    }
+
+    @Test
+    public void testParseLevels() {
+        Map<String, LeveledLogger.Level> levels =
+                LeveledLogger.parseLevels(" default=warn, Surge=TRACE ,bogus=LOUD,s3email");
+        assertEquals(LeveledLogger.Level.WARN, levels.get("default"));
+        assertEquals(LeveledLogger.Level.TRACE, levels.get("surge"));
+        assertEquals(2, levels.size());
+        assertTrue(LeveledLogger.parseLevels(null).isEmpty());
+    }
+}
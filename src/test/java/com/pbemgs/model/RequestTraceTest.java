@@ -0,0 +1,89 @@
+package com.pbemgs.model;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RequestTraceTest {
+
+    private static class CapturingLogger implements LambdaLogger {
+        final List<String> lines = new ArrayList<>();
+
+        public void log(String message) {
+            lines.add(message);
+        }
+
+        public void log(byte[] message) {
+        }
+    }
+
+    @Test
+    public void testEmitsOneEmfLinePerRequest() {
+        CapturingLogger logger = new CapturingLogger();
+        RequestTrace trace = RequestTrace.begin("SESEmail", "req-1");
+        RequestTrace.property("Command", "MOVE");
+        try (RequestTrace.Span engine = RequestTrace.span(RequestTrace.ENGINE)) {
+            for (int i = 0; i < 3; ++i) {
+                try (RequestTrace.Span db = RequestTrace.span(RequestTrace.DB_READ)) {
+                    // nested statement
+                }
+            }
+        }
+        trace.end(logger);
+
+        assertEquals(1, logger.lines.size());
+        String line = logger.lines.get(0);
+        assertTrue(line.startsWith("{\"_aws\":{\"Timestamp\":"));
+        assertTrue(line.contains("\"Namespace\":\"PBEMGS\""));
+        assertTrue(line.contains("\"Dimensions\":[[\"Handler\"]]"));
+        assertTrue(line.contains("{\"Name\":\"EngineMs\",\"Unit\":\"Milliseconds\"}"));
+        assertTrue(line.contains("\"Handler\":\"SESEmail\""));
+        assertTrue(line.contains("\"RequestId\":\"req-1\""));
+        assertTrue(line.contains("\"Command\":\"MOVE\""));
+        assertTrue(line.contains("\"DbReadCount\":3"));
+        assertTrue(line.contains("\"EngineCount\":1"));
+        assertTrue(line.contains("\"TotalMs\":"));
+    }
+
+    @Test
+    public void testSpansWithoutTraceAreIgnored() {
+        CapturingLogger logger = new CapturingLogger();
+        RequestTrace.begin("First", null).end(logger);
+        try (RequestTrace.Span span = RequestTrace.span(RequestTrace.SMTP_SEND)) {
+            // no trace on this thread any more
+        }
+        RequestTrace.begin("Second", null).end(logger);
+        assertFalse(logger.lines.get(1).contains("SmtpSend"));
+    }
+
+    @Test
+    public void testNestedTimeIsNotDoubleCounted() throws InterruptedException {
+        RequestTrace trace = RequestTrace.begin("Test", null);
+        try (RequestTrace.Span outer = RequestTrace.span(RequestTrace.ENGINE)) {
+            try (RequestTrace.Span inner = RequestTrace.span(RequestTrace.SMTP_SEND)) {
+                Thread.sleep(30);
+            }
+        }
+        String line = trace.toEmfJson(0);
+        double engineMs = metric(line, "EngineMs");
+        double smtpMs = metric(line, "SmtpSendMs");
+        assertTrue(smtpMs >= 25, line);
+        assertTrue(engineMs < 25, line);
+        RequestTrace.begin("Cleanup", null).end(new CapturingLogger());
+    }
+
+    private static double metric(String line, String name) {
+        int start = line.indexOf("\"" + name + "\":") + name.length() + 3;
+        int end = start;
+        while (end < line.length() && (Character.isDigit(line.charAt(end)) || line.charAt(end) == '.')) {
+            ++end;
+        }
+        return Double.parseDouble(line.substring(start, end));
+    }
+}
@@ -0,0 +1,100 @@
+package com.pbemgs.rating;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RatingRunTest {
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void testTwoPlayerWinIsPlainElo() {
+        RatingRun run = new RatingRun();
+        run.addOutcome("loa", 1, 10, 1, 2);
+        run.addOutcome("loa", 1, 20, 2, 2);
+        run.run();
+
+        Map<String, Double> ratings = collect(run);
+        double half = EloRatings.K_FACTOR / 2;
+        assertEquals(EloRatings.INITIAL_RATING + half, ratings.get("10/loa"), EPSILON);
+        assertEquals(EloRatings.INITIAL_RATING - half, ratings.get("20/loa"), EPSILON);
+        assertEquals(EloRatings.INITIAL_RATING + half, ratings.get("10/" + RatingRun.OVERALL), EPSILON);
+        assertEquals(4, ratings.size());
+    }
+
+    @Test
+    public void testDrawBetweenEqualPlayersChangesNothing() {
+        EloRatings elo = new EloRatings(2);
+        elo.rateGame(new int[]{0, 1}, new int[]{1, 1}, 0, 2);
+        assertEquals(EloRatings.INITIAL_RATING, elo.getRating(0), EPSILON);
+        assertEquals(EloRatings.INITIAL_RATING, elo.getRating(1), EPSILON);
+        assertEquals(1, elo.getGamesPlayed(0));
+    }
+
+    @Test
+    public void testMultiPlayerGameRatesByPlace() {
+        EloRatings elo = new EloRatings(4);
+        elo.rateGame(new int[]{0, 1, 2, 3}, new int[]{1, 2, 3, 3}, 0, 4);
+        double sum = 0;
+        for (int slot = 0; slot < 4; ++slot) {
+            sum += elo.getRating(slot);
+        }
+        assertEquals(4 * EloRatings.INITIAL_RATING, sum, EPSILON);
+        assertEquals(EloRatings.INITIAL_RATING + EloRatings.K_FACTOR / 2, elo.getRating(0), EPSILON);
+        assertTrue(elo.getRating(1) > EloRatings.INITIAL_RATING);
+        assertEquals(elo.getRating(2), elo.getRating(3), EPSILON);
+    }
+
+    @Test
+    public void testIncrementalRunMatchesFullReplay() {
+        RatingRun full = new RatingRun();
+        addGames(full, 0, 6);
+        full.run();
+
+        RatingRun first = new RatingRun();
+        addGames(first, 0, 3);
+        first.run();
+        RatingRun second = new RatingRun();
+        addGames(second, 3, 6);
+        first.forEachChanged(second::setInitialRating);
+        second.run();
+
+        Map<String, Double> expected = collect(full);
+        Map<String, Double> continued = collect(first);
+        continued.putAll(collect(second));
+        assertEquals(expected.keySet(), continued.keySet());
+        for (String key : expected.keySet()) {
+            assertEquals(expected.get(key), continued.get(key), EPSILON, key);
+        }
+    }
+
+    @Test
+    public void testUsersAndGamesCounted() {
+        RatingRun run = new RatingRun();
+        addGames(run, 0, 6);
+        assertEquals(6, run.getGameCount());
+        assertEquals(12, run.getOutcomeCount());
+        assertEquals(11, run.getLastOutcomeId());
+        assertArrayEquals(new long[]{1, 2, 3}, run.getUserIds());
+    }
+
+    // Games gameFrom..gameTo-1 between users 1, 2 and 3, alternating game names.
+    private static void addGames(RatingRun run, int gameFrom, int gameTo) {
+        for (int g = gameFrom; g < gameTo; ++g) {
+            String name = g % 2 == 0 ? "tac" : "gomoku";
+            run.addOutcome(name, g, 1 + g % 3, 1, 2L * g + 1);
+            run.addOutcome(name, g, 1 + (g + 1) % 3, g % 4 == 0 ? 1 : 2, 2L * g + 1);
+        }
+    }
+
+    private static Map<String, Double> collect(RatingRun run) {
+        Map<String, Double> ratings = new HashMap<>();
+        run.forEachChanged((userId, gameName, rating, gamesPlayed) -> ratings.put(userId + "/" + gameName, rating));
+        return ratings;
+    }
+}
@@ -0,0 +1,313 @@
+package com.pbemgs.sim;
+
+import com.pbemgs.controller.SESEmailHandler;
+import com.pbemgs.controller.SESEmailSender;
+import com.pbemgs.dko.DSLContextFactory;
+import com.pbemgs.dko.TacGamesDKO;
+import com.pbemgs.dko.UsersDKO;
+import com.pbemgs.generated.tables.records.TacGamesRecord;
+import com.pbemgs.generated.tables.records.UsersRecord;
+import com.pbemgs.model.GameType;
+import com.pbemgs.model.TestLogger;
+import org.jooq.DSLContext;
+import org.jooq.exception.DataAccessException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Replays synthetic SES traffic through SESEmailHandler against a local database: players create accounts,
+ * create and join a game of every type, then take turns moving and asking for status.  Mail goes to a
+ * RecordingEmailSender and email bodies come from memory rather than S3 (both handed to the handler's
+ * constructor), so the handler, game logic and SQL are the only things timed.  Reports p50/p99 latency and
+ * throughput per command and game.
+ * <p>
+ * Point it at a scratch database - it creates real users and games.
+ * Usage: EmailLoadTest [--url jdbc-url] [--user db-user] [--password db-password] [--schema SQL-dir]
+ * [--users N] [--rounds N] [--status-every N] [--seed N] [--verbose]
+ * The connection defaults come from PBEMGS_LOAD_DB_URL, PBEMGS_LOAD_DB_USER and PBEMGS_LOAD_DB_PASSWORD; with
+ * no URL it runs on DSLContextFactory.getTestInstance().  --schema runs every .sql file in the directory first
+ * (CREATE TABLE statements before the rest).
+ */
+public class EmailLoadTest {
+    private static final String SERVICE_ADDR = "pbemgs@angryturtlestudios.com";
+    private static final Pattern GAME_ID = Pattern.compile("Game ID: (\\d+)");
+    private static final List<String> FAILURE_WORDS = List.of("fail", "error", "exception", "invalid");
+
+    // Option bodies for create_game; TAC games come with create_account.
+    private static final Map<GameType, String> CREATE_OPTIONS = new LinkedHashMap<>();
+
+    static {
+        CREATE_OPTIONS.put(GameType.NINETAC, "");
+        CREATE_OPTIONS.put(GameType.ATAXX, "players:2 size:7 board:standard");
+        CREATE_OPTIONS.put(GameType.SURGE, "players:2 ticks:1 limit:4");
+        CREATE_OPTIONS.put(GameType.LOA, "");
+        CREATE_OPTIONS.put(GameType.GOMOKU, "");
+        CREATE_OPTIONS.put(GameType.TRIAD, "");
+        CREATE_OPTIONS.put(GameType.IRONCLAD, "first:self");
+        CREATE_OPTIONS.put(GameType.COLLAPSI, "");
+    }
+
+    private record LoadUser(long userId, String handle, String email) {
+    }
+
+    private record LoadGame(GameType gameType, long gameId, List<LoadUser> players) {
+    }
+
+    private static class Timings {
+        private long[] nanos = new long[64];
+        private int count = 0;
+        private int rejected = 0;
+
+        void add(long elapsedNanos, boolean wasRejected) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = elapsedNanos;
+            if (wasRejected) {
+                ++rejected;
+            }
+        }
+
+        double percentileMs(long[] sorted, double pct) {
+            int index = (int) Math.ceil(pct / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    private final DSLContext dslContext;
+    private final Random rng;
+    private final int statusEvery;
+    private final TestLogger logger = new TestLogger();
+    private final RecordingEmailSender mail = new RecordingEmailSender(logger, 1000);
+    private final Map<String, String> bodyByMessageId = new ConcurrentHashMap<>();
+    private final SESEmailHandler handler;
+    private final LoadMoveSource moveSource;
+    private final Map<String, Timings> timingsByKey = new TreeMap<>();
+    private final Map<Long, LoadUser> usersById = new HashMap<>();
+
+    public EmailLoadTest(DSLContext dslContext, long seed, int statusEvery, boolean verbose) {
+        this.dslContext = dslContext;
+        this.rng = new Random(seed);
+        this.statusEvery = statusEvery;
+        this.moveSource = new LoadMoveSource(dslContext, logger);
+        logger.on = verbose;
+        this.handler = new SESEmailHandler(() -> dslContext, l -> mail, bodyByMessageId::get);
+    }
+
+    public static void main(String[] args) throws IOException, SQLException {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; ++i) {
+            if (args[i].equals("--verbose")) {
+                options.put("verbose", "true");
+            } else if (args[i].startsWith("--") && i + 1 < args.length) {
+                options.put(args[i].substring(2), args[++i]);
+            } else {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+        }
+        String url = options.getOrDefault("url", System.getenv("PBEMGS_LOAD_DB_URL"));
+        DSLContext dslContext = url == null
+                ? DSLContextFactory.getTestInstance()
+                : DSLContextFactory.usingConnection(DriverManager.getConnection(url,
+                        options.getOrDefault("user", System.getenv("PBEMGS_LOAD_DB_USER")),
+                        options.getOrDefault("password", System.getenv("PBEMGS_LOAD_DB_PASSWORD"))));
+        if (options.containsKey("schema")) {
+            loadSchema(dslContext, Path.of(options.get("schema")));
+        }
+
+        EmailLoadTest loadTest = new EmailLoadTest(dslContext, Long.parseLong(options.getOrDefault("seed", "1")),
+                Integer.parseInt(options.getOrDefault("status-every", "4")), options.containsKey("verbose"));
+        loadTest.run(Integer.parseInt(options.getOrDefault("users", "20")),
+                Integer.parseInt(options.getOrDefault("rounds", "50")));
+    }
+
+    public void run(int numUsers, int rounds) {
+        long start = System.nanoTime();
+        List<LoadGame> games = new ArrayList<>();
+        List<LoadUser> users = createUsers(numUsers, games);
+        for (int i = 0; i + 1 < users.size(); i += 2) {
+            for (Map.Entry<GameType, String> entry : CREATE_OPTIONS.entrySet()) {
+                LoadGame game = createAndJoin(entry.getKey(), entry.getValue(), users.get(i), users.get(i + 1));
+                if (game != null) {
+                    games.add(game);
+                }
+            }
+        }
+        System.out.println("Setup: " + users.size() + " users, " + games.size() + " games");
+
+        int finished = 0;
+        for (int round = 0; round < rounds && !games.isEmpty(); ++round) {
+            Iterator<LoadGame> iter = games.iterator();
+            while (iter.hasNext()) {
+                LoadGame game = iter.next();
+                LoadMoveSource.NextMove move = moveSource.nextMove(game.gameType(), game.gameId(),
+                        game.players().stream().map(LoadUser::userId).collect(Collectors.toList()), rng);
+                if (move == null) {
+                    iter.remove();
+                    ++finished;
+                    continue;
+                }
+                send("move", game.gameType(), usersById.get(move.userId()),
+                        "move " + gameName(game.gameType()) + " " + game.gameId(), move.body());
+                if (statusEvery > 0 && rng.nextInt(statusEvery) == 0) {
+                    LoadUser asker = game.players().get(rng.nextInt(game.players().size()));
+                    send("status", game.gameType(), asker,
+                            "status " + gameName(game.gameType()) + " " + game.gameId(), "");
+                }
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.println("Games finished: " + finished + ", still running: " + games.size());
+        report(elapsed);
+    }
+
+    private List<LoadUser> createUsers(int numUsers, List<LoadGame> games) {
+        String runTag = Long.toString(System.currentTimeMillis() % 60_466_176L, 36);  // 5 base-36 digits
+        UsersDKO usersDKO = new UsersDKO(dslContext);
+        TacGamesDKO tacDKO = new TacGamesDKO(dslContext);
+        List<LoadUser> users = new ArrayList<>();
+        for (int i = 0; i < numUsers; ++i) {
+            String handle = "load" + runTag + i;
+            String email = handle + "@load.local";
+            send("create_account", GameType.NONE, new LoadUser(0, handle, email), "create_account " + handle, "");
+            UsersRecord record = usersDKO.fetchUserForEmail(email);
+            if (record == null) {
+                continue;
+            }
+            LoadUser user = new LoadUser(record.getUserId(), handle, email);
+            users.add(user);
+            usersById.put(user.userId(), user);
+            TacGamesRecord tutorial = tacDKO.getActiveGameForUser(user.userId());
+            if (tutorial != null) {
+                games.add(new LoadGame(GameType.TAC, tutorial.getGameId(), List.of(user)));
+            }
+        }
+        return users;
+    }
+
+    private LoadGame createAndJoin(GameType gameType, String createOptions, LoadUser creator, LoadUser joiner) {
+        String name = gameName(gameType);
+        Long gameId = null;
+        for (SESEmailSender.Email reply : send("create_game", gameType, creator, "create_game " + name, createOptions)) {
+            Matcher matcher = GAME_ID.matcher(reply.plainTextBody());
+            if (reply.toAddress().equalsIgnoreCase(creator.email()) && matcher.find()) {
+                gameId = Long.parseLong(matcher.group(1));
+            }
+        }
+        if (gameId == null) {
+            return null;
+        }
+        send("join_game", gameType, joiner, "join_game " + name + " " + gameId, "");
+        return new LoadGame(gameType, gameId, List.of(creator, joiner));
+    }
+
+    // One SES event through the handler; returns the mail it produced.
+    private List<SESEmailSender.Email> send(String command, GameType gameType, LoadUser from, String subject,
+                                            String body) {
+        String messageId = UUID.randomUUID().toString();
+        bodyByMessageId.put(messageId, body);
+        Map<String, Object> event = Map.of("Records", List.of(sesRecord(from.email(), subject, messageId)));
+
+        long start = System.nanoTime();
+        handler.handleRequest(event, new LocalLambdaContext("EmailLoadTest", logger));
+        long elapsed = System.nanoTime() - start;
+
+        bodyByMessageId.remove(messageId);
+        List<SESEmailSender.Email> replies = mail.drain();
+        boolean rejected = replies.stream().anyMatch(reply ->
+                reply.toAddress().equalsIgnoreCase(from.email()) && isFailure(reply.subject()));
+        String key = gameType == GameType.NONE ? command : command + " " + gameName(gameType);
+        timingsByKey.computeIfAbsent(key, k -> new Timings()).add(elapsed, rejected);
+        return replies;
+    }
+
+    private static Map<String, Object> sesRecord(String from, String subject, String messageId) {
+        Map<String, Object> mail = Map.of(
+                "source", from,
+                "messageId", messageId,
+                "commonHeaders", Map.of("subject", subject));
+        Map<String, Object> receipt = Map.of(
+                "recipients", List.of(SERVICE_ADDR),
+                "spamVerdict", Map.of("status", "PASS"),
+                "virusVerdict", Map.of("status", "PASS"));
+        return Map.of(
+                "eventSource", "aws:ses",
+                "eventVersion", "1.0",
+                "ses", Map.of("mail", mail, "receipt", receipt));
+    }
+
+    private static boolean isFailure(String subject) {
+        String lower = subject.toLowerCase();
+        return FAILURE_WORDS.stream().anyMatch(lower::contains);
+    }
+
+    private static String gameName(GameType gameType) {
+        return gameType.name().toLowerCase();
+    }
+
+    private void report(double elapsedSeconds) {
+        System.out.printf("%-20s %7s %8s %9s %9s %9s %10s%n",
+                "command", "count", "rejected", "p50 ms", "p99 ms", "max ms", "per sec");
+        long total = 0;
+        for (Map.Entry<String, Timings> entry : timingsByKey.entrySet()) {
+            Timings timings = entry.getValue();
+            long[] sorted = Arrays.copyOf(timings.nanos, timings.count);
+            Arrays.sort(sorted);
+            long sumNanos = Arrays.stream(sorted).sum();
+            System.out.printf("%-20s %7d %8d %9.2f %9.2f %9.2f %10.1f%n", entry.getKey(), timings.count,
+                    timings.rejected, timings.percentileMs(sorted, 50), timings.percentileMs(sorted, 99),
+                    sorted[sorted.length - 1] / 1e6, timings.count / (sumNanos / 1e9));
+            total += timings.count;
+        }
+        System.out.printf("%d commands in %.1f s - %.1f commands/s, %d emails sent%n",
+                total, elapsedSeconds, total / elapsedSeconds, mail.getSentCount());
+    }
+
+    // Runs CREATE TABLE statements before the rest, as some files insert from tables defined in later files.
+    private static void loadSchema(DSLContext dslContext, Path sqlDir) throws IOException {
+        List<String> creates = new ArrayList<>();
+        List<String> others = new ArrayList<>();
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(sqlDir)) {
+            files = listing.filter(p -> p.toString().endsWith(".sql")).sorted().collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            String sql = Files.readAllLines(file).stream()
+                    .map(line -> line.contains("--") ? line.substring(0, line.indexOf("--")) : line)
+                    .collect(Collectors.joining("\n"));
+            for (String statement : sql.split(";")) {
+                statement = statement.trim();
+                if (statement.isEmpty()) {
+                    continue;
+                }
+                (statement.toUpperCase().startsWith("CREATE TABLE") ? creates : others).add(statement);
+            }
+        }
+        for (String statement : Stream.concat(creates.stream(), others.stream()).toList()) {
+            try {
+                dslContext.execute(statement);
+            } catch (DataAccessException e) {
+                System.out.println("Schema statement failed (continuing): " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.pbemgs.sim;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.controller.SESEmailSender;
+import com.pbemgs.game.GameEngine;
+import com.pbemgs.game.GameUpdateRetry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runs one game type's move pipeline without a database or SMTP: the same steps as a move email (read the
+ * game, check the turn, parse, validate, apply, check for the end, write back with the version check, render the
+ * board once and mail every seat), against an InMemoryGameStore and a mail stand-in.
+ */
+public class HeadlessGameRunner<B, M> {
+    private final GameEngine<B, M> engine;
+    private final InMemoryGameStore store;
+    private final SESEmailSender emailSender;
+    private final LambdaLogger logger;
+
+    public HeadlessGameRunner(GameEngine<B, M> engine, InMemoryGameStore store, SESEmailSender emailSender,
+                              LambdaLogger logger) {
+        this.engine = engine;
+        this.store = store;
+        this.emailSender = emailSender;
+        this.logger = logger;
+    }
+
+    public GameEngine<B, M> getEngine() {
+        return engine;
+    }
+
+    public long createGame(Random rng) {
+        return store.createGame(engine.getGameType(), engine.serialize(engine.newBoard(rng)),
+                engine.getFirstSeat());
+    }
+
+    /**
+     * Submits a move for the seat.  Returns null if it was made, or the error the player was mailed.
+     */
+    public String submitMove(long gameId, int seat, String moveText) {
+        String[] error = new String[1];
+        GameUpdateRetry.run(logger, engine.getGameType() + " headless move " + gameId,
+                () -> error[0] = attemptMove(gameId, seat, moveText));
+        return error[0];
+    }
+
+    /**
+     * Plays a game to the end with random legal moves.  Returns the number of moves made.
+     */
+    public int playRandomGame(Random rng) {
+        long gameId = createGame(rng);
+        int moves = 0;
+        InMemoryGameStore.StoredGame game = store.getGame(gameId);
+        while (game.isInProgress()) {
+            List<M> legalMoves = engine.getLegalMoves(engine.deserialize(game.boardState()), game.nextSeat());
+            if (legalMoves.isEmpty()) {
+                break;
+            }
+            M move = legalMoves.get(rng.nextInt(legalMoves.size()));
+            String error = submitMove(gameId, game.nextSeat(), engine.formatMove(move));
+            if (error != null) {
+                throw new IllegalStateException("Legal move rejected for " + engine.getGameType() + " game " +
+                        gameId + ": " + error);
+            }
+            ++moves;
+            game = store.getGame(gameId);
+        }
+        return moves;
+    }
+
+    private String attemptMove(long gameId, int seat, String moveText) {
+        String address = getAddress(gameId, seat);
+        String subject = "MOVE " + engine.getGameType().name() + " " + gameId;
+        InMemoryGameStore.StoredGame game = store.getGame(gameId);
+        if (game == null || !game.isInProgress()) {
+            return reject(address, subject, "Game " + gameId + " is not in progress.");
+        }
+        if (game.nextSeat() != seat) {
+            return reject(address, subject, "It is not your move in game " + gameId + ".");
+        }
+
+        M move = engine.parseMove(moveText);
+        if (move == null) {
+            return reject(address, subject, "No move found in " + moveText + ".");
+        }
+        B board = engine.deserialize(game.boardState());
+        String error = engine.validateMove(board, seat, move);
+        if (error != null) {
+            return reject(address, subject, error);
+        }
+        engine.applyMove(board, seat, move);
+        int nextSeat = engine.getNextSeat(board, seat);
+        int result = engine.getResult(board, nextSeat);
+        store.updateGame(game, engine.serialize(board), nextSeat, result);
+
+        // Board rendered once for every seat's email, which go out together.
+        String boardText = engine.getBoardText(board);
+        String header = "Seat " + seat + " played " + moveText + ".\n\n";
+        List<SESEmailSender.Email> emails = new ArrayList<>(engine.getNumPlayers());
+        for (int s = 0; s < engine.getNumPlayers(); ++s) {
+            emails.add(new SESEmailSender.Email(getAddress(gameId, s), subject, header + boardText));
+        }
+        emailSender.sendEmails(emails);
+        return null;
+    }
+
+    private String reject(String address, String subject, String error) {
+        emailSender.sendEmail(address, "PBEMGS - " + subject + " failed", error);
+        return error;
+    }
+
+    private static String getAddress(long gameId, int seat) {
+        return "seat" + seat + ".game" + gameId + "@headless.local";
+    }
+}
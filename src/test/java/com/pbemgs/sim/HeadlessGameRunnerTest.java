@@ -0,0 +1,97 @@
+package com.pbemgs.sim;
+
+import com.pbemgs.game.GameEngine;
+import com.pbemgs.game.ataxx.AtaxxBoard;
+import com.pbemgs.game.ataxx.AtaxxEngine;
+import com.pbemgs.game.collapsi.CollapsiEngine;
+import com.pbemgs.game.gomoku.GoMokuEngine;
+import com.pbemgs.game.loa.LoaEngine;
+import com.pbemgs.game.ninetac.NinetacEngine;
+import com.pbemgs.game.tac.TacEngine;
+import com.pbemgs.generated.enums.AtaxxGamesBoardOption;
+import com.pbemgs.model.TestLogger;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HeadlessGameRunnerTest {
+    private static final TestLogger logger = new TestLogger();
+
+    @Test
+    public void testRandomGamesReachAResult() {
+        List<GameEngine<?, ?>> engines = List.of(new TacEngine(), new NinetacEngine(logger), new LoaEngine(logger),
+                new GoMokuEngine(15, logger), new CollapsiEngine(),
+                new AtaxxEngine(7, AtaxxGamesBoardOption.STANDARD, List.of(1, 0), logger));
+        Random rng = new Random(7);
+        for (GameEngine<?, ?> engine : engines) {
+            InMemoryGameStore store = new InMemoryGameStore();
+            RecordingEmailSender mail = new RecordingEmailSender(logger, 0);
+            HeadlessGameRunner<?, ?> runner = new HeadlessGameRunner<>(engine, store, mail, logger);
+            for (int i = 0; i < 5; ++i) {
+                int moves = runner.playRandomGame(rng);
+                InMemoryGameStore.StoredGame game = store.getGame(i + 1);
+                assertFalse(game.isInProgress(), engine.getGameType() + " game " + (i + 1));
+                assertEquals(moves, game.moveCount());
+                assertEquals(moves, game.version());
+            }
+            // every move mails both seats
+            assertEquals(2 * (store.getGame(1).moveCount() + store.getGame(2).moveCount() + store.getGame(3).moveCount() +
+                    store.getGame(4).moveCount() + store.getGame(5).moveCount()), mail.getSentCount());
+        }
+    }
+
+    @Test
+    public void testRejectedMovesLeaveTheGameAlone() {
+        InMemoryGameStore store = new InMemoryGameStore();
+        RecordingEmailSender mail = new RecordingEmailSender(logger, 10);
+        HeadlessGameRunner<?, ?> runner = new HeadlessGameRunner<>(new TacEngine(), store, mail, logger);
+        long gameId = runner.createGame(new Random(1));
+
+        assertNotNull(runner.submitMove(gameId, 1, "5"));  // not seat 1's turn
+        assertNotNull(runner.submitMove(gameId, 0, "10"));  // off the board
+        assertEquals(0, store.getGame(gameId).version());
+        assertEquals(2, mail.getSentCount());
+
+        assertNull(runner.submitMove(gameId, 0, "5"));
+        assertNotNull(runner.submitMove(gameId, 1, "5"));  // taken
+        InMemoryGameStore.StoredGame game = store.getGame(gameId);
+        assertEquals(1, game.version());
+        assertEquals(1, game.nextSeat());
+        assertTrue(game.isInProgress());
+        assertEquals(5, mail.getSentCount());
+        assertTrue(mail.getRecent().get(2).plainTextBody().startsWith("Seat 0 played 5."));
+    }
+
+    @Test
+    public void testTacResultChecksXFirst() {
+        TacEngine engine = new TacEngine();
+        assertEquals(0, engine.getResult(engine.deserialize("XXXOO----"), 1));
+        assertEquals(1, engine.getResult(engine.deserialize("XX-OOOX--"), 0));
+        assertEquals(GameEngine.DRAW, engine.getResult(engine.deserialize("XOXXOOOXX"), 1));
+        assertEquals(GameEngine.IN_PROGRESS, engine.getResult(engine.deserialize("XOXXOOOX-"), 1));
+    }
+
+    @Test
+    public void testAtaxxTurnOrderSkipsSeatsWithNoMove() {
+        AtaxxEngine engine = new AtaxxEngine(7, AtaxxGamesBoardOption.BLANK, List.of(0, 1, 2, 3), logger);
+        AtaxxBoard board = engine.deserialize("x.....*|.......|.......|.......|.......|.......|......o");
+        assertEquals(3, engine.getNextSeat(board, 1));  // seat 2 has no pieces
+        assertEquals(0, engine.getNextSeat(board, 3));
+        assertEquals(GameEngine.IN_PROGRESS, engine.getResult(board, 3));
+        assertEquals("Invalid move: To square is occupied.", engine.validateMove(board, 0, engine.parseMove("A1-G1")));
+        assertNull(engine.validateMove(board, 0, engine.parseMove("B2")));
+
+        AtaxxEngine twoPlayer = new AtaxxEngine(7, AtaxxGamesBoardOption.BLANK, List.of(1, 0), logger);
+        assertEquals(1, twoPlayer.getResult(twoPlayer.deserialize(
+                "xxxxxxx|xxxxxxx|xxxxxxx|ooooooo|ooooooo|ooooooo|ooooooo"), 0));
+        assertEquals(GameEngine.DRAW, twoPlayer.getResult(twoPlayer.deserialize(
+                "xxxxxxx|xxxxxxx|xxxxxxx|#######|ooooooo|ooooooo|ooooooo"), 0));
+    }
+}
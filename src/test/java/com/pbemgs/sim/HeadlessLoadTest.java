@@ -0,0 +1,54 @@
+package com.pbemgs.sim;
+
+import com.pbemgs.game.GameEngine;
+import com.pbemgs.game.ataxx.AtaxxEngine;
+import com.pbemgs.game.collapsi.CollapsiEngine;
+import com.pbemgs.game.gomoku.GoMokuEngine;
+import com.pbemgs.game.loa.LoaEngine;
+import com.pbemgs.game.ninetac.NinetacEngine;
+import com.pbemgs.game.tac.TacEngine;
+import com.pbemgs.generated.enums.AtaxxGamesBoardOption;
+import com.pbemgs.model.TestLogger;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Plays random games through each engine's headless move pipeline and reports moves per second.
+ * Usage: HeadlessLoadTest [seconds per game type, default 5]
+ */
+public class HeadlessLoadTest {
+    public static void main(String[] args) {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 5;
+        TestLogger logger = new TestLogger();
+        List<GameEngine<?, ?>> engines = List.of(new TacEngine(), new NinetacEngine(logger), new LoaEngine(logger),
+                new GoMokuEngine(15, logger), new CollapsiEngine(),
+                new AtaxxEngine(7, AtaxxGamesBoardOption.STANDARD, List.of(1, 0), logger));
+
+        for (GameEngine<?, ?> engine : engines) {
+            InMemoryGameStore store = new InMemoryGameStore();
+            RecordingEmailSender mail = new RecordingEmailSender(logger, 0);
+            HeadlessGameRunner<?, ?> runner = new HeadlessGameRunner<>(engine, store, mail, logger);
+            Random rng = new Random(1);
+
+            // warm up, then time
+            long warmupEnd = System.nanoTime() + 1_000_000_000L;
+            while (System.nanoTime() < warmupEnd) {
+                runner.playRandomGame(rng);
+            }
+            mail.clear();
+            long moves = 0;
+            int gamesPlayed = 0;
+            long start = System.nanoTime();
+            long end = start + seconds * 1_000_000_000L;
+            while (System.nanoTime() < end) {
+                moves += runner.playRandomGame(rng);
+                ++gamesPlayed;
+            }
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-9s %8d games %10d moves %10.0f moves/s %10d emails %8.1f MB mail text%n",
+                    engine.getGameType().name(), gamesPlayed, moves, moves / elapsed, mail.getSentCount(),
+                    mail.getSentChars() / 1e6);
+        }
+    }
+}
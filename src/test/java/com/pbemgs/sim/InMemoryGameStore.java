@@ -0,0 +1,54 @@
+package com.pbemgs.sim;
+
+import com.pbemgs.dko.StaleGameUpdateException;
+import com.pbemgs.game.GameEngine;
+import com.pbemgs.model.GameType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory stand-in for the game tables: one row per game with the board, the seat to move and the result.
+ * Updates are conditional on the version that was read, like the game DKOs, and throw
+ * StaleGameUpdateException on a lost race.
+ */
+public class InMemoryGameStore {
+    public static final String TABLE_NAME = "in_memory_games";
+
+    public record StoredGame(long gameId, GameType gameType, String boardState, int nextSeat, int result,
+                             int moveCount, int version) {
+        public boolean isInProgress() {
+            return result == GameEngine.IN_PROGRESS;
+        }
+    }
+
+    private final Map<Long, StoredGame> games = new ConcurrentHashMap<>();
+    private final AtomicLong nextGameId = new AtomicLong(1);
+
+    public long createGame(GameType gameType, String boardState, int firstSeat) {
+        long gameId = nextGameId.getAndIncrement();
+        games.put(gameId, new StoredGame(gameId, gameType, boardState, firstSeat, GameEngine.IN_PROGRESS, 0, 0));
+        return gameId;
+    }
+
+    public StoredGame getGame(long gameId) {
+        return games.get(gameId);
+    }
+
+    /**
+     * Records a move against the game as read, bumping its version.
+     */
+    public StoredGame updateGame(StoredGame read, String boardState, int nextSeat, int result) {
+        StoredGame updated = new StoredGame(read.gameId(), read.gameType(), boardState, nextSeat, result,
+                read.moveCount() + 1, read.version() + 1);
+        if (!games.replace(read.gameId(), read, updated)) {
+            throw new StaleGameUpdateException(TABLE_NAME, read.gameId(), read.version());
+        }
+        return updated;
+    }
+
+    public int getGameCount() {
+        return games.size();
+    }
+}
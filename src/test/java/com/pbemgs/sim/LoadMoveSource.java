@@ -0,0 +1,232 @@
+package com.pbemgs.sim;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.dko.AtaxxGameDKO;
+import com.pbemgs.dko.GoMokuGameDKO;
+import com.pbemgs.dko.LoaGameDKO;
+import com.pbemgs.dko.MoveLogDKO;
+import com.pbemgs.dko.NinetacGameDKO;
+import com.pbemgs.dko.SurgeGamesDKO;
+import com.pbemgs.dko.TacGamesDKO;
+import com.pbemgs.game.GameEngine;
+import com.pbemgs.game.ataxx.AtaxxEngine;
+import com.pbemgs.game.collapsi.CollapsiEngine;
+import com.pbemgs.game.collapsi.dko.CollapsiGamesDKO;
+import com.pbemgs.game.collapsi.dko.CollapsiPlayersDKO;
+import com.pbemgs.game.gomoku.GoMokuEngine;
+import com.pbemgs.game.ironclad.dko.IroncladGameDKO;
+import com.pbemgs.game.loa.LoaEngine;
+import com.pbemgs.game.ninetac.NinetacEngine;
+import com.pbemgs.game.ninetac.NinetacMoveReplayer;
+import com.pbemgs.game.tac.TacEngine;
+import com.pbemgs.game.triad.dko.TriadGamesDKO;
+import com.pbemgs.game.triad.dko.TriadPlayersDKO;
+import com.pbemgs.generated.enums.AtaxxGamesGameState;
+import com.pbemgs.generated.enums.CollapsiGamesGameState;
+import com.pbemgs.generated.enums.GomokuGamesGameState;
+import com.pbemgs.generated.enums.GomokuGamesSwap2State;
+import com.pbemgs.generated.enums.IroncladGamesGameState;
+import com.pbemgs.generated.enums.LoaGamesGameState;
+import com.pbemgs.generated.enums.NinetacGamesGameState;
+import com.pbemgs.generated.enums.SurgeGamesGameState;
+import com.pbemgs.generated.enums.TacGamesGameState;
+import com.pbemgs.generated.enums.TriadGamesGamePhase;
+import com.pbemgs.generated.enums.TriadGamesGameState;
+import com.pbemgs.generated.tables.records.AtaxxGamesRecord;
+import com.pbemgs.generated.tables.records.CollapsiGamesRecord;
+import com.pbemgs.generated.tables.records.GomokuGamesRecord;
+import com.pbemgs.generated.tables.records.IroncladGamesRecord;
+import com.pbemgs.generated.tables.records.LoaGamesRecord;
+import com.pbemgs.generated.tables.records.NinetacGamesRecord;
+import com.pbemgs.generated.tables.records.SurgeGamesRecord;
+import com.pbemgs.generated.tables.records.TacGamesRecord;
+import com.pbemgs.generated.tables.records.TriadGamesRecord;
+import com.pbemgs.generated.tables.records.TriadPlayersRecord;
+import com.pbemgs.model.GameType;
+import com.pbemgs.model.Location;
+import org.jooq.DSLContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Picks the next move email for a load-test game from its stored state: who is due to act, and a body in the
+ * game's move syntax.  Games with a GameEngine get a legal move; Triad, Ironclad and Surge get syntactically
+ * valid random moves, some of which the game will reject.
+ */
+public class LoadMoveSource {
+    private static final String SURGE_DIRECTIONS = "NESW";
+    private static final int GOMOKU_SIZE = 15;
+    private static final int TRIAD_GRID = 3;
+    private static final int IRONCLAD_STONE_ROWS = 9;
+    private static final int IRONCLAD_STONE_COLS = 7;
+
+    public record NextMove(long userId, String body) {
+    }
+
+    private final DSLContext dslContext;
+    private final LambdaLogger logger;
+
+    public LoadMoveSource(DSLContext dslContext, LambdaLogger logger) {
+        this.dslContext = dslContext;
+        this.logger = logger;
+    }
+
+    /**
+     * The next move for the game, or null once the game is no longer in progress.  playerIds is the game's
+     * players in join order.
+     */
+    public NextMove nextMove(GameType gameType, long gameId, List<Long> playerIds, Random rng) {
+        return switch (gameType) {
+            case TAC -> tacMove(gameId, rng);
+            case NINETAC -> ninetacMove(gameId, rng);
+            case LOA -> loaMove(gameId, rng);
+            case GOMOKU -> gomokuMove(gameId, rng);
+            case COLLAPSI -> collapsiMove(gameId, rng);
+            case ATAXX -> ataxxMove(gameId, rng);
+            case TRIAD -> triadMove(gameId, rng);
+            case IRONCLAD -> ironcladMove(gameId, rng);
+            case SURGE -> surgeMove(gameId, playerIds, rng);
+            case NONE -> null;
+        };
+    }
+
+    private NextMove tacMove(long gameId, Random rng) {
+        TacGamesRecord game = new TacGamesDKO(dslContext).getGameById(gameId);
+        if (game == null || game.getGameState() != TacGamesGameState.IN_PROGRESS) {
+            return null;
+        }
+        return engineMove(new TacEngine(), game.getBoardState(), 0, game.getUserId(), rng);
+    }
+
+    private NextMove ninetacMove(long gameId, Random rng) {
+        NinetacGamesRecord game = new NinetacGameDKO(dslContext).getGameById(gameId);
+        if (game == null || game.getGameState() != NinetacGamesGameState.IN_PROGRESS) {
+            return null;
+        }
+        // An in-progress game's board is in the move log; board_state is only current for a game started before it.
+        String boardState = new MoveLogDKO(dslContext).replay(GameType.NINETAC, gameId, game.getVersion(),
+                new NinetacMoveReplayer(logger));
+        int seat = Objects.equals(game.getUserIdToMove(), game.getXUserId()) ? 0 : 1;
+        return engineMove(new NinetacEngine(logger), boardState != null ? boardState : game.getBoardState(), seat,
+                game.getUserIdToMove(), rng);
+    }
+
+    private NextMove loaMove(long gameId, Random rng) {
+        LoaGamesRecord game = new LoaGameDKO(dslContext).getGameById(gameId);
+        if (game == null || game.getGameState() != LoaGamesGameState.IN_PROGRESS) {
+            return null;
+        }
+        int seat = Objects.equals(game.getUserIdToMove(), game.getXUserId()) ? 0 : 1;
+        return engineMove(new LoaEngine(logger), game.getBoardState(), seat, game.getUserIdToMove(), rng);
+    }
+
+    // The swap2 opening phases place several stones (or STAY) instead of one.
+    private NextMove gomokuMove(long gameId, Random rng) {
+        GomokuGamesRecord game = new GoMokuGameDKO(dslContext).getGameById(gameId);
+        if (game == null || game.getGameState() != GomokuGamesGameState.IN_PROGRESS) {
+            return null;
+        }
+        GoMokuEngine engine = new GoMokuEngine(GOMOKU_SIZE, logger);
+        int seat = Objects.equals(game.getUserIdToMove(), game.getXUserId()) ? 0 : 1;
+        if (game.getSwap2State() == GomokuGamesSwap2State.GAMEPLAY) {
+            return engineMove(engine, game.getBoardState(), seat, game.getUserIdToMove(), rng);
+        }
+        if (game.getSwap2State() == GomokuGamesSwap2State.AWAITING_TFP_SWAP) {
+            return new NextMove(game.getUserIdToMove(), "STAY");
+        }
+        List<String> empties = new ArrayList<>();
+        for (Location loc : engine.getLegalMoves(engine.deserialize(game.getBoardState()), seat)) {
+            empties.add(loc.toString());
+        }
+        Collections.shuffle(empties, rng);
+        int stones = game.getSwap2State() == GomokuGamesSwap2State.AWAITING_INITIAL_PLACEMENT ? 3 : 1;
+        return new NextMove(game.getUserIdToMove(), String.join(" ", empties.subList(0, stones)));
+    }
+
+    private NextMove collapsiMove(long gameId, Random rng) {
+        CollapsiGamesRecord game = new CollapsiGamesDKO(dslContext).getGameById(gameId);
+        if (game == null || game.getGameState() != CollapsiGamesGameState.IN_PROGRESS) {
+            return null;
+        }
+        long userId = game.getCurrentActionUserid();
+        int seat = new CollapsiPlayersDKO(dslContext).getPlayerByUserId(gameId, userId).getPlayerSeat();
+        return engineMove(new CollapsiEngine(), game.getBoardState(), seat, userId, rng);
+    }
+
+    private NextMove ataxxMove(long gameId, Random rng) {
+        AtaxxGamesRecord game = new AtaxxGameDKO(dslContext).getGameById(gameId);
+        if (game == null || game.getGameState() != AtaxxGamesGameState.IN_PROGRESS) {
+            return null;
+        }
+        List<Long> seats = Arrays.asList(game.getUser0Id(), game.getUser1Id(), game.getUser2Id(), game.getUser3Id());
+        int slot = seats.indexOf(game.getUserIdToMove());
+        if (slot < 0) {
+            return null;
+        }
+        List<Integer> turnOrder = Arrays.stream(game.getTurnOrder().split(",")).map(Integer::parseInt).toList();
+        AtaxxEngine engine = new AtaxxEngine(game.getBoardSize(), game.getBoardOption(), turnOrder, logger);
+        return engineMove(engine, game.getBoardState(), slot, game.getUserIdToMove(), rng);
+    }
+
+    // Both players pick hands at once in HAND_SELECTION; the one still without a hand is sent.
+    private NextMove triadMove(long gameId, Random rng) {
+        TriadGamesRecord game = new TriadGamesDKO(dslContext).getGameById(gameId);
+        if (game == null || game.getGameState() != TriadGamesGameState.IN_PROGRESS) {
+            return null;
+        }
+        List<TriadPlayersRecord> players = new TriadPlayersDKO(dslContext).getPlayersForGame(gameId);
+        if (game.getGamePhase() == TriadGamesGamePhase.HAND_SELECTION) {
+            for (TriadPlayersRecord player : players) {
+                if (player.getCardsInHand().isEmpty()) {
+                    List<String> undrafted = new ArrayList<>(Arrays.asList(player.getUndraftedCards().split(",")));
+                    Collections.shuffle(undrafted, rng);
+                    return new NextMove(player.getUserId(), String.join(" ", undrafted.subList(0, 5)));
+                }
+            }
+            return null;
+        }
+        TriadPlayersRecord mover = players.stream()
+                .filter(p -> Objects.equals(p.getUserId(), game.getCurrentActionUserid()))
+                .findFirst().orElse(null);
+        if (mover == null) {
+            return null;
+        }
+        int handSize = mover.getCardsInHand().split(",").length;
+        Location square = new Location(rng.nextInt(TRIAD_GRID), rng.nextInt(TRIAD_GRID));
+        return new NextMove(mover.getUserId(), (rng.nextInt(handSize) + 1) + " " + square);
+    }
+
+    private NextMove ironcladMove(long gameId, Random rng) {
+        IroncladGamesRecord game = new IroncladGameDKO(dslContext).getGameById(gameId);
+        if (game == null || game.getGameState() != IroncladGamesGameState.IN_PROGRESS) {
+            return null;
+        }
+        Location square = new Location(rng.nextInt(IRONCLAD_STONE_ROWS), rng.nextInt(IRONCLAD_STONE_COLS));
+        return new NextMove(game.getUserIdToMove(), "stone " + square);
+    }
+
+    // Surge commands are simultaneous, so any player may send one; the cron tick resolves them.
+    private NextMove surgeMove(long gameId, List<Long> playerIds, Random rng) {
+        SurgeGamesRecord game = new SurgeGamesDKO(dslContext).getGameById(gameId);
+        if (game == null || game.getGameState() != SurgeGamesGameState.IN_PROGRESS) {
+            return null;
+        }
+        Location square = new Location(rng.nextInt(game.getBoardRows()), rng.nextInt(game.getBoardCols()));
+        char direction = SURGE_DIRECTIONS.charAt(rng.nextInt(SURGE_DIRECTIONS.length()));
+        return new NextMove(playerIds.get(rng.nextInt(playerIds.size())), "open " + square + direction);
+    }
+
+    private static <B, M> NextMove engineMove(GameEngine<B, M> engine, String boardState, int seat, long userId,
+                                              Random rng) {
+        List<M> moves = engine.getLegalMoves(engine.deserialize(boardState), seat);
+        if (moves.isEmpty()) {
+            return null;
+        }
+        return new NextMove(userId, engine.formatMove(moves.get(rng.nextInt(moves.size()))));
+    }
+}
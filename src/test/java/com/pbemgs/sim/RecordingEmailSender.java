@@ -0,0 +1,101 @@
+package com.pbemgs.sim;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.pbemgs.controller.SESEmailSender;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mail stand-in: counts what would have been sent and keeps the most recent emails, instead of connecting
+ * to SMTP.  Safe to share between threads.
+ */
+public class RecordingEmailSender extends SESEmailSender {
+    private final int keepCount;
+    private final Deque<Email> recent = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger recentSize = new AtomicInteger();
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder sentChars = new LongAdder();
+
+    /**
+     * keepCount is how many of the latest emails getRecent() returns; 0 only counts.
+     */
+    public RecordingEmailSender(LambdaLogger logger, int keepCount) {
+        super(logger);
+        this.keepCount = keepCount;
+    }
+
+    @Override
+    public void sendEmail(String toAddress, String subject, String plainTextBody) {
+        record(new Email(toAddress, subject, plainTextBody));
+    }
+
+    @Override
+    public void sendEmail(String toAddress, String subject, PreparedBody body) {
+        record(new Email(toAddress, subject, body.plainTextBody()));
+    }
+
+    @Override
+    public void sendEmails(List<Email> emails) {
+        for (Email email : emails) {
+            record(email);
+        }
+    }
+
+    @Override
+    public boolean sendNotificationEmail(List<String> toAddresses, PreparedBody body) {
+        record(new Email(String.join(",", toAddresses), "PBEMGS-NOTIFICATION", body.plainTextBody()));
+        return true;
+    }
+
+    public long getSentCount() {
+        return sentCount.sum();
+    }
+
+    public long getSentChars() {
+        return sentChars.sum();
+    }
+
+    /**
+     * The latest emails, oldest first.
+     */
+    public List<Email> getRecent() {
+        return new ArrayList<>(recent);
+    }
+
+    /**
+     * Returns the retained emails, oldest first, and forgets them.  Counts are kept.
+     */
+    public List<Email> drain() {
+        List<Email> drained = new ArrayList<>();
+        Email email;
+        while ((email = recent.pollFirst()) != null) {
+            recentSize.decrementAndGet();
+            drained.add(email);
+        }
+        return drained;
+    }
+
+    public void clear() {
+        recent.clear();
+        recentSize.set(0);
+        sentCount.reset();
+        sentChars.reset();
+    }
+
+    private void record(Email email) {
+        sentCount.increment();
+        sentChars.add(email.plainTextBody().length());
+        if (keepCount <= 0) {
+            return;
+        }
+        recent.addLast(email);
+        if (recentSize.incrementAndGet() > keepCount && recent.pollFirst() != null) {
+            recentSize.decrementAndGet();
+        }
+    }
+}